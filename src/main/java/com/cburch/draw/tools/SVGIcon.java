@@ -39,16 +39,32 @@ public class SVGIcon implements Icon {
     private static final int HEIGHT = 16;
     private static final int WIDTH = 16;
 
+    private final String path;
+    private boolean loadAttempted = false;
     private GraphicsNode svgIcon = null;
 
 
     /**
-     * Creates a new instance of an SVG icon, loading from the definition
-     * file at the specified path.
+     * Creates a new instance of an SVG icon, to be loaded from the
+     * definition file at the specified path when it is first painted. Until
+     * then, neither the file nor the SVG classes are loaded, which a run
+     * without the interface never needs.
      *
      * @param path the SVG definition file path
      */
     public SVGIcon(String path) {
+        this.path = path;
+    }
+
+    private synchronized GraphicsNode getNode() {
+        if (!loadAttempted) {
+            loadAttempted = true;
+            svgIcon = load(path);
+        }
+        return svgIcon;
+    }
+
+    private static GraphicsNode load(String path) {
         try {
             // Quick and dirty hack. We should probably use a path resolver.
             String svgPath = (path.startsWith(PATH_PREFIX))
@@ -62,10 +78,11 @@ public class SVGIcon implements Icon {
             BridgeContext ctx = new BridgeContext(userAgent, loader);
             ctx.setDynamicState(BridgeContext.DYNAMIC);
             GVTBuilder builder = new GVTBuilder();
-            this.svgIcon = builder.build(ctx, doc);
+            return builder.build(ctx, doc);
 
         } catch (IOException e) {
             logger.warn("Failed to load SVG icon from path {}", path);
+            return null;
         }
     }
 
@@ -81,11 +98,17 @@ public class SVGIcon implements Icon {
 
     private void paintSvgIcon(Graphics2D g2, int x, int y,
                               double scaleX, double scaleY) {
+        GraphicsNode node = getNode();
+        if (node == null) {
+            return;
+        }
         AffineTransform transform =
                 new AffineTransform(scaleX, ZERO, ZERO, scaleY, x, y);
-        svgIcon.setTransform(transform);
-        g2.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
-        svgIcon.paint(g2);
+        synchronized (node) {
+            node.setTransform(transform);
+            g2.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
+            node.paint(g2);
+        }
     }
 
     @Override
@@ -13,6 +13,7 @@ import java.awt.Rectangle;
 import javax.swing.JComponent;
 import javax.swing.Scrollable;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 
 /**
  * HexEditor is a GUI component for editing Hex values.
@@ -24,15 +25,16 @@ public class HexEditor extends JComponent implements Scrollable {
     private class Listener implements HexModelListener {
         @Override
         public void metainfoChanged(HexModel source) {
+            rows.clear();
             measures.recompute();
             repaint();
         }
         @Override
         public void bytesChanged(HexModel source, long start, long numBytes,
                 int[] oldValues) {
-            repaint(0, measures.toY(start),
-                    getWidth(), measures.toY(start + numBytes) +
-                        measures.getCellHeight());
+            if (numBytes > 0) {
+                changed(start, start + numBytes - 1);
+            }
         }
     }
 
@@ -41,6 +43,12 @@ public class HexEditor extends JComponent implements Scrollable {
     private Measures measures;
     private Caret caret;
     private Highlighter highlighter;
+    private RowCache rows;
+    // the addresses changed since the last repaint for changes, guarded by
+    // rows, and whether that repaint is already scheduled
+    private long changedStart = -1;
+    private long changedEnd = -1;
+    private boolean repaintScheduled = false;
 
     /**
      * Constructs a hex editor object, based on a model
@@ -52,6 +60,7 @@ public class HexEditor extends JComponent implements Scrollable {
         this.measures = new Measures(this);
         this.caret = new Caret(this);
         this.highlighter = new Highlighter(this);
+        this.rows = new RowCache();
 
         // Nick A: change the font here
         this.setFont( new Font( "Dialog", Font.PLAIN, 16 ) );
@@ -118,6 +127,7 @@ public class HexEditor extends JComponent implements Scrollable {
         }
 
         model = value;
+        rows.clear();
         highlighter.clear();
         caret.setDot(-1, false);
         if (model != null) {
@@ -127,6 +137,52 @@ public class HexEditor extends JComponent implements Scrollable {
         measures.recompute();
     }
 
+    // Notes that values changed, arranging for the rows holding them to be
+    // reformatted and repainted at once, however many changes arrive first.
+    private void changed(long start, long end) {
+        synchronized (rows) {
+            if (changedStart < 0 || start < changedStart) {
+                changedStart = start;
+            }
+            if (end > changedEnd) {
+                changedEnd = end;
+            }
+            if (repaintScheduled) {
+                return;
+            }
+            repaintScheduled = true;
+        }
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                repaintChanged();
+            }
+        });
+    }
+
+    private void repaintChanged() {
+        long start;
+        long end;
+        synchronized (rows) {
+            start = changedStart;
+            end = changedEnd;
+            changedStart = -1;
+            changedEnd = -1;
+            repaintScheduled = false;
+        }
+        if (start < 0) {
+            return;
+        }
+
+        rows.invalidate(start, end);
+        int y0 = measures.toY(start);
+        int y1 = measures.toY(end) + measures.getCellHeight();
+        Rectangle visible = getVisibleRect();
+        if (y1 > visible.y && y0 < visible.y + visible.height) {
+            repaint(0, y0, getWidth(), y1 - y0);
+        }
+    }
+
     /**
      * Scroll to the visible address (location of the caret).
      * @param start where to begin
@@ -178,6 +234,17 @@ public class HexEditor extends JComponent implements Scrollable {
      */
     @Override
     protected void paintComponent(Graphics g) {
+        // the font grows with the visible area rather than the area
+        // repainted, so that repainting a few rows does not change it
+        Rectangle visible = getVisibleRect();
+        if (visible.width > 0 && visible.height > 0) {
+            int size = (int) (Math.log10((double) visible.width * visible.height) * 4);
+            Font font = getFont();
+            if (font == null || font.getSize() != size) {
+                setFont(new Font("Dialog", Font.PLAIN, size));
+                g.setFont(getFont());
+            }
+        }
         measures.ensureComputed(g);
 
         Rectangle clip = g.getClipBounds();
@@ -197,10 +264,6 @@ public class HexEditor extends JComponent implements Scrollable {
         long xaddr1 = measures.toAddress(getWidth(), clip.y + clip.height) + 1;
         highlighter.paint(g, xaddr0, xaddr1);
 
-        int newSize = (int)(Math.log10(clip.width*clip.height)*4);
-
-        this.setFont( new Font( "Dialog", Font.PLAIN, newSize ) );
-
         g.setColor(getForeground());
         Font baseFont = g.getFont();
         FontMetrics baseFm = g.getFontMetrics(baseFont);
@@ -217,14 +280,14 @@ public class HexEditor extends JComponent implements Scrollable {
         int cellChars = measures.getCellChars();
 
         for(long a = xaddr0; a < xaddr1; a += cols, baseY += dy) {
-            String label = toHex(a, labelChars);
+            String[] row = rows.get(model, a, cols, labelChars, cellChars);
             g.setFont(labelFont);
-            g.drawString(label, baseX - labelWidth + (labelWidth - labelFm.stringWidth(label)) / 2, baseY);
+            g.drawString(row[0], baseX - labelWidth + (labelWidth - labelFm.stringWidth(row[0])) / 2, baseY);
             g.setFont(baseFont);
             long b = a;
             for(int j = 0; j < cols; j++, b++) {
-                if (b >= addr0 && b <= addr1) {
-                    String val = toHex(model.get(b), cellChars);
+                String val = row[j + 1];
+                if (val != null) {
                     int x = measures.toX(b) + (cellWidth - baseFm.stringWidth(val)) / 2;
                     g.drawString(val, x, baseY);
                 }
@@ -234,28 +297,6 @@ public class HexEditor extends JComponent implements Scrollable {
         caret.paintForeground(g, xaddr0, xaddr1);
     }
 
-    /**
-     * Convert a value to hex
-     * @param value the long value
-     * @param chars the characters value
-     * @return the converted hex string
-     */
-    private String toHex(long value, int chars) {
-        String ret = Long.toHexString(value);
-        int retLen = ret.length();
-        if (retLen < chars) {
-            ret = "0" + ret;
-            for(int i = retLen + 1; i < chars; i++) {
-                ret = "0" + ret;
-            }
-            return ret;
-        } else if (retLen == chars) {
-            return ret;
-        } else {
-            return ret.substring(retLen - chars);
-        }
-    }
-
     //
     // selection methods
     //
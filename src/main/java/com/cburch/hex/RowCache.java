@@ -0,0 +1,97 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.hex;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The formatted text of the rows a hex editor painted most recently, so
+ * that repainting formats only the rows whose values have changed. At most
+ * {@link #CAPACITY} rows are kept, however large the model.
+ */
+class RowCache {
+    static final int CAPACITY = 256;
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    @SuppressWarnings("serial")
+    private final LinkedHashMap<Long, String[]> rows
+        = new LinkedHashMap<Long, String[]>(2 * CAPACITY, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String[]> eldest) {
+                return size() > CAPACITY;
+            }
+        };
+    // the layout the cached rows were formatted for
+    private int cols = -1;
+    private int labelChars = -1;
+    private int cellChars = -1;
+
+    /**
+     * Returns the row of the model starting at the given address: its label
+     * followed by the text of each of its cells, or null for cells outside
+     * the model.
+     */
+    synchronized String[] get(HexModel model, long rowStart, int cols,
+            int labelChars, int cellChars) {
+        if (cols != this.cols || labelChars != this.labelChars
+                || cellChars != this.cellChars) {
+            rows.clear();
+            this.cols = cols;
+            this.labelChars = labelChars;
+            this.cellChars = cellChars;
+        }
+
+        Long key = Long.valueOf(rowStart);
+        String[] ret = rows.get(key);
+        if (ret == null) {
+            long addr0 = model.getFirstOffset();
+            long addr1 = model.getLastOffset();
+            ret = new String[cols + 1];
+            ret[0] = toHex(rowStart, labelChars);
+            for (int j = 0; j < cols; j++) {
+                long b = rowStart + j;
+                if (b >= addr0 && b <= addr1) {
+                    ret[j + 1] = toHex(model.get(b), cellChars);
+                }
+            }
+            rows.put(key, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * Forgets the rows holding any address from start to end inclusive.
+     */
+    synchronized void invalidate(long start, long end) {
+        if (cols <= 0) {
+            return;
+        }
+        long first = start - start % cols;
+        if ((end - first) / cols >= CAPACITY) {
+            rows.clear();
+            return;
+        }
+        for (long row = first; row <= end; row += cols) {
+            rows.remove(Long.valueOf(row));
+        }
+    }
+
+    synchronized void clear() {
+        rows.clear();
+    }
+
+    /**
+     * Returns the low hex digits of a value, as many as given.
+     */
+    static String toHex(long value, int chars) {
+        char[] buf = new char[chars];
+        for (int i = chars - 1; i >= 0; i--) {
+            buf[i] = DIGITS[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+        return new String(buf);
+    }
+}
@@ -52,6 +52,7 @@ class BuildCircuitButton extends JButton {
         private JTextField name = new JTextField(10);
         private JCheckBox twoInputs = new JCheckBox();
         private JCheckBox nands = new JCheckBox();
+        private JCheckBox share = new JCheckBox();
 
         DialogPanel() {
             List<Project> projects = Projects.getOpenProjects();
@@ -110,11 +111,14 @@ class BuildCircuitButton extends JButton {
             gb.setConstraints(twoInputs, gc); add(twoInputs);
               gc.gridy++;
             gb.setConstraints(nands, gc); add(nands);
+              gc.gridy++;
+            gb.setConstraints(share, gc); add(share);
 
             projectLabel.setText(getFromLocale("buildProjectLabel"));
             nameLabel.setText(getFromLocale("buildNameLabel"));
             twoInputs.setText(getFromLocale("buildTwoInputsLabel"));
             nands.setText(getFromLocale("buildNandsLabel"));
+            share.setText(getFromLocale("buildShareLabel"));
         }
     }
 
@@ -125,6 +129,7 @@ class BuildCircuitButton extends JButton {
             String name = null;
             boolean twoInputs = false;
             boolean useNands = false;
+            boolean shareGates = false;
             boolean replace = false;
 
             boolean ok = false;
@@ -165,10 +170,11 @@ class BuildCircuitButton extends JButton {
 
                 twoInputs = dlog.twoInputs.isSelected();
                 useNands = dlog.nands.isSelected();
+                shareGates = dlog.share.isSelected();
                 ok = true;
             }
 
-            performAction(dest, name, replace, twoInputs, useNands);
+            performAction(dest, name, replace, twoInputs, useNands, shareGates);
         }
     }
 
@@ -187,7 +193,8 @@ class BuildCircuitButton extends JButton {
     }
 
     private void performAction(Project dest, String name, boolean replace,
-            final boolean twoInputs, final boolean useNands) {
+            final boolean twoInputs, final boolean useNands,
+            final boolean shareGates) {
         if (replace) {
             final Circuit circuit = dest.getLogisimFile().getCircuit(name);
             if (circuit == null) {
@@ -198,13 +205,13 @@ class BuildCircuitButton extends JButton {
             }
 
             CircuitMutation xn = CircuitBuilder.build(circuit, model, twoInputs,
-                    useNands);
+                    useNands, shareGates);
             dest.doAction(xn.toAction(getFromLocale("replaceCircuitAction")));
         } else {
             // add the circuit
             Circuit circuit = new Circuit(name);
             CircuitMutation xn = CircuitBuilder.build(circuit, model, twoInputs,
-                    useNands);
+                    useNands, shareGates);
             xn.execute();
             dest.doAction(LogisimFileActions.addCircuit(circuit));
             dest.setCurrentCircuit(circuit);
@@ -331,12 +331,8 @@ class TableTab extends JPanel implements TruthTablePanel, TabInterface {
         if (r1 < r0) { int t = r0; r0 = r1; r1 = t; }
         if (c1 < c0) { int t = c0; c0 = c1; c1 = t; }
         int inputs = table.getInputColumnCount();
-        for (int c = c0; c <= c1; c++) {
-            if (c >= inputs) {
-                for (int r = r0; r <= r1; r++) {
-                    table.setOutputEntry(r, c - inputs, Entry.DONT_CARE);
-                }
-            }
+        for (int c = Math.max(c0, inputs); c <= c1; c++) {
+            table.fillOutputEntries(r0, r1 + 1, c - inputs, Entry.DONT_CARE);
         }
     }
 
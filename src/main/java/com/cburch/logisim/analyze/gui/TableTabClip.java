@@ -219,12 +219,14 @@ class TableTabClip implements ClipboardOwner {
                 return;
             }
         }
-        for (int r = 0; r < entries.length; r++) {
-            for (int c = 0; c < entries[0].length; c++) {
-                if (c0 + c >= inputs) {
-                    model.setOutputEntry(r0 + r, c0 + c - inputs,
-                            entries[r][c]);
+        // store a column at a time, so that each column is re-analyzed once
+        Entry[] column = new Entry[entries.length];
+        for (int c = 0; c < entries[0].length; c++) {
+            if (c0 + c >= inputs) {
+                for (int r = 0; r < entries.length; r++) {
+                    column[r] = entries[r][c];
                 }
+                model.setOutputEntries(r0, c0 + c - inputs, column);
             }
         }
     }
@@ -0,0 +1,316 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.analyze.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A heuristic two-level minimizer in the style of Espresso-II. Unlike the
+ * exact Quine-McCluskey procedure in {@link Implicant}, it never enumerates
+ * all prime implicants: it builds a cover of prime cubes by expanding each
+ * uncovered minterm as far as the off-set allows, discards redundant
+ * cubes, and then repeatedly reduces and re-expands the cover for as long
+ * as that makes it cheaper. The result is a prime, irredundant cover,
+ * though not necessarily a minimum one.
+ * <p>
+ * A cube is packed into a pair of ints, as in {@link Implicant}: a mask
+ * of the free input bits and the values of the fixed ones. The cover is a
+ * flat array of such pairs, and the truth table is a byte per row.
+ * <p>
+ * When run on a thread that is interrupted, the minimizer gives up by
+ * throwing a {@link CancellationException}.
+ */
+class Espresso {
+    private static final byte OFF = 0;
+    private static final byte ON = 1;
+    private static final byte DC = 2;
+
+    // at most this many rounds of reduce, expand and irredundant are run
+    // after the first cover; each costs about as much as the first cover
+    private static final int MAX_ROUNDS = 8;
+
+    /**
+     * Computes a minimized cover of the rows of the given column that hold
+     * the desired entry. Rows holding the opposite value must not be
+     * covered; all other rows are don't-cares.
+     *
+     * @param inputs the number of inputs
+     * @param column the column of entries, one per row
+     * @param desired the entry whose rows to cover
+     * @return the implicants of the cover, sorted, or null if no row of
+     *         the column holds a known value
+     */
+    static List<Implicant> minimize(int inputs, Entry[] column, Entry desired) {
+        return minimize(inputs, PackedColumn.of(column), desired);
+    }
+
+    static List<Implicant> minimize(int inputs, PackedColumn column,
+            Entry desired) {
+        int desiredCode = PackedColumn.encode(desired);
+        int undesiredCode = desired == Entry.ONE ? PackedColumn.ZERO : PackedColumn.ONE;
+        byte[] kinds = new byte[column.getRowCount()];
+        boolean knownFound = false;
+        for (int i = 0; i < kinds.length; i++) {
+            int code = column.code(i);
+            if (code == desiredCode) {
+                kinds[i] = ON;
+                knownFound = true;
+            } else if (code == undesiredCode) {
+                kinds[i] = OFF;
+                knownFound = true;
+            } else {
+                kinds[i] = DC;
+            }
+        }
+        if (!knownFound) {
+            return null;
+        }
+
+        Espresso espresso = new Espresso(inputs, kinds);
+        espresso.run();
+        return espresso.getImplicants();
+    }
+
+    private final int allInputs;
+    private final byte[] kinds;
+    // for each on-set row, the number of cubes of the cover containing it
+    private int[] coverCount;
+    // the cover: cubes[2 * i] is the free mask of cube i and
+    // cubes[2 * i + 1] its values
+    private int[] cubes = new int[16];
+    private int cubeCount = 0;
+
+    private Espresso(int inputs, byte[] kinds) {
+        this.allInputs = inputs >= 32 ? -1 : (1 << inputs) - 1;
+        this.kinds = kinds;
+        this.coverCount = new int[kinds.length];
+    }
+
+    private void run() {
+        // initial cover: expand each on-set row not yet covered
+        for (int row = 0; row < kinds.length; row++) {
+            if ((row & 0xfff) == 0) {
+                checkInterrupted();
+            }
+            if (kinds[row] == ON && coverCount[row] == 0) {
+                addCube(0, row);
+                expand(cubeCount - 1);
+            }
+        }
+        irredundant();
+
+        long cost = cost();
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            checkInterrupted();
+            int[] savedCubes = Arrays.copyOf(cubes, 2 * cubeCount);
+            int savedCount = cubeCount;
+            int[] savedCover = coverCount.clone();
+
+            reduce();
+            for (int i = 0; i < cubeCount; i++) {
+                expand(i);
+            }
+            irredundant();
+
+            long newCost = cost();
+            if (newCost >= cost) {
+                cubes = savedCubes;
+                cubeCount = savedCount;
+                coverCount = savedCover;
+                break;
+            }
+            cost = newCost;
+        }
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+    }
+
+    private List<Implicant> getImplicants() {
+        ArrayList<Implicant> ret = new ArrayList<Implicant>(cubeCount);
+        for (int i = 0; i < cubeCount; i++) {
+            ret.add(new Implicant(cubes[2 * i], cubes[2 * i + 1]));
+        }
+        Collections.sort(ret);
+        return ret;
+    }
+
+    // the number of cubes dominates, then the number of literals
+    private long cost() {
+        long literals = 0;
+        for (int i = 0; i < cubeCount; i++) {
+            literals += Integer.bitCount(allInputs & ~cubes[2 * i]);
+        }
+        return ((long) cubeCount << 32) + literals;
+    }
+
+    private void addCube(int free, int values) {
+        if (2 * cubeCount == cubes.length) {
+            cubes = Arrays.copyOf(cubes, 2 * cubes.length);
+        }
+        cubes[2 * cubeCount] = free;
+        cubes[2 * cubeCount + 1] = values;
+        cubeCount++;
+        adjustCover(free, values, 1);
+    }
+
+    private void adjustCover(int free, int values, int delta) {
+        int sub = 0;
+        do {
+            int row = values | sub;
+            if (kinds[row] == ON) {
+                coverCount[row] += delta;
+            }
+            sub = (sub - free) & free;
+        } while (sub != 0);
+    }
+
+    // Raises literals of the cube one at a time until it is prime. At
+    // each step the literal chosen is the one whose raising brings in the
+    // most uncovered on-set rows, then the most on-set rows; a literal
+    // cannot be raised if that would bring in an off-set row.
+    private void expand(int index) {
+        int free = cubes[2 * index];
+        int values = cubes[2 * index + 1];
+        while (true) {
+            int best = 0;
+            long bestScore = -1;
+            for (int rest = allInputs & ~free; rest != 0; rest &= rest - 1) {
+                int bit = rest & -rest;
+                long score = scoreHalf(free, values ^ bit);
+                if (score > bestScore) {
+                    best = bit;
+                    bestScore = score;
+                }
+            }
+            if (best == 0) {
+                break;
+            }
+            // the other half is now part of this cube
+            adjustCover(free, values ^ best, 1);
+            free |= best;
+            values &= ~best;
+        }
+        cubes[2 * index] = free;
+        cubes[2 * index + 1] = values;
+    }
+
+    // scores the cube (free, values) as an addition to a cube, or returns
+    // -1 if it contains an off-set row
+    private long scoreHalf(int free, int values) {
+        long uncovered = 0;
+        long on = 0;
+        int sub = 0;
+        do {
+            int row = values | sub;
+            byte kind = kinds[row];
+            if (kind == OFF) {
+                return -1;
+            } else if (kind == ON) {
+                on++;
+                if (coverCount[row] == 0) {
+                    uncovered++;
+                }
+            }
+            sub = (sub - free) & free;
+        } while (sub != 0);
+        return (uncovered << 32) | on;
+    }
+
+    // Removes cubes whose on-set rows are all covered by other cubes,
+    // trying the smallest cubes first.
+    private void irredundant() {
+        int[] order = sortedBySize(true);
+        boolean[] removed = new boolean[cubeCount];
+        for (int i : order) {
+            if (isRedundant(cubes[2 * i], cubes[2 * i + 1])) {
+                adjustCover(cubes[2 * i], cubes[2 * i + 1], -1);
+                removed[i] = true;
+            }
+        }
+        compact(removed);
+    }
+
+    private boolean isRedundant(int free, int values) {
+        int sub = 0;
+        do {
+            int row = values | sub;
+            if (kinds[row] == ON && coverCount[row] < 2) {
+                return false;
+            }
+            sub = (sub - free) & free;
+        } while (sub != 0);
+        return true;
+    }
+
+    // Shrinks each cube, largest first, to the smallest cube containing
+    // the on-set rows that no other cube covers, so that the following
+    // expansion may take it in a different direction.
+    private void reduce() {
+        int[] order = sortedBySize(false);
+        boolean[] removed = new boolean[cubeCount];
+        for (int i : order) {
+            int free = cubes[2 * i];
+            int values = cubes[2 * i + 1];
+            int and = -1;
+            int or = 0;
+            int sub = 0;
+            do {
+                int row = values | sub;
+                if (kinds[row] == ON && coverCount[row] == 1) {
+                    and &= row;
+                    or |= row;
+                }
+                sub = (sub - free) & free;
+            } while (sub != 0);
+
+            adjustCover(free, values, -1);
+            if (or == 0 && and == -1) {
+                removed[i] = true;
+            } else {
+                int newFree = and ^ or;
+                int newValues = and;
+                cubes[2 * i] = newFree;
+                cubes[2 * i + 1] = newValues;
+                adjustCover(newFree, newValues, 1);
+            }
+        }
+        compact(removed);
+    }
+
+    // returns the indices of the cubes ordered by their number of free
+    // inputs, sorting packed (size, index) keys to avoid boxing
+    private int[] sortedBySize(boolean ascending) {
+        long[] keys = new long[cubeCount];
+        for (int i = 0; i < cubeCount; i++) {
+            long size = Integer.bitCount(cubes[2 * i]);
+            keys[i] = ((ascending ? size : 32 - size) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[cubeCount];
+        for (int i = 0; i < cubeCount; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    private void compact(boolean[] removed) {
+        int n = 0;
+        for (int i = 0; i < cubeCount; i++) {
+            if (!removed[i]) {
+                cubes[2 * n] = cubes[2 * i];
+                cubes[2 * n + 1] = cubes[2 * i + 1];
+                n++;
+            }
+        }
+        cubeCount = n;
+    }
+}
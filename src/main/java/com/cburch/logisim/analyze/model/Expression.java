@@ -3,8 +3,18 @@
 
 package com.cburch.logisim.analyze.model;
 
-import java.util.HashSet;
-
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A Boolean expression. Expressions are created by {@link Expressions},
+ * which shares structurally equal subexpressions, so an expression is a
+ * directed acyclic graph in which a node may be reached along many paths.
+ * The methods here that walk an expression therefore visit each distinct
+ * node once, reusing the result wherever the node appears again, and the
+ * text of a node is computed only once.
+ */
 public abstract class Expression {
     public static final int OR_LEVEL = 0;
     public static final int XOR_LEVEL = 1;
@@ -34,23 +44,36 @@ public abstract class Expression {
     abstract void visit(Visitor visitor);
     abstract int visit(IntVisitor visitor);
 
+    // cached by toString
+    private String text = null;
+
     public boolean evaluate(final Assignments assignments) {
+        final IdentityHashMap<Expression, Integer> values
+            = new IdentityHashMap<Expression, Integer>();
         int ret = visit(new IntVisitor() {
+            private int value(Expression e) {
+                Integer ret = values.get(e);
+                if (ret == null) {
+                    ret = Integer.valueOf(e.visit(this));
+                    values.put(e, ret);
+                }
+                return ret.intValue();
+            }
             @Override
             public int visitAnd(Expression a, Expression b) {
-                return a.visit(this) & b.visit(this);
+                return value(a) & value(b);
             }
             @Override
             public int visitOr(Expression a, Expression b) {
-                return a.visit(this) | b.visit(this);
+                return value(a) | value(b);
             }
             @Override
             public int visitXor(Expression a, Expression b) {
-                return a.visit(this) ^ b.visit(this);
+                return value(a) ^ value(b);
             }
             @Override
             public int visitNot(Expression a) {
-                return ~a.visit(this);
+                return ~value(a);
             }
             @Override
             public int visitVariable(String name) {
@@ -64,8 +87,31 @@ public abstract class Expression {
         return (ret & 1) != 0;
     }
 
+    /**
+     * Evaluates the expression on every row of a truth table with the
+     * given inputs, the first input selecting the most significant bit of
+     * the row number; variables that are not inputs are false. The rows
+     * are evaluated 64 at a time, each distinct node once per word.
+     *
+     * @return the value of row r in bit r % 64 of word r / 64
+     */
+    public long[] evaluateRows(List<String> inputs) {
+        RowEvaluator program = new RowEvaluator(inputs);
+        program.number(this);
+        return program.run();
+    }
+
     @Override
     public String toString() {
+        String ret = text;
+        if (ret == null) {
+            ret = computeText();
+            text = ret;
+        }
+        return ret;
+    }
+
+    private String computeText() {
         final StringBuilder text = new StringBuilder();
         visit(new Visitor() {
             @Override
@@ -113,8 +159,13 @@ public abstract class Expression {
     }
 
     public boolean isCircular() {
-        final HashSet<Expression> visited = new HashSet<Expression>();
-        visited.add(this);
+        // the nodes on the path from the root, and those known not to
+        // lead back to one on the path
+        final IdentityHashMap<Expression, Boolean> visited
+            = new IdentityHashMap<Expression, Boolean>();
+        final IdentityHashMap<Expression, Boolean> cleared
+            = new IdentityHashMap<Expression, Boolean>();
+        visited.put(this, Boolean.TRUE);
         return 1 == visit(new IntVisitor() {
             @Override
             public int visitAnd(Expression a, Expression b) { return binary(a, b); }
@@ -124,16 +175,7 @@ public abstract class Expression {
             public int visitXor(Expression a, Expression b) { return binary(a, b); }
             @Override
             public int visitNot(Expression a) {
-                if (!visited.add(a)) {
-                    return 1;
-                }
-
-                if (a.visit(this) == 1) {
-                    return 1;
-                }
-
-                visited.remove(a);
-                return 0;
+                return check(a);
             }
             @Override
             public int visitVariable(String name) { return 0; }
@@ -141,140 +183,125 @@ public abstract class Expression {
             public int visitConstant(int value) { return 0; }
 
             private int binary(Expression a, Expression b) {
-                if (!visited.add(a)) {
-                    return 1;
-                }
+                return check(a) == 1 || check(b) == 1 ? 1 : 0;
+            }
 
-                if (a.visit(this) == 1) {
-                    return 1;
+            private int check(Expression e) {
+                if (cleared.containsKey(e)) {
+                    return 0;
                 }
 
-                visited.remove(a);
-
-                if (!visited.add(b)) {
+                if (visited.put(e, Boolean.TRUE) != null) {
                     return 1;
                 }
 
-                if (b.visit(this) == 1) {
+                if (e.visit(this) == 1) {
                     return 1;
                 }
 
-                visited.remove(b);
-
+                visited.remove(e);
+                cleared.put(e, Boolean.TRUE);
                 return 0;
             }
         });
     }
 
+    // Rebuilds an expression node by node, rewriting each distinct node
+    // only once so that the result shares nodes as the original does.
+    private abstract static class Rewriter implements ExpressionVisitor<Expression> {
+        private final IdentityHashMap<Expression, Expression> done
+            = new IdentityHashMap<Expression, Expression>();
+
+        Expression rewrite(Expression e) {
+            if (done.containsKey(e)) {
+                return done.get(e);
+            }
+
+            Expression ret = e.visit(this);
+            done.put(e, ret);
+            return ret;
+        }
+
+        @Override
+        public Expression visitConstant(int value) {
+            return Expressions.constant(value);
+        }
+    }
+
     Expression removeVariable(final String input) {
-        return visit(new ExpressionVisitor<Expression>() {
+        return new Rewriter() {
             @Override
             public Expression visitAnd(Expression a, Expression b) {
-                Expression l = a.visit(this);
-                Expression r = b.visit(this);
-                if (l == null) {
-                    return r;
-                }
-
-                if (r == null) {
-                    return l;
-                }
-
-                return Expressions.and(l, r);
+                // and, or and xor each treat a missing operand as absent
+                return Expressions.and(rewrite(a), rewrite(b));
             }
             @Override
             public Expression visitOr(Expression a, Expression b) {
-                Expression l = a.visit(this);
-                Expression r = b.visit(this);
-                if (l == null) {
-                    return r;
-                }
-
-                if (r == null) {
-                    return l;
-                }
-
-                return Expressions.or(l, r);
+                return Expressions.or(rewrite(a), rewrite(b));
             }
             @Override
             public Expression visitXor(Expression a, Expression b) {
-                Expression l = a.visit(this);
-                Expression r = b.visit(this);
-                if (l == null) {
-                    return r;
-                }
-
-                if (r == null) {
-                    return l;
-                }
-
-                return Expressions.xor(l, r);
+                return Expressions.xor(rewrite(a), rewrite(b));
             }
             @Override
             public Expression visitNot(Expression a) {
-                Expression l = a.visit(this);
-                if (l == null) {
-                    return null;
-                }
-
-                return Expressions.not(l);
+                return Expressions.not(rewrite(a));
             }
             @Override
             public Expression visitVariable(String name) {
                 return name.equals(input) ? null : Expressions.variable(name);
             }
-            @Override
-            public Expression visitConstant(int value) {
-                return Expressions.constant(value);
-            }
-        });
+        }.rewrite(this);
     }
 
     Expression replaceVariable(final String oldName, final String newName) {
-        return visit(new ExpressionVisitor<Expression>() {
+        return new Rewriter() {
             @Override
             public Expression visitAnd(Expression a, Expression b) {
-                Expression l = a.visit(this);
-                Expression r = b.visit(this);
-                return Expressions.and(l, r);
+                return Expressions.and(rewrite(a), rewrite(b));
             }
             @Override
             public Expression visitOr(Expression a, Expression b) {
-                Expression l = a.visit(this);
-                Expression r = b.visit(this);
-                return Expressions.or(l, r);
+                return Expressions.or(rewrite(a), rewrite(b));
             }
             @Override
             public Expression visitXor(Expression a, Expression b) {
-                Expression l = a.visit(this);
-                Expression r = b.visit(this);
-                return Expressions.xor(l, r);
+                return Expressions.xor(rewrite(a), rewrite(b));
             }
             @Override
             public Expression visitNot(Expression a) {
-                Expression l = a.visit(this);
-                return Expressions.not(l);
+                return Expressions.not(rewrite(a));
             }
             @Override
             public Expression visitVariable(String name) {
                 return Expressions.variable(name.equals(oldName) ? newName : name);
             }
-            @Override
-            public Expression visitConstant(int value) {
-                return Expressions.constant(value);
-            }
-        });
+        }.rewrite(this);
     }
 
     public boolean containsXor() {
+        // the nodes found to contain no xor
+        final IdentityHashMap<Expression, Boolean> clear
+            = new IdentityHashMap<Expression, Boolean>();
         return 1 == visit(new IntVisitor() {
+            private int check(Expression e) {
+                if (clear.containsKey(e)) {
+                    return 0;
+                }
+
+                int ret = e.visit(this);
+                if (ret == 0) {
+                    clear.put(e, Boolean.TRUE);
+                }
+                return ret;
+            }
             @Override
             public int visitAnd(Expression a, Expression b) {
-                return a.visit(this) == 1 || b.visit(this) == 1 ? 1 : 0;
+                return check(a) == 1 || check(b) == 1 ? 1 : 0;
             }
             @Override
             public int visitOr(Expression a, Expression b) {
-                return a.visit(this) == 1 || b.visit(this) == 1 ? 1 : 0;
+                return check(a) == 1 || check(b) == 1 ? 1 : 0;
             }
             @Override
             public int visitXor(Expression a, Expression b) {
@@ -282,7 +309,7 @@ public abstract class Expression {
             }
             @Override
             public int visitNot(Expression a) {
-                return a.visit(this);
+                return check(a);
             }
             @Override
             public int visitVariable(String name) {
@@ -345,4 +372,114 @@ public abstract class Expression {
             }
         });
     }
+
+    // A program evaluating an expression on 64 rows at a time: each
+    // distinct node becomes one step, numbered after its operands.
+    private static class RowEvaluator implements ExpressionVisitor<int[]> {
+        private static final int AND = 0;
+        private static final int OR = 1;
+        private static final int XOR = 2;
+        private static final int NOT = 3;
+        private static final int INPUT = 4;
+        private static final int CONSTANT = 5;
+
+        // the rows whose bit k is set, for the low bits of the row number
+        private static final long[] LOW_INPUTS = {
+            0xAAAAAAAAAAAAAAAAL, 0xCCCCCCCCCCCCCCCCL,
+            0xF0F0F0F0F0F0F0F0L, 0xFF00FF00FF00FF00L,
+            0xFFFF0000FFFF0000L, 0xFFFFFFFF00000000L,
+        };
+
+        private final List<String> inputs;
+        private final IdentityHashMap<Expression, Integer> steps
+            = new IdentityHashMap<Expression, Integer>();
+        private final ArrayList<int[]> program = new ArrayList<int[]>();
+
+        RowEvaluator(List<String> inputs) {
+            this.inputs = inputs;
+        }
+
+        int number(Expression e) {
+            Integer ret = steps.get(e);
+            if (ret == null) {
+                program.add(e.visit(this));
+                ret = Integer.valueOf(program.size() - 1);
+                steps.put(e, ret);
+            }
+            return ret.intValue();
+        }
+
+        long[] run() {
+            int cols = inputs.size();
+            int rows = 1 << cols;
+            long[] ret = new long[(rows + 63) >>> 6];
+            long[] values = new long[program.size()];
+            for (int w = 0; w < ret.length; w++) {
+                for (int i = 0; i < values.length; i++) {
+                    int[] step = program.get(i);
+                    switch (step[0]) {
+                    case AND:
+                        values[i] = values[step[1]] & values[step[2]];
+                        break;
+                    case OR:
+                        values[i] = values[step[1]] | values[step[2]];
+                        break;
+                    case XOR:
+                        values[i] = values[step[1]] ^ values[step[2]];
+                        break;
+                    case NOT:
+                        values[i] = ~values[step[1]];
+                        break;
+                    case INPUT:
+                        values[i] = inputWord(cols - 1 - step[1], w);
+                        break;
+                    default:
+                        values[i] = step[1];
+                        break;
+                    }
+                }
+                ret[w] = values[values.length - 1];
+            }
+            if (rows < 64) {
+                ret[0] &= (1L << rows) - 1;
+            }
+            return ret;
+        }
+
+        private static long inputWord(int bit, int word) {
+            if (bit < 6) {
+                return LOW_INPUTS[bit];
+            } else {
+                return ((word >>> (bit - 6)) & 1) == 0 ? 0 : -1L;
+            }
+        }
+
+        @Override
+        public int[] visitAnd(Expression a, Expression b) {
+            return new int[] { AND, number(a), number(b) };
+        }
+        @Override
+        public int[] visitOr(Expression a, Expression b) {
+            return new int[] { OR, number(a), number(b) };
+        }
+        @Override
+        public int[] visitXor(Expression a, Expression b) {
+            return new int[] { XOR, number(a), number(b) };
+        }
+        @Override
+        public int[] visitNot(Expression a) {
+            return new int[] { NOT, number(a) };
+        }
+        @Override
+        public int[] visitVariable(String name) {
+            // a variable that is no input is always false
+            int index = inputs.indexOf(name);
+            return index < 0 ? new int[] { CONSTANT, 0 }
+                : new int[] { INPUT, index };
+        }
+        @Override
+        public int[] visitConstant(int value) {
+            return new int[] { CONSTANT, (value & 1) == 0 ? 0 : -1 };
+        }
+    }
 }
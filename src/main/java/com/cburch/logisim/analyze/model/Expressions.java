@@ -3,17 +3,46 @@
 
 package com.cburch.logisim.analyze.model;
 
-
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Creates expressions. The expressions are hash-consed: each factory
+ * method returns the existing node if a structurally equal one is still
+ * in use, so that equal subexpressions built separately share one node.
+ * An expression is therefore a directed acyclic graph rather than a tree,
+ * and two expressions are equal exactly when they are the same object.
+ * Comparing and hashing nodes takes constant time, since the children of
+ * a node are already unique.
+ */
 public class Expressions {
     private Expressions() { }
 
+    // the nodes in use, each mapped to itself; the nodes are weakly held
+    // so that an expression no longer referenced is forgotten
+    private static final WeakHashMap<Expression, WeakReference<Expression>> NODES
+        = new WeakHashMap<Expression, WeakReference<Expression>>();
+
+    private static synchronized Expression intern(Expression node) {
+        WeakReference<Expression> ref = NODES.get(node);
+        Expression ret = ref == null ? null : ref.get();
+        if (ret == null) {
+            NODES.put(node, new WeakReference<Expression>(node));
+            ret = node;
+        }
+        return ret;
+    }
+
     private static abstract class Binary extends Expression {
         protected final Expression a;
         protected final Expression b;
+        private final int hash;
 
         Binary(Expression a, Expression b) {
             this.a = a;
             this.b = b;
+            this.hash = 31 * (31 * getClass().getName().hashCode()
+                + a.hashCode()) + b.hashCode();
         }
 
         @Override
@@ -26,14 +55,14 @@ public class Expressions {
                 return false;
             }
 
+            // the children are interned
             Binary o = (Binary) other;
-            return this.a.equals(o.a) && this.b.equals(o.b);
+            return this.a == o.a && this.b == o.b;
         }
 
         @Override
         public int hashCode() {
-            return 31 * (31 * getClass().hashCode() + a.hashCode())
-                + b.hashCode();
+            return hash;
         }
     }
 
@@ -116,7 +145,7 @@ public class Expressions {
     }
 
     private static class Not extends Expression {
-        private Expression a;
+        private final Expression a;
 
         Not(Expression a) {
             this.a = a;
@@ -149,7 +178,7 @@ public class Expressions {
             }
 
             Not o = (Not) other;
-            return this.a.equals(o.a);
+            return this.a == o.a;
         }
 
         @Override
@@ -159,7 +188,7 @@ public class Expressions {
     }
 
     private static class Variable extends Expression {
-        private String name;
+        private final String name;
 
         Variable(String name) {
             this.name = name;
@@ -202,7 +231,7 @@ public class Expressions {
     }
 
     private static class Constant extends Expression {
-        private int value;
+        private final int value;
 
         Constant(int value) {
             this.value = value;
@@ -253,7 +282,7 @@ public class Expressions {
             return a;
         }
 
-        return new And(a, b);
+        return intern(new And(a, b));
     }
 
     public static Expression or(Expression a, Expression b) {
@@ -265,7 +294,7 @@ public class Expressions {
             return a;
         }
 
-        return new Or(a, b);
+        return intern(new Or(a, b));
     }
 
     public static Expression xor(Expression a, Expression b) {
@@ -277,7 +306,7 @@ public class Expressions {
             return a;
         }
 
-        return new Xor(a, b);
+        return intern(new Xor(a, b));
     }
 
     public static Expression not(Expression a) {
@@ -285,14 +314,14 @@ public class Expressions {
             return null;
         }
 
-        return new Not(a);
+        return intern(new Not(a));
     }
 
     public static Expression variable(String name) {
-        return new Variable(name);
+        return intern(new Variable(name));
     }
 
     public static Expression constant(int value) {
-        return new Constant(value);
+        return intern(new Constant(value));
     }
 }
@@ -13,6 +13,10 @@ import java.util.List;
 import java.util.Map;
 
 public class Implicant implements Comparable<Implicant> {
+    // tables with more inputs than this are minimized heuristically, as
+    // the exact method's memory use grows exponentially with the inputs
+    static final int MAX_EXACT_INPUTS = 8;
+
     static Implicant MINIMAL_IMPLICANT = new Implicant(0, -1);
     static List<Implicant> MINIMAL_LIST = Arrays.asList(new Implicant[] { MINIMAL_IMPLICANT });
 
@@ -55,7 +59,7 @@ public class Implicant implements Comparable<Implicant> {
     private int unknowns;
     private int values;
 
-    private Implicant(int unknowns, int values) {
+    Implicant(int unknowns, int values) {
         this.unknowns = unknowns;
         this.values = values;
     }
@@ -118,12 +122,12 @@ public class Implicant implements Comparable<Implicant> {
         return values;
     }
 
-    private Expression toProduct(TruthTable source) {
+    private Expression toProduct(List<String> inputs) {
         Expression term = null;
-        int cols = source.getInputColumnCount();
+        int cols = inputs.size();
         for (int i = cols - 1; i >= 0; i--) {
             if ((unknowns & (1 << i)) == 0) {
-                Expression literal = Expressions.variable(source.getInputHeader(cols - 1 - i));
+                Expression literal = Expressions.variable(inputs.get(cols - 1 - i));
                 if ((values & (1 << i)) == 0) {
                     literal = Expressions.not(literal);
                 }
@@ -134,12 +138,12 @@ public class Implicant implements Comparable<Implicant> {
         return term == null ? Expressions.constant(1) : term;
     }
 
-    private Expression toSum(TruthTable source) {
+    private Expression toSum(List<String> inputs) {
         Expression term = null;
-        int cols = source.getInputColumnCount();
+        int cols = inputs.size();
         for (int i = cols - 1; i >= 0; i--) {
             if ((unknowns & (1 << i)) == 0) {
-                Expression literal = Expressions.variable(source.getInputHeader(cols - 1 - i));
+                Expression literal = Expressions.variable(inputs.get(cols - 1 - i));
                 if ((values & (1 << i)) != 0) {
                     literal = Expressions.not(literal);
                 }
@@ -151,21 +155,25 @@ public class Implicant implements Comparable<Implicant> {
     }
 
     static Expression toExpression(int format, AnalyzerModel model, List<Implicant> implicants) {
+        return toExpression(format, model.getInputs().getAll(), implicants);
+    }
+
+    static Expression toExpression(int format, List<String> inputs,
+            List<Implicant> implicants) {
         if (implicants == null) {
             return null;
         }
 
-        TruthTable table = model.getTruthTable();
         if (format == AnalyzerModel.FORMAT_PRODUCT_OF_SUMS) {
             Expression product = null;
             for (Implicant imp : implicants) {
-                product = Expressions.and(product, imp.toSum(table));
+                product = Expressions.and(product, imp.toSum(inputs));
             }
             return product == null ? Expressions.constant(1) : product;
         } else {
             Expression sum = null;
             for (Implicant imp : implicants) {
-                sum = Expressions.or(sum, imp.toProduct(table));
+                sum = Expressions.or(sum, imp.toProduct(inputs));
             }
             return sum == null ? Expressions.constant(0) : sum;
         }
@@ -179,9 +187,30 @@ public class Implicant implements Comparable<Implicant> {
             return Collections.emptyList();
         }
 
+        return computeMinimal(format, table.getInputColumnCount(),
+                table.getPackedColumn(column));
+    }
 
+    /**
+     * Computes a minimal cover of a column, which the caller must not
+     * modify until this returns. This may be called off the event thread
+     * with a copy of the column; when the calling thread is interrupted
+     * the computation may be abandoned by throwing a
+     * <code>CancellationException</code>.
+     */
+    static List<Implicant> computeMinimal(int format, int inputs,
+            PackedColumn column) {
         Entry desired = format == AnalyzerModel.FORMAT_SUM_OF_PRODUCTS
             ? Entry.ONE : Entry.ZERO;
+        if (inputs > MAX_EXACT_INPUTS) {
+            return Espresso.minimize(inputs, column, desired);
+        }
+        return computeExact(column, desired);
+    }
+
+    // the Quine-McCluskey procedure
+    private static List<Implicant> computeExact(PackedColumn column,
+            Entry desired) {
         Entry undesired = desired == Entry.ONE ? Entry.ZERO : Entry.ONE;
 
         // determine the first-cut implicants, as well as the rows
@@ -189,8 +218,8 @@ public class Implicant implements Comparable<Implicant> {
         HashMap<Implicant,Entry> base = new HashMap<Implicant,Entry>();
         HashSet<Implicant> toCover = new HashSet<Implicant>();
         boolean knownFound = false;
-        for (int i = 0; i < table.getRowCount(); i++) {
-            Entry entry = table.getOutputEntry(i, column);
+        for (int i = 0; i < column.getRowCount(); i++) {
+            Entry entry = column.get(i);
             if (entry == undesired) {
                 knownFound = true;
             } else if (entry == desired) {
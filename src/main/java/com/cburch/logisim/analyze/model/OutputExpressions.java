@@ -8,8 +8,26 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.swing.SwingUtilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class OutputExpressions {
+    private static final Logger logger = LoggerFactory.getLogger(OutputExpressions.class);
+
+    private static final ExecutorService MINIMIZERS =
+        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "Minimizer");
+            t.setDaemon(true);
+            return t;
+        });
+
     private class OutputData {
         String output;
         int format;
@@ -34,7 +52,7 @@ public class OutputExpressions {
         String getExpressionString() {
             if (exprString == null) {
                 if (expr == null) {
-                    invalidate(false, false);
+                    invalidateNow();
                 }
 
                 exprString = expr == null ? "" : expr.toString();
@@ -44,7 +62,7 @@ public class OutputExpressions {
 
         Expression getMinimalExpression() {
             if (minimalExpr == null) {
-                invalidate(false, false);
+                invalidateNow();
             }
 
             return minimalExpr;
@@ -71,7 +89,7 @@ public class OutputExpressions {
 
             // for efficiency to avoid recomputation
             if (expr != minimalExpr) {
-                Entry[] values = computeColumn(model.getTruthTable(), expr);
+                Entry[] values = computeColumn(model.getInputs().getAll(), expr);
                 int outputColumn = model.getOutputs().indexOf(output);
                 updatingTable = true;
                 try {
@@ -86,6 +104,7 @@ public class OutputExpressions {
         }
 
         private void removeInput(String input) {
+            cancelMinimal();
             Expression oldMinExpr = minimalExpr;
             minimalImplicants = null;
             minimalExpr = null;
@@ -112,6 +131,7 @@ public class OutputExpressions {
         }
 
         private void replaceInput(String input, String newName) {
+            cancelMinimal();
             minimalExpr = null;
 
             if (exprString != null) {
@@ -130,28 +150,112 @@ public class OutputExpressions {
         }
 
         private boolean invalidating = false;
+        // the background minimization in progress, if any; its result is
+        // applied only if no later request has been made in the meantime
+        private Future<?> pendingMinimal = null;
+        private int minimalRequest = 0;
+
+        private void cancelMinimal() {
+            minimalRequest++;
+            if (pendingMinimal != null) {
+                pendingMinimal.cancel(true);
+                pendingMinimal = null;
+            }
+        }
+
+        // recomputes the minimal expression before returning, for a caller
+        // that needs it at once
+        private void invalidateNow() {
+            invalidate(false, false, true);
+        }
+
         private void invalidate(boolean initializing, boolean formatChanged) {
+            invalidate(initializing, formatChanged, initializing);
+        }
+
+        private void invalidate(boolean initializing, boolean formatChanged,
+                boolean now) {
             if (invalidating) {
                 return;
             }
 
+            cancelMinimal();
+            TruthTable table = model.getTruthTable();
+            int inputs = table.getInputColumnCount();
+            int outputIndex = model.getOutputs().indexOf(output);
+            if (now || outputIndex < 0
+                    || inputs <= Implicant.MAX_EXACT_INPUTS
+                    || !SwingUtilities.isEventDispatchThread()) {
+                List<Implicant> implicants = Implicant.computeMinimal(format, model, output);
+                applyMinimal(implicants,
+                        Implicant.toExpression(format, model, implicants),
+                        null, false, initializing, formatChanged, updatingTable);
+                return;
+            }
+
+            // Minimize a copy of the column on the minimizer threads, so
+            // that editing a large table does not wait for it; the outputs
+            // of the table are minimized side by side.
+            final int request = minimalRequest;
+            final int requestFormat = format;
+            final PackedColumn snapshot = table.getPackedColumn(outputIndex).copy();
+            final List<String> inputNames = new ArrayList<String>(model.getInputs().getAll());
+            final Expression checkedExpr = expr;
+            final boolean tableUpdate = updatingTable;
+            pendingMinimal = MINIMIZERS.submit(() -> {
+                try {
+                    List<Implicant> implicants = Implicant.computeMinimal(requestFormat, inputs, snapshot);
+                    Expression minExpr = Implicant.toExpression(requestFormat, inputNames, implicants);
+                    boolean consistent = tableUpdate
+                        || isConsistent(snapshot.toArray(), computeColumn(inputNames, checkedExpr));
+                    SwingUtilities.invokeLater(() -> {
+                        if (request == minimalRequest && outputData.get(output) == this) {
+                            pendingMinimal = null;
+                            applyMinimal(implicants, minExpr, checkedExpr, consistent,
+                                    false, formatChanged, tableUpdate);
+                        }
+                    });
+                } catch (CancellationException e) {
+                    // a newer request has been made
+                } catch (RuntimeException e) {
+                    // the future would keep this to itself, and the minimal
+                    // expression would never arrive; minimize it on the
+                    // event thread instead
+                    logger.warn("Minimizing {} in the background failed", output, e);
+                    SwingUtilities.invokeLater(() -> {
+                        if (request == minimalRequest && outputData.get(output) == this) {
+                            pendingMinimal = null;
+                            invalidate(false, formatChanged, true);
+                        }
+                    });
+                }
+            });
+        }
+
+        // Installs a newly computed minimal expression. Unless the change
+        // came from setting the expression, the expression is replaced if
+        // it no longer matches the truth table; whether it matched may
+        // already be known for checkedExpr.
+        private void applyMinimal(List<Implicant> implicants, Expression minExpr,
+                Expression checkedExpr, boolean consistent,
+                boolean initializing, boolean formatChanged, boolean tableUpdate) {
             invalidating = true;
             try {
                 List<Implicant> oldImplicants = minimalImplicants;
                 Expression oldMinExpr = minimalExpr;
-                minimalImplicants = Implicant.computeMinimal(format, model, output);
-                minimalExpr = Implicant.toExpression(format, model, minimalImplicants);
+                minimalImplicants = implicants;
+                minimalExpr = minExpr;
                 boolean minChanged = !implicantsSame(oldImplicants, minimalImplicants);
 
-                if (!updatingTable) {
+                if (!tableUpdate) {
                     // see whether the expression is still consistent with the truth table
-                    TruthTable table = model.getTruthTable();
-                    Entry[] outputColumn = computeColumn(model.getTruthTable(), expr);
-                    int outputIndex = model.getOutputs().indexOf(output);
-
-                    Entry[] currentColumn = table.getOutputColumn(outputIndex);
-                    if (!columnsMatch(currentColumn, outputColumn)
-                            || isAllUndefined(outputColumn) || formatChanged) {
+                    if (checkedExpr == null || expr != checkedExpr) {
+                        TruthTable table = model.getTruthTable();
+                        int outputIndex = model.getOutputs().indexOf(output);
+                        consistent = isConsistent(table.getOutputColumn(outputIndex),
+                                computeColumn(model.getInputs().getAll(), expr));
+                    }
+                    if (!consistent || formatChanged) {
                         // if not, then we need to change the expression to maintain consistency
                         boolean exprChanged = expr != oldMinExpr || minChanged;
                         expr = minimalExpr;
@@ -387,20 +491,16 @@ public class OutputExpressions {
         return ret;
     }
 
-    private static Entry[] computeColumn(TruthTable table, Expression expr) {
-        int rows = table.getRowCount();
-        int cols = table.getInputColumnCount();
+    private static Entry[] computeColumn(List<String> inputs, Expression expr) {
+        int cols = inputs.size();
+        int rows = 1 << cols;
         Entry[] values = new Entry[rows];
         if (expr == null) {
             Arrays.fill(values, Entry.DONT_CARE);
         } else {
-            Assignments assn = new Assignments();
+            long[] bits = expr.evaluateRows(inputs);
             for (int i = 0; i < rows; i++) {
-                for (int j = 0; j < cols; j++) {
-                    assn.put(table.getInputHeader(j),
-                            TruthTable.isInputSet(i, j, cols));
-                }
-                values[i] = expr.evaluate(assn) ? Entry.ONE : Entry.ZERO;
+                values[i] = (bits[i >>> 6] & (1L << i)) != 0 ? Entry.ONE : Entry.ZERO;
             }
         }
         return values;
@@ -424,6 +524,12 @@ public class OutputExpressions {
         return true;
     }
 
+    // whether an expression computing the given column is consistent
+    // with the truth table's column
+    private static boolean isConsistent(Entry[] current, Entry[] computed) {
+        return columnsMatch(current, computed) && !isAllUndefined(computed);
+    }
+
     private static boolean isAllUndefined(Entry[] a) {
         for (int i = 0; i < a.length; i++) {
             if (a[i] == Entry.ZERO || a[i] == Entry.ONE) {
@@ -0,0 +1,320 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.analyze.model;
+
+import java.util.Arrays;
+
+/**
+ * An output column of a truth table, packed two bits to a cell into
+ * {@code long} words, so that a column of a million rows takes a quarter
+ * of a megabyte rather than a reference per row. The codes are 0 for
+ * {@link Entry#ZERO}, 1 for {@link Entry#ONE}, 2 for
+ * {@link Entry#DONT_CARE} and 3 for an error. Errors are nearly always
+ * bus errors; the rows holding an oscillation error instead are marked
+ * in a separate bit map, allocated only when one is stored.
+ * <p>
+ * Rearranging the inputs of the table rearranges the rows of each column.
+ * When the input concerned selects whole words, the columns are rebuilt
+ * a word at a time; otherwise they are rebuilt a cell at a time.
+ */
+final class PackedColumn {
+    static final int ZERO = 0;
+    static final int ONE = 1;
+    static final int DONT_CARE = 2;
+    static final int ERROR = 3;
+
+    // cells in a word, and its log
+    private static final int CELLS = 32;
+    private static final int CELL_BITS = 5;
+    // the low bit of every cell, and every cell holding a don't-care
+    private static final long LOW_BITS = 0x5555555555555555L;
+    private static final long DONT_CARE_WORD = 0xAAAAAAAAAAAAAAAAL;
+
+    private final int rows;
+    private final long[] words;
+    // one bit per row, set where an error is an oscillation error
+    private long[] oscillating = null;
+
+    PackedColumn(int rows, Entry value) {
+        this.rows = rows;
+        this.words = new long[(rows + CELLS - 1) >>> CELL_BITS];
+        fill(0, rows, value);
+    }
+
+    private PackedColumn(int rows, long[] words) {
+        this.rows = rows;
+        this.words = words;
+    }
+
+    static PackedColumn of(Entry[] values) {
+        PackedColumn ret = new PackedColumn(values.length,
+                new long[(values.length + CELLS - 1) >>> CELL_BITS]);
+        // assemble each word before storing it
+        for (int w = 0; w < ret.words.length; w++) {
+            int base = w << CELL_BITS;
+            int n = Math.min(CELLS, values.length - base);
+            long word = 0;
+            for (int k = 0; k < n; k++) {
+                Entry value = values[base + k];
+                word |= (long) encode(value) << (k << 1);
+                if (value == Entry.OSCILLATE_ERROR) {
+                    ret.markOscillating(base + k, true);
+                }
+            }
+            ret.words[w] = word;
+        }
+        return ret;
+    }
+
+    static int encode(Entry value) {
+        if (value == Entry.ZERO) {
+            return ZERO;
+        } else if (value == Entry.ONE) {
+            return ONE;
+        } else if (value == Entry.DONT_CARE) {
+            return DONT_CARE;
+        } else {
+            return ERROR;
+        }
+    }
+
+    private Entry decode(int code, int row) {
+        switch (code) {
+        case ZERO:
+            return Entry.ZERO;
+        case ONE:
+            return Entry.ONE;
+        case DONT_CARE:
+            return Entry.DONT_CARE;
+        default:
+            return isOscillating(row) ? Entry.OSCILLATE_ERROR : Entry.BUS_ERROR;
+        }
+    }
+
+    PackedColumn copy() {
+        PackedColumn ret = new PackedColumn(rows, words.clone());
+        if (oscillating != null) {
+            ret.oscillating = oscillating.clone();
+        }
+        return ret;
+    }
+
+    int getRowCount() {
+        return rows;
+    }
+
+    int code(int row) {
+        return (int) (words[row >>> CELL_BITS] >>> ((row & (CELLS - 1)) << 1)) & 3;
+    }
+
+    private void setCode(int row, int code) {
+        int shift = (row & (CELLS - 1)) << 1;
+        int w = row >>> CELL_BITS;
+        words[w] = (words[w] & ~(3L << shift)) | ((long) code << shift);
+    }
+
+    Entry get(int row) {
+        return decode(code(row), row);
+    }
+
+    /**
+     * Stores an entry in a row.
+     *
+     * @return true if the row held a different entry
+     */
+    boolean set(int row, Entry value) {
+        if (get(row) == value) {
+            return false;
+        }
+        setCode(row, encode(value));
+        markOscillating(row, value == Entry.OSCILLATE_ERROR);
+        return true;
+    }
+
+    /**
+     * Stores an entry in the rows from {@code fromRow}, inclusive, to
+     * {@code toRow}, exclusive, filling whole words at once.
+     */
+    void fill(int fromRow, int toRow, Entry value) {
+        long pattern = encode(value) * LOW_BITS;
+        int row = fromRow;
+        while (row < toRow) {
+            int w = row >>> CELL_BITS;
+            int first = row & (CELLS - 1);
+            int last = Math.min(CELLS, first + toRow - row);
+            long mask = last - first == CELLS ? -1L
+                    : ((1L << ((last - first) << 1)) - 1) << (first << 1);
+            words[w] = (words[w] & ~mask) | (pattern & mask);
+            row += last - first;
+        }
+        if (value == Entry.OSCILLATE_ERROR || oscillating != null) {
+            for (row = fromRow; row < toRow; row++) {
+                markOscillating(row, value == Entry.OSCILLATE_ERROR);
+            }
+        }
+    }
+
+    Entry[] toArray() {
+        Entry[] ret = new Entry[rows];
+        for (int row = 0; row < rows; row++) {
+            ret[row] = get(row);
+        }
+        return ret;
+    }
+
+    private boolean isOscillating(int row) {
+        long[] osc = oscillating;
+        return osc != null && (osc[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private void markOscillating(int row, boolean value) {
+        if (value) {
+            if (oscillating == null) {
+                oscillating = new long[(rows + 63) >>> 6];
+            }
+            oscillating[row >>> 6] |= 1L << row;
+        } else if (oscillating != null) {
+            oscillating[row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    /**
+     * Returns the column for the table with a new input added as the
+     * least significant bit of the row number: each row is repeated.
+     */
+    PackedColumn addLowInput() {
+        if (oscillating != null || rows < CELLS) {
+            PackedColumn ret = new PackedColumn(2 * rows, Entry.DONT_CARE);
+            for (int row = 0; row < rows; row++) {
+                Entry value = get(row);
+                ret.set(2 * row, value);
+                ret.set(2 * row + 1, value);
+            }
+            return ret;
+        }
+
+        long[] dest = new long[2 * words.length];
+        for (int w = 0; w < words.length; w++) {
+            dest[2 * w] = repeatCells(words[w]);
+            dest[2 * w + 1] = repeatCells(words[w] >>> 32);
+        }
+        return new PackedColumn(2 * rows, dest);
+    }
+
+    // spreads the 16 cells in the low half of the word over the whole
+    // word, repeating each one
+    private static long repeatCells(long half) {
+        long x = half & 0xFFFFFFFFL;
+        x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x << 2)) & 0x3333333333333333L;
+        return x | (x << 2);
+    }
+
+    /**
+     * Returns the column for the table with the input selecting the given
+     * bit of the row number removed. Each pair of rows differing only in
+     * that bit becomes one row, which is a don't-care unless both agreed.
+     */
+    PackedColumn removeInput(int bit) {
+        int mask = 1 << bit;
+        int low = mask - 1;
+        if (oscillating != null || bit < CELL_BITS) {
+            PackedColumn ret = new PackedColumn(rows / 2, Entry.DONT_CARE);
+            for (int row = 0; row < rows / 2; row++) {
+                int row0 = (row & low) | ((row & ~low) << 1);
+                Entry e0 = get(row0);
+                Entry e1 = get(row0 | mask);
+                ret.set(row, e0 == e1 ? e0 : Entry.DONT_CARE);
+            }
+            return ret;
+        }
+
+        // pair whole words, and merge them a word at a time
+        int wordMask = 1 << (bit - CELL_BITS);
+        int wordLow = wordMask - 1;
+        long[] dest = new long[words.length / 2];
+        for (int w = 0; w < dest.length; w++) {
+            int w0 = (w & wordLow) | ((w & ~wordLow) << 1);
+            long a = words[w0];
+            long b = words[w0 | wordMask];
+            long diff = a ^ b;
+            long cells = (diff | (diff >>> 1)) & LOW_BITS;
+            long differ = cells | (cells << 1);
+            dest[w] = (a & ~differ) | (DONT_CARE_WORD & differ);
+        }
+        return new PackedColumn(rows / 2, dest);
+    }
+
+    /**
+     * Returns the column for the table with the input selecting bit
+     * {@code oldBit} of the row number moved so that it selects bit
+     * {@code newBit}, the bits between them shifting over by one.
+     */
+    PackedColumn moveInput(int oldBit, int newBit) {
+        if (oscillating == null
+                && Math.min(oldBit, newBit) >= CELL_BITS) {
+            // whole words move
+            long[] dest = new long[words.length];
+            int oldW = oldBit - CELL_BITS;
+            int newW = newBit - CELL_BITS;
+            for (int w = 0; w < words.length; w++) {
+                dest[movedIndex(w, oldW, newW, words.length)] = words[w];
+            }
+            return new PackedColumn(rows, dest);
+        }
+
+        PackedColumn ret = new PackedColumn(rows, Entry.DONT_CARE);
+        for (int row = 0; row < rows; row++) {
+            ret.set(movedIndex(row, oldBit, newBit, rows), get(row));
+        }
+        return ret;
+    }
+
+    // where index i goes when bit oldBit moves to newBit, of n indices
+    private static int movedIndex(int i, int oldBit, int newBit, int n) {
+        int lo = Math.min(oldBit, newBit);
+        int hi = Math.max(oldBit, newBit);
+        // bits that don't change
+        int sameMask = (n - 1) ^ ((1 << (1 + hi)) - 1) ^ ((1 << lo) - 1);
+        // bit that moves
+        int moveMask = 1 << oldBit;
+        int moveDist = hi - lo;
+        // bits that move by one
+        int blockMask = (n - 1) ^ sameMask ^ moveMask;
+        if (newBit > oldBit) {
+            return (i & sameMask) | ((i & moveMask) << moveDist)
+                | ((i & blockMask) >> 1);
+        } else {
+            return (i & sameMask) | ((i & moveMask) >> moveDist)
+                | ((i & blockMask) << 1);
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PackedColumn)) {
+            return false;
+        }
+        PackedColumn o = (PackedColumn) other;
+        if (rows != o.rows || !Arrays.equals(words, o.words)) {
+            return false;
+        }
+        if (oscillating == null && o.oscillating == null) {
+            return true;
+        }
+        for (int row = 0; row < rows; row++) {
+            if (code(row) == ERROR && isOscillating(row) != o.isOscillating(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
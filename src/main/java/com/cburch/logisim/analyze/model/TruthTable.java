@@ -4,7 +4,6 @@
 package com.cburch.logisim.analyze.model;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,33 +24,25 @@ public class TruthTable {
 
         private void inputsChanged(VariableListEvent event) {
             int action = event.getType();
+            int inputs = model.getInputs().size();
             if (action == VariableListEvent.ADD) {
-                for (Map.Entry<String,Entry[]> curEntry : outputColumns.entrySet()) {
-                    String output = curEntry.getKey();
-                    Entry[] column = curEntry.getValue();
-                    Entry[] newColumn = new Entry[2 * column.length];
-                    for (int i = 0; i < column.length; i++) {
-                        newColumn[2 * i] = column[i];
-                        newColumn[2 * i + 1] = column[i];
-                    }
-                    outputColumns.put(output, newColumn);
+                for (Map.Entry<String,PackedColumn> curEntry : outputColumns.entrySet()) {
+                    curEntry.setValue(curEntry.getValue().addLowInput());
                 }
             } else if (action == VariableListEvent.REMOVE) {
                 int index = ((Integer) event.getData()).intValue();
-                for (Map.Entry<String,Entry[]> curEntry : outputColumns.entrySet()) {
-                    String output = curEntry.getKey();
-                    Entry[] column = curEntry.getValue();
-                    Entry[] newColumn = removeInput(column, index);
-                    outputColumns.put(output, newColumn);
+                // the bit of the row number that the input selected
+                int bit = inputs - index;
+                for (Map.Entry<String,PackedColumn> curEntry : outputColumns.entrySet()) {
+                    curEntry.setValue(curEntry.getValue().removeInput(bit));
                 }
             } else if (action == VariableListEvent.MOVE) {
                 int delta = ((Integer) event.getData()).intValue();
                 int newIndex = model.getInputs().indexOf(event.getVariable());
-                for (Map.Entry<String,Entry[]> curEntry : outputColumns.entrySet()) {
-                    String output = curEntry.getKey();
-                    Entry[] column = curEntry.getValue();
-                    Entry[] newColumn = moveInput(column, newIndex - delta, newIndex);
-                    outputColumns.put(output, newColumn);
+                int oldBit = inputs - 1 - (newIndex - delta);
+                int newBit = inputs - 1 - newIndex;
+                for (Map.Entry<String,PackedColumn> curEntry : outputColumns.entrySet()) {
+                    curEntry.setValue(curEntry.getValue().moveInput(oldBit, newBit));
                 }
             }
         }
@@ -63,7 +54,7 @@ public class TruthTable {
             } else if (action == VariableListEvent.REMOVE) {
                 outputColumns.remove(event.getVariable());
             } else if (action == VariableListEvent.REPLACE) {
-                Entry[] column = outputColumns.remove(event.getVariable());
+                PackedColumn column = outputColumns.remove(event.getVariable());
                 if (column != null) {
                     int index = ((Integer) event.getData()).intValue();
                     String newVariable = model.getOutputs().get(index);
@@ -71,57 +62,13 @@ public class TruthTable {
                 }
             }
         }
-
-        private Entry[] removeInput(Entry[] old, int index) {
-            int oldInputCount = model.getInputs().size() + 1;
-            Entry[] ret = new Entry[old.length / 2];
-            int j = 0;
-            int mask = 1 << (oldInputCount - 1 - index);
-            for (int i = 0; i < old.length; i++) {
-                if ((i & mask) == 0) {
-                    Entry e0 = old[i];
-                    Entry e1 = old[i | mask];
-                    ret[j] = (e0 == e1 ? e0 : Entry.DONT_CARE);
-                    j++;
-                }
-            }
-            return ret;
-        }
-
-        private Entry[] moveInput(Entry[] old, int oldIndex, int newIndex) {
-            int inputs = model.getInputs().size();
-            oldIndex = inputs - 1 - oldIndex;
-            newIndex = inputs - 1 - newIndex;
-            Entry[] ret = new Entry[old.length];
-            int sameMask = (old.length - 1) ^ ((1 << (1 + Math.max(oldIndex, newIndex))) - 1)
-                // bits that don't change
-                ^ ((1 << Math.min(oldIndex, newIndex)) - 1);
-            // bit that moves
-            int moveMask = 1 << oldIndex;
-            int moveDist = Math.abs(newIndex - oldIndex);
-            boolean moveLeft = newIndex > oldIndex;
-            // bits that move by one
-            int blockMask = (old.length - 1) ^ sameMask ^ moveMask;
-            for (int i = 0; i < old.length; i++) {
-                // new index
-                int j;
-                if (moveLeft) {
-                    j = (i & sameMask) | ((i & moveMask) << moveDist)
-                        | ((i & blockMask) >> 1);
-                } else {
-                    j = (i & sameMask) | ((i & moveMask) >> moveDist)
-                        | ((i & blockMask) << 1);
-                }
-                ret[j] = old[i];
-            }
-            return ret;
-        }
     }
 
     private MyListener myListener = new MyListener();
     private List<TruthTableListener> listeners = new ArrayList<TruthTableListener>();
     private AnalyzerModel model;
-    private HashMap<String,Entry[]> outputColumns = new HashMap<String,Entry[]>();
+    private HashMap<String,PackedColumn> outputColumns
+        = new HashMap<String,PackedColumn>();
 
     public TruthTable(AnalyzerModel model) {
         this.model = model;
@@ -199,16 +146,16 @@ public class TruthTable {
             return Entry.DONT_CARE;
         } else {
             String outputName = model.getOutputs().get(column);
-            Entry[] columnData = outputColumns.get(outputName);
+            PackedColumn columnData = outputColumns.get(outputName);
             if (columnData == null) {
                 return DEFAULT_ENTRY;
             }
 
-            if (row < 0 || row >= columnData.length) {
+            if (row >= columnData.getRowCount()) {
                 return Entry.DONT_CARE;
             }
 
-            return columnData[row];
+            return columnData.get(row);
         }
     }
 
@@ -222,40 +169,114 @@ public class TruthTable {
             throw new IllegalArgumentException("column index: " + column + " size: " + outputs);
         }
 
-        String outputName = model.getOutputs().get(column);
-        Entry[] columnData = outputColumns.get(outputName);
+        if (getColumnForWrite(column, value).set(row, value)) {
+            fireCellsChanged(column);
+        }
+    }
 
-        if (columnData == null) {
-            if (value == DEFAULT_ENTRY) {
-                return;
-            }
+    /**
+     * Stores the given entries in consecutive rows of an output column,
+     * notifying listeners once rather than once per row.
+     *
+     * @param row the first row to store into
+     * @param column the output column
+     * @param values the entries to store
+     */
+    public void setOutputEntries(int row, int column, Entry[] values) {
+        int rows = getRowCount();
+        int outputs = model.getOutputs().size();
+        if (row < 0 || row + values.length > rows) {
+            throw new IllegalArgumentException("row index: " + row
+                    + " count: " + values.length + " size: " + rows);
+        }
+        if (column < 0 || column >= outputs) {
+            throw new IllegalArgumentException("column index: " + column + " size: " + outputs);
+        }
 
-            columnData = new Entry[getRowCount()];
-            outputColumns.put(outputName, columnData);
-            Arrays.fill(columnData, DEFAULT_ENTRY);
-            columnData[row] = value;
-        } else {
-            if (columnData[row] == value) {
-                return;
+        PackedColumn columnData = null;
+        boolean changed = false;
+        for (int i = 0; i < values.length; i++) {
+            if (columnData == null) {
+                if (values[i] == DEFAULT_ENTRY && !hasColumn(column)) {
+                    continue;
+                }
+                columnData = getColumnForWrite(column, values[i]);
             }
+            changed |= columnData.set(row + i, values[i]);
+        }
+        if (changed) {
+            fireCellsChanged(column);
+        }
+    }
 
-            columnData[row] = value;
+    /**
+     * Stores the given entry in the rows of an output column from
+     * {@code fromRow}, inclusive, to {@code toRow}, exclusive, notifying
+     * listeners once.
+     *
+     * @param fromRow the first row to store into
+     * @param toRow the row after the last row to store into
+     * @param column the output column
+     * @param value the entry to store
+     */
+    public void fillOutputEntries(int fromRow, int toRow, int column, Entry value) {
+        int rows = getRowCount();
+        int outputs = model.getOutputs().size();
+        if (fromRow < 0 || toRow > rows || fromRow > toRow) {
+            throw new IllegalArgumentException("row range: " + fromRow
+                    + ".." + toRow + " size: " + rows);
+        }
+        if (column < 0 || column >= outputs) {
+            throw new IllegalArgumentException("column index: " + column + " size: " + outputs);
+        }
+        if (fromRow == toRow || (value == DEFAULT_ENTRY && !hasColumn(column))) {
+            return;
         }
 
+        getColumnForWrite(column, value).fill(fromRow, toRow, value);
         fireCellsChanged(column);
     }
 
+    private boolean hasColumn(int column) {
+        return outputColumns.containsKey(model.getOutputs().get(column));
+    }
+
+    // returns the column's storage, creating it unless the value to be
+    // stored is the default, in which case a fresh column is not stored
+    private PackedColumn getColumnForWrite(int column, Entry value) {
+        String outputName = model.getOutputs().get(column);
+        PackedColumn columnData = outputColumns.get(outputName);
+        if (columnData == null) {
+            columnData = new PackedColumn(getRowCount(), DEFAULT_ENTRY);
+            if (value != DEFAULT_ENTRY) {
+                outputColumns.put(outputName, columnData);
+            }
+        }
+        return columnData;
+    }
+
+    /**
+     * Returns a copy of the entries of an output column.
+     *
+     * @param column the output column
+     * @return a newly allocated array of the column's entries
+     */
     public Entry[] getOutputColumn(int column) {
+        return getPackedColumn(column).toArray();
+    }
+
+    // returns the column's packed storage, which the caller must not
+    // modify; the table's listeners would not hear of it
+    PackedColumn getPackedColumn(int column) {
         int outputs = model.getOutputs().size();
         if (column < 0 || column >= outputs) {
             throw new IllegalArgumentException("index: " + column + " size: " + outputs);
         }
 
         String outputName = model.getOutputs().get(column);
-        Entry[] columnData = outputColumns.get(outputName);
+        PackedColumn columnData = outputColumns.get(outputName);
         if (columnData == null) {
-            columnData = new Entry[getRowCount()];
-            Arrays.fill(columnData, DEFAULT_ENTRY);
+            columnData = new PackedColumn(getRowCount(), DEFAULT_ENTRY);
             outputColumns.put(outputName, columnData);
         }
         return columnData;
@@ -272,17 +293,18 @@ public class TruthTable {
         }
 
         String outputName = model.getOutputs().get(column);
-        Entry[] oldValues = outputColumns.get(outputName);
-        if (oldValues == values) {
-            return;
-        }
-
-        else if (values == null) {
+        PackedColumn oldValues = outputColumns.get(outputName);
+        if (values == null) {
+            if (oldValues == null) {
+                return;
+            }
             outputColumns.remove(outputName);
-        }
-
-        else {
-            outputColumns.put(outputName, values);
+        } else {
+            PackedColumn newValues = PackedColumn.of(values);
+            if (newValues.equals(oldValues)) {
+                return;
+            }
+            outputColumns.put(outputName, newValues);
         }
 
         fireCellsChanged(column);
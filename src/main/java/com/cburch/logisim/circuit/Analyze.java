@@ -193,10 +193,36 @@ public class Analyze {
      */
     public static void computeExpression(AnalyzerModel model, Circuit circuit,
             Map<Instance, String> pinNames) throws AnalyzeException {
-        ExpressionMap expressionMap = new ExpressionMap(circuit);
-
         ArrayList<String> inputNames = new ArrayList<String>();
         ArrayList<String> outputNames = new ArrayList<String>();
+        ArrayList<Instance> outputPins = new ArrayList<Instance>();
+        for (Map.Entry<Instance, String> entry : pinNames.entrySet()) {
+            Instance pin = entry.getKey();
+            String label = entry.getValue();
+            if (Pin.FACTORY.isInputPin(pin)) {
+                inputNames.add(label);
+            } else {
+                outputPins.add(pin);
+                outputNames.add(label);
+            }
+        }
+
+        Map<Instance, Expression> expressions = computeExpressions(circuit, pinNames);
+        model.setVariables(inputNames, outputNames);
+        for (int i = 0; i < outputPins.size(); i++) {
+            Instance pin = outputPins.get(i);
+            model.getOutputExpressions().setExpression(outputNames.get(i),
+                    expressions.get(pin));
+        }
+    }
+
+    /** Computes the expression for each output pin of the circuit, in
+     * terms of variables named for the input pins; an output that
+     * nothing drives maps to null. */
+    static Map<Instance, Expression> computeExpressions(Circuit circuit,
+            Map<Instance, String> pinNames) throws AnalyzeException {
+        ExpressionMap expressionMap = new ExpressionMap(circuit);
+
         ArrayList<Instance> outputPins = new ArrayList<Instance>();
         for (Map.Entry<Instance, String> entry : pinNames.entrySet()) {
             Instance pin = entry.getKey();
@@ -205,10 +231,8 @@ public class Analyze {
                 expressionMap.currentCause = Instance.getComponentFor(pin);
                 Expression e = Expressions.variable(label);
                 expressionMap.put(pin.getLocation(), e);
-                inputNames.add(label);
             } else {
                 outputPins.add(pin);
-                outputNames.add(label);
             }
         }
 
@@ -232,12 +256,11 @@ public class Analyze {
 
         }
 
-        model.setVariables(inputNames, outputNames);
-        for (int i = 0; i < outputPins.size(); i++) {
-            Instance pin = outputPins.get(i);
-            model.getOutputExpressions().setExpression(outputNames.get(i),
-                    expressionMap.get(pin.getLocation()));
+        HashMap<Instance, Expression> ret = new HashMap<Instance, Expression>();
+        for (Instance pin : outputPins) {
+            ret.put(pin, expressionMap.get(pin.getLocation()));
         }
+        return ret;
     }
 
     private static class ExpressionMap extends HashMap<Location,Expression> {
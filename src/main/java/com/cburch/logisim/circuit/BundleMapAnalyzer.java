@@ -0,0 +1,85 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes voided bundle maps off the GUI thread. The canvas paints from
+ * the last completed bundle map of a circuit and asks this thread for a
+ * fresh one; once it is ready, the views that asked for it are repainted.
+ * A computation that is overtaken by a mutation of the circuit is
+ * abandoned and retried.
+ */
+class BundleMapAnalyzer extends Thread {
+    private static final int MAX_TRIES = 4;
+
+    private static final BundleMapAnalyzer INSTANCE = new BundleMapAnalyzer();
+
+    static {
+        INSTANCE.setDaemon(true);
+        INSTANCE.start();
+    }
+
+    static void enqueue(CircuitWires wires, Component toRepaint) {
+        synchronized (INSTANCE.lock) {
+            ArrayList<Component> views = INSTANCE.pending.get(wires);
+            if (views == null) {
+                views = new ArrayList<Component>();
+                INSTANCE.pending.put(wires, views);
+            }
+            if (toRepaint != null && !views.contains(toRepaint)) {
+                views.add(toRepaint);
+            }
+            INSTANCE.lock.notifyAll();
+        }
+    }
+
+    private final Object lock;
+    private final LinkedHashMap<CircuitWires,ArrayList<Component>> pending;
+
+    private BundleMapAnalyzer() {
+        super("BundleMapAnalyzer");
+        lock = new Object();
+        pending = new LinkedHashMap<CircuitWires,ArrayList<Component>>();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            CircuitWires wires;
+            ArrayList<Component> views;
+            synchronized (lock) {
+                while (pending.isEmpty()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                Iterator<Map.Entry<CircuitWires,ArrayList<Component>>> it;
+                it = pending.entrySet().iterator();
+                Map.Entry<CircuitWires,ArrayList<Component>> entry = it.next();
+                it.remove();
+                wires = entry.getKey();
+                views = entry.getValue();
+            }
+
+            boolean computed = false;
+            for (int tries = 0; tries < MAX_TRIES && !computed; tries++) {
+                computed = wires.computeBundleMapInBackground();
+            }
+            if (computed) {
+                for (Component view : views) {
+                    view.repaint();
+                }
+            }
+        }
+    }
+}
@@ -112,17 +112,20 @@ public class Circuit {
         = new EventSourceWeakSupport<CircuitListener>();
     // doesn't include wires
     private HashSet<Component> comps = new HashSet<Component>();
-    CircuitWires wires = new CircuitWires();
+    CircuitWires wires;
         // wires is package-protected for CircuitState and Analyze only.
     private ArrayList<Component> clocks = new ArrayList<Component>();
     private CircuitLocker locker;
     private WeakHashMap<Component, Circuit> circuitsUsingThis;
+    private CircuitBatch batch = null;
+    private int batchDepth = 0;
 
     public Circuit(String name) {
+        locker = new CircuitLocker();
+        wires = new CircuitWires(locker.getReadLock());
         appearance = new CircuitAppearance(this);
         staticAttrs = CircuitAttributes.createBaseAttrs(this, name);
         subcircuitFactory = new SubcircuitFactory(this);
-        locker = new CircuitLocker();
         circuitsUsingThis = new WeakHashMap<Component, Circuit>();
     }
 
@@ -134,12 +137,24 @@ public class Circuit {
         return circuitsUsingThis.values();
     }
 
+    // marks each instance of this circuit as needing propagation in the
+    // states of the circuits using it
+    void fireInstancesInvalidated() {
+        for (Component comp : new ArrayList<Component>(circuitsUsingThis.keySet())) {
+            Circuit circuit = circuitsUsingThis.get(comp);
+            if (circuit != null) {
+                circuit.fireEvent(CircuitEvent.ACTION_INVALIDATE, comp);
+            }
+        }
+    }
+
     public void mutatorClear() {
         locker.checkForWritePermission("clear");
+        flushBatch();
 
         Set<Component> oldComps = comps;
         comps = new HashSet<Component>();
-        wires = new CircuitWires();
+        wires = new CircuitWires(locker.getReadLock());
         clocks.clear();
         for (Component comp : oldComps) {
             if (comp.getFactory() instanceof SubcircuitFactory) {
@@ -180,6 +195,31 @@ public class Circuit {
         }
     }
 
+    // Between beginBatch and the matching endBatch, components added and
+    // removed are collected into a single ACTION_BATCH event rather than
+    // firing an event for each one; otherwise listeners that rescan the
+    // circuit on each event make large pastes quadratic.
+    void beginBatch() {
+        if (batchDepth++ == 0) {
+            batch = new CircuitBatch();
+        }
+    }
+
+    void endBatch() {
+        if (--batchDepth == 0) {
+            flushBatch();
+            batch = null;
+        }
+    }
+
+    private void flushBatch() {
+        CircuitBatch pending = batch;
+        if (pending != null && !pending.isEmpty()) {
+            batch = new CircuitBatch();
+            fireEvent(CircuitEvent.ACTION_BATCH, pending);
+        }
+    }
+
     //
     // access methods
     //
@@ -199,6 +239,18 @@ public class Circuit {
         return wires.getWidthIncompatibilityData();
     }
 
+    /**
+     * Returns the width incompatibilities found by the most recently
+     * completed analysis of this circuit's wiring, without waiting for an
+     * analysis of the current wiring. If the wiring has changed since,
+     * a fresh analysis is started in the background and
+     * <code>toRepaint</code> is repainted once it completes.
+     */
+    public Set<WidthIncompatibilityData> getWidthIncompatibilitySnapshot(
+            java.awt.Component toRepaint) {
+        return wires.getWidthIncompatibilitySnapshot(toRepaint);
+    }
+
     public BitWidth getWidth(Location p) {
         return wires.getWidth(p);
     }
@@ -452,7 +504,11 @@ public class Circuit {
             }
             c.addComponentListener(myComponentListener);
         }
-        fireEvent(CircuitEvent.ACTION_ADD, c);
+        if (batch != null) {
+            batch.add(c);
+        } else {
+            fireEvent(CircuitEvent.ACTION_ADD, c);
+        }
     }
 
     void mutatorRemove(Component c) {
@@ -473,7 +529,11 @@ public class Circuit {
             }
             c.removeComponentListener(myComponentListener);
         }
-        fireEvent(CircuitEvent.ACTION_REMOVE, c);
+        if (batch != null) {
+            batch.remove(c);
+        } else {
+            fireEvent(CircuitEvent.ACTION_REMOVE, c);
+        }
     }
 
     //
@@ -21,6 +21,15 @@ public class CircuitAction extends Action {
         return name.toString();
     }
 
+    @Override
+    public int getEstimatedSize() {
+        int ret = SMALL_ACTION_SIZE + forward.getEstimatedSize();
+        if (reverse != null) {
+            ret += reverse.getEstimatedSize();
+        }
+        return ret;
+    }
+
     @Override
     public void doIt(Project proj) {
         CircuitTransactionResult result = forward.execute();
@@ -0,0 +1,66 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.cburch.logisim.comp.Component;
+
+/**
+ * A summary of the components added to and removed from a circuit during
+ * a transaction. Rather than notifying listeners of each component as it
+ * is added or removed, a circuit collects the changes into a batch and
+ * reports them in a single {@link CircuitEvent#ACTION_BATCH} event once
+ * the transaction's mutations are complete.
+ * <p>
+ * The batch records the net effect: a component added and then removed
+ * within the same batch appears in neither set, and a component removed
+ * and then added back appears in neither set either.
+ */
+public class CircuitBatch {
+    private final LinkedHashSet<Component> added
+        = new LinkedHashSet<Component>();
+    private final LinkedHashSet<Component> removed
+        = new LinkedHashSet<Component>();
+
+    CircuitBatch() { }
+
+    void add(Component comp) {
+        if (!removed.remove(comp)) {
+            added.add(comp);
+        }
+    }
+
+    void remove(Component comp) {
+        if (!added.remove(comp)) {
+            removed.add(comp);
+        }
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+
+    /** Returns the components added by the batch, in order of addition. */
+    public Set<Component> getAdded() {
+        return Collections.unmodifiableSet(added);
+    }
+
+    /** Returns the components removed by the batch, in order of removal. */
+    public Set<Component> getRemoved() {
+        return Collections.unmodifiableSet(removed);
+    }
+
+    public boolean isRemoved(Component comp) {
+        return removed.contains(comp);
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBatch{added=" + added.size()
+            + ", removed=" + removed.size() + "}";
+    }
+}
@@ -97,6 +97,14 @@ class CircuitChange {
         this.newValue = newValue;
     }
 
+    // Components referenced by a change are usually kept alive only by the
+    // undo log once they leave the circuit, so each one is charged for its
+    // own object, attribute set and end data.
+    int getEstimatedSize() {
+        int count = comps != null ? comps.size() : (comp != null ? 1 : 0);
+        return 48 + 256 * count;
+    }
+
     public Circuit getCircuit() {
         return circuit;
     }
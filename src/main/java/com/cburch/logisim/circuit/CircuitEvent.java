@@ -18,6 +18,8 @@ public class CircuitEvent {
     // entire circuit cleared
     public final static int ACTION_CLEAR    = 5;
     public final static int TRANSACTION_DONE = 6;
+    // components added and removed by a transaction
+    public final static int ACTION_BATCH    = 7;
 
     private int action;
     private Circuit circuit;
@@ -45,4 +47,8 @@ public class CircuitEvent {
     public CircuitTransactionResult getResult() {
         return (CircuitTransactionResult) data;
     }
+
+    public CircuitBatch getBatch() {
+        return (CircuitBatch) data;
+    }
 }
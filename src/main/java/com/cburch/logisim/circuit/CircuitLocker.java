@@ -31,6 +31,11 @@ class CircuitLocker {
         return mutatingThread == Thread.currentThread();
     }
 
+    // held while reading the circuit's structure outside a transaction
+    Lock getReadLock() {
+        return circuitLock.readLock();
+    }
+
     CircuitMutatorImpl getMutator() {
         return mutatingMutator;
     }
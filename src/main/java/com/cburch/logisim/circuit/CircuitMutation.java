@@ -32,6 +32,15 @@ public final class CircuitMutation extends CircuitTransaction {
         return changes.isEmpty();
     }
 
+    @Override
+    public int getEstimatedSize() {
+        int ret = 32;
+        for (CircuitChange change : changes) {
+            ret += change.getEstimatedSize();
+        }
+        return ret;
+    }
+
     public void clear() {
         changes.add(CircuitChange.clear(primary, null));
     }
@@ -17,11 +17,13 @@ class CircuitMutatorImpl implements CircuitMutator {
     private ArrayList<CircuitChange> log;
     private HashMap<Circuit,ReplacementMap> replacements;
     private HashSet<Circuit> modified;
+    private HashSet<Circuit> batched;
 
     public CircuitMutatorImpl() {
         log = new ArrayList<CircuitChange>();
         replacements = new HashMap<Circuit,ReplacementMap>();
         modified = new HashSet<Circuit>();
+        batched = new HashSet<Circuit>();
     }
 
     @Override
@@ -38,6 +40,7 @@ class CircuitMutatorImpl implements CircuitMutator {
         for (Component comp : comps) repl.remove(comp);
         getMap(circuit).append(repl);
 
+        batch(circuit);
         circuit.mutatorClear();
     }
 
@@ -50,6 +53,7 @@ class CircuitMutatorImpl implements CircuitMutator {
         repl.add(comp);
         getMap(circuit).append(repl);
 
+        batch(circuit);
         circuit.mutatorAdd(comp);
     }
 
@@ -63,6 +67,7 @@ class CircuitMutatorImpl implements CircuitMutator {
             repl.remove(comp);
             getMap(circuit).append(repl);
 
+            batch(circuit);
             circuit.mutatorRemove(comp);
         }
     }
@@ -81,6 +86,7 @@ class CircuitMutatorImpl implements CircuitMutator {
             repl.freeze();
             getMap(circuit).append(repl);
 
+            batch(circuit);
             for (Component c : repl.getRemovals()) {
                 circuit.mutatorRemove(c);
             }
@@ -124,6 +130,20 @@ class CircuitMutatorImpl implements CircuitMutator {
         return ret;
     }
 
+    // has the circuit collect its add and remove events until endBatches
+    private void batch(Circuit circuit) {
+        if (batched.add(circuit)) {
+            circuit.beginBatch();
+        }
+    }
+
+    void endBatches() {
+        for (Circuit circuit : batched) {
+            circuit.endBatch();
+        }
+        batched.clear();
+    }
+
     CircuitTransaction getReverseTransaction() {
         CircuitMutation ret = new CircuitMutation();
         ArrayList<CircuitChange> log = this.log;
@@ -8,6 +8,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import com.cburch.logisim.comp.Component;
@@ -42,6 +43,19 @@ class CircuitPoints {
         return locData == null ? BitWidth.UNKNOWN : locData.width;
     }
 
+    // returns the width at each point where it is known, copied so that
+    // it may be read while the points change
+    HashMap<Location,BitWidth> getKnownWidths() {
+        HashMap<Location,BitWidth> ret = new HashMap<Location,BitWidth>();
+        for (Map.Entry<Location,LocationData> entry : map.entrySet()) {
+            BitWidth width = entry.getValue().width;
+            if (width != BitWidth.UNKNOWN) {
+                ret.put(entry.getKey(), width);
+            }
+        }
+        return ret;
+    }
+
     int getComponentCount(Location loc) {
         LocationData locData = map.get(loc);
         return locData == null ? 0 : locData.components.size();
@@ -24,7 +24,6 @@ import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.instance.InstanceFactory;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.proj.Project;
-import com.cburch.logisim.std.wiring.Clock;
 import com.cburch.logisim.std.wiring.Pin;
 
 public class CircuitState implements InstanceData {
@@ -32,37 +31,21 @@ public class CircuitState implements InstanceData {
         @Override
         public void circuitChanged(CircuitEvent event) {
             int action = event.getAction();
+            if (action != CircuitEvent.ACTION_INVALIDATE && base != null) {
+                // clocks may have come or gone
+                base.invalidateClocks();
+            }
             if (action == CircuitEvent.ACTION_ADD) {
-                Component comp = (Component) event.getData();
-                if (comp instanceof Wire) {
-                    Wire w = (Wire) comp;
-                    markPointAsDirty(w.getEnd0());
-                    markPointAsDirty(w.getEnd1());
-                } else {
-                    markComponentAsDirty(comp);
-                }
+                componentAdded((Component) event.getData());
             } else if (action == CircuitEvent.ACTION_REMOVE) {
-                Component comp = (Component) event.getData();
-                if (comp.getFactory() instanceof SubcircuitFactory) {
-                    // disconnect from tree
-                    CircuitState substate = (CircuitState) getData(comp);
-                    if (substate != null && substate.parentComp == comp) {
-                        substates.remove(substate);
-                        substate.parentState = null;
-                        substate.parentComp = null;
-                    }
+                componentRemoved((Component) event.getData());
+            } else if (action == CircuitEvent.ACTION_BATCH) {
+                CircuitBatch batch = event.getBatch();
+                for (Component comp : batch.getRemoved()) {
+                    componentRemoved(comp);
                 }
-
-                if (comp instanceof Wire) {
-                    Wire w = (Wire) comp;
-                    markPointAsDirty(w.getEnd0());
-                    markPointAsDirty(w.getEnd1());
-                } else {
-                    if (base != null) {
-                        base.checkComponentEnds(CircuitState.this, comp);
-                    }
-
-                    dirtyComponents.remove(comp);
+                for (Component comp : batch.getAdded()) {
+                    componentAdded(comp);
                 }
             } else if (action == CircuitEvent.ACTION_CLEAR) {
                 substates.clear();
@@ -92,8 +75,12 @@ public class CircuitState implements InstanceData {
 
                 }
             } else if (action == CircuitEvent.ACTION_INVALIDATE) {
-                Component comp = (Component) event.getData();
-                markComponentAsDirty(comp);
+                // a batched invalidation was marked dirty in its own state
+                // when it happened
+                if (!InvalidationBatch.isDelivering()) {
+                    Component comp = (Component) event.getData();
+                    markComponentAsDirty(comp);
+                }
                 // TODO detemine if this should really be missing if (base != null) base.checkComponentEnds(CircuitState.this, comp);
             } else if (action == CircuitEvent.TRANSACTION_DONE) {
                 ReplacementMap map = event.getResult().getReplacementMap(circuit);
@@ -120,6 +107,40 @@ public class CircuitState implements InstanceData {
                 }
             }
         }
+
+        private void componentAdded(Component comp) {
+            if (comp instanceof Wire) {
+                Wire w = (Wire) comp;
+                markPointAsDirty(w.getEnd0());
+                markPointAsDirty(w.getEnd1());
+            } else {
+                markComponentAsDirty(comp);
+            }
+        }
+
+        private void componentRemoved(Component comp) {
+            if (comp.getFactory() instanceof SubcircuitFactory) {
+                // disconnect from tree
+                CircuitState substate = (CircuitState) getData(comp);
+                if (substate != null && substate.parentComp == comp) {
+                    substates.remove(substate);
+                    substate.parentState = null;
+                    substate.parentComp = null;
+                }
+            }
+
+            if (comp instanceof Wire) {
+                Wire w = (Wire) comp;
+                markPointAsDirty(w.getEnd0());
+                markPointAsDirty(w.getEnd1());
+            } else {
+                if (base != null) {
+                    base.checkComponentEnds(CircuitState.this, comp);
+                }
+
+                dirtyComponents.remove(comp);
+            }
+        }
     }
 
     private MyCircuitListener myCircuitListener = new MyCircuitListener();
@@ -275,6 +296,9 @@ public class CircuitState implements InstanceData {
                     oldState.parentState = null;
                     oldState.parentComp = null;
                 }
+                if (base != null) {
+                    base.invalidateClocks();
+                }
                 if (newState != null && newState.parentState != this) {
                     // this is the first time I've heard about this CircuitState
                     substates.add(newState);
@@ -314,14 +338,23 @@ public class CircuitState implements InstanceData {
             set.add(comp);
             dirtyComponents = set;
         }
+        if (base != null) {
+            base.markComponentsDirty();
+        }
     }
 
     public void markComponentsDirty(Collection<Component> comps) {
         dirtyComponents.addAll(comps);
+        if (base != null) {
+            base.markComponentsDirty();
+        }
     }
 
     public void markPointAsDirty(Location pt) {
         dirtyPoints.add(pt);
+        if (base != null) {
+            base.markPointsDirty();
+        }
     }
 
     public InstanceState getInstanceState(Component comp) {
@@ -349,7 +382,7 @@ public class CircuitState implements InstanceData {
         return parentState != null;
     }
 
-    void processDirtyComponents() {
+    void processDirtyComponents(SimulationProfile profile) {
         if (!dirtyComponents.isEmpty()) {
             // This seeming wasted copy is to avoid ConcurrentModifications
             // if we used an iterator instead.
@@ -375,10 +408,10 @@ public class CircuitState implements InstanceData {
             for (Object compObj : toProcess) {
                 if (compObj instanceof Component) {
                     Component comp = (Component) compObj;
-                    comp.propagate(this);
+                    propagate(comp, this, profile);
                     if (comp.getFactory() instanceof Pin && parentState != null) {
                         // should be propagated in superstate
-                        parentComp.propagate(parentState);
+                        propagate(parentComp, parentState, profile);
                     }
                 }
             }
@@ -386,7 +419,18 @@ public class CircuitState implements InstanceData {
 
         CircuitState[] subs = new CircuitState[substates.size()];
         for (CircuitState substate : substates.toArray(subs)) {
-            substate.processDirtyComponents();
+            substate.processDirtyComponents(profile);
+        }
+    }
+
+    private static void propagate(Component comp, CircuitState state,
+            SimulationProfile profile) {
+        if (profile == null) {
+            comp.propagate(state);
+        } else {
+            long start = System.nanoTime();
+            comp.propagate(state);
+            profile.componentEvaluated(state, comp, System.nanoTime() - start);
         }
     }
 
@@ -438,19 +482,6 @@ public class CircuitState implements InstanceData {
         }
     }
 
-    boolean tick(int ticks) {
-        boolean ret = false;
-        for (Component clock : circuit.getClocks()) {
-            ret |= Clock.tick(this, ticks, clock);
-        }
-
-        CircuitState[] subs = new CircuitState[substates.size()];
-        for (CircuitState substate : substates.toArray(subs)) {
-            ret |= substate.tick(ticks);
-        }
-        return ret;
-    }
-
     CircuitWires.State getWireData() {
         return wireData;
     }
@@ -501,6 +532,6 @@ public class CircuitState implements InstanceData {
     // private methods
     //
     private void markAllComponentsDirty() {
-        dirtyComponents.addAll(circuit.getNonWires());
+        markComponentsDirty(circuit.getNonWires());
     }
 }
@@ -17,6 +17,14 @@ public abstract class CircuitTransaction {
 
     protected abstract void run(CircuitMutator mutator);
 
+    /**
+     * Returns a rough estimate, in bytes, of the memory retained by this
+     * transaction if it is kept around, such as for undoing.
+     */
+    public int getEstimatedSize() {
+        return 64;
+    }
+
     public final CircuitTransactionResult execute() {
         CircuitMutatorImpl mutator = new CircuitMutatorImpl();
         Map<Circuit,Lock> locks = CircuitLocker.acquireLocks(this, mutator);
@@ -53,11 +61,16 @@ public abstract class CircuitTransaction {
                 }
             }
 
+            // Listeners hear about the components added and removed in
+            // one batch per circuit, after the wires have been repaired
+            mutator.endBatches();
+
             result = new CircuitTransactionResult(mutator);
             for (Circuit circuit : result.getModifiedCircuits()) {
                 circuit.fireEvent(CircuitEvent.TRANSACTION_DONE, result);
             }
         } finally {
+            mutator.endBatches();
             CircuitLocker.releaseLocks(locks);
         }
         return result;
@@ -6,15 +6,20 @@ package com.cburch.logisim.circuit;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.commons.collections15.iterators.IteratorChain;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.ComponentDrawContext;
@@ -33,6 +38,8 @@ import com.cburch.logisim.std.wiring.Tunnel;
 import com.cburch.logisim.util.GraphicsUtil;
 
 class CircuitWires {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitWires.class);
+
     static class SplitterData {
         // PointData associated with each end
         WireBundle[] end_bundle;
@@ -51,19 +58,74 @@ class CircuitWires {
         }
     }
 
+    // The values driven onto the bits of a bundle, combined as Value.combine
+    // does a bit at a time: a bit is an error where drivers disagree or
+    // one drives an error, and unknown where none drives it.
+    static class Drive {
+        int error;
+        int known;
+        int value;
+
+        void clear() {
+            error = 0;
+            known = 0;
+            value = 0;
+        }
+
+        // adds drivers with the given masks on the bits in mask
+        void add(int error, int known, int value, int mask) {
+            known &= mask;
+            this.error |= (error & mask) | (this.known & known & (this.value ^ value));
+            this.value |= value & known;
+            this.known |= known;
+        }
+    }
+
     static class State {
         BundleMap bundleMap;
-        HashMap<WireThread,Value> thr_values = new HashMap<WireThread,Value>();
+        // scratch for propagate, by bundle index: the last pass in which
+        // each bundle was queued and in which its drivers were summed,
+        // and the sum
+        private int pass = 0;
+        private final int[] queued;
+        private final int[] summed;
+        private final int[] sumError;
+        private final int[] sumKnown;
+        private final int[] sumValue;
+        private final ArrayList<WireBundle> affected = new ArrayList<WireBundle>();
+        private final Drive drive = new Drive();
+        private final Drive sum = new Drive();
 
         State(BundleMap bundleMap) {
+            int n = bundleMap.indexed;
             this.bundleMap = bundleMap;
+            this.queued = new int[n];
+            this.summed = new int[n];
+            this.sumError = new int[n];
+            this.sumKnown = new int[n];
+            this.sumValue = new int[n];
+        }
+
+        private void startPass() {
+            affected.clear();
+            if (++pass == 0) {
+                Arrays.fill(queued, 0);
+                Arrays.fill(summed, 0);
+                pass = 1;
+            }
+        }
+
+        private void queue(WireBundle b) {
+            if (queued[b.index] != pass) {
+                queued[b.index] = pass;
+                affected.add(b);
+            }
         }
 
         @Override
         public Object clone() {
-            State ret = new State(this.bundleMap);
-            ret.thr_values.putAll(this.thr_values);
-            return ret;
+            // nothing is kept between passes, and so there is nothing to copy
+            return new State(this.bundleMap);
         }
     }
 
@@ -74,16 +136,49 @@ class CircuitWires {
         @Override
         public void attributeValueChanged(AttributeEvent e) {
             Attribute<?> attr = e.getAttribute();
-            if (attr == StdAttr.LABEL || attr == PullResistor.ATTR_PULL_TYPE) {
+            if (attr == StdAttr.LABEL) {
+                // renaming a tunnel that is alone under both labels
+                // connects nothing new, and so leaves the map valid
+                if (tunnels.relabel(e.getSource())) {
+                    voidBundleMap();
+                }
+            } else if (attr == PullResistor.ATTR_PULL_TYPE) {
                 voidBundleMap();
             }
         }
     }
 
+    // what a bundle map is computed from, copied under the circuit's lock
+    // so that the computation reads nothing a mutation may change
+    private static class Wiring {
+        final ArrayList<Wire> wires;
+        final ArrayList<Splitter> splitters;
+        final ArrayList<Component> pulls;
+        final ArrayList<ArrayList<Component>> tunnelGroups;
+        final HashMap<Location,BitWidth> widths;
+        final ArrayList<WidthIncompatibilityData> incompatibilities;
+
+        Wiring(CircuitWires src) {
+            wires = new ArrayList<Wire>(src.wires);
+            splitters = new ArrayList<Splitter>(src.splitters);
+            pulls = new ArrayList<Component>(src.pulls);
+            tunnelGroups = new ArrayList<ArrayList<Component>>();
+            synchronized (src.tunnels) {
+                for (ArrayList<Component> group : src.tunnels.getGroups()) {
+                    tunnelGroups.add(new ArrayList<Component>(group));
+                }
+            }
+            widths = src.points.getKnownWidths();
+            incompatibilities = new ArrayList<WidthIncompatibilityData>(
+                    src.points.getWidthIncompatibilityData());
+        }
+    }
+
     static class BundleMap {
-        boolean computed = false;
         HashMap<Location,WireBundle> pointBundles = new HashMap<Location,WireBundle>();
         HashSet<WireBundle> bundles = new HashSet<WireBundle>();
+        // the number of bundles given an index by compileRoutes
+        int indexed = 0;
         boolean isValid = true;
         // NOTE: It would make things more efficient if we also had
         // a set of just the first bundle in each tree.
@@ -134,24 +229,13 @@ class CircuitWires {
         Set<WireBundle> getBundles() {
             return bundles;
         }
-
-        synchronized void markComputed() {
-            computed = true;
-            notifyAll();
-        }
-
-        synchronized void waitUntilComputed() {
-            while (!computed) {
-                try { wait(); } catch (InterruptedException e) { }
-            }
-        }
     }
 
     // user-given data
     private HashSet<Wire> wires = new HashSet<Wire>();
     private HashSet<Splitter> splitters = new HashSet<Splitter>();
-    // of Components with Tunnel factory
-    private HashSet<Component> tunnels = new HashSet<Component>();
+    // of Components with Tunnel factory, grouped by label
+    private final TunnelIndex tunnels = new TunnelIndex();
     private TunnelListener tunnelListener = new TunnelListener();
     // of Components with PullResistor factory
     private HashSet<Component> pulls = new HashSet<Component>();
@@ -159,9 +243,22 @@ class CircuitWires {
 
     // derived data
     private Bounds bounds = Bounds.EMPTY_BOUNDS;
-    private BundleMap bundleMap = null;
-
-    CircuitWires() { }
+    // the bundle map for the current wiring, or null if it is voided
+    private volatile BundleMap bundleMap = null;
+    // the most recently completed bundle map, possibly outdated
+    private volatile BundleMap lastBundleMap = null;
+    // incremented whenever the bundle map is voided
+    private int mapVersion = 0;
+    // guards bundleMap and mapVersion
+    private final Object mapLock = new Object();
+    // held while computing, since computing updates shared splitter data
+    private final Object computeLock = new Object();
+    // the circuit's read lock, which mutations exclude
+    private final Lock circuitLock;
+
+    CircuitWires(Lock circuitLock) {
+        this.circuitLock = circuitLock;
+    }
 
     //
     // query methods
@@ -174,6 +271,14 @@ class CircuitWires {
         return getBundleMap().getWidthIncompatibilityData();
     }
 
+    // Returns the width incompatibilities of the last completed analysis
+    // without blocking; see getBundleMapSnapshot.
+    Set<WidthIncompatibilityData> getWidthIncompatibilitySnapshot(
+            java.awt.Component toRepaint) {
+        BundleMap bmap = getBundleMapSnapshot(toRepaint);
+        return bmap == null ? null : bmap.getWidthIncompatibilityData();
+    }
+
     void ensureComputed() {
         getBundleMap();
     }
@@ -348,97 +453,106 @@ class CircuitWires {
     //
     void propagate(CircuitState circState, Set<Location> points) {
         BundleMap map = getBundleMap();
-        // affected threads
-        CopyOnWriteArraySet<WireThread> dirtyThreads = new CopyOnWriteArraySet<WireThread>();
 
         // get state, or create a new one if current state is outdated
         State s = circState.getWireData();
-        if (s == null || s.bundleMap != map) {
-            // if it is outdated, we need to compute for all threads
+        boolean outdated = s == null || s.bundleMap != map;
+        if (outdated) {
             s = new State(map);
+            circState.setWireData(s);
+        }
+        s.startPass();
+        if (outdated) {
+            // if it is outdated, we need to compute for all bundles
             for (WireBundle b : map.getBundles()) {
-                WireThread[] th = b.threads;
-                if (b.isValid() && th != null) {
-                    for (WireThread t : th) {
-                        dirtyThreads.add(t);
-                    }
+                if (b.dependents != null) {
+                    s.queue(b);
                 }
             }
-            circState.setWireData(s);
         }
 
-        // determine affected threads, and set values for unwired points
+        // determine affected bundles, and set values for unwired points
         for (Location p : points) {
             WireBundle pb = map.getBundleAt(p);
             // point is not wired
             if (pb == null) {
                 circState.setValueByWire(p, circState.getComponentOutputAt(p));
-            } else {
-                WireThread[] th = pb.threads;
-                if (!pb.isValid() || th == null) {
-                    // immediately propagate NILs across invalid bundles
-                    CopyOnWriteArraySet<Location> pbPoints = pb.points;
-                    if (pbPoints == null) {
-                        circState.setValueByWire(p, Value.NIL);
-                    } else {
-                        for (Location loc2 : pbPoints) {
-                            circState.setValueByWire(loc2, Value.NIL);
-                        }
-                    }
+            } else if (pb.dependents == null) {
+                // immediately propagate NILs across invalid bundles
+                CopyOnWriteArraySet<Location> pbPoints = pb.points;
+                if (pbPoints == null) {
+                    circState.setValueByWire(p, Value.NIL);
                 } else {
-                    for (WireThread t : th) {
-                        dirtyThreads.add(t);
+                    for (Location loc2 : pbPoints) {
+                        circState.setValueByWire(loc2, Value.NIL);
                     }
                 }
+            } else {
+                for (WireBundle dep : pb.dependents) {
+                    s.queue(dep);
+                }
             }
         }
 
-        if (dirtyThreads.isEmpty()) {
-            return;
+        // now propagate values through circuit
+        for (WireBundle b : s.affected) {
+            Value bv = getBundleValue(circState, s, b);
+            for (Location p : b.points) {
+                circState.setValueByWire(p, bv);
+            }
         }
+    }
 
-
-        // determine values of affected threads
-        HashSet<ThreadBundle> bundles = new HashSet<ThreadBundle>();
-        for (WireThread t : dirtyThreads) {
-            Value v = getThreadValue(circState, t);
-            s.thr_values.put(t, v);
-            bundles.addAll(t.getBundles());
+    // Combines what is driven onto each route into the bundle a word at a
+    // time, and then pulls the bits nothing drives.
+    private Value getBundleValue(CircuitState state, State s, WireBundle b) {
+        Drive d = s.drive;
+        d.clear();
+        for (WireBundle.Route route : b.routes) {
+            int i = route.source.index;
+            if (s.summed[i] != s.pass) {
+                sumDrivers(state, s, route.source);
+            }
+            d.add(shift(s.sumError[i], route.shift),
+                    shift(s.sumKnown[i], route.shift),
+                    shift(s.sumValue[i], route.shift), route.mask);
         }
 
-        // now propagate values through circuit
-        for (ThreadBundle tb : bundles) {
-            WireBundle b = tb.b;
-
-            Value bv = null;
-            if (!b.isValid() || b.threads == null) {
-                // do nothing
-                ;
-            } else if (b.threads.length == 1) {
-                bv = s.thr_values.get(b.threads[0]);
-            } else {
-                Value[] tvs = new Value[b.threads.length];
-                boolean tvs_valid = true;
-                for (int i = 0; i < tvs.length; i++) {
-                    Value tv = s.thr_values.get(b.threads[i]);
-                    if (tv == null) {
-                        { tvs_valid = false;
-                    }
- break; }
-                    tvs[i] = tv;
-                }
-                if (tvs_valid) {
-                    bv = Value.create(tvs);
-                }
-
-            }
+        int unknown = ~d.known & ~d.error;
+        int pulled = unknown & (b.pullError | b.pullKnown);
+        return Value.create(b.threads.length,
+                d.error | (pulled & b.pullError),
+                unknown & ~pulled,
+                d.value | (pulled & b.pullBits));
+    }
 
-            if (bv != null) {
-                for (Location p : b.points) {
-                    circState.setValueByWire(p, bv);
-                }
+    // sums the values the components at a bundle's points drive onto it
+    private void sumDrivers(CircuitState state, State s, WireBundle b) {
+        Drive d = s.sum;
+        d.clear();
+        int mask = widthMask(b.threads.length);
+        for (Location p : b.points) {
+            Value val = state.getComponentOutputAt(p);
+            if (val != null && val != Value.NIL) {
+                // the bits beyond a narrower value are errors
+                int valError = val.getErrorMask() | ~widthMask(val.getWidth());
+                d.add(valError, ~valError & ~val.getUnknownMask(),
+                        val.getValueMask(), mask);
             }
         }
+        int i = b.index;
+        s.summed[i] = s.pass;
+        s.sumError[i] = d.error;
+        s.sumKnown[i] = d.known;
+        s.sumValue[i] = d.value;
+    }
+
+    private static int widthMask(int width) {
+        return width >= 32 ? -1 : ~(-1 << width);
+    }
+
+    private static int shift(int bits, int shift) {
+        return shift >= 0 ? bits << shift : bits >>> -shift;
     }
 
     void draw(ComponentDrawContext context, Collection<Component> hidden) {
@@ -449,14 +563,25 @@ class CircuitWires {
         GraphicsUtil.switchToWidth(g, Wire.WIDTH);
         WireSet highlighted = context.getHighlightedWires();
 
-        BundleMap bmap = getBundleMap();
+        // an on-screen view paints from the last completed analysis rather
+        // than waiting for the voided map to be recomputed
+        BundleMap bmap = null;
+        java.awt.Component dest = context.getDestination();
+        if (dest != null && dest.isShowing()) {
+            bmap = getBundleMapSnapshot(dest);
+        }
+        if (bmap == null) {
+            bmap = getBundleMap();
+        }
         boolean isValid = bmap.isValid();
         if (hidden == null || hidden.size() == 0) {
             for (Wire w : wires) {
                 Location s = w.e0;
                 Location t = w.e1;
                 WireBundle wb = bmap.getBundleAt(s);
-                if (!wb.isValid()) {
+                if (wb == null) {
+                    g.setColor(showState ? Value.NIL_COLOR : Color.BLACK);
+                } else if (!wb.isValid()) {
                     g.setColor(Value.WIDTH_ERROR_COLOR);
                 } else if (showState) {
                     if (!isValid) {
@@ -511,7 +636,9 @@ class CircuitWires {
                     Location s = w.e0;
                     Location t = w.e1;
                     WireBundle wb = bmap.getBundleAt(s);
-                    if (!wb.isValid()) {
+                    if (wb == null) {
+                        g.setColor(showState ? Value.NIL_COLOR : Color.BLACK);
+                    } else if (!wb.isValid()) {
                         g.setColor(Value.WIDTH_ERROR_COLOR);
                     } else if (showState) {
                         if (!isValid) {
@@ -580,50 +707,136 @@ class CircuitWires {
     // helper methods
     //
     private void voidBundleMap() {
-        bundleMap = null;
+        synchronized (mapLock) {
+            bundleMap = null;
+            mapVersion++;
+        }
     }
 
     private BundleMap getBundleMap() {
-        // Maybe we already have a valid bundle map (or maybe
-        // one is in progress).
+        // Maybe we already have a valid bundle map.
         BundleMap ret = bundleMap;
         if (ret != null) {
-            ret.waitUntilComputed();
             return ret;
         }
-        try {
+        synchronized (computeLock) {
+            // it may have been computed while we waited for the lock
+            ret = bundleMap;
+            if (ret != null) {
+                return ret;
+            }
             // Ok, we have to create our own.
             for (int tries = 4; tries >= 0; tries--) {
                 try {
                     ret = new BundleMap();
-                    computeBundleMap(ret);
-                    bundleMap = ret;
+                    computeBundleMap(ret, -1, new Wiring(this));
+                    installBundleMap(ret, -1);
                     break;
-        } catch (Exception e) {
+                } catch (RuntimeException e) {
                     if (tries == 0) {
                         e.printStackTrace();
                         System.err.println( e.getLocalizedMessage() );
-                        bundleMap = ret;
+                        ret.invalidate();
+                        installBundleMap(ret, -1);
                     }
                 }
             }
-        } catch (RuntimeException ex) {
-            ret.invalidate();
-            ret.markComputed();
-            throw ex;
-        } finally {
-            // Mark the BundleMap as computed in case anybody is waiting for the result.
-            ret.markComputed();
         }
         return ret;
     }
 
-    // To be called by getBundleMap only
-    private void computeBundleMap(BundleMap ret) {
+    // Returns the current bundle map if one is available, and otherwise
+    // the last one completed (possibly null), after asking the
+    // BundleMapAnalyzer to compute a fresh one and repaint toRepaint when
+    // it is done. Never blocks on a computation.
+    private BundleMap getBundleMapSnapshot(java.awt.Component toRepaint) {
+        BundleMap ret = bundleMap;
+        if (ret != null) {
+            return ret;
+        }
+        BundleMapAnalyzer.enqueue(this, toRepaint);
+        return lastBundleMap;
+    }
+
+    // Called on the BundleMapAnalyzer thread. Returns false if the
+    // computation was overtaken by a change to the circuit.
+    boolean computeBundleMapInBackground() {
+        // copy the wiring under the circuit's lock, since the circuit may
+        // be mutated while the map is computed from it
+        Wiring wiring;
+        int version;
+        circuitLock.lock();
+        try {
+            if (bundleMap != null) {
+                return true;
+            }
+            wiring = new Wiring(this);
+            synchronized (mapLock) {
+                version = mapVersion;
+            }
+        } finally {
+            circuitLock.unlock();
+        }
+
+        synchronized (computeLock) {
+            if (bundleMap != null) {
+                return true;
+            }
+            BundleMap ret = new BundleMap();
+            try {
+                computeBundleMap(ret, version, wiring);
+            } catch (CancellationException e) {
+                return false;
+            } catch (RuntimeException e) {
+                synchronized (mapLock) {
+                    if (version != mapVersion) {
+                        // the points changed under us; try again
+                        return false;
+                    }
+                }
+                logger.error("Could not compute the bundle map", e);
+                ret.invalidate();
+            }
+            return installBundleMap(ret, version);
+        }
+    }
+
+    // installs the map unless it was computed for an outdated version;
+    // a version of -1 installs unconditionally
+    private boolean installBundleMap(BundleMap map, int version) {
+        synchronized (mapLock) {
+            if (version >= 0 && version != mapVersion) {
+                return false;
+            }
+            bundleMap = map;
+            lastBundleMap = map;
+            return true;
+        }
+    }
+
+    // throws CancellationException if the map being computed for the given
+    // version has been voided since; a version of -1 is never cancelled
+    private void checkCancelled(int version) {
+        if (version >= 0) {
+            synchronized (mapLock) {
+                if (version != mapVersion) {
+                    throw new CancellationException();
+                }
+            }
+        }
+    }
+
+    // To be called with computeLock held only
+    private void computeBundleMap(BundleMap ret, int version, Wiring wiring) {
+        Collection<Splitter> splitters = wiring.splitters;
+
         // create bundles corresponding to wires and tunnels
-        connectWires(ret);
-        connectTunnels(ret);
-        connectPullResistors(ret);
+        connectWires(ret, wiring.wires);
+        for (ArrayList<Component> tunnelSet : wiring.tunnelGroups) {
+            connectTunnelSet(ret, tunnelSet);
+        }
+        connectPullResistors(ret, wiring.pulls);
+        checkCancelled(version);
 
         // merge any WireBundle objects united by previous steps
         for (Iterator<WireBundle> it = ret.getBundles().iterator(); it.hasNext(); ) {
@@ -654,12 +867,14 @@ class CircuitWires {
         // based on components
         for (Location p : ret.getBundlePoints()) {
             WireBundle pb = ret.getBundleAt(p);
-            BitWidth width = points.getWidth(p);
-            if (width != BitWidth.UNKNOWN) {
+            BitWidth width = wiring.widths.get(p);
+            if (width != null) {
                 pb.setWidth(width, p);
             }
         }
 
+        checkCancelled(version);
+
         // determine the bundles at the end of each splitter
         for (Splitter spl : splitters) {
             List<EndData> ends = new ArrayList<EndData>(spl.getEnds());
@@ -708,6 +923,8 @@ class CircuitWires {
             }
         }
 
+        checkCancelled(version);
+
         // merge any threads united by previous step
         for (WireBundle b : ret.getBundles()) {
             if (b.isValid() && b.threads != null) {
@@ -719,12 +936,11 @@ class CircuitWires {
             }
         }
 
+        compileRoutes(ret);
+
         // All threads are sewn together! Compute the exception set before leaving
-        Collection<WidthIncompatibilityData> exceptions = points.getWidthIncompatibilityData();
-        if (exceptions != null && exceptions.size() > 0) {
-            for (WidthIncompatibilityData wid : exceptions) {
-                ret.addWidthIncompatibilityData(wid);
-            }
+        for (WidthIncompatibilityData wid : wiring.incompatibilities) {
+            ret.addWidthIncompatibilityData(wid);
         }
         for (WireBundle b : ret.getBundles()) {
             WidthIncompatibilityData e = b.getWidthIncompatibilityData();
@@ -735,7 +951,75 @@ class CircuitWires {
         }
     }
 
-    private void connectWires(BundleMap ret) {
+    // Gives each valid bundle its routes: for each other bundle sharing
+    // threads with it, which of its bits those threads reach and how far
+    // they shift on the way, found once here so that propagation moves
+    // whole runs of bits with a shift and a mask. Pulls never change, and
+    // so each bundle's is combined from its routes here too.
+    private void compileRoutes(BundleMap ret) {
+        ArrayList<WireBundle> compiled = new ArrayList<WireBundle>();
+        for (WireBundle b : ret.getBundles()) {
+            if (b.isValid() && b.threads != null) {
+                b.index = compiled.size();
+                compiled.add(b);
+            }
+        }
+
+        ArrayList<ArrayList<WireBundle>> dependents
+            = new ArrayList<ArrayList<WireBundle>>(compiled.size());
+        for (int i = 0; i < compiled.size(); i++) {
+            dependents.add(new ArrayList<WireBundle>(1));
+        }
+        ArrayList<WireBundle.Route> routes = new ArrayList<WireBundle.Route>();
+        Drive pull = new Drive();
+        for (WireBundle b : compiled) {
+            routes.clear();
+            for (int j = 0; j < b.threads.length; j++) {
+                for (ThreadBundle tb : b.threads[j].getBundles()) {
+                    WireBundle.Route route = findRoute(routes, tb.b, j - tb.loc);
+                    route.mask |= 1 << j;
+                }
+            }
+            b.routes = routes.toArray(new WireBundle.Route[routes.size()]);
+
+            pull.clear();
+            for (WireBundle.Route route : b.routes) {
+                Value pv = route.source.getPullValue();
+                if (pv != Value.UNKNOWN) {
+                    int bits = pv == Value.TRUE ? -1 : 0;
+                    int error = pv == Value.ERROR ? -1 : 0;
+                    pull.add(error, ~error, bits, route.mask);
+                }
+                ArrayList<WireBundle> deps = dependents.get(route.source.index);
+                if (deps.isEmpty() || deps.get(deps.size() - 1) != b) {
+                    deps.add(b);
+                }
+            }
+            b.pullError = pull.error;
+            b.pullKnown = pull.known & ~pull.error;
+            b.pullBits = pull.value & ~pull.error;
+        }
+
+        for (WireBundle b : compiled) {
+            ArrayList<WireBundle> deps = dependents.get(b.index);
+            b.dependents = deps.toArray(new WireBundle[deps.size()]);
+        }
+        ret.indexed = compiled.size();
+    }
+
+    private static WireBundle.Route findRoute(ArrayList<WireBundle.Route> routes,
+            WireBundle source, int shift) {
+        for (WireBundle.Route route : routes) {
+            if (route.source == source && route.shift == shift) {
+                return route;
+            }
+        }
+        WireBundle.Route ret = new WireBundle.Route(source, shift);
+        routes.add(ret);
+        return ret;
+    }
+
+    private void connectWires(BundleMap ret, Collection<Wire> wires) {
         // make a WireBundle object for each tree of connected wires
         for (Wire w : wires) {
             WireBundle b0 = ret.getBundleAt(w.e0);
@@ -755,53 +1039,38 @@ class CircuitWires {
         }
     }
 
-    private void connectTunnels(BundleMap ret) {
-        // determine the sets of tunnels
-        HashMap<String,ArrayList<Location>> tunnelSets = new HashMap<String,ArrayList<Location>>();
-        for (Component comp : tunnels) {
-            String label = comp.getAttributeSet().getValue(StdAttr.LABEL);
-            label = label.trim();
-            if (!label.equals("")) {
-                ArrayList<Location> tunnelSet = tunnelSets.get(label);
-                if (tunnelSet == null) {
-                    tunnelSet = new ArrayList<Location>(3);
-                    tunnelSets.put(label, tunnelSet);
-                }
-                tunnelSet.add(comp.getLocation());
+    private void connectTunnelSet(BundleMap ret, ArrayList<Component> tunnelSet) {
+        WireBundle foundBundle = null;
+        Location foundLocation = null;
+        for (Component tunnel : tunnelSet) {
+            Location loc = tunnel.getLocation();
+            WireBundle b = ret.getBundleAt(loc);
+            if (b != null) {
+                foundBundle = b;
+                foundLocation = loc;
+                break;
             }
         }
-
-        // now connect the bundles that are tunnelled together
-        for (ArrayList<Location> tunnelSet : tunnelSets.values()) {
-            WireBundle foundBundle = null;
-            Location foundLocation = null;
-            for (Location loc : tunnelSet) {
+        if (foundBundle == null) {
+            foundLocation = tunnelSet.get(0).getLocation();
+            foundBundle = ret.createBundleAt(foundLocation);
+        }
+        for (Component tunnel : tunnelSet) {
+            Location loc = tunnel.getLocation();
+            if (!loc.equals(foundLocation)) {
                 WireBundle b = ret.getBundleAt(loc);
-                if (b != null) {
-                    foundBundle = b;
-                    foundLocation = loc;
-                    break;
-                }
-            }
-            if (foundBundle == null) {
-                foundLocation = tunnelSet.get(0);
-                foundBundle = ret.createBundleAt(foundLocation);
-            }
-            for (Location loc : tunnelSet) {
-                if (loc != foundLocation) {
-                    WireBundle b = ret.getBundleAt(loc);
-                    if (b == null) {
-                        foundBundle.points.add(loc);
-                        ret.setBundleAt(loc, foundBundle);
-                    } else {
-                        b.unite(foundBundle);
-                    }
+                if (b == null) {
+                    foundBundle.points.add(loc);
+                    ret.setBundleAt(loc, foundBundle);
+                } else {
+                    b.unite(foundBundle);
                 }
             }
         }
     }
 
-    private void connectPullResistors(BundleMap ret) {
+    private void connectPullResistors(BundleMap ret,
+            Collection<Component> pulls) {
         for (Component comp : pulls) {
             Location loc = comp.getEnd(0).getLocation();
             WireBundle b = ret.getBundleAt(loc);
@@ -815,52 +1084,6 @@ class CircuitWires {
         }
     }
 
-    private Value getThreadValue(CircuitState state, WireThread t) {
-        Value ret = Value.UNKNOWN;
-        Value pull = Value.UNKNOWN;
-        for (ThreadBundle tb : t.getBundles()) {
-            for (Location p : tb.b.points) {
-                Value val = state.getComponentOutputAt(p);
-                if (val != null && val != Value.NIL) {
-                    ret = ret.combine(val.get(tb.loc));
-                }
-            }
-            Value pullHere = tb.b.getPullValue();
-            if (pullHere != Value.UNKNOWN) {
-                pull = pull.combine(pullHere);
-            }
-
-        }
-        if (pull != Value.UNKNOWN) {
-            ret = pullValue(ret, pull);
-        }
-        return ret;
-    }
-
-    private static Value pullValue(Value base, Value pullTo) {
-        if (base.isFullyDefined()) {
-            return base;
-        } else if (base.getWidth() == 1) {
-            if (base == Value.UNKNOWN) {
-                return pullTo;
-            }
-
-            else {
-                return base;
-            }
-
-        } else {
-            Value[] ret = base.getAll();
-            for (int i = 0; i < ret.length; i++) {
-                if (ret[i] == Value.UNKNOWN) {
-                    ret[i] = pullTo;
-                }
-
-            }
-            return Value.create(ret);
-        }
-    }
-
     private Bounds recomputeBounds() {
         Iterator<Wire> it = wires.iterator();
         if (!it.hasNext()) {
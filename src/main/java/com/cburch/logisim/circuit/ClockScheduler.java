@@ -0,0 +1,139 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.AttributeEvent;
+import com.cburch.logisim.data.AttributeListener;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.std.wiring.Clock;
+
+/**
+ * Keeps the clocks of a propagator's tree of circuit states ordered by the
+ * tick of their next edge, so that a tick touches only the clocks that
+ * change on it rather than every clock of every state.
+ * <p>
+ * The schedule is rebuilt on the first tick after it is invalidated, by
+ * ticking every clock as before. It is invalidated when the tree of states
+ * is reset or changes shape, when a circuit in it changes, and when the
+ * durations of a scheduled clock change.
+ * <p>
+ * The clocks' attributes hold the scheduler only weakly, so that a
+ * propagator discarded with its states is not kept alive by its clocks.
+ */
+class ClockScheduler {
+    private static class Listener implements AttributeListener {
+        WeakReference<ClockScheduler> scheduler;
+
+        Listener(ClockScheduler scheduler) {
+            this.scheduler = new WeakReference<ClockScheduler>(scheduler);
+        }
+
+        @Override
+        public void attributeListChanged(AttributeEvent e) { }
+
+        @Override
+        public void attributeValueChanged(AttributeEvent e) {
+            ClockScheduler s = scheduler.get();
+            Object attr = e.getAttribute();
+            if (s == null) {
+                e.getSource().removeAttributeListener(this);
+            } else if (attr == Clock.ATTR_HIGH || attr == Clock.ATTR_LOW) {
+                s.invalidate();
+            }
+        }
+    }
+
+    private static class Edge implements Comparable<Edge> {
+        final CircuitState state;
+        final Component clock;
+        final int high;
+        final int low;
+        int tick;
+
+        Edge(CircuitState state, Component clock) {
+            AttributeSet attrs = clock.getAttributeSet();
+            this.state = state;
+            this.clock = clock;
+            this.high = attrs.getValue(Clock.ATTR_HIGH).intValue();
+            this.low = attrs.getValue(Clock.ATTR_LOW).intValue();
+        }
+
+        // the clock is low for the first low ticks of each period, and
+        // so changes where the period starts and low ticks later
+        void scheduleAfter(int ticks) {
+            int period = high + low;
+            int phase = ticks % period;
+            tick = ticks + (phase < low ? low - phase : period - phase);
+        }
+
+        @Override
+        public int compareTo(Edge other) {
+            return tick < other.tick ? -1 : (tick == other.tick ? 0 : 1);
+        }
+    }
+
+    private final PriorityQueue<Edge> edges = new PriorityQueue<Edge>();
+    private final Listener listener = new Listener(this);
+    private final ArrayList<AttributeSet> listening = new ArrayList<AttributeSet>();
+    private volatile boolean valid = false;
+
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Brings every clock in the tree up to date for the given tick.
+     *
+     * @return true if any clock changed
+     */
+    boolean tick(CircuitState root, int ticks) {
+        if (!valid) {
+            return rebuild(root, ticks);
+        }
+
+        boolean ret = false;
+        while (!edges.isEmpty() && edges.peek().tick <= ticks) {
+            Edge edge = edges.poll();
+            ret |= Clock.tick(edge.state, ticks, edge.clock, edge.high, edge.low);
+            edge.scheduleAfter(ticks);
+            edges.add(edge);
+        }
+        return ret;
+    }
+
+    private boolean rebuild(CircuitState root, int ticks) {
+        // anything invalidating the schedule from here on must be seen
+        valid = true;
+        for (AttributeSet attrs : listening) {
+            attrs.removeAttributeListener(listener);
+        }
+        listening.clear();
+        edges.clear();
+        return schedule(root, ticks);
+    }
+
+    private boolean schedule(CircuitState state, int ticks) {
+        boolean ret = false;
+        for (Component clock : state.getCircuit().getClocks()) {
+            Edge edge = new Edge(state, clock);
+            ret |= Clock.tick(state, ticks, clock, edge.high, edge.low);
+            edge.scheduleAfter(ticks);
+            edges.add(edge);
+            AttributeSet attrs = clock.getAttributeSet();
+            attrs.addAttributeListener(listener);
+            listening.add(attrs);
+        }
+
+        CircuitState[] subs = new CircuitState[state.getSubstates().size()];
+        for (CircuitState substate : state.getSubstates().toArray(subs)) {
+            ret |= schedule(substate, ticks);
+        }
+        return ret;
+    }
+}
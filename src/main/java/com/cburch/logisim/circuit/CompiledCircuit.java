@@ -0,0 +1,176 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.cburch.logisim.analyze.model.Expression;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.gates.Gates;
+import com.cburch.logisim.std.wiring.Pin;
+
+/**
+ * A purely combinational circuit compiled into a truth table, so that an
+ * instance of it can compute its outputs with a lookup rather than by
+ * simulating a circuit state of its own. The table is computed from the
+ * output expressions found by {@link Analyze}, and so a circuit compiles
+ * only when it could be analyzed: when all its components are gates,
+ * constants and pins, one bit wide, and it has at most
+ * {@link #MAX_INPUTS} inputs.
+ * <p>
+ * Where some inputs are not 0 or 1, each output is the value it takes for
+ * every assignment of 0 and 1 to those inputs, if it is the same for all;
+ * otherwise it is an error if any input is, and unknown if not. The
+ * outputs change one step after the inputs, however deep the gates.
+ */
+class CompiledCircuit {
+    static final int MAX_INPUTS = 10;
+
+    // for each pin, its index among the inputs, or the complement of its
+    // index among the outputs
+    private final IdentityHashMap<Instance, Integer> pinIndex;
+    private final int inputCount;
+    // for each output, its value in each row, bit r % 64 of word r / 64;
+    // null where nothing drives the output
+    private final long[][] outputs;
+
+    private CompiledCircuit(IdentityHashMap<Instance, Integer> pinIndex,
+            int inputCount, long[][] outputs) {
+        this.pinIndex = pinIndex;
+        this.inputCount = inputCount;
+        this.outputs = outputs;
+    }
+
+    /**
+     * Compiles the circuit with the given pins.
+     *
+     * @return the compiled circuit, or null if the circuit cannot be
+     *         compiled
+     */
+    static CompiledCircuit compile(Circuit circuit, Instance[] pins) {
+        IdentityHashMap<Instance, Integer> pinIndex
+            = new IdentityHashMap<Instance, Integer>();
+        HashMap<Instance, String> names = new HashMap<Instance, String>();
+        ArrayList<String> inputNames = new ArrayList<String>();
+        ArrayList<Instance> outputPins = new ArrayList<Instance>();
+        for (Instance pin : pins) {
+            if (pin.getAttributeValue(StdAttr.WIDTH).getWidth() != 1) {
+                return null;
+            }
+            if (Pin.FACTORY.isInputPin(pin)) {
+                String name = "in" + inputNames.size();
+                pinIndex.put(pin, Integer.valueOf(inputNames.size()));
+                names.put(pin, name);
+                inputNames.add(name);
+            } else {
+                pinIndex.put(pin, Integer.valueOf(~outputPins.size()));
+                names.put(pin, "out" + outputPins.size());
+                outputPins.add(pin);
+            }
+        }
+        if (inputNames.size() > MAX_INPUTS) {
+            return null;
+        }
+
+        for (Component comp : circuit.getNonWires()) {
+            AttributeSet attrs = comp.getAttributeSet();
+            if (attrs.containsAttribute(StdAttr.WIDTH)
+                    && attrs.getValue(StdAttr.WIDTH).getWidth() != 1) {
+                return null;
+            }
+            // Analyze treats such a gate as if it drove 0 and 1
+            if (Gates.isOutputFloating(attrs)) {
+                return null;
+            }
+        }
+
+        Map<Instance, Expression> expressions;
+        try {
+            expressions = Analyze.computeExpressions(circuit, names);
+        } catch (AnalyzeException e) {
+            return null;
+        }
+
+        long[][] outputs = new long[outputPins.size()][];
+        for (int i = 0; i < outputs.length; i++) {
+            Expression expr = expressions.get(outputPins.get(i));
+            outputs[i] = expr == null ? null : expr.evaluateRows(inputNames);
+        }
+        return new CompiledCircuit(pinIndex, inputNames.size(), outputs);
+    }
+
+    /**
+     * Computes the outputs of an instance from its inputs.
+     *
+     * @param state the instance's state
+     * @param pins the pins of the circuit, in the order of the instance's
+     *        ports
+     * @return false if the pins are not those the circuit was compiled
+     *         with, in which case nothing is done
+     */
+    boolean propagate(InstanceState state, Instance[] pins) {
+        int row = 0;
+        int unknown = 0;
+        boolean error = false;
+        for (int i = 0; i < pins.length; i++) {
+            Integer index = pinIndex.get(pins[i]);
+            if (index == null) {
+                return false;
+            }
+            int input = index.intValue();
+            if (input >= 0) {
+                // the first input is the most significant bit of the row
+                int bit = 1 << (inputCount - 1 - input);
+                Value value = state.getPort(i);
+                if (value == Value.TRUE) {
+                    row |= bit;
+                } else if (value != Value.FALSE) {
+                    unknown |= bit;
+                    error |= value.isErrorValue();
+                }
+            }
+        }
+
+        for (int i = 0; i < pins.length; i++) {
+            int output = ~pinIndex.get(pins[i]).intValue();
+            if (output >= 0) {
+                state.setPort(i, lookup(outputs[output], row, unknown, error), 1);
+            }
+        }
+        return true;
+    }
+
+    private static Value lookup(long[] column, int row, int unknown,
+            boolean error) {
+        if (column == null) {
+            return Value.UNKNOWN;
+        }
+
+        boolean seen0 = false;
+        boolean seen1 = false;
+        int sub = 0;
+        do {
+            int r = row | sub;
+            if ((column[r >>> 6] & (1L << r)) != 0) {
+                seen1 = true;
+            } else {
+                seen0 = true;
+            }
+            sub = (sub - unknown) & unknown;
+        } while (sub != 0 && !(seen0 && seen1));
+
+        if (seen0 && seen1) {
+            return error ? Value.ERROR : Value.UNKNOWN;
+        }
+        return seen1 ? Value.TRUE : Value.FALSE;
+    }
+}
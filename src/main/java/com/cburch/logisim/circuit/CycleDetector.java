@@ -0,0 +1,202 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+
+/**
+ * Notices when propagation has begun to repeat itself, so that an
+ * oscillating circuit is caught within a few of its periods rather than
+ * after the simulation limit.
+ * <p>
+ * Each step of propagation is summed up by a fingerprint of the values at
+ * every point it has set since propagation began, kept up to date as each
+ * point changes by xor-ing out a hash of its old value and xor-ing in a
+ * hash of its new one, together with a fingerprint of the events waiting.
+ * That is a sum over the events of a hash of each times
+ * {@code BASE^time}, kept up to date as events are queued and processed,
+ * and taken relative to the step's time by multiplying it once by
+ * {@code BASE^-clock}, so that events waiting the same delays after
+ * different steps look the same. The fingerprints of the last
+ * {@link #HISTORY} steps are kept in a ring. Once a step's fingerprint
+ * matches one a few steps back, and the steps since then keep matching
+ * those the same distance back for {@link #REPEATS} periods and at least
+ * {@link #MIN_STEPS} steps, the circuit is taken to be oscillating with
+ * that period.
+ * <p>
+ * A period longer than the ring holds, or one that random delays keep from
+ * repeating exactly, is still caught by the simulation limit.
+ */
+class CycleDetector {
+    static final int HISTORY = 256;
+    static final int REPEATS = 3;
+    static final int MIN_STEPS = 32;
+
+    private static final int MASK = HISTORY - 1;
+
+    // odd, and so invertible modulo 2^64
+    private static final long BASE = 0x9e3779b97f4a7c15L;
+    private static final long BASE_INVERSE = inverse(BASE);
+    // BASE^delay for the usual delays
+    private static final long[] DELAY_POWERS = new long[256];
+
+    static {
+        long power = 1;
+        for (int i = 0; i < DELAY_POWERS.length; i++) {
+            DELAY_POWERS[i] = power;
+            power *= BASE;
+        }
+    }
+
+    private final long[] history = new long[HISTORY];
+    // the fingerprint of the values set since reset
+    private long values = 0;
+    // the sum over the events waiting of hash * BASE^time, and their number
+    private long pending = 0;
+    private int pendingCount = 0;
+    // the time of the current step, with BASE to its power and the inverse
+    private int clock = 0;
+    private long clockPower = 1;
+    private long clockInverse = 1;
+    private int steps = 0;
+    // the period the steps seem to repeat with, or 0 if none
+    private int period = 0;
+    // the number of steps in a row that have matched the one a period back
+    private int run = 0;
+
+    /**
+     * Starts looking for a repeat afresh. The events waiting are still
+     * remembered.
+     */
+    void reset() {
+        values = 0;
+        steps = 0;
+        period = 0;
+        run = 0;
+    }
+
+    /**
+     * Forgets the events waiting, when the queue of them is cleared.
+     */
+    void clearPending() {
+        pending = 0;
+        pendingCount = 0;
+    }
+
+    /**
+     * Notes the time of the step being processed.
+     */
+    void setClock(int value) {
+        if (value != clock) {
+            clock = value;
+            clockPower = power(BASE, value);
+            clockInverse = power(BASE_INVERSE, value);
+        }
+    }
+
+    /**
+     * Notes that the value at a point has changed.
+     */
+    void valueChanged(CircuitState state, Location loc, Value oldVal,
+            Value newVal) {
+        values ^= hash(state, loc, oldVal) ^ hash(state, loc, newVal);
+    }
+
+    /**
+     * Notes an event queued to set a value the given number of time units
+     * after the current step.
+     */
+    void eventAdded(CircuitState state, Location loc, Value val, int delay) {
+        long delayPower = delay >= 0 && delay < DELAY_POWERS.length
+            ? DELAY_POWERS[delay] : power(BASE, delay);
+        // summed rather than xor-ed, so that equal events do not cancel
+        pending += hash(state, loc, val) * clockPower * delayPower;
+        pendingCount++;
+    }
+
+    /**
+     * Notes that an event of the current step has been taken from the
+     * queue.
+     */
+    void eventRemoved(CircuitState state, Location loc, Value val) {
+        pending -= hash(state, loc, val) * clockPower;
+        pendingCount--;
+    }
+
+    /**
+     * Notes the end of a step, and returns the period with which the steps
+     * have been repeating, or 0 if they have not.
+     */
+    int stepDone() {
+        long fingerprint = values ^ mix(pendingCount)
+            ^ mix(pending * clockInverse);
+        int t = steps;
+        if (period > 0) {
+            if (history[(t - period) & MASK] == fingerprint) {
+                run++;
+            } else {
+                period = 0;
+                run = 0;
+            }
+        }
+
+        if (period == 0) {
+            int farthest = Math.min(t, HISTORY - 1);
+            for (int p = 1; p <= farthest; p++) {
+                if (history[(t - p) & MASK] == fingerprint) {
+                    period = p;
+                    run = 1;
+                    break;
+                }
+            }
+        }
+        history[t & MASK] = fingerprint;
+        steps++;
+
+        if (period > 0 && run >= Math.max(MIN_STEPS, REPEATS * period)) {
+            return period;
+        }
+        return 0;
+    }
+
+    private static long hash(CircuitState state, Location loc, Value val) {
+        return mix(((long) state.hashCode() << 32)
+                ^ (loc.hashCode() * 0x9e3779b97f4a7c15L)
+                ^ (val.hashCode() * 0xc2b2ae3d27d4eb4fL));
+    }
+
+    // raises base to the power of an int taken as unsigned; a
+    // propagation over which the time wraps round is only caught by the
+    // simulation limit
+    private static long power(long base, int exponent) {
+        long ret = 1;
+        for (long e = exponent & 0xffffffffL; e != 0; e >>>= 1) {
+            if ((e & 1) != 0) {
+                ret *= base;
+            }
+            base *= base;
+        }
+        return ret;
+    }
+
+    // the inverse of an odd value modulo 2^64, by Newton's iteration
+    private static long inverse(long value) {
+        long ret = value;
+        for (int i = 0; i < 5; i++) {
+            ret *= 2 - value * ret;
+        }
+        return ret;
+    }
+
+    // spreads the bits of a value across the whole long
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
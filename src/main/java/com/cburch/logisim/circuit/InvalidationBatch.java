@@ -0,0 +1,181 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.instance.Instance;
+
+/**
+ * Collects the components invalidated on a propagator's thread while it
+ * ticks or propagates, so that their listeners, which mostly repaint, hear
+ * of each one once per completed propagation rather than once per change.
+ * A component invalidating itself through its state still marks itself
+ * dirty in that state at once, so simulation is not delayed; the circuit
+ * states therefore leave their dirty marks alone while a batch is
+ * {@link #isDelivering delivered}, so that a delivery does not leave the
+ * propagator with more to do.
+ * <p>
+ * Other work that need only be done once per propagation, such as telling
+ * a memory's listeners of the stores made to it, may be
+ * {@link #addFlush added} as well; it is done at the start of delivery.
+ * <p>
+ * The components are held in an open-addressed table compared by
+ * identity, so that adding one already present costs a probe and no
+ * allocation.
+ */
+public class InvalidationBatch {
+    private static final ThreadLocal<InvalidationBatch> current
+        = new ThreadLocal<InvalidationBatch>();
+    private static final ThreadLocal<InvalidationBatch> delivering
+        = new ThreadLocal<InvalidationBatch>();
+
+    /**
+     * Returns the batch collecting the invalidations of the current
+     * thread, or null if it is not ticking or propagating.
+     */
+    public static InvalidationBatch getCurrent() {
+        return current.get();
+    }
+
+    /**
+     * Returns whether the current thread is telling listeners of the
+     * invalidations of a batch.
+     */
+    public static boolean isDelivering() {
+        return delivering.get() != null;
+    }
+
+    private Component[] table = new Component[64];
+    // the components in the order added, for delivery and clearing
+    private Component[] added = new Component[16];
+    private int size = 0;
+    private ArrayList<Runnable> flushes = new ArrayList<Runnable>();
+
+    /**
+     * Runs a task as a propagator runs a tick or a propagation: with this
+     * batch current for the thread, delivering what it collected at the
+     * end unless the task was run within this batch already.
+     */
+    public void runBatched(Runnable task) {
+        InvalidationBatch outer = begin();
+        try {
+            task.run();
+        } finally {
+            finish(outer);
+        }
+    }
+
+    // makes this the current thread's batch, returning the one it replaces
+    InvalidationBatch begin() {
+        InvalidationBatch outer = current.get();
+        current.set(this);
+        return outer;
+    }
+
+    void end(InvalidationBatch outer) {
+        if (outer == null) {
+            current.remove();
+        } else {
+            current.set(outer);
+        }
+    }
+
+    // ends this batch, and delivers it if it was not already current
+    void finish(InvalidationBatch outer) {
+        end(outer);
+        if (outer != this) {
+            deliver();
+        }
+    }
+
+    /**
+     * Records work to be done when the batch is delivered. The caller
+     * adds each task at most once per delivery.
+     */
+    public void addFlush(Runnable task) {
+        flushes.add(task);
+    }
+
+    /**
+     * Records that a component is invalidated; its listeners are told when
+     * the batch is delivered.
+     */
+    public void add(Component comp) {
+        int mask = table.length - 1;
+        int i = System.identityHashCode(comp) & mask;
+        while (table[i] != null) {
+            if (table[i] == comp) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = comp;
+        if (size == added.length) {
+            added = Arrays.copyOf(added, 2 * size);
+        }
+        added[size++] = comp;
+        if (2 * size > table.length) {
+            rehash(2 * table.length);
+        }
+    }
+
+    private void rehash(int capacity) {
+        table = new Component[capacity];
+        int mask = capacity - 1;
+        for (int k = 0; k < size; k++) {
+            int i = System.identityHashCode(added[k]) & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = added[k];
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0 && flushes.isEmpty();
+    }
+
+    /**
+     * Does the work added since the last delivery, then tells the
+     * listeners of each component recorded that it is invalidated, and
+     * empties the batch. This must not be called while the batch is
+     * current.
+     */
+    void deliver() {
+        if (isEmpty()) {
+            return;
+        }
+        InvalidationBatch outer = delivering.get();
+        delivering.set(this);
+        try {
+            if (!flushes.isEmpty()) {
+                Runnable[] tasks = flushes.toArray(new Runnable[flushes.size()]);
+                flushes.clear();
+                for (Runnable task : tasks) {
+                    task.run();
+                }
+            }
+
+            Component[] comps = Arrays.copyOf(added, size);
+            Arrays.fill(added, 0, size, null);
+            Arrays.fill(table, null);
+            size = 0;
+            for (Component comp : comps) {
+                Instance instance = Instance.getInstanceFor(comp);
+                if (instance != null) {
+                    instance.fireInvalidated();
+                }
+            }
+        } finally {
+            if (outer == null) {
+                delivering.remove();
+            } else {
+                delivering.set(outer);
+            }
+        }
+    }
+}
@@ -111,6 +111,8 @@ public class Propagator {
                 e.getSource().removeAttributeListener(this);
             } else if (e.getAttribute().equals(Options.sim_rand_attr)) {
                 p.updateRandomness();
+            } else if (e.getAttribute().equals(Options.sim_limit_attr)) {
+                p.updateSimLimit();
             }
         }
     }
@@ -118,9 +120,10 @@ public class Propagator {
     private CircuitState    root; // root of state tree
 
     /** The number of clock cycles to let pass before deciding that the
-     * circuit is oscillating.
+     * circuit is oscillating, if it has not been seen to repeat itself
+     * sooner.
      */
-    private int simLimit = 1000;
+    private volatile int simLimit = 1000;
 
     /** On average, one out of every 2**simRandomShift propagations
      * through a component is delayed one step more than the component
@@ -135,6 +138,15 @@ public class Propagator {
     private boolean oscAdding = false;
     private PropagationPoints oscPoints = new PropagationPoints();
     private int  ticks = 0;
+    private CycleDetector cycles = new CycleDetector();
+    private ClockScheduler clocks = new ClockScheduler();
+    private InvalidationBatch invalidations = new InvalidationBatch();
+    // set whenever a state in the tree marks points or components as
+    // dirty, so that a tick changing no clock may skip propagation
+    private volatile boolean pointsDirty = true;
+    private volatile boolean componentsDirty = true;
+    // counts evaluations while profiling; null otherwise
+    private volatile SimulationProfile profile = null;
     private Random noiseSource = new Random();
     private int noiseCount = 0;
     private int setDataSerialNumber = 0;
@@ -147,6 +159,7 @@ public class Propagator {
         Listener l = new Listener(this);
         root.getProject().getOptions().getAttributeSet().addAttributeListener(l);
         updateRandomness();
+        updateSimLimit();
     }
 
     private void updateRandomness() {
@@ -158,10 +171,28 @@ public class Propagator {
         simRandomShift = logVal;
     }
 
+    private void updateSimLimit() {
+        Options opts = root.getProject().getOptions();
+        Object limit = opts.getAttributeSet().getValue(Options.sim_limit_attr);
+        simLimit = ((Integer) limit).intValue();
+    }
+
     public boolean isOscillating() {
         return isOscillating;
     }
 
+    public SimulationProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Starts counting evaluations and values set in the given profile, or
+     * stops counting if it is null.
+     */
+    public void setProfile(SimulationProfile value) {
+        profile = value;
+    }
+
     @Override
     public String toString() {
         return "Prop" + id;
@@ -183,11 +214,17 @@ public class Propagator {
 
     void reset() {
         toProcess.clear();
+        cycles.clearPending();
+        clocks.invalidate();
         root.reset();
         isOscillating = false;
     }
 
     public void propagate() {
+        invalidations.runBatched(this::propagateBatched);
+    }
+
+    private void propagateBatched() {
         oscPoints.clear();
         clearDirtyPoints();
         clearDirtyComponents();
@@ -195,11 +232,23 @@ public class Propagator {
         int oscThreshold = simLimit;
         int logThreshold = 3 * oscThreshold / 4;
         int iters = 0;
+        cycles.reset();
         while (!toProcess.isEmpty()) {
             iters++;
 
             if (iters < logThreshold) {
                 stepInternal(null);
+                int period = cycles.stepDone();
+                if (period > 0) {
+                    // go round once more to find the points that change
+                    oscAdding = true;
+                    for (int i = 0; i < period && !toProcess.isEmpty(); i++) {
+                        stepInternal(oscPoints);
+                    }
+                    isOscillating = true;
+                    oscAdding = false;
+                    return;
+                }
             } else if (iters < oscThreshold) {
                 oscAdding = true;
                 stepInternal(oscPoints);
@@ -215,6 +264,10 @@ public class Propagator {
     }
 
     void step(PropagationPoints changedPoints) {
+        invalidations.runBatched(() -> stepBatched(changedPoints));
+    }
+
+    private void stepBatched(PropagationPoints changedPoints) {
         oscPoints.clear();
         clearDirtyPoints();
         clearDirtyComponents();
@@ -235,10 +288,12 @@ public class Propagator {
 
         // update clock
         clock = toProcess.peek().time;
+        cycles.setClock(clock);
 
         // propagate all values for this clock tick
         HashMap<CircuitState,HashSet<ComponentPoint>> visited
             = new HashMap<CircuitState,HashSet<ComponentPoint>>();
+        SimulationProfile prof = profile;
         while (true) {
             SetData data = toProcess.peek();
             if (data == null || data.time != clock) {
@@ -246,6 +301,7 @@ public class Propagator {
             }
 
             toProcess.remove();
+            cycles.eventRemoved(data.state, data.loc, data.val);
             CircuitState state = data.state;
 
             // if it's already handled for this clock tick, continue
@@ -270,6 +326,9 @@ public class Propagator {
                 changedPoints.add(state, data.loc);
             }
 
+            if (prof != null) {
+                prof.valueSet(state, data.loc);
+            }
 
             // change the information about value
             SetData oldHead = state.causes.get(data.loc);
@@ -279,6 +338,7 @@ public class Propagator {
 
             // if the value at point has changed, propagate it
             if (!newVal.equals(oldVal)) {
+                cycles.valueChanged(state, data.loc, oldVal, newVal);
                 state.markPointAsDirty(data.loc);
             }
         }
@@ -287,8 +347,12 @@ public class Propagator {
         clearDirtyComponents();
     }
 
-    boolean isPending() {
-        return !toProcess.isEmpty();
+    /**
+     * Returns whether propagating could change anything: whether values
+     * are waiting to be set or components or points are dirty.
+     */
+    public boolean isPending() {
+        return pointsDirty || componentsDirty || !toProcess.isEmpty();
     }
 
     /*TODO for the SimulatorPrototype class
@@ -376,6 +440,7 @@ public class Propagator {
         }
         toProcess.add(new SetData(clock + delay, setDataSerialNumber,
                 state, pt, cause, val));
+        cycles.eventAdded(state, pt, val, delay);
         /*DEBUGGING - comment out
         Simulator.log(clock + ": set " + pt + " in "
                 + state + " to " + val
@@ -387,7 +452,27 @@ public class Propagator {
 
     public boolean tick() {
         ticks++;
-        return root.tick(ticks);
+        // the outermost tick, step or propagation delivers its batch,
+        // whether or not a simulator drives this propagator
+        InvalidationBatch outer = invalidations.begin();
+        try {
+            return clocks.tick(root, ticks);
+        } finally {
+            invalidations.finish(outer);
+        }
+    }
+
+    // called by the states of the tree
+    void markPointsDirty() {
+        pointsDirty = true;
+    }
+
+    void markComponentsDirty() {
+        componentsDirty = true;
+    }
+
+    void invalidateClocks() {
+        clocks.invalidate();
     }
 
     public int getTickCount() {
@@ -417,11 +502,13 @@ public class Propagator {
     }
 
     private void clearDirtyPoints() {
+        pointsDirty = false;
         root.processDirtyPoints();
     }
 
     private void clearDirtyComponents() {
-        root.processDirtyComponents();
+        componentsDirty = false;
+        root.processDirtyComponents(profile);
     }
 
     private SetData addCause(CircuitState state, SetData head,
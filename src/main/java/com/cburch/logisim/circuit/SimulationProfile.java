@@ -0,0 +1,220 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.Location;
+
+/**
+ * Counts where a simulation spends its time: how often each component is
+ * evaluated and how long its evaluations take in all, summed by the kind
+ * of component, by the component itself and by the circuit state it was
+ * evaluated in, and how many values are set at each net.
+ * <p>
+ * A profile counts only while it is given to a {@link Propagator} with
+ * {@link Propagator#setProfile}. A propagator with no profile does no more
+ * than check for one, so profiling can stay compiled in.
+ * <p>
+ * The propagator's thread counts while other threads read, so every
+ * method is synchronized.
+ */
+public class SimulationProfile {
+    /** What a row of the profile counts. */
+    public enum Category {
+        /** evaluations of every component of one kind */
+        FACTORY,
+        /** evaluations of one component, in every state of its circuit */
+        COMPONENT,
+        /** evaluations of the components of one circuit state */
+        STATE,
+        /** values set at one point of one circuit, in every state */
+        NET
+    }
+
+    /** One counted thing: its name, its count and the time it took. */
+    public static class Row {
+        private final String name;
+        private long count = 0;
+        private long nanos = 0;
+
+        private Row(String name) {
+            this.name = name;
+        }
+
+        private Row(Row src) {
+            this.name = src.name;
+            this.count = src.count;
+            this.nanos = src.nanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /** Returns the time taken, or 0 for a net. */
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + count;
+        }
+    }
+
+    // a point in a circuit
+    private static class Net {
+        private final Circuit circuit;
+        private final Location loc;
+
+        Net(Circuit circuit, Location loc) {
+            this.circuit = circuit;
+            this.loc = loc;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * circuit.hashCode() + loc.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Net)) {
+                return false;
+            }
+
+            Net o = (Net) other;
+            return circuit == o.circuit && loc.equals(o.loc);
+        }
+    }
+
+    private final Map<Category,HashMap<Object,Row>> rows
+        = new EnumMap<Category,HashMap<Object,Row>>(Category.class);
+    private long start = System.nanoTime();
+
+    public SimulationProfile() {
+        for (Category category : Category.values()) {
+            rows.put(category, new HashMap<Object,Row>());
+        }
+    }
+
+    /**
+     * Forgets everything counted so far.
+     */
+    public synchronized void clear() {
+        for (HashMap<Object,Row> map : rows.values()) {
+            map.clear();
+        }
+        start = System.nanoTime();
+    }
+
+    /**
+     * Returns the time in nanoseconds since the profile was created or
+     * last cleared.
+     */
+    public synchronized long getElapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    synchronized void componentEvaluated(CircuitState state, Component comp,
+            long nanos) {
+        ComponentFactory factory = comp.getFactory();
+        HashMap<Object,Row> map = rows.get(Category.FACTORY);
+        Row row = map.get(factory);
+        if (row == null) {
+            row = new Row(factory.getDisplayName());
+            map.put(factory, row);
+        }
+        row.count++;
+        row.nanos += nanos;
+
+        map = rows.get(Category.COMPONENT);
+        row = map.get(comp);
+        if (row == null) {
+            row = new Row(state.getCircuit().getName() + ": "
+                    + factory.getDisplayName() + comp.getLocation());
+            map.put(comp, row);
+        }
+        row.count++;
+        row.nanos += nanos;
+
+        map = rows.get(Category.STATE);
+        row = map.get(state);
+        if (row == null) {
+            row = new Row(getStateName(state));
+            map.put(state, row);
+        }
+        row.count++;
+        row.nanos += nanos;
+    }
+
+    synchronized void valueSet(CircuitState state, Location loc) {
+        HashMap<Object,Row> map = rows.get(Category.NET);
+        Net net = new Net(state.getCircuit(), loc);
+        Row row = map.get(net);
+        if (row == null) {
+            row = new Row(state.getCircuit().getName() + ": " + loc);
+            map.put(net, row);
+        }
+        row.count++;
+    }
+
+    // names a state by the path of subcircuits leading to it from the root
+    private static String getStateName(CircuitState state) {
+        StringBuilder ret = new StringBuilder(state.getCircuit().getName());
+        for (CircuitState s = state; s.getParentState() != null;
+                s = s.getParentState()) {
+            ret.insert(0, s.getParentState().getCircuit().getName()
+                    + s.getSubcircuit().getLocation() + "/");
+        }
+        return ret.toString();
+    }
+
+    /**
+     * Returns a copy of the rows of a category, those taking the most time
+     * first, then those with the highest count.
+     */
+    public synchronized List<Row> getRows(Category category) {
+        List<Row> ret = new ArrayList<Row>();
+        for (Row row : rows.get(category).values()) {
+            ret.add(new Row(row));
+        }
+        Collections.sort(ret, (a, b) -> {
+            if (a.nanos != b.nanos) {
+                return a.nanos > b.nanos ? -1 : 1;
+            } else if (a.count != b.count) {
+                return a.count > b.count ? -1 : 1;
+            } else {
+                return a.name.compareTo(b.name);
+            }
+        });
+        return ret;
+    }
+
+    /**
+     * Writes every row of the profile as tab-separated columns: the
+     * category, the count, the time in milliseconds and the name.
+     */
+    public void write(PrintStream out) {
+        for (Category category : Category.values()) {
+            for (Row row : getRows(category)) {
+                out.printf("%s\t%d\t%.3f\t%s%n", category.name().toLowerCase(),
+                        row.count, row.nanos / 1e6, row.name);
+            }
+        }
+    }
+}
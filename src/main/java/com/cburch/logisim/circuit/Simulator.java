@@ -101,6 +101,7 @@ public class Simulator {
 
                 if (propagateRequested || ticksRequested > 0 || stepsRequested > 0) {
                     boolean ticked = false;
+                    boolean requested = propagateRequested;
                     propagateRequested = false;
                     if (isRunning) {
                         stepPoints.clear();
@@ -109,8 +110,17 @@ public class Simulator {
                             ticksRequested = 0;
                         } else {
                             ticked = ticksRequested > 0;
+                            boolean changed = true;
                             if (ticked) {
-                                doTick();
+                                changed = doTick();
+                            }
+
+                            if (!changed && !requested && !propagateRequested
+                                    && !propagator.isPending()) {
+                                // the tick changed no clock, and nothing
+                                // else needs propagating
+                                fireTickCompleted();
+                                continue;
                             }
 
                             do {
@@ -159,11 +169,11 @@ public class Simulator {
             }
         }
 
-        private void doTick() {
+        private boolean doTick() {
             synchronized(this) {
                 ticksRequested--;
             }
-            propagator.tick();
+            return propagator.tick();
         }
     }
 
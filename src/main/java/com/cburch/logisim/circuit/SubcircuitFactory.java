@@ -12,6 +12,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
+import java.util.ArrayList;
 import java.util.Map;
 
 import javax.swing.JPopupMenu;
@@ -19,18 +20,22 @@ import javax.swing.JMenuItem;
 
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.Attribute;
+import com.cburch.logisim.data.AttributeEvent;
+import com.cburch.logisim.data.AttributeListener;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Bounds;
 import com.cburch.logisim.data.Direction;
 import com.cburch.logisim.data.Location;
 import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Options;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstanceFactory;
 import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.tools.MenuExtender;
@@ -79,7 +84,35 @@ public class SubcircuitFactory extends InstanceFactory {
         }
     }
 
+    // forgets the compiled circuit, or that the source does not compile,
+    // when the source or one of its components changes; a component
+    // merely invalidated, as a probe is on each propagation, has not
+    private class SourceListener implements CircuitListener, AttributeListener {
+        @Override
+        public void circuitChanged(CircuitEvent event) {
+            if (event.getAction() != CircuitEvent.ACTION_INVALIDATE) {
+                invalidateCompiled();
+            }
+        }
+
+        @Override
+        public void attributeListChanged(AttributeEvent e) {
+            invalidateCompiled();
+        }
+
+        @Override
+        public void attributeValueChanged(AttributeEvent e) {
+            invalidateCompiled();
+        }
+    }
+
     private Circuit source;
+    private SourceListener sourceListener = null;
+    // the source compiled into a truth table, or null if it cannot be;
+    // meaningful only while compiledValid
+    private CompiledCircuit compiled = null;
+    private boolean compiledValid = false;
+    private ArrayList<AttributeSet> compiledAttrs = new ArrayList<AttributeSet>();
 
     public SubcircuitFactory(Circuit source) {
         super("", null);
@@ -240,10 +273,21 @@ public class SubcircuitFactory extends InstanceFactory {
 
     @Override
     public void propagate(InstanceState superState) {
-        CircuitState subState = getSubstate(superState);
-
         CircuitAttributes attrs = (CircuitAttributes) superState.getAttributeSet();
         Instance[] pins = attrs.getPinInstances();
+
+        // An instance whose state nobody has asked to see needs no state
+        // of its own if the source compiles into a truth table.
+        if (superState.getData() == null
+                && AppPreferences.COMPILE_SUBCIRCUITS.getBoolean()
+                && !isUndefinedError(superState)) {
+            CompiledCircuit table = getCompiled();
+            if (table != null && table.propagate(superState, pins)) {
+                return;
+            }
+        }
+
+        CircuitState subState = getSubstate(superState);
         for (int i = 0; i < pins.length; i++) {
             Instance pin = pins[i];
             InstanceState pinState = subState.getInstanceState(pin);
@@ -262,6 +306,60 @@ public class SubcircuitFactory extends InstanceFactory {
         }
     }
 
+    // whether gates treat unconnected inputs as errors, which the
+    // compiled circuit does not; a state with no project, as Analyze may
+    // make, has the default options
+    private static boolean isUndefinedError(InstanceState state) {
+        Project proj = state.getProject();
+        if (proj == null) {
+            return false;
+        }
+
+        AttributeSet opts = proj.getOptions().getAttributeSet();
+        return opts.getValue(Options.ATTR_GATE_UNDEFINED)
+            .equals(Options.GATE_UNDEFINED_ERROR);
+    }
+
+    synchronized CompiledCircuit getCompiled() {
+        if (!compiledValid) {
+            if (sourceListener == null) {
+                sourceListener = new SourceListener();
+                source.addCircuitListener(sourceListener);
+            }
+            Instance[] pins = source.getAppearance().getPortOffsets(Direction.EAST)
+                .values().toArray(new Instance[0]);
+            compiled = CompiledCircuit.compile(source, pins);
+            for (Component comp : source.getNonWires()) {
+                AttributeSet attrs = comp.getAttributeSet();
+                attrs.addAttributeListener(sourceListener);
+                compiledAttrs.add(attrs);
+            }
+            compiledValid = true;
+        }
+        return compiled;
+    }
+
+    private void invalidateCompiled() {
+        boolean wasCompiled;
+        synchronized (this) {
+            if (!compiledValid) {
+                return;
+            }
+            wasCompiled = compiled != null;
+            for (AttributeSet attrs : compiledAttrs) {
+                attrs.removeAttributeListener(sourceListener);
+            }
+            compiledAttrs.clear();
+            compiled = null;
+            compiledValid = false;
+        }
+        if (wasCompiled) {
+            // the instances computing their outputs from the old table
+            // must compute them again
+            source.fireInstancesInvalidated();
+        }
+    }
+
     //
     // user interface features
     //
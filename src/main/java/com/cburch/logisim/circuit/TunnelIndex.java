@@ -0,0 +1,125 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.instance.StdAttr;
+
+/**
+ * The tunnels of a circuit grouped by label, kept up to date as tunnels
+ * are added, removed and relabelled so that computing a bundle map need
+ * not regroup every tunnel. Tunnels whose label is blank are held but
+ * belong to no group.
+ * <p>
+ * The index is changed on the thread editing the circuit and read while
+ * bundle maps are computed in the background, and so it is guarded by its
+ * own lock.
+ */
+class TunnelIndex {
+    private static class Entry {
+        final Component tunnel;
+        // the trimmed label under which the tunnel is grouped
+        String label;
+
+        Entry(Component tunnel, String label) {
+            this.tunnel = tunnel;
+            this.label = label;
+        }
+    }
+
+    private final HashMap<AttributeSet, Entry> entries
+        = new HashMap<AttributeSet, Entry>();
+    private final HashMap<String, ArrayList<Component>> groups
+        = new HashMap<String, ArrayList<Component>>();
+
+    private static String labelOf(AttributeSet attrs) {
+        return attrs.getValue(StdAttr.LABEL).trim();
+    }
+
+    synchronized void add(Component tunnel) {
+        AttributeSet attrs = tunnel.getAttributeSet();
+        if (!entries.containsKey(attrs)) {
+            Entry entry = new Entry(tunnel, labelOf(attrs));
+            entries.put(attrs, entry);
+            join(entry);
+        }
+    }
+
+    synchronized void remove(Component tunnel) {
+        Entry entry = entries.remove(tunnel.getAttributeSet());
+        if (entry != null) {
+            leave(entry);
+        }
+    }
+
+    /**
+     * Regroups the tunnel with the given attributes after its label
+     * changes.
+     *
+     * @return false if the tunnel left no other tunnel behind and joined
+     *         none, so that what is connected to what is unchanged
+     */
+    synchronized boolean relabel(AttributeSet attrs) {
+        Entry entry = entries.get(attrs);
+        if (entry == null) {
+            return false;
+        }
+        String label = labelOf(attrs);
+        if (label.equals(entry.label)) {
+            return false;
+        }
+
+        // a tunnel alone under its label still has a bundle of its own,
+        // which a tunnel with a blank label does not
+        boolean changed = entry.label.isEmpty() != label.isEmpty();
+        changed |= leave(entry) > 0;
+        entry.label = label;
+        changed |= join(entry) > 1;
+        return changed;
+    }
+
+    /**
+     * Returns the groups of tunnels sharing a label. The groups are not
+     * copied, and so the caller must hold the index's lock while using
+     * them.
+     */
+    Collection<ArrayList<Component>> getGroups() {
+        return groups.values();
+    }
+
+    // returns the size of the entry's group once it has joined
+    private int join(Entry entry) {
+        if (entry.label.isEmpty()) {
+            return 0;
+        }
+        ArrayList<Component> group = groups.get(entry.label);
+        if (group == null) {
+            group = new ArrayList<Component>(3);
+            groups.put(entry.label, group);
+        }
+        group.add(entry.tunnel);
+        return group.size();
+    }
+
+    // returns the size of the entry's group once it has left
+    private int leave(Entry entry) {
+        if (entry.label.isEmpty()) {
+            return 0;
+        }
+        ArrayList<Component> group = groups.get(entry.label);
+        if (group == null) {
+            return 0;
+        }
+        group.remove(entry.tunnel);
+        if (group.isEmpty()) {
+            groups.remove(entry.label);
+        }
+        return group.size();
+    }
+}
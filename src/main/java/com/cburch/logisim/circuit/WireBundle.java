@@ -10,11 +10,36 @@ import com.cburch.logisim.data.Location;
 import com.cburch.logisim.data.Value;
 
 class WireBundle {
+    // a run of bits carried to this bundle from the threads it shares
+    // with another
+    static class Route {
+        final WireBundle source;
+        // how far left the source's bits move to land on this bundle's
+        final int shift;
+        // the bits of this bundle that the route reaches
+        int mask;
+
+        Route(WireBundle source, int shift) {
+            this.source = source;
+            this.shift = shift;
+        }
+    }
+
     private BitWidth width = BitWidth.UNKNOWN;
     private Value pullValue = Value.UNKNOWN;
     private WireBundle parent;
     private Location widthDeterminant = null;
     WireThread[] threads = null;
+    // set once the threads are merged, for valid bundles with threads:
+    // the bundle's position in the map, the routes by which values reach
+    // it, the bundles it reaches, and its pull as error, known and value
+    // masks
+    int index = -1;
+    Route[] routes = null;
+    WireBundle[] dependents = null;
+    int pullError = 0;
+    int pullKnown = 0;
+    int pullBits = 0;
     // points bundle hits
     CopyOnWriteArraySet<Location> points = new CopyOnWriteArraySet<Location>();
     private WidthIncompatibilityData incompatibilityData = null;
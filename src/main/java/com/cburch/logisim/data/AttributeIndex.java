@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+
+package com.cburch.logisim.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable mapping from a fixed list of attributes to array slots.
+ * A factory creates one index for its attributes and every attribute set
+ * it creates shares that index, so that each set need only hold an array
+ * of values. Looking up an attribute probes a small hash table keyed on
+ * the attribute's identity, rather than scanning the attribute list.
+ */
+public final class AttributeIndex {
+    private final Attribute<?>[] attrs;
+    private final List<Attribute<?>> list;
+    private final int[] table; // slot + 1, or 0 for an empty table entry
+    private final int mask;
+
+    private AttributeIndex(Attribute<?>[] attrs) {
+        this.attrs = attrs;
+        this.list = Collections.unmodifiableList(Arrays.asList(attrs));
+        int cap = 4;
+        while (cap < attrs.length * 2) {
+            cap <<= 1;
+        }
+        this.table = new int[cap];
+        this.mask = cap - 1;
+        for (int i = 0; i < attrs.length; i++) {
+            // as with List.indexOf, a repeated attribute maps to its
+            // first slot
+            if (probe(attrs[i]) >= 0) {
+                continue;
+            }
+            int h = hash(attrs[i]) & mask;
+            while (table[h] != 0) {
+                h = (h + 1) & mask;
+            }
+            table[h] = i + 1;
+        }
+    }
+
+    /**
+     * Returns an index over the given attributes, in the given order.
+     *
+     * @param attrs the attributes
+     * @return the attribute index
+     */
+    public static AttributeIndex of(Attribute<?>... attrs) {
+        return new AttributeIndex(attrs.clone());
+    }
+
+    private static int hash(Attribute<?> attr) {
+        int h = System.identityHashCode(attr);
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the slot of the given attribute, or -1 if the attribute is
+     * not in this index. Only a miss costs more than a hash probe.
+     *
+     * @param attr the attribute
+     * @return the attribute's slot
+     */
+    public int indexOf(Attribute<?> attr) {
+        int ret = probe(attr);
+        if (ret >= 0 || attr == null) {
+            return ret;
+        }
+        // a few attribute classes (such as a gate's negation attributes)
+        // define equality by value, so fall back to List semantics
+        return list.indexOf(attr);
+    }
+
+    // looks up the attribute by identity only
+    private int probe(Attribute<?> attr) {
+        int[] table = this.table;
+        int h = hash(attr) & mask;
+        int entry;
+        while ((entry = table[h]) != 0) {
+            if (attrs[entry - 1] == attr) {
+                return entry - 1;
+            }
+            h = (h + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the attribute at the given slot.
+     *
+     * @param index the slot
+     * @return the attribute
+     */
+    public Attribute<?> get(int index) {
+        return attrs[index];
+    }
+
+    /**
+     * Returns the number of attributes in this index.
+     *
+     * @return the number of attributes
+     */
+    public int size() {
+        return attrs.length;
+    }
+
+    /**
+     * Returns an unmodifiable list of the attributes, in slot order.
+     *
+     * @return the attributes
+     */
+    public List<Attribute<?>> getAttributes() {
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return "AttributeIndex" + list;
+    }
+}
@@ -6,7 +6,6 @@
 package com.cburch.logisim.data;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -169,79 +168,100 @@ public final class AttributeSets {
     }
 
 
+    /**
+     * Returns a fixed set containing the attributes of the given index and
+     * their initial values. Sets created from the same index share it, so
+     * that attribute lookups are slot lookups rather than list scans.
+     *
+     * @param index      the attribute index
+     * @param initValues the initial values, in slot order
+     * @return the attribute set
+     */
+    public static AttributeSet fixedSet(AttributeIndex index,
+                                        Object[] initValues) {
+        if (index.size() == 0) {
+            return EMPTY;
+        }
+        return new FixedSet(index, initValues);
+    }
+
     // an attribute set that contains a fixed set of attributes
     // (no more than 32).
     private static class FixedSet extends AbstractAttributeSet {
-        private List<Attribute<?>> attrs;
+        private AttributeIndex index;
         private Object[] values;
         private int readOnly = 0;
 
         FixedSet(Attribute<?>[] attrs, Object[] initValues) {
-            if (attrs.length != initValues.length) {
+            this(AttributeIndex.of(attrs), initValues);
+        }
+
+        FixedSet(AttributeIndex index, Object[] initValues) {
+            if (index.size() != initValues.length) {
                 throw new IllegalArgumentException(E_NOT_SAME_LENGTH);
             }
-            if (attrs.length > MAX_ATTRS) {
+            if (index.size() > MAX_ATTRS) {
                 throw new IllegalArgumentException(E_ATTRS_MAX);
             }
-            this.attrs = Arrays.asList(attrs);
+            this.index = index;
             this.values = initValues.clone();
         }
 
         @Override
         protected void copyInto(AbstractAttributeSet destSet) {
             FixedSet dest = (FixedSet) destSet;
-            dest.attrs = this.attrs;
+            dest.index = this.index;
             dest.values = this.values.clone();
             dest.readOnly = this.readOnly;
         }
 
         @Override
         public List<Attribute<?>> getAttributes() {
-            return attrs;
+            return index.getAttributes();
         }
 
         @Override
         public boolean isReadOnly(Attribute<?> attr) {
-            int index = attrs.indexOf(attr);
-            return index < 0 || isReadOnly(index);
+            int i = index.indexOf(attr);
+            return i < 0 || isReadOnly(i);
         }
 
         @Override
         public void setReadOnly(Attribute<?> attr, boolean value) {
-            int index = attrs.indexOf(attr);
-            if (index < 0) {
+            int i = index.indexOf(attr);
+            if (i < 0) {
                 throw new IllegalArgumentException(eMsg(attr, ABSENT));
             }
 
             if (value) {
-                readOnly |= (1 << index);
+                readOnly |= (1 << i);
             } else {
-                readOnly &= ~(1 << index);
+                readOnly &= ~(1 << i);
             }
 
         }
 
         @Override
         public <V> V getValue(Attribute<V> attr) {
-            int index = attrs.indexOf(attr);
-            if (index < 0) {
+            int i = index.indexOf(attr);
+            if (i < 0) {
                 return null;
             }
             @SuppressWarnings("unchecked")
-            V ret = (V) values[index];
+            V ret = (V) values[i];
             return ret;
         }
 
         @Override
         public <V> void setValue(Attribute<V> attr, V value) {
-            int index = attrs.indexOf(attr);
-            if (index < 0) {
+            int i = index.indexOf(attr);
+            if (i < 0) {
                 throw new IllegalArgumentException(eMsg(attr, ABSENT));
             }
-            if (isReadOnly(index)) {
+            if (isReadOnly(i)) {
                 throw new IllegalArgumentException(eMsg(attr, READ_ONLY));
             }
-            values[index] = value;
+            values[i] = value;
             fireAttributeValueChanged(attr, value);
         }
 
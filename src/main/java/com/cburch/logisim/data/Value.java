@@ -82,7 +82,12 @@ public class Value {
         return Value.create(bits.getWidth(), -1, 0, 0);
     }
 
-    private static Value create(int width, int error, int unknown, int value) {
+    /**
+     * Returns the value of the given width whose bits are errors where set
+     * in the error mask, unknown where set in the unknown mask and not the
+     * error mask, and otherwise the bits of the value mask.
+     */
+    public static Value create(int width, int error, int unknown, int value) {
         if (width == 0) {
             return Value.NIL;
         } else if (width == 1) {
@@ -152,6 +157,28 @@ public class Value {
         return error != 0;
     }
 
+    /**
+     * Returns the mask of the bits that are errors.
+     */
+    public int getErrorMask() {
+        return error;
+    }
+
+    /**
+     * Returns the mask of the bits that are unknown and not errors.
+     */
+    public int getUnknownMask() {
+        return unknown;
+    }
+
+    /**
+     * Returns the mask of the bits that are 1; it is clear wherever a bit
+     * is an error or unknown.
+     */
+    public int getValueMask() {
+        return value;
+    }
+
     public Value extendWidth(int newWidth, Value others) {
         if (width == newWidth) {
             return this;
@@ -4,6 +4,7 @@
 package com.cburch.logisim.file;
 
 import com.cburch.logisim.data.Attribute;
+import com.cburch.logisim.data.AttributeIndex;
 import com.cburch.logisim.data.AttributeOption;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.AttributeSets;
@@ -26,9 +27,9 @@ public class Options {
 
     public static final Integer sim_rand_dflt = Integer.valueOf(32);
 
-    private static final Attribute<?>[] ATTRIBUTES = {
-            ATTR_GATE_UNDEFINED, sim_limit_attr, sim_rand_attr,
-    };
+    private static final AttributeIndex ATTRIBUTES = AttributeIndex.of(
+            ATTR_GATE_UNDEFINED, sim_limit_attr, sim_rand_attr
+    );
     private static final Object[] DEFAULTS = {
             GATE_UNDEFINED_IGNORE, Integer.valueOf(1000), Integer.valueOf(0),
     };
@@ -0,0 +1,96 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded queue handing objects from one thread to one other without
+ * locking. Only one thread at a time may offer, and only one other may
+ * poll; the simulator's propagation thread offers the log's entries and
+ * the {@link LogThread} polls them.
+ * <p>
+ * When the ring is full, the offering thread waits for room rather than
+ * dropping the entry, so that the log file misses nothing; but once the
+ * polling thread has {@link #close closed} the ring, or died, nothing
+ * will make room, so objects offered after that are dropped.
+ */
+class EntryRing {
+    // how long the offering thread sleeps between checks for room
+    private static final long WAIT_NANOS = 100000;
+
+    private final Object[] slots;
+    private final int mask;
+    // the number of objects ever offered, and ever polled; each is written
+    // only by its own thread
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a ring holding the given number of objects, rounded up to a
+     * power of two.
+     */
+    EntryRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Adds an object, waiting while the ring is full, and returns whether
+     * it was added; it is not once the consumer has stopped polling. The
+     * consumer is woken when the ring becomes more than half full.
+     */
+    boolean offer(Object value, Thread consumer) {
+        long t = tail.get();
+        while (t - head.get() == slots.length) {
+            if (closed || !consumer.isAlive()) {
+                return false;
+            }
+
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(this, WAIT_NANOS);
+        }
+        if (closed) {
+            return false;
+        }
+
+        slots[(int) t & mask] = value;
+        // publishes the slot along with the new tail
+        tail.lazySet(t + 1);
+        if (t + 1 - head.get() > slots.length / 2) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Tells the offering thread that nothing more will be polled.
+     */
+    void close() {
+        closed = true;
+    }
+
+    /**
+     * Removes and returns the oldest object, or null if there is none.
+     */
+    Object poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+
+        int i = (int) h & mask;
+        Object ret = slots[i];
+        slots[i] = null;
+        head.lazySet(h + 1);
+        return ret;
+    }
+
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
@@ -3,108 +3,185 @@
 
 package com.cburch.logisim.gui.log;
 
-import java.io.FileWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+import javax.swing.SwingUtilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.cburch.logisim.data.Value;
 
+/**
+ * Writes the log's entries to its file. The thread completing propagation
+ * only hands each entry's values over through an {@link EntryRing}; this
+ * thread turns them into text and writes them out in large blocks, so
+ * that logging to a file costs the simulation little.
+ * <p>
+ * A file whose name ends in ".gz" is written compressed with gzip. Each
+ * time the log is started it adds another gzip member to the file, which
+ * gzip reads back as one stream.
+ */
 class LogThread extends Thread implements ModelListener {
+    private static final Logger logger = LoggerFactory.getLogger(LogThread.class);
+
     // file will be flushed with at least this frequency
     private static final int FLUSH_FREQUENCY = 500;
 
-    // file will be closed after waiting this many milliseconds between writes
-    private static final int IDLE_UNTIL_CLOSE = 10000;
+    // entries waiting to be written, at most
+    private static final int RING_SIZE = 4096;
+
+    // bytes written to the file at once, at most
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    // the items logged and how to write their values, taken each time the
+    // selection changes
+    private static class Layout {
+        private final String[] names;
+        private final int[] radices;
+
+        Layout(Selection sel) {
+            names = new String[sel.size()];
+            radices = new int[sel.size()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = sel.get(i).toString();
+                radices[i] = sel.get(i).getRadix();
+            }
+        }
+    }
+
+    private final Model model;
+    private final EntryRing ring = new EntryRing(RING_SIZE);
+    private volatile boolean canceled = false;
+
+    // set by the event thread, read by the propagation thread
+    private volatile Layout layout;
+    // the layout last put in the ring; used only by the propagation thread
+    private Layout offeredLayout = null;
+
+    // set by the event thread, read by this thread
+    private volatile boolean fileChanged = true;
+    private volatile Value[] firstEntry = null;
 
-    private Model model;
-    private boolean canceled = false;
-    private Object lock = new Object();
-    private PrintWriter writer = null;
+    // used only by this thread
+    private File file = null;
+    private WritableByteChannel out = null;
+    private OutputStream stream = null;
+    private Layout current;
     private boolean headerDirty = true;
-    private long lastWrite = 0;
+    private boolean unflushed = false;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = Charset.defaultCharset().newEncoder();
+    private final StringBuilder line = new StringBuilder();
 
     public LogThread(Model model) {
+        super("LogThread");
         this.model = model;
+        this.layout = new Layout(model.getSelection());
+        this.current = layout;
         model.addModelListener(this);
     }
 
     @Override
     public void run() {
-        while (!canceled) {
-            synchronized(lock) {
-                if (writer != null) {
-                    if (System.currentTimeMillis() - lastWrite > IDLE_UNTIL_CLOSE) {
-                        writer.close();
-                        writer = null;
-                    } else {
-                        writer.flush();
-                    }
+        try {
+            writeEntries();
+        } finally {
+            ring.close();
+            close();
+        }
+    }
+
+    private void writeEntries() {
+        long lastFlush = System.currentTimeMillis();
+        while (true) {
+            // an entry offered before cancel() is still written
+            boolean stopping = canceled;
+            if (fileChanged) {
+                fileChanged = false;
+                // entries offered before the change belong in the old file
+                if (out != null) {
+                    while (!drain()) { }
                 }
+                reopen();
             }
-            try {
-                Thread.sleep(FLUSH_FREQUENCY);
-            } catch (InterruptedException e) { }
-        }
-        synchronized(lock) {
-            if (writer != null) {
-                writer.close();
-                writer = null;
+
+            boolean drained = drain();
+            long now = System.currentTimeMillis();
+            if (unflushed && (drained || now - lastFlush >= FLUSH_FREQUENCY)) {
+                flush();
+                lastFlush = now;
+            }
+
+            if (drained) {
+                if (stopping) {
+                    break;
+                }
+                LockSupport.parkNanos(this,
+                        TimeUnit.MILLISECONDS.toNanos(FLUSH_FREQUENCY));
             }
         }
     }
 
     public void cancel() {
-        synchronized(lock) {
-            canceled = true;
-            if (writer != null) {
-                writer.close();
-                writer = null;
-            }
-        }
+        canceled = true;
+        model.removeModelListener(this);
+        LockSupport.unpark(this);
     }
 
     @Override
     public void selectionChanged(ModelEvent event) {
-        headerDirty = true;
+        layout = new Layout(model.getSelection());
     }
 
     @Override
     public void entryAdded(ModelEvent event, Value[] values) {
-        synchronized(lock) {
-            if (isFileEnabled()) {
-                addEntry(values);
+        if (isFileEnabled()) {
+            Layout l = layout;
+            if (l != offeredLayout) {
+                if (!ring.offer(l, this)) {
+                    return;
+                }
+                offeredLayout = l;
             }
-
+            ring.offer(values, this);
         }
     }
 
     @Override
     public void filePropertyChanged(ModelEvent event) {
-        synchronized(lock) {
-            if (isFileEnabled()) {
-                if (writer == null) {
-                    Selection sel = model.getSelection();
-                    Value[] values = new Value[sel.size()];
-                    boolean found = false;
-                    for (int i = 0; i < values.length; i++) {
-                        values[i] = model.getValueLog(sel.get(i)).getLast();
-                        if (values[i] != null) {
-                            found = true;
-                        }
-
-                    }
-                    if (found) {
-                        addEntry(values);
-                    }
-
-                }
-            } else {
-                if (writer != null) {
-                    writer.close();
-                    writer = null;
+        if (isFileEnabled()) {
+            Selection sel = model.getSelection();
+            Value[] values = new Value[sel.size()];
+            boolean found = false;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = model.getValueLog(sel.get(i)).getLast();
+                if (values[i] != null) {
+                    found = true;
                 }
+
             }
+            firstEntry = found ? values : null;
+        } else {
+            firstEntry = null;
         }
+        fileChanged = true;
+        LockSupport.unpark(this);
     }
 
     private boolean isFileEnabled() {
@@ -112,44 +189,175 @@ class LogThread extends Thread implements ModelListener {
             && model.getFile() != null;
     }
 
-    // Should hold lock and have verified that isFileEnabled() before
-    // entering this method.
-    private void addEntry(Value[] values) {
-        if (writer == null) {
+    // Writes every entry in the ring, or drops them if there is no file to
+    // write to, and returns whether the ring was found empty.
+    private boolean drain() {
+        for (int i = 0; i < RING_SIZE; i++) {
+            Object entry = ring.poll();
+            if (entry == null) {
+                return true;
+            } else if (entry instanceof Layout) {
+                if (entry != current) {
+                    current = (Layout) entry;
+                    headerDirty = true;
+                }
+            } else if (out != null) {
+                addEntry((Value[]) entry);
+            }
+        }
+        return ring.isEmpty();
+    }
+
+    // Closes the file being written, and opens the one the model now names
+    // if logging to a file is enabled.
+    private void reopen() {
+        File newFile = isFileEnabled() ? model.getFile() : null;
+        Value[] first = firstEntry;
+        firstEntry = null;
+        if (newFile != null && newFile.equals(file)) {
+            return;
+        }
+
+        close();
+        if (newFile != null) {
+            open(newFile);
+        }
+        if (out != null && first != null) {
+            current = layout;
+            addEntry(first);
+        }
+    }
+
+    private void open(File newFile) {
+        try {
+            stream = new FileOutputStream(newFile, true);
+            if (newFile.getName().endsWith(GZIP_SUFFIX)) {
+                stream = new GZIPOutputStream(stream, BUFFER_SIZE, true);
+            }
+            out = Channels.newChannel(stream);
+            file = newFile;
+            headerDirty = true;
+        } catch (IOException e) {
+            logger.warn("Could not open log file {}: {}", newFile, e.toString());
+            stream = null;
+            fail();
+        }
+    }
+
+    private void close() {
+        if (out != null) {
+            flush();
+        }
+
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                logger.warn("Could not close log file {}: {}", file, e.toString());
+            }
+        }
+        stream = null;
+        out = null;
+        file = null;
+    }
+
+    // Gives up on the file; the model is told on the event thread, as it
+    // would be by the file panel.
+    private void fail() {
+        out = null;
+        file = null;
+        buffer.clear();
+        if (stream != null) {
             try {
-                writer = new PrintWriter(new FileWriter(model.getFile(), true));
+                stream.close();
             } catch (IOException e) {
-                model.setFile(null);
-                return;
+                // already reported the first failure
             }
+            stream = null;
         }
-        Selection sel = model.getSelection();
+        SwingUtilities.invokeLater(() -> model.setFile(null));
+    }
+
+    private void addEntry(Value[] values) {
         if (headerDirty) {
             if (model.getFileHeader()) {
-                StringBuilder buf = new StringBuilder();
-                for (int i = 0; i < sel.size(); i++) {
+                line.setLength(0);
+                for (int i = 0; i < current.names.length; i++) {
                     if (i > 0) {
-                        buf.append("\t");
+                        line.append('\t');
                     }
 
-                    buf.append(sel.get(i).toString());
+                    line.append(current.names[i]);
                 }
-                writer.println(buf.toString());
+                writeLine();
             }
             headerDirty = false;
         }
-        StringBuilder buf = new StringBuilder();
+
+        line.setLength(0);
         for (int i = 0; i < values.length; i++) {
             if (i > 0) {
-                buf.append("\t");
+                line.append('\t');
             }
 
             if (values[i] != null) {
-                int radix = sel.get(i).getRadix();
-                buf.append(values[i].toDisplayString(radix));
+                int radix = i < current.radices.length ? current.radices[i] : 2;
+                line.append(values[i].toDisplayString(radix));
+            }
+        }
+        writeLine();
+    }
+
+    private void writeLine() {
+        line.append(System.lineSeparator());
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                if (!writeBuffer()) {
+                    return;
+                }
+            } else {
+                encoder.flush(buffer);
+                break;
+            }
+        }
+        unflushed = true;
+    }
+
+    private void flush() {
+        if (writeBuffer() && stream != null) {
+            try {
+                stream.flush();
+            } catch (IOException e) {
+                logger.warn("Could not write log file {}: {}", file, e.toString());
+                fail();
+            }
+        }
+        unflushed = false;
+    }
+
+    // Writes out what the buffer holds, returning false if the file could
+    // not be written.
+    private boolean writeBuffer() {
+        if (out == null) {
+            buffer.clear();
+            return false;
+        }
+
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
             }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Could not write log file {}: {}", file, e.toString());
+            fail();
+            return false;
+        } finally {
+            buffer.clear();
         }
-        writer.println(buf.toString());
-        lastWrite = System.currentTimeMillis();
     }
 }
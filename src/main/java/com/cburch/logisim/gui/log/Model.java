@@ -17,6 +17,7 @@ class Model {
     private EventSourceWeakSupport<ModelListener> listeners;
     private Selection selection;
     private HashMap<SelectionItem,ValueLog> log;
+    private SpillFile spill = new SpillFile();
     private boolean fileEnabled = false;
     private File file = null;
     private boolean fileHeader = true;
@@ -47,7 +48,7 @@ class Model {
     public ValueLog getValueLog(SelectionItem item) {
         ValueLog ret = log.get(item);
         if (ret == null && selection.indexOf(item) >= 0) {
-            ret = new ValueLog();
+            ret = new ValueLog(spill);
             log.put(item, ret);
         }
         return ret;
@@ -138,9 +139,14 @@ class Model {
         for (Iterator<SelectionItem> it = log.keySet().iterator(); it.hasNext(); ) {
             SelectionItem i = it.next();
             if (selection.indexOf(i) < 0) {
+                log.get(i).close();
                 it.remove();
             }
         }
+        if (log.isEmpty()) {
+            // no log reads what was spilled any more
+            spill.close();
+        }
 
         for (ModelListener l : listeners) {
             l.selectionChanged(e);
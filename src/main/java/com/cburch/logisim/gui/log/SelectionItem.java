@@ -137,7 +137,8 @@ class SelectionItem implements AttributeListener, CircuitListener {
     public void circuitChanged(CircuitEvent event) {
         int action = event.getAction();
         if (action == CircuitEvent.ACTION_CLEAR
-                || action == CircuitEvent.ACTION_REMOVE) {
+                || action == CircuitEvent.ACTION_REMOVE
+                || action == CircuitEvent.ACTION_BATCH) {
             Circuit circ = event.getCircuit();
             Component circComp = null;
             if (circ == model.getCircuitState().getCircuit()) {
@@ -159,6 +160,10 @@ class SelectionItem implements AttributeListener, CircuitListener {
                     && event.getData() != circComp) {
                 return;
             }
+            if (action == CircuitEvent.ACTION_BATCH
+                    && !event.getBatch().isRemoved(circComp)) {
+                return;
+            }
 
             int index = model.getSelection().indexOf(this);
             if (index < 0) {
@@ -0,0 +1,87 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A temporary file that the {@link ValueLog}s of one {@link Model} spill
+ * their full segments to, so that a log of many items keeps one file open
+ * rather than one for each. The file is created by the first spill, and
+ * grows until it is closed; a log that is closed leaves its segments in
+ * it.
+ */
+class SpillFile {
+    private static final Logger logger = LoggerFactory.getLogger(SpillFile.class);
+
+    private File file = null;
+    private RandomAccessFile data = null;
+    private long length = 0;
+    private boolean failed = false;
+
+    /**
+     * Writes the first len ints of an array to the end of the file, and
+     * returns a read-only map of them, or null if the file cannot be
+     * written; after one failure, every later spill returns null too.
+     */
+    synchronized IntBuffer spill(int[] ints, int len) {
+        if (failed) {
+            return null;
+        }
+
+        try {
+            if (data == null) {
+                file = File.createTempFile("logisim-log", ".dat");
+                file.deleteOnExit();
+                data = new RandomAccessFile(file, "rw");
+            }
+            FileChannel channel = data.getChannel();
+            ByteBuffer bytes = ByteBuffer.allocate(4 * len);
+            bytes.asIntBuffer().put(ints, 0, len);
+            long pos = length;
+            while (bytes.hasRemaining()) {
+                pos += channel.write(bytes, pos);
+            }
+            IntBuffer ret = channel.map(FileChannel.MapMode.READ_ONLY,
+                    length, 4L * len).asIntBuffer();
+            length = pos;
+            return ret;
+        } catch (IOException e) {
+            logger.warn("Could not spill log to disk, keeping it in memory: {}",
+                    e.toString());
+            failed = true;
+            return null;
+        }
+    }
+
+    /**
+     * Closes and deletes the file; the maps already returned stay
+     * readable, and the next spill starts a new file.
+     */
+    synchronized void close() {
+        if (data != null) {
+            try {
+                data.close();
+            } catch (IOException e) {
+                logger.warn("Could not close {}: {}", file, e.toString());
+            }
+            data = null;
+        }
+        if (file != null) {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+            file = null;
+        }
+        length = 0;
+    }
+}
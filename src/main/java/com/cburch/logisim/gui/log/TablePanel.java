@@ -183,7 +183,14 @@ class TablePanel extends LogPanel {
         }
 
         int ret = (y - cellHeight - HEADER_SEP) / cellHeight;
-        return ret >= 0 && ret < rowCount ? ret : -1;
+        return ret >= 0 && ret < getShownRows() ? ret : -1;
+    }
+
+    // The number of rows shown, which is every entry in the log unless
+    // there are too many for the table's height to fit in an int, in which
+    // case only the latest.
+    private int getShownRows() {
+        return Math.min(rowCount, (Integer.MAX_VALUE - HEADER_SEP) / cellHeight - 1);
     }
 
     @Override
@@ -223,14 +230,15 @@ class TablePanel extends LogPanel {
         FontMetrics bodyMetric = g.getFontMetrics();
         Rectangle clip = g.getClipBounds();
         int firstRow = Math.max(0, (clip.y - y) / cellHeight - 1);
-        int lastRow = Math.min(rowCount, 2 + (clip.y + clip.height - y) / cellHeight);
+        int shownRows = getShownRows();
+        int lastRow = Math.min(shownRows, 2 + (clip.y + clip.height - y) / cellHeight);
         int y0 = top + cellHeight + HEADER_SEP;
         x = left;
         for (int col = 0; col < columns; col++) {
             SelectionItem item = sel.get(col);
             ValueLog log = model.getValueLog(item);
             int radix = item.getRadix();
-            int offs = rowCount - log.size();
+            int offs = shownRows - log.size();
             y = y0 + Math.max(offs, firstRow) * cellHeight;
             for (int row = Math.max(offs, firstRow); row < lastRow; row++) {
                 Value val = log.get(row - offs);
@@ -275,7 +283,7 @@ class TablePanel extends LogPanel {
         }
 
         tableWidth = (cellWidth + COLUMN_SEP) * columns - COLUMN_SEP;
-        tableHeight = cellHeight * (1 + rowCount) + HEADER_SEP;
+        tableHeight = cellHeight * (1 + getShownRows()) + HEADER_SEP;
         setPreferredSize(new Dimension(tableWidth, tableHeight));
         revalidate();
         repaint();
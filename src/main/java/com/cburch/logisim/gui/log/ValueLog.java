@@ -3,50 +3,379 @@
 
 package com.cburch.logisim.gui.log;
 
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
 import com.cburch.logisim.data.Value;
 
+/**
+ * The history of the values an item in the log has taken, one entry per
+ * change of any logged value, kept in full however long the simulation
+ * runs.
+ * <p>
+ * Entries are stored as runs of packed ints. A run is either the same value
+ * repeated or, for values with no error or unknown bits, a value that
+ * changes by the same amount each entry, as a counter does; either way it
+ * takes two or three ints however many entries it covers. Runs are written
+ * into segments of {@link #SEGMENT_INTS} ints. When a segment fills it is
+ * spilled to a {@link SpillFile}, shared by the logs of a model, and read
+ * back through a memory map, so that only the segment being written stays
+ * on the heap.
+ * <p>
+ * Each segment notes where every {@link #SAMPLE_RUNS}th run starts, so
+ * that an entry is found by two binary searches and a short scan. The run
+ * last read is remembered, so that reading entries in order, as the table
+ * does when painting, does not search at all.
+ */
 class ValueLog {
-    private static final int LOG_SIZE = 400;
+    static final int SEGMENT_INTS = 1 << 16;
+    static final int SAMPLE_RUNS = 128;
+
+    // the run header: the width, or NULL_WIDTH for a null entry, then flags,
+    // then the length of the run less one
+    private static final int WIDTH_MASK = 0x3f;
+    private static final int NULL_WIDTH = 0x3f;
+    private static final int HAS_ERROR = 0x40;
+    private static final int HAS_UNKNOWN = 0x80;
+    private static final int HAS_DELTA = 0x100;
+    private static final int LENGTH_SHIFT = 9;
+    private static final int MAX_RUN = 1 << (32 - LENGTH_SHIFT);
+    // a header with every mask and the delta
+    private static final int MAX_RUN_INTS = 5;
+
+    private static class Segment {
+        private final int firstIndex;
+        private IntBuffer data;
+        private int length = 0;
+        private int count = 0;
+        private int runs = 0;
+        // the first entry and offset of every SAMPLE_RUNSth run
+        private int[] sampleIndex = new int[8];
+        private int[] sampleOffset = new int[8];
+        private int samples = 0;
 
-    private Value[] log;
-    private short curSize;
-    private short firstIndex;
+        Segment(int firstIndex) {
+            this.firstIndex = firstIndex;
+            this.data = IntBuffer.allocate(SEGMENT_INTS);
+        }
+
+        void addRun(int[] run, int ints, int runLength) {
+            if (runs % SAMPLE_RUNS == 0) {
+                if (samples == sampleIndex.length) {
+                    sampleIndex = grow(sampleIndex);
+                    sampleOffset = grow(sampleOffset);
+                }
+                sampleIndex[samples] = firstIndex + count;
+                sampleOffset[samples] = length;
+                samples++;
+            }
+            data.position(length);
+            data.put(run, 0, ints);
+            length += ints;
+            count += runLength;
+            runs++;
+        }
 
-    public ValueLog() {
-        log = new Value[LOG_SIZE];
-        curSize = 0;
-        firstIndex = 0;
+        private static int[] grow(int[] a) {
+            int[] ret = new int[2 * a.length];
+            System.arraycopy(a, 0, ret, 0, a.length);
+            return ret;
+        }
     }
 
-    public int size() {
-        return curSize;
+    // the segments filled so far, and the one being written
+    private final List<Segment> segments = new ArrayList<Segment>();
+    private Segment tail = null;
+    private int size = 0;
+    private Value last = null;
+
+    // the run still being appended to, which is not yet in any segment
+    private int runStart = 0;
+    private int runLength = 0;
+    private int runHeader;
+    private int runValue;
+    private int runDelta;
+    private int runError;
+    private int runUnknown;
+    private final int[] runInts = new int[MAX_RUN_INTS];
+
+    // the run last read
+    private Segment cursorSegment = null;
+    private int cursorIndex;
+    private int cursorOffset;
+
+    // where full segments go
+    private final SpillFile spill;
+
+    ValueLog(SpillFile spill) {
+        this.spill = spill;
     }
 
-    public Value get(int index) {
-        int i = firstIndex + index;
-        if (i >= LOG_SIZE) {
-            i -= LOG_SIZE;
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized Value get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("" + index);
+        }
+
+        if (index >= runStart) {
+            return decode(runHeader, runValue, runDelta, runError, runUnknown,
+                    index - runStart);
         }
 
-        return log[i];
+        Segment seg = cursorSegment;
+        int at;
+        int offs;
+        if (seg != null && index >= cursorIndex
+                && index < seg.firstIndex + seg.count) {
+            at = cursorIndex;
+            offs = cursorOffset;
+        } else {
+            seg = findSegment(index);
+            int sample = findSample(seg, index);
+            at = seg.sampleIndex[sample];
+            offs = seg.sampleOffset[sample];
+        }
+
+        IntBuffer data = seg.data;
+        while (true) {
+            int header = data.get(offs);
+            int length = (header >>> LENGTH_SHIFT) + 1;
+            if (index < at + length) {
+                cursorSegment = seg;
+                cursorIndex = at;
+                cursorOffset = offs;
+                return decode(data, offs, index - at);
+            }
+            at += length;
+            offs += runInts(header);
+        }
     }
 
-    public Value getLast() {
-        return curSize < LOG_SIZE ? (curSize == 0 ? null : log[curSize - 1])
-                : (firstIndex == 0 ? log[curSize - 1] : log[firstIndex - 1]);
+    public synchronized Value getLast() {
+        return last;
     }
 
-    public void append(Value val) {
-        if (curSize < LOG_SIZE) {
-            log[curSize] = val;
-            curSize++;
+    public synchronized void append(Value val) {
+        if (size == Integer.MAX_VALUE) {
+            return;
+        }
+
+        if (runLength == 0 || !extendRun(val)) {
+            if (runLength > 0) {
+                finishRun();
+            }
+            startRun(val);
+        }
+        size++;
+        last = val;
+    }
+
+    /**
+     * Forgets the history. What was spilled stays in the spill file until
+     * that is closed.
+     */
+    public synchronized void close() {
+        segments.clear();
+        tail = null;
+        cursorSegment = null;
+        size = 0;
+        runStart = 0;
+        runLength = 0;
+        last = null;
+    }
+
+    private static int header(Value val) {
+        if (val == null) {
+            return NULL_WIDTH;
+        }
+
+        int ret = val.getWidth();
+        if (val.getErrorMask() != 0) {
+            ret |= HAS_ERROR;
+        }
+
+        if (val.getUnknownMask() != 0) {
+            ret |= HAS_UNKNOWN;
+        }
+
+        return ret;
+    }
+
+    private void startRun(Value val) {
+        runStart = size;
+        runLength = 1;
+        runHeader = header(val);
+        runDelta = 0;
+        if (val == null) {
+            runValue = 0;
+            runError = 0;
+            runUnknown = 0;
         } else {
-            log[firstIndex] = val;
-            firstIndex++;
-            if (firstIndex >= LOG_SIZE) {
-                firstIndex = 0;
+            runValue = val.getValueMask();
+            runError = val.getErrorMask();
+            runUnknown = val.getUnknownMask();
+        }
+    }
+
+    private boolean extendRun(Value val) {
+        if (runLength == MAX_RUN || header(val) != runHeader) {
+            return false;
+        }
+
+        if (val == null) {
+            runLength++;
+            return true;
+        }
+
+        if (val.getErrorMask() != runError
+                || val.getUnknownMask() != runUnknown) {
+            return false;
+        }
+
+        int value = val.getValueMask();
+        if ((runHeader & (HAS_ERROR | HAS_UNKNOWN)) != 0) {
+            // only a fully known value may count up or down
+            if (value != runValue) {
+                return false;
+            }
+        } else if (runLength == 1) {
+            runDelta = value - runValue;
+        } else if (value != mask(runHeader,
+                runValue + runLength * runDelta)) {
+            return false;
+        }
+        runLength++;
+        return true;
+    }
+
+    private void finishRun() {
+        int header = runHeader | ((runLength - 1) << LENGTH_SHIFT);
+        if (runLength > 1 && runDelta != 0) {
+            header |= HAS_DELTA;
+        }
+
+        int ints = 0;
+        runInts[ints++] = header;
+        int width = runHeader & WIDTH_MASK;
+        if (width != NULL_WIDTH && width != 0) {
+            runInts[ints++] = runValue;
+            if ((header & HAS_DELTA) != 0) {
+                runInts[ints++] = runDelta;
+            }
+
+            if ((header & HAS_ERROR) != 0) {
+                runInts[ints++] = runError;
+            }
+
+            if ((header & HAS_UNKNOWN) != 0) {
+                runInts[ints++] = runUnknown;
             }
 
         }
+
+        if (tail == null || tail.length + ints > SEGMENT_INTS) {
+            if (tail != null) {
+                spill(tail);
+            }
+            tail = new Segment(runStart);
+            segments.add(tail);
+        }
+        tail.addRun(runInts, ints, runLength);
+    }
+
+    // Replaces a full segment's ints on the heap with a read-only map of
+    // them in the spill file. If the file cannot be written, the segment
+    // stays on the heap.
+    private void spill(Segment seg) {
+        IntBuffer mapped = spill.spill(seg.data.array(), seg.length);
+        if (mapped != null) {
+            seg.data = mapped;
+        }
+    }
+
+    private Segment findSegment(int index) {
+        int lo = 0;
+        int hi = segments.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (segments.get(mid).firstIndex <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return segments.get(lo);
+    }
+
+    private static int findSample(Segment seg, int index) {
+        int lo = 0;
+        int hi = seg.samples - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (seg.sampleIndex[mid] <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private static int runInts(int header) {
+        int width = header & WIDTH_MASK;
+        if (width == NULL_WIDTH || width == 0) {
+            return 1;
+        }
+
+        int ret = 2;
+        if ((header & HAS_DELTA) != 0) {
+            ret++;
+        }
+
+        if ((header & HAS_ERROR) != 0) {
+            ret++;
+        }
+
+        if ((header & HAS_UNKNOWN) != 0) {
+            ret++;
+        }
+
+        return ret;
+    }
+
+    private static Value decode(IntBuffer data, int offs, int k) {
+        int header = data.get(offs);
+        int width = header & WIDTH_MASK;
+        if (width == NULL_WIDTH || width == 0) {
+            return decode(header, 0, 0, 0, 0, k);
+        }
+
+        int i = offs + 1;
+        int value = data.get(i++);
+        int delta = (header & HAS_DELTA) != 0 ? data.get(i++) : 0;
+        int error = (header & HAS_ERROR) != 0 ? data.get(i++) : 0;
+        int unknown = (header & HAS_UNKNOWN) != 0 ? data.get(i++) : 0;
+        return decode(header, value, delta, error, unknown, k);
+    }
+
+    // Returns the kth entry of a run.
+    private static Value decode(int header, int value, int delta,
+            int error, int unknown, int k) {
+        int width = header & WIDTH_MASK;
+        if (width == NULL_WIDTH) {
+            return null;
+        }
+
+        return Value.create(width, error, unknown,
+                mask(header, value + k * delta));
+    }
+
+    private static int mask(int header, int value) {
+        int width = header & WIDTH_MASK;
+        return width >= 32 ? value : value & ~(-1 << width);
     }
 }
@@ -336,6 +336,11 @@ public class Canvas extends JPanel
                 if (c == painter.getHaloedComponent()) {
                     proj.getFrame().viewComponentAttributes(null, null);
                 }
+            } else if (act == CircuitEvent.ACTION_BATCH) {
+                Component c = painter.getHaloedComponent();
+                if (c != null && event.getBatch().isRemoved(c)) {
+                    proj.getFrame().viewComponentAttributes(null, null);
+                }
             } else if (act == CircuitEvent.ACTION_CLEAR) {
                 if (painter.getHaloedComponent() != null) {
                     proj.getFrame().viewComponentAttributes(null, null);
@@ -762,7 +767,8 @@ public class Canvas extends JPanel
     }
 
     private void computeViewportContents() {
-        Set<WidthIncompatibilityData> exceptions = proj.getCurrentCircuit().getWidthIncompatibilityData();
+        Set<WidthIncompatibilityData> exceptions
+            = proj.getCurrentCircuit().getWidthIncompatibilitySnapshot(this);
         if (exceptions == null || exceptions.isEmpty()) {
             viewport.setWidthMessage(null);
             return;
@@ -191,7 +191,7 @@ class CanvasPainter implements PropertyChangeListener {
 
     private void drawWidthIncompatibilityData(Graphics base, Graphics g, Project proj) {
         Set<WidthIncompatibilityData> exceptions;
-        exceptions = proj.getCurrentCircuit().getWidthIncompatibilityData();
+        exceptions = proj.getCurrentCircuit().getWidthIncompatibilitySnapshot(canvas);
         if (exceptions == null || exceptions.size() == 0) {
             return;
         }
@@ -185,6 +185,7 @@ class MenuListener {
             menubar.addActionListener(LogisimMenuBar.REVERT_APPEARANCE, this);
             menubar.addActionListener(LogisimMenuBar.ANALYZE_CIRCUIT, this);
             menubar.addActionListener(LogisimMenuBar.CIRCUIT_STATS, this);
+            menubar.addActionListener(LogisimMenuBar.SIMULATION_PROFILE, this);
 
             computeEnabled();
         }
@@ -246,6 +247,8 @@ class MenuListener {
                 ProjectCircuitActions.doAnalyze(proj, cur);
             } else if (src == LogisimMenuBar.CIRCUIT_STATS) {
                 StatisticsDialog.show(frame, proj.getLogisimFile(), cur);
+            } else if (src == LogisimMenuBar.SIMULATION_PROFILE) {
+                ProfileDialog.show(proj);
             }
         }
 
@@ -289,6 +292,7 @@ class MenuListener {
             menubar.setEnabled(LogisimMenuBar.REVERT_APPEARANCE, canRevert);
             menubar.setEnabled(LogisimMenuBar.ANALYZE_CIRCUIT, true);
             menubar.setEnabled(LogisimMenuBar.CIRCUIT_STATS, true);
+            menubar.setEnabled(LogisimMenuBar.SIMULATION_PROFILE, true);
             fireEnableChanged();
         }
 
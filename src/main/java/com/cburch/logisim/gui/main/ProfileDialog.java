@@ -0,0 +1,231 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.main;
+
+import java.awt.BorderLayout;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+import com.cburch.logisim.circuit.Propagator;
+import com.cburch.logisim.circuit.SimulationProfile;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.proj.ProjectEvent;
+import com.cburch.logisim.proj.ProjectListener;
+import com.cburch.logisim.util.TableSorter;
+import static com.cburch.logisim.util.LocaleString.*;
+
+/**
+ * Shows where the project's simulation spends its time, as counted by a
+ * {@link SimulationProfile}. Profiling runs only while it is started from
+ * the dialog, and stops when the dialog closes. Each project has one
+ * dialog, which follows the project to the propagator of whichever
+ * circuit state it is simulating.
+ */
+@SuppressWarnings("serial")
+public class ProfileDialog extends JDialog implements ActionListener {
+    private static final int REFRESH_MILLIS = 1000;
+
+    public static void show(Project proj) {
+        ProfileDialog dlog = proj.getProfileDialog(true);
+        dlog.setVisible(true);
+        dlog.toFront();
+    }
+
+    private class MyListener implements ProjectListener {
+        @Override
+        public void projectChanged(ProjectEvent event) {
+            int action = event.getAction();
+            if (action == ProjectEvent.ACTION_SET_STATE) {
+                if (profiled != null) {
+                    // keep counting in the new state's propagator
+                    stopProfiling();
+                    startProfiling();
+                }
+            } else if (action == ProjectEvent.ACTION_SET_FILE) {
+                setTitle(computeTitle(proj));
+            }
+        }
+    }
+
+    private static String computeTitle(Project proj) {
+        return getFromLocale("profileDialogTitle", proj.getLogisimFile().getName());
+    }
+
+    private static class ProfileTableModel extends AbstractTableModel {
+        private List<SimulationProfile.Row> rows = Collections.emptyList();
+
+        void setRows(List<SimulationProfile.Row> value) {
+            rows = value;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 3;
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+            case 0: return String.class;
+            case 1: return Long.class;
+            default: return Double.class;
+            }
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            switch (column) {
+            case 0: return getFromLocale("profileNameColumn");
+            case 1: return getFromLocale("profileCountColumn");
+            case 2: return getFromLocale("profileTimeColumn");
+            // should never happen
+            default: return "??";
+            }
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            if (row < 0 || row >= rows.size()) return "";
+            SimulationProfile.Row r = rows.get(row);
+            switch (column) {
+            case 0: return r.getName();
+            case 1: return Long.valueOf(r.getCount());
+            case 2: return Double.valueOf(r.getNanos() / 1e6);
+            // should never happen
+            default: return "";
+            }
+        }
+    }
+
+    private Project proj;
+    private SimulationProfile profile = new SimulationProfile();
+    private Propagator profiled = null;
+    private ProfileTableModel model = new ProfileTableModel();
+    private JComboBox<String> category = new JComboBox<String>(new String[] {
+            getFromLocale("profileFactoryCategory"),
+            getFromLocale("profileComponentCategory"),
+            getFromLocale("profileStateCategory"),
+            getFromLocale("profileNetCategory") });
+    private JLabel elapsed = new JLabel();
+    private JButton start = new JButton();
+    private JButton reset = new JButton(getFromLocale("profileResetButton"));
+    private JButton close = new JButton(getFromLocale("profileCloseButton"));
+    private Timer timer = new Timer(REFRESH_MILLIS, this);
+    private MyListener myListener = new MyListener();
+
+    public ProfileDialog(Project proj) {
+        super(proj.getFrame(), false);
+        this.proj = proj;
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setTitle(computeTitle(proj));
+        proj.addProjectListener(myListener);
+
+        JTable table = new JTable();
+        TableSorter mySorter = new TableSorter(model, table.getTableHeader());
+        table.setModel(mySorter);
+        JScrollPane tablePane = new JScrollPane(table);
+
+        JPanel topPanel = new JPanel();
+        topPanel.add(new JLabel(getFromLocale("profileCategoryLabel")));
+        topPanel.add(category);
+        topPanel.add(elapsed);
+
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(start);
+        buttonPanel.add(reset);
+        buttonPanel.add(close);
+        category.addActionListener(this);
+        start.addActionListener(this);
+        reset.addActionListener(this);
+        close.addActionListener(this);
+
+        Container contents = this.getContentPane();
+        contents.setLayout(new BorderLayout());
+        contents.add(topPanel, BorderLayout.PAGE_START);
+        contents.add(tablePane, BorderLayout.CENTER);
+        contents.add(buttonPanel, BorderLayout.PAGE_END);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                stopProfiling();
+                refresh();
+            }
+        });
+        refresh();
+        this.pack();
+
+        Dimension pref = contents.getPreferredSize();
+        if (pref.width > 750 || pref.height > 550) {
+            if (pref.width > 750) pref.width = 750;
+            if (pref.height > 550) pref.height = 550;
+            this.setSize(pref);
+        }
+    }
+
+    private void startProfiling() {
+        profiled = proj.getSimulator().getCircuitState().getPropagator();
+        profiled.setProfile(profile);
+        timer.start();
+    }
+
+    private void stopProfiling() {
+        timer.stop();
+        if (profiled != null) {
+            profiled.setProfile(null);
+            profiled = null;
+        }
+    }
+
+    private void refresh() {
+        SimulationProfile.Category cat
+            = SimulationProfile.Category.values()[category.getSelectedIndex()];
+        model.setRows(profile.getRows(cat));
+        start.setText(getFromLocale(profiled == null
+                ? "profileStartButton" : "profileStopButton"));
+        elapsed.setText(profiled == null ? ""
+                : getFromLocale("profileElapsedLabel",
+                        String.valueOf(profile.getElapsedNanos() / 1000000)));
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        Object src = e.getSource();
+        if (src == close) {
+            this.dispose();
+            return;
+        } else if (src == start) {
+            if (profiled == null) {
+                profile.clear();
+                startProfiling();
+            } else {
+                stopProfiling();
+            }
+        } else if (src == reset) {
+            profile.clear();
+        }
+        refresh();
+    }
+}
@@ -458,6 +458,15 @@ public class SelectionActions {
             return getFromLocale("pasteClipboardAction");
         }
 
+        @Override
+        public int getEstimatedSize() {
+            int ret = SMALL_ACTION_SIZE + 48 * componentReplacements.size();
+            if (xnReverse != null) {
+                ret += xnReverse.getEstimatedSize();
+            }
+            return ret;
+        }
+
         @Override
         public void doIt(Project proj) {
             Clipboard clip = Clipboard.get();
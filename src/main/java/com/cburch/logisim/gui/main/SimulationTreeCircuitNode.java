@@ -7,10 +7,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 
 import javax.swing.tree.TreeNode;
 
+import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitAttributes;
+import com.cburch.logisim.circuit.CircuitBatch;
 import com.cburch.logisim.circuit.CircuitEvent;
 import com.cburch.logisim.circuit.CircuitListener;
 import com.cburch.logisim.circuit.CircuitState;
@@ -21,50 +26,124 @@ import com.cburch.logisim.data.AttributeEvent;
 import com.cburch.logisim.data.AttributeListener;
 import com.cburch.logisim.instance.StdAttr;
 
+/**
+ * A circuit in the simulation tree. Its children, the nodes of its
+ * subcircuits and of any other components the model shows, are listed
+ * only when first asked for, so that a large hierarchy is explored no
+ * deeper than the tree is expanded. Once listed, the children are kept up
+ * to date from the circuit's events, each component added or removed
+ * being inserted or deleted in place, and the model told of just those
+ * children.
+ */
 class SimulationTreeCircuitNode extends SimulationTreeNode
         implements CircuitListener, AttributeListener, Comparator<Component> {
-    private static class CompareByName implements Comparator<Object> {
+
+    // other components by name, then subcircuits by type and location
+    private static final Comparator<TreeNode> CHILD_ORDER = new Comparator<TreeNode>() {
         @Override
-        public int compare(Object a, Object b) {
-            return a.toString().compareToIgnoreCase(b.toString());
+        public int compare(TreeNode a, TreeNode b) {
+            boolean aCirc = a instanceof SimulationTreeCircuitNode;
+            boolean bCirc = b instanceof SimulationTreeCircuitNode;
+            if (aCirc != bCirc) {
+                return aCirc ? 1 : -1;
+            } else if (aCirc) {
+                SimulationTreeCircuitNode aNode = (SimulationTreeCircuitNode) a;
+                SimulationTreeCircuitNode bNode = (SimulationTreeCircuitNode) b;
+                return aNode.compare(aNode.subcircComp, bNode.subcircComp);
+            } else {
+                return a.toString().compareToIgnoreCase(b.toString());
+            }
         }
-    }
+    };
 
     private SimulationTreeModel model;
     private SimulationTreeCircuitNode parent;
+    private Circuit circuit;
+    // for the root, its state; for a subcircuit, null until the state is
+    // asked for, since listing a subcircuit shouldn't give it a state
     private CircuitState circuitState;
     private Component subcircComp;
+    // null until first asked for
     private ArrayList<TreeNode> children;
+    // the component each child shows
+    private HashMap<Component,TreeNode> childNodes;
 
     public SimulationTreeCircuitNode(SimulationTreeModel model,
             SimulationTreeCircuitNode parent, CircuitState circuitState,
             Component subcircComp) {
+        this(model, parent, circuitState.getCircuit(), circuitState, subcircComp);
+    }
+
+    private SimulationTreeCircuitNode(SimulationTreeModel model,
+            SimulationTreeCircuitNode parent, Circuit circuit,
+            CircuitState circuitState, Component subcircComp) {
         this.model = model;
         this.parent = parent;
+        this.circuit = circuit;
         this.circuitState = circuitState;
         this.subcircComp = subcircComp;
-        this.children = new ArrayList<TreeNode>();
-        circuitState.getCircuit().addCircuitListener(this);
+        this.children = null;
+        circuit.addCircuitListener(this);
         if (subcircComp != null) {
             subcircComp.getAttributeSet().addAttributeListener(this);
         } else {
-            circuitState.getCircuit().getStaticAttributes().addAttributeListener(this);
+            circuit.getStaticAttributes().addAttributeListener(this);
+        }
+    }
+
+    // Stops listening to the circuit, for a node and all its descendants
+    // that have been removed from the tree.
+    private void detach() {
+        circuit.removeCircuitListener(this);
+        if (subcircComp != null) {
+            subcircComp.getAttributeSet().removeAttributeListener(this);
+        } else {
+            circuit.getStaticAttributes().removeAttributeListener(this);
+        }
+        if (children != null) {
+            for (TreeNode child : children) {
+                if (child instanceof SimulationTreeCircuitNode) {
+                    ((SimulationTreeCircuitNode) child).detach();
+                }
+            }
         }
-        computeChildren();
     }
 
+    /**
+     * Returns the state of the circuit, creating the state of a
+     * subcircuit if it has none yet.
+     */
     public CircuitState getCircuitState() {
+        if (circuitState == null) {
+            SubcircuitFactory factory = (SubcircuitFactory) subcircComp.getFactory();
+            circuitState = factory.getSubstate(parent.getCircuitState(), subcircComp);
+        }
+        return circuitState;
+    }
+
+    // returns the state of the circuit, or null if it has none yet
+    CircuitState findCircuitState() {
+        if (circuitState == null) {
+            CircuitState parentState = parent.findCircuitState();
+            if (parentState != null) {
+                Object data = parentState.getData(subcircComp);
+                if (data instanceof CircuitState) {
+                    circuitState = (CircuitState) data;
+                }
+            }
+        }
         return circuitState;
     }
 
     @Override
     public ComponentFactory getComponentFactory() {
-        return circuitState.getCircuit().getSubcircuitFactory();
+        return circuit.getSubcircuitFactory();
     }
 
     @Override
     public boolean isCurrentView(SimulationTreeModel model) {
-        return model.getCurrentView() == circuitState;
+        CircuitState view = model.getCurrentView();
+        return view != null && view == findCircuitState();
     }
 
     @Override
@@ -75,7 +154,7 @@ class SimulationTreeCircuitNode extends SimulationTreeNode
                 return label;
             }
         }
-        String ret = circuitState.getCircuit().getName();
+        String ret = circuit.getName();
         if (subcircComp != null) {
             ret += subcircComp.getLocation();
         }
@@ -84,12 +163,12 @@ class SimulationTreeCircuitNode extends SimulationTreeNode
 
     @Override
     public TreeNode getChildAt(int index) {
-        return children.get(index);
+        return getChildren().get(index);
     }
 
     @Override
     public int getChildCount() {
-        return children.size();
+        return getChildren().size();
     }
 
     @Override
@@ -99,7 +178,7 @@ class SimulationTreeCircuitNode extends SimulationTreeNode
 
     @Override
     public int getIndex(TreeNode node) {
-        return children.indexOf(node);
+        return getChildren().indexOf(node);
     }
 
     @Override
@@ -114,7 +193,7 @@ class SimulationTreeCircuitNode extends SimulationTreeNode
 
     @Override
     public Enumeration<TreeNode> children() {
-        return Collections.enumeration(children);
+        return Collections.enumeration(getChildren());
     }
 
     @Override
@@ -122,54 +201,124 @@ class SimulationTreeCircuitNode extends SimulationTreeNode
         int action = event.getAction();
         if (action == CircuitEvent.ACTION_SET_NAME) {
             model.fireNodeChanged(this);
-        } else {
-            if (computeChildren()) {
-                model.fireStructureChanged(this);
-            }
+        } else if (children == null) {
+            // nobody has seen the children, so there is nothing to update
+            return;
+        } else if (action == CircuitEvent.ACTION_ADD) {
+            componentsChanged(Collections.singleton((Component) event.getData()),
+                    Collections.<Component>emptySet());
+        } else if (action == CircuitEvent.ACTION_REMOVE) {
+            componentsChanged(Collections.<Component>emptySet(),
+                    Collections.singleton((Component) event.getData()));
+        } else if (action == CircuitEvent.ACTION_BATCH) {
+            CircuitBatch batch = event.getBatch();
+            componentsChanged(batch.getAdded(), batch.getRemoved());
+        } else if (action == CircuitEvent.ACTION_CLEAR) {
+            componentsChanged(Collections.<Component>emptySet(),
+                    new HashSet<Component>(childNodes.keySet()));
         }
     }
 
-    // returns true if changed
-    private boolean computeChildren() {
-        ArrayList<TreeNode> newChildren = new ArrayList<TreeNode>();
-        ArrayList<Component> subcircs = new ArrayList<Component>();
-        for (Component comp : circuitState.getCircuit().getNonWires()) {
-            if (comp.getFactory() instanceof SubcircuitFactory) {
-                subcircs.add(comp);
-            } else {
-                TreeNode toAdd = model.mapComponentToNode(comp);
-                if (toAdd != null) {
-                    newChildren.add(toAdd);
+    private ArrayList<TreeNode> getChildren() {
+        if (children == null) {
+            children = new ArrayList<TreeNode>();
+            childNodes = new HashMap<Component,TreeNode>();
+            for (Component comp : circuit.getNonWires()) {
+                TreeNode node = createNode(comp);
+                if (node != null) {
+                    children.add(node);
+                    childNodes.put(comp, node);
                 }
             }
+            Collections.sort(children, CHILD_ORDER);
         }
-        Collections.sort(newChildren, new CompareByName());
-        Collections.sort(subcircs, this);
-        for (Component comp : subcircs) {
+        return children;
+    }
+
+    private TreeNode createNode(Component comp) {
+        if (comp.getFactory() instanceof SubcircuitFactory) {
             SubcircuitFactory factory = (SubcircuitFactory) comp.getFactory();
-            CircuitState state = factory.getSubstate(circuitState, comp);
-            SimulationTreeCircuitNode toAdd = null;
-            for (TreeNode o : children) {
-                if (o instanceof SimulationTreeCircuitNode) {
-                    SimulationTreeCircuitNode n = (SimulationTreeCircuitNode) o;
-                    if (n.circuitState == state) {
-                        { toAdd = n;
+            return new SimulationTreeCircuitNode(model, this,
+                    factory.getSubcircuit(), null, comp);
+        } else {
+            return model.mapComponentToNode(comp);
+        }
+    }
+
+    // Removes the children of the components removed and inserts children
+    // for those added, telling the model which children went and came.
+    private void componentsChanged(Set<Component> added, Set<Component> removed) {
+        Set<TreeNode> gone = new HashSet<TreeNode>();
+        for (Component comp : removed) {
+            TreeNode node = childNodes.remove(comp);
+            if (node != null) {
+                gone.add(node);
+            }
+        }
+        if (!gone.isEmpty()) {
+            int[] indices = new int[gone.size()];
+            Object[] nodes = new Object[gone.size()];
+            ArrayList<TreeNode> kept = new ArrayList<TreeNode>(children.size());
+            int n = 0;
+            for (int i = 0; i < children.size(); i++) {
+                TreeNode node = children.get(i);
+                if (gone.contains(node)) {
+                    indices[n] = i;
+                    nodes[n] = node;
+                    n++;
+                    if (node instanceof SimulationTreeCircuitNode) {
+                        ((SimulationTreeCircuitNode) node).detach();
                     }
- break; }
+                } else {
+                    kept.add(node);
                 }
             }
-            if (toAdd == null) {
-                toAdd = new SimulationTreeCircuitNode(model, this, state, comp);
+            children = kept;
+            model.fireNodesRemoved(this, indices, nodes);
+        }
+
+        Set<TreeNode> come = new HashSet<TreeNode>();
+        for (Component comp : added) {
+            if (childNodes.containsKey(comp)) {
+                continue;
+            }
+
+            TreeNode node = createNode(comp);
+            if (node != null) {
+                children.add(insertionPoint(node), node);
+                childNodes.put(comp, node);
+                come.add(node);
+            }
+        }
+        if (!come.isEmpty()) {
+            int[] indices = new int[come.size()];
+            Object[] nodes = new Object[come.size()];
+            int n = 0;
+            for (int i = 0; i < children.size(); i++) {
+                TreeNode node = children.get(i);
+                if (come.contains(node)) {
+                    indices[n] = i;
+                    nodes[n] = node;
+                    n++;
+                }
             }
-            newChildren.add(toAdd);
+            model.fireNodesInserted(this, indices, nodes);
         }
+    }
 
-        if (!children.equals(newChildren)) {
-            children = newChildren;
-            return true;
-        } else {
-            return false;
+    // returns the index after every child that sorts no later than node
+    private int insertionPoint(TreeNode node) {
+        int lo = 0;
+        int hi = children.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (CHILD_ORDER.compare(children.get(mid), node) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
         }
+        return lo;
     }
 
     @Override
@@ -87,7 +87,7 @@ public class SimulationTreeModel implements TreeModel {
                 Object child = node.getChildAt(j);
                 if (child instanceof SimulationTreeCircuitNode) {
                     SimulationTreeCircuitNode circNode = (SimulationTreeCircuitNode) child;
-                    if (circNode.getCircuitState() == current) {
+                    if (circNode.findCircuitState() == current) {
                         node = circNode;
                         break;
                     }
@@ -123,6 +123,24 @@ public class SimulationTreeModel implements TreeModel {
         }
     }
 
+    protected void fireNodesInserted(Object parent, int[] indices,
+            Object[] children) {
+        TreeModelEvent e = new TreeModelEvent(this, findPath(parent),
+                indices, children);
+        for (TreeModelListener l : listeners) {
+            l.treeNodesInserted(e);
+        }
+    }
+
+    protected void fireNodesRemoved(Object parent, int[] indices,
+            Object[] children) {
+        TreeModelEvent e = new TreeModelEvent(this, findPath(parent),
+                indices, children);
+        for (TreeModelListener l : listeners) {
+            l.treeNodesRemoved(e);
+        }
+    }
+
     protected void fireStructureChanged(Object node) {
         TreeModelEvent e = new TreeModelEvent(this, findPath(node));
         for (TreeModelListener l : listeners) {
@@ -48,6 +48,7 @@ public class LogisimMenuBar extends JMenuBar {
     public static final LogisimMenuItem REVERT_APPEARANCE = new LogisimMenuItem("RevertAppearance");
     public static final LogisimMenuItem ANALYZE_CIRCUIT = new LogisimMenuItem("AnalyzeCircuit");
     public static final LogisimMenuItem CIRCUIT_STATS = new LogisimMenuItem("GetCircuitStatistics");
+    public static final LogisimMenuItem SIMULATION_PROFILE = new LogisimMenuItem("ProfileSimulation");
 
     public static final LogisimMenuItem SIMULATE_ENABLE = new LogisimMenuItem("SimulateEnable");
     public static final LogisimMenuItem SIMULATE_STEP = new LogisimMenuItem("SimulateStep");
@@ -56,6 +56,7 @@ class MenuProject extends Menu {
     private MenuItemImpl viewSimulation = new MenuItemImpl(this, LogisimMenuBar.VIEW_SIMULATION);
     private MenuItemImpl analyze = new MenuItemImpl(this, LogisimMenuBar.ANALYZE_CIRCUIT);
     private MenuItemImpl stats = new MenuItemImpl(this, LogisimMenuBar.CIRCUIT_STATS);
+    private MenuItemImpl profile = new MenuItemImpl(this, LogisimMenuBar.SIMULATION_PROFILE);
     private JMenuItem options = new JMenuItem();
 
     MenuProject(LogisimMenuBar menubar) {
@@ -77,6 +78,7 @@ class MenuProject extends Menu {
         menubar.registerItem(LogisimMenuBar.VIEW_SIMULATION, viewSimulation);
         menubar.registerItem(LogisimMenuBar.ANALYZE_CIRCUIT, analyze);
         menubar.registerItem(LogisimMenuBar.CIRCUIT_STATS, stats);
+        menubar.registerItem(LogisimMenuBar.SIMULATION_PROFILE, profile);
         options.addActionListener(myListener);
 
         loadLibrary.add(loadBuiltin);
@@ -100,6 +102,7 @@ class MenuProject extends Menu {
         addSeparator();
         add(analyze);
         add(stats);
+        add(profile);
         addSeparator();
         add(options);
 
@@ -132,6 +135,7 @@ class MenuProject extends Menu {
         viewSimulation.setText(getFromLocale("projectViewSimulationItem"));
         analyze.setText(getFromLocale("projectAnalyzeCircuitItem"));
         stats.setText(getFromLocale("projectGetCircuitStatisticsItem"));
+        profile.setText(getFromLocale("projectProfileSimulationItem"));
         options.setText(getFromLocale("projectOptionsItem"));
     }
 
@@ -149,7 +153,8 @@ class MenuProject extends Menu {
                 || viewToolbox.hasListeners()
                 || viewSimulation.hasListeners()
                 || analyze.hasListeners()
-                || stats.hasListeners());
+                || stats.hasListeners()
+                || profile.hasListeners());
         menubar.fireEnableChanged();
     }
 }
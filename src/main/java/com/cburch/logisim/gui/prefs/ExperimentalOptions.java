@@ -18,6 +18,7 @@ import static com.cburch.logisim.util.LocaleString.*;
 class ExperimentalOptions extends OptionsPanel {
     private JLabel accelRestart = new JLabel();
     private PrefOptionList accel;
+    private PrefBoolean compileSubcircuits;
 
     public ExperimentalOptions(PreferencesFrame window) {
         super(window);
@@ -38,9 +39,15 @@ class ExperimentalOptions extends OptionsPanel {
         JPanel accelPanel2 = new JPanel();
         accelPanel2.add(accelPanel);
 
+        compileSubcircuits = new PrefBoolean(AppPreferences.COMPILE_SUBCIRCUITS,
+            getFromLocale("experimentCompileSubcircuits"));
+        JPanel compilePanel = new JPanel();
+        compilePanel.add(compileSubcircuits);
+
         setLayout(new BoxLayout(this, BoxLayout.PAGE_AXIS));
         add(Box.createGlue());
         add(accelPanel2);
+        add(compilePanel);
         add(Box.createGlue());
     }
 
@@ -57,6 +64,7 @@ class ExperimentalOptions extends OptionsPanel {
     @Override
     public void localeChanged() {
         accel.localeChanged();
+        compileSubcircuits.localeChanged();
         accelRestart.setText(getFromLocale("accelRestartLabel"));
     }
 }
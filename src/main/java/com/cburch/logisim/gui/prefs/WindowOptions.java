@@ -53,7 +53,7 @@ class WindowOptions extends OptionsPanel {
         }
         add(panel);
         
-        lookAndFeel = new PrefOptionList(AppPreferences.LOOK_AND_FEEL,
+        lookAndFeel = new PrefOptionList(AppPreferences.getLookAndFeel(),
             getFromLocale("lookAndFeel"),
             new PrefOption[] {
                 new PrefOption(UIManager.getSystemLookAndFeelClassName(), getFromLocale("systemLookAndFeel")),
@@ -0,0 +1,274 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.start;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+import javax.swing.SwingUtilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cburch.logisim.comp.ComponentDrawContext;
+import com.cburch.logisim.file.LoadFailedException;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.gui.main.Print;
+import com.cburch.logisim.gui.menu.LogisimMenuBar;
+import com.cburch.logisim.gui.menu.WindowManagers;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.proj.ProjectActions;
+import com.cburch.logisim.tools.AddTool;
+import com.cburch.logisim.tools.Library;
+import com.cburch.logisim.tools.Tool;
+import com.cburch.logisim.util.Icons;
+import com.cburch.logisim.util.MacCompatibility;
+
+import static com.cburch.logisim.util.LocaleString.*;
+
+/**
+ * The graphical counterpart of {@link TtyInterface}: starts Logisim with
+ * its windows. {@link Startup} refers to this class only when the
+ * interface is wanted, so that a run with -tty never loads it, nor the
+ * Swing classes it draws on.
+ */
+class GuiInterface {
+    private static final Logger logger = LoggerFactory.getLogger( GuiInterface.class );
+
+    private static final int ICON_SIZE = 20;
+
+    private final Startup args;
+    private boolean showSplash;
+    private boolean initialized = false;
+    private SplashScreen monitor = null;
+    private ArrayList<File> filesToPrint = new ArrayList<File>();
+
+    GuiInterface(Startup args) {
+        this.args = args;
+    }
+
+    void doOpenFile(File file) {
+        if (initialized) {
+            ProjectActions.doOpen(null, null, file);
+        } else {
+            args.getFilesToOpen().add(file);
+        }
+    }
+
+    void doPrintFile(File file) {
+        if (initialized) {
+            Project toPrint = ProjectActions.doOpen(null, null, file);
+            Print.doPrint(toPrint);
+            toPrint.getFrame().dispose();
+        } else {
+            filesToPrint.add(file);
+        }
+    }
+
+    /**
+     * Shows the splash screen, initializes the interface, and opens the
+     * files given on the command line, or a new project.
+     */
+    void run() {
+        showSplash = args.isShowSplash();
+
+        // warm the caches that the splash screen, the interface and the file
+        // all draw on, while the main thread gets on with its own work
+        StartupPipeline pipeline = new StartupPipeline();
+        pipeline.warm("locale", () -> getFromLocaleOptions());
+
+        // kick off the progress monitor
+        // (The values used for progress values are based on a single run where
+        // I loaded a large file.)
+        if (showSplash) {
+            pipeline.run("splash", () -> {
+                try {
+                    monitor = new SplashScreen();
+                    monitor.setVisible(true);
+                } catch (Exception e) {
+                    monitor = null;
+                    showSplash = false;
+                    logger.warn( "Not showing the splash screen, for some reason" );
+                }
+            });
+        }
+
+        if (showSplash) {
+            monitor.setProgress(SplashScreen.LIBRARIES);
+        }
+
+        // list the tools of the builtin libraries; their factories and icons
+        // are loaded in the background once the file is being read
+        final SplashScreen firstMonitor = monitor;
+        final List<Tool> tools = new ArrayList<Tool>();
+        pipeline.run("libraries",
+                () -> tools.addAll(listTools(new Loader(firstMonitor))));
+        if (tools.isEmpty()) {
+            // this will never happen
+            //OK
+            logger.error( "FATAL - no components were found");
+            System.exit(-1);
+        }
+
+        // load in template
+        loadTemplate();
+
+        // read the template, or the first file to open, while the interface
+        // is initialized
+        final List<File> filesToOpen = args.getFilesToOpen();
+        final File firstFile = filesToOpen.isEmpty() ? null : filesToOpen.get(0);
+        Future<LogisimFile> firstParse;
+        if (firstFile == null) {
+            firstParse = pipeline.fork("template",
+                    () -> ProjectActions.openTemplate(firstMonitor));
+        } else {
+            firstParse = pipeline.fork("file",
+                    () -> ProjectActions.openFile(firstMonitor, firstFile,
+                            args.getSubstitutions()));
+        }
+
+        pipeline.warm("factories", () -> {
+            loadFactories(tools);
+            pipeline.run("icons", () -> paintIcons(tools));
+        });
+
+        // now that the splash screen is almost gone, we do some last-minute
+        // interface initialization
+        if (showSplash) {
+            monitor.setProgress(SplashScreen.GUI_INIT);
+        }
+
+        pipeline.run("gui", () -> {
+            WindowManagers.initialize();
+            if (MacCompatibility.isSwingUsingScreenMenuBar()) {
+                MacCompatibility.setFramelessJMenuBar(new LogisimMenuBar(null, null));
+            } else {
+                new LogisimMenuBar(null, null);
+                // most of the time occupied here will be in loading menus, which
+                // will occur eventually anyway; we might as well do it when the
+                // monitor says we are
+            }
+        });
+
+        LogisimFile first = null;
+        try {
+            first = pipeline.join(firstParse);
+        } catch (LoadFailedException ex) {
+            //OK
+            logger.error( "Could not open "
+                + firstFile.getName() + ": " + ex.getMessage() );
+            System.exit(-1);
+        } catch (Exception ex) {
+            logger.error( "Logisim failed to start.\nException: "
+                + ex.getLocalizedMessage() );
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+        pipeline.finishWarming();
+
+        // if user has double-clicked a file to open, we'll
+        // use that as the file to open now.
+        initialized = true;
+
+        // load file
+        if (firstFile == null) {
+            ProjectActions.doNew(monitor, first, true);
+        } else {
+            ProjectActions.doOpen(monitor, first);
+        }
+        if (showSplash) {
+            monitor.close();
+        }
+        monitor = null;
+
+        for (File fileToOpen : filesToOpen.subList(1, Math.max(1, filesToOpen.size()))) {
+            try {
+                ProjectActions.doOpen(null, fileToOpen, args.getSubstitutions());
+            } catch (LoadFailedException ex) {
+                //OK
+                logger.error( "Could not open "
+                    + fileToOpen.getName() + ": " + ex.getMessage() );
+                System.exit(-1);
+            }
+        }
+
+        for (File fileToPrint : filesToPrint) {
+            doPrintFile(fileToPrint);
+        }
+
+        if (args.isShowTiming()) {
+            // the window is created on the event thread, after the project
+            SwingUtilities.invokeLater(() -> {
+                pipeline.mark("window");
+                pipeline.report(System.err);
+            });
+        }
+    }
+
+    /**
+     * Returns the tools of every builtin library.
+     */
+    static List<Tool> listTools(Loader loader) {
+        List<Tool> ret = new ArrayList<Tool>();
+        for (Library lib : loader.getBuiltin().getLibraries()) {
+            ret.addAll(lib.getTools());
+        }
+        return ret;
+    }
+
+    /**
+     * Loads the component factory behind each tool that adds components.
+     * The factories' descriptions are shared by every loader, so the
+     * libraries of the files opened later find them already loaded.
+     */
+    static void loadFactories(List<Tool> tools) {
+        for (Tool tool : tools) {
+            if (tool instanceof AddTool) {
+                ((AddTool) tool).getFactory();
+            }
+        }
+    }
+
+    /**
+     * Paints each tool's icon off screen, so that the icons are parsed
+     * into the {@link Icons} cache before the explorer first shows them.
+     */
+    static void paintIcons(List<Tool> tools) {
+        BufferedImage image = new BufferedImage(ICON_SIZE, ICON_SIZE,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics g = image.getGraphics();
+        try {
+            for (Tool tool : tools) {
+                Graphics gIcon = g.create();
+                ComponentDrawContext context = new ComponentDrawContext(
+                        null, null, null, g, gIcon);
+                tool.paintIcon(context, 0, 0);
+                gIcon.dispose();
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void loadTemplate() {
+        if (showSplash) {
+            monitor.setProgress(SplashScreen.TEMPLATE_OPEN);
+        }
+
+        if (args.getTemplateFile() != null) {
+            AppPreferences.setTemplateFile(args.getTemplateFile());
+            AppPreferences.setTemplateType(AppPreferences.TEMPLATE_CUSTOM);
+        } else if (args.isTemplateEmpty()) {
+            AppPreferences.setTemplateType(AppPreferences.TEMPLATE_EMPTY);
+        } else if (args.isTemplatePlain()) {
+            AppPreferences.setTemplateType(AppPreferences.TEMPLATE_PLAIN);
+        }
+    }
+}
@@ -17,16 +17,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.cburch.logisim.Logisim;
-import com.cburch.logisim.file.LoadFailedException;
-import com.cburch.logisim.file.Loader;
-import com.cburch.logisim.gui.main.Print;
-import com.cburch.logisim.gui.menu.LogisimMenuBar;
-import com.cburch.logisim.gui.menu.WindowManagers;
 import com.cburch.logisim.prefs.AppPreferences;
-import com.cburch.logisim.proj.Project;
-import com.cburch.logisim.proj.ProjectActions;
 import com.cburch.logisim.util.LocaleManager;
-import com.cburch.logisim.util.MacCompatibility;
 
 import static com.cburch.logisim.util.LocaleString.*;
 
@@ -39,36 +31,18 @@ public class Startup {
     private static final Logger logger = LoggerFactory.getLogger( Startup.class );
 
     static void doOpen(File file) {
-        if (startupTemp != null) {
-            startupTemp.doOpenFile(file);
+        if (startupTemp != null && startupTemp.gui != null) {
+            startupTemp.gui.doOpenFile(file);
         }
 
     }
     static void doPrint(File file) {
-        if (startupTemp != null) {
-            startupTemp.doPrintFile(file);
+        if (startupTemp != null && startupTemp.gui != null) {
+            startupTemp.gui.doPrintFile(file);
         }
 
     }
 
-    private void doOpenFile(File file) {
-        if (initialized) {
-            ProjectActions.doOpen(null, null, file);
-        } else {
-            filesToOpen.add(file);
-        }
-    }
-
-    private void doPrintFile(File file) {
-        if (initialized) {
-            Project toPrint = ProjectActions.doOpen(null, null, file);
-            Print.doPrint(toPrint);
-            toPrint.getFrame().dispose();
-        } else {
-            filesToPrint.add(file);
-        }
-    }
-
     private static void registerHandler() {
         try {
             Class<?> needed1 = Class.forName("com.apple.eawt.Application");
@@ -102,14 +76,13 @@ public class Startup {
     private boolean templPlain = false;
     private ArrayList<File> filesToOpen = new ArrayList<File>();
     private boolean showSplash;
+    private boolean showTiming = false;
     private File loadFile;
     private HashMap<File,File> substitutions = new HashMap<File,File>();
     private int ttyFormat = 0;
 
-    // from other sources
-    private boolean initialized = false;
-    private SplashScreen monitor = null;
-    private ArrayList<File> filesToPrint = new ArrayList<File>();
+    // the interface, if not running with -tty
+    private GuiInterface gui = null;
 
     private Startup(boolean isTty) {
         this.isTty = isTty;
@@ -132,6 +105,26 @@ public class Startup {
         return Collections.unmodifiableMap(substitutions);
     }
 
+    File getTemplateFile() {
+        return templFile;
+    }
+
+    boolean isTemplateEmpty() {
+        return templEmpty;
+    }
+
+    boolean isTemplatePlain() {
+        return templPlain;
+    }
+
+    boolean isShowSplash() {
+        return showSplash;
+    }
+
+    boolean isShowTiming() {
+        return showTiming;
+    }
+
     /**
      * Starts splash screen and launches Logisim
      */
@@ -147,92 +140,7 @@ public class Startup {
                 System.exit(-1);
             }
         }
-
-        // kick off the progress monitor
-        // (The values used for progress values are based on a single run where
-        // I loaded a large file.)
-        if (showSplash) {
-            try {
-                monitor = new SplashScreen();
-                monitor.setVisible(true);
-            } catch (Exception e) {
-                monitor = null;
-                showSplash = false;
-                logger.warn( "Not showing the splash screen, for some reason" );
-            }
-        }
-
-        // pre-load the two basic component libraries, just so that the time
-        // taken is shown separately in the progress bar.
-        if (showSplash) {
-            monitor.setProgress(SplashScreen.LIBRARIES);
-        }
-
-        Loader templLoader = new Loader(monitor);
-        int count = templLoader.getBuiltin().getLibrary("Base").getTools().size()
-             + templLoader.getBuiltin().getLibrary("Gates").getTools().size();
-        if (count < 0) {
-            // this will never happen, but the optimizer doesn't know that...
-            //OK
-            logger.error( "FATAL - no components were found");
-            System.exit(-1);
-        }
-
-        // load in template
-        loadTemplate(templLoader, templFile, templEmpty);
-
-        // now that the splash screen is almost gone, we do some last-minute
-        // interface initialization
-        if (showSplash) {
-            monitor.setProgress(SplashScreen.GUI_INIT);
-        }
-
-        WindowManagers.initialize();
-        if (MacCompatibility.isSwingUsingScreenMenuBar()) {
-            MacCompatibility.setFramelessJMenuBar(new LogisimMenuBar(null, null));
-        } else {
-            new LogisimMenuBar(null, null);
-            // most of the time occupied here will be in loading menus, which
-            // will occur eventually anyway; we might as well do it when the
-            // monitor says we are
-        }
-
-        // if user has double-clicked a file to open, we'll
-        // use that as the file to open now.
-        initialized = true;
-
-        // load file
-        if (filesToOpen.isEmpty()) {
-            ProjectActions.doNew(monitor, true);
-            if (showSplash) {
-                monitor.close();
-            }
-
-        } else {
-            boolean first = true;
-            for (File fileToOpen : filesToOpen) {
-                try {
-                    ProjectActions.doOpen(monitor, fileToOpen, substitutions);
-                } catch (LoadFailedException ex) {
-                    //OK
-                    logger.error( "Could not open "
-                        + fileToOpen.getName() + ": " + ex.getMessage() );
-                    System.exit(-1);
-                }
-                if (first) {
-                    first = false;
-                    if (showSplash) {
-                        monitor.close();
-                    }
-
-                    monitor = null;
-                }
-            }
-        }
-
-        for (File fileToPrint : filesToPrint) {
-            doPrintFile(fileToPrint);
-        }
+        gui.run();
     }
 
     private static void setLocale(String lang) {
@@ -254,21 +162,6 @@ public class Startup {
         System.exit(-1);
     }
 
-    private void loadTemplate(Loader loader, File templFile,
-            boolean templEmpty) {
-        if (showSplash) {
-            monitor.setProgress(SplashScreen.TEMPLATE_OPEN);
-        }
-
-        if (templFile != null) {
-            AppPreferences.setTemplateFile(templFile);
-            AppPreferences.setTemplateType(AppPreferences.TEMPLATE_CUSTOM);
-        } else if (templEmpty) {
-            AppPreferences.setTemplateType(AppPreferences.TEMPLATE_EMPTY);
-        } else if (templPlain) {
-            AppPreferences.setTemplateType(AppPreferences.TEMPLATE_PLAIN);
-        }
-    }
     /**
      * Parses the command-line arguments to com.cburch.logisim.Main
      * @param args command line arguments
@@ -300,6 +193,7 @@ public class Startup {
         Startup ret = new Startup(isTty);
         startupTemp = ret;
         if (!isTty) {
+            ret.gui = new GuiInterface(ret);
             registerHandler();
         }
 
@@ -307,9 +201,11 @@ public class Startup {
             AppPreferences.clear();
         }
 
-        try {
-            UIManager.setLookAndFeel(AppPreferences.LOOK_AND_FEEL.get());
-        } catch (Exception ex) { }
+        if (!isTty) {
+            try {
+                UIManager.setLookAndFeel(AppPreferences.getLookAndFeel().get());
+            } catch (Exception ex) { }
+        }
 
         // parse arguments
         for (int i = 0; i < args.length; i++) {
@@ -334,6 +230,8 @@ public class Startup {
                             ret.ttyFormat |= TtyInterface.FORMAT_HALT;
                         } else if (fmt.equals("stats")) {
                             ret.ttyFormat |= TtyInterface.FORMAT_STATISTICS;
+                        } else if (fmt.equals("profile")) {
+                            ret.ttyFormat |= TtyInterface.FORMAT_PROFILE;
                         } else {
                             //OK
                             System.err.println(getFromLocale("ttyFormatError"));
@@ -455,6 +353,8 @@ public class Startup {
                 }
             } else if (arg.equals("-nosplash")) {
                 ret.showSplash = false;
+            } else if (arg.equals("-timing")) {
+                ret.showTiming = true;
             } else if (arg.equals("-clearprefs")) {
                 // already handled above
             } else if (arg.charAt(0) == '-') {
@@ -495,6 +395,7 @@ public class Startup {
         System.err.println("   " + getFromLocale("argPlainOption"));
         System.err.println("   " + getFromLocale("argSubOption"));
         System.err.println("   " + getFromLocale("argTemplateOption"));
+        System.err.println("   " + getFromLocale("argTimingOption"));
         System.err.println("   " + getFromLocale("argTtyOption"));
         System.err.println("   " + getFromLocale("argVersionOption"));
         System.exit(-1);
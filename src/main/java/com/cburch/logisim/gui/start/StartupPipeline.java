@@ -0,0 +1,189 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.start;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the phases of startup, some of them on background threads while the
+ * rest go on in the calling thread, and records when each began and ended.
+ * <p>
+ * A phase started with {@link #warm} only fills caches that a later phase
+ * would otherwise fill for itself, so its failure is logged and ignored. A
+ * phase started with {@link #fork} has a result, and its failure is
+ * rethrown by {@link #join}.
+ */
+class StartupPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(StartupPipeline.class);
+
+    private static final int MAX_THREADS = 3;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private static class Phase {
+        private final String name;
+        private final String thread;
+        private final long start;
+        private long end = -1;
+
+        Phase(String name, long start) {
+            this.name = name;
+            this.thread = Thread.currentThread().getName();
+            this.start = start;
+        }
+    }
+
+    private final long origin = System.nanoTime();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService executor;
+    private final List<Phase> phases = new ArrayList<Phase>();
+    private final List<Future<?>> warmups = new ArrayList<Future<?>>();
+
+    StartupPipeline() {
+        int threads = Math.min(MAX_THREADS,
+                Runtime.getRuntime().availableProcessors());
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "startup-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts a phase that warms caches on a background thread.
+     */
+    void warm(final String name, final Runnable task) {
+        warmups.add(executor.submit(() -> {
+            try {
+                run(name, task);
+            } catch (RuntimeException e) {
+                logger.warn("Startup phase {} failed: {}", name, e.toString());
+            }
+        }));
+    }
+
+    /**
+     * Starts a phase on a background thread, whose result is later
+     * collected with {@link #join}.
+     */
+    <T> Future<T> fork(final String name, final Callable<T> task) {
+        return executor.submit(() -> time(name, task));
+    }
+
+    /**
+     * Runs a phase on the calling thread.
+     */
+    void run(String name, final Runnable task) {
+        try {
+            time(name, () -> {
+                task.run();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // a Runnable cannot throw anything else
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Waits for a forked phase to finish, returning its result or throwing
+     * what it threw.
+     */
+    <T> T join(Future<T> phase) throws Exception {
+        try {
+            return phase.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * Waits for every warming phase to finish, and lets the background
+     * threads go once the phases already started are done.
+     */
+    void finishWarming() {
+        for (Future<?> warmup : warmups) {
+            try {
+                warmup.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // already logged by the phase itself
+            }
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Marks a moment, such as the window appearing, as a phase of no
+     * length.
+     */
+    void mark(String name) {
+        long now = System.nanoTime();
+        synchronized (phases) {
+            Phase phase = new Phase(name, now);
+            phase.end = now;
+            phases.add(phase);
+        }
+    }
+
+    private <T> T time(String name, Callable<T> task) throws Exception {
+        Phase phase = new Phase(name, System.nanoTime());
+        synchronized (phases) {
+            phases.add(phase);
+        }
+        try {
+            return task.call();
+        } finally {
+            long end = System.nanoTime();
+            synchronized (phases) {
+                phase.end = end;
+            }
+        }
+    }
+
+    /**
+     * Prints each phase with its start, end and length in milliseconds
+     * since the pipeline was created, in the order the phases began.
+     */
+    void report(PrintStream out) {
+        synchronized (phases) {
+            out.println(String.format("%-12s %8s %8s %8s  %s",
+                    "phase", "start", "end", "ms", "thread"));
+            for (Phase phase : phases) {
+                if (phase.end < 0) {
+                    out.println(String.format("%-12s %8d %8s %8s  %s",
+                            phase.name, millis(phase.start), "-", "-",
+                            phase.thread));
+                } else {
+                    out.println(String.format("%-12s %8d %8d %8d  %s",
+                            phase.name, millis(phase.start), millis(phase.end),
+                            (phase.end - phase.start) / NANOS_PER_MILLI,
+                            phase.thread));
+                }
+            }
+        }
+    }
+
+    private long millis(long nanos) {
+        return (nanos - origin) / NANOS_PER_MILLI;
+    }
+}
@@ -14,6 +14,7 @@ import com.cburch.logisim.circuit.Analyze;
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.circuit.Propagator;
+import com.cburch.logisim.circuit.SimulationProfile;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.file.LoadFailedException;
@@ -36,6 +37,7 @@ public class TtyInterface {
     public static final int FORMAT_TTY = 4;
     public static final int FORMAT_HALT = 8;
     public static final int FORMAT_STATISTICS = 16;
+    public static final int FORMAT_PROFILE = 32;
 
     private static boolean lastIsNewline = true;
 
@@ -111,7 +113,16 @@ public class TtyInterface {
             }
         }
         int ttyFormat = args.getTtyFormat();
+        SimulationProfile profile = null;
+        if ((ttyFormat & FORMAT_PROFILE) != 0) {
+            profile = new SimulationProfile();
+            circState.getPropagator().setProfile(profile);
+        }
         int simCode = runSimulation(circState, outputPins, haltPin, ttyFormat);
+        if (profile != null) {
+            circState.getPropagator().setProfile(null);
+            profile.write(System.out);
+        }
         System.exit(simCode);
     }
 
@@ -272,8 +283,11 @@ public class TtyInterface {
             }
             prevOutputs = curOutputs;
             tickCount++;
-            prop.tick();
-            prop.propagate();
+            // a tick changing no clock leaves nothing to propagate unless
+            // something else is pending
+            if (prop.tick() || prop.isPending()) {
+                prop.propagate();
+            }
         }
         long elapse = System.currentTimeMillis() - start;
         if (showTty) {
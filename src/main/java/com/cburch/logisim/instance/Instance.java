@@ -64,6 +64,10 @@ public class Instance {
         return comp.getAttributeSet();
     }
 
+    public Object getAttributeSnapshot() {
+        return comp.getAttributeSnapshot();
+    }
+
     public List<Port> getPorts() {
         return comp.getPorts();
     }
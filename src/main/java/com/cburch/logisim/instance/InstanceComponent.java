@@ -10,10 +10,12 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.apache.commons.collections15.list.UnmodifiableList;
 
 import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.InvalidationBatch;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.ComponentDrawContext;
 import com.cburch.logisim.comp.ComponentEvent;
@@ -33,6 +35,10 @@ import com.cburch.logisim.tools.ToolTipMaker;
 import com.cburch.logisim.util.EventSourceWeakSupport;
 
 class InstanceComponent implements Component, AttributeListener, ToolTipMaker {
+    private static final AtomicReferenceFieldUpdater<InstanceComponent,Object> SNAPSHOT
+        = AtomicReferenceFieldUpdater.newUpdater(InstanceComponent.class,
+                Object.class, "attrSnapshot");
+
     private EventSourceWeakSupport<ComponentListener> listeners;
     private InstanceFactory factory;
     private Instance instance;
@@ -45,6 +51,11 @@ class InstanceComponent implements Component, AttributeListener, ToolTipMaker {
     private HashSet<Attribute<BitWidth>> widthAttrs;
     private AttributeSet attrs;
     private boolean attrListenRequested;
+    private boolean snapshotListenRequested;
+    // built by the simulation and discarded by whoever changes an
+    // attribute, which first counts the change in attrVersion
+    private volatile Object attrSnapshot;
+    private volatile int attrVersion;
     private InstanceTextField textField;
 
     InstanceComponent(InstanceFactory factory, Location loc,
@@ -59,6 +70,8 @@ class InstanceComponent implements Component, AttributeListener, ToolTipMaker {
         this.hasToolTips = false;
         this.attrs = attrs;
         this.attrListenRequested = false;
+        this.snapshotListenRequested = false;
+        this.attrSnapshot = null;
         this.textField = null;
 
         computeEnds();
@@ -113,7 +126,7 @@ class InstanceComponent implements Component, AttributeListener, ToolTipMaker {
 
             }
         }
-        if (!attrListenRequested) {
+        if (!attrListenRequested && !snapshotListenRequested) {
             HashSet<Attribute<BitWidth>> oldWattrs = widthAttrs;
             if (wattrs == null && oldWattrs != null) {
                 getAttributeSet().removeAttributeListener(this);
@@ -174,6 +187,13 @@ class InstanceComponent implements Component, AttributeListener, ToolTipMaker {
     }
 
     void fireInvalidated() {
+        InvalidationBatch batch = InvalidationBatch.getCurrent();
+        if (batch != null) {
+            // the listeners hear of it when the propagation completes
+            batch.add(this);
+            return;
+        }
+
         EventSourceWeakSupport<ComponentListener> ls = listeners;
         if (ls != null) {
             ComponentEvent e = null;
@@ -331,10 +351,13 @@ class InstanceComponent implements Component, AttributeListener, ToolTipMaker {
     // AttributeListener methods
     //
     @Override
-    public void attributeListChanged(AttributeEvent e) { }
+    public void attributeListChanged(AttributeEvent e) {
+        discardAttributeSnapshot();
+    }
 
     @Override
     public void attributeValueChanged(AttributeEvent e) {
+        discardAttributeSnapshot();
         Attribute<?> attr = e.getAttribute();
         if (widthAttrs != null && widthAttrs.contains(attr)) {
             computeEnds();
@@ -380,13 +403,40 @@ class InstanceComponent implements Component, AttributeListener, ToolTipMaker {
     void addAttributeListener(Instance instance) {
         if (!attrListenRequested) {
             attrListenRequested = true;
-            if (widthAttrs == null) {
+            if (widthAttrs == null && !snapshotListenRequested) {
                 getAttributeSet().addAttributeListener(this);
             }
 
         }
     }
 
+    Object getAttributeSnapshot() {
+        Object ret = attrSnapshot;
+        if (ret == null) {
+            if (!snapshotListenRequested) {
+                // the snapshot must be discarded when any attribute changes
+                snapshotListenRequested = true;
+                if (widthAttrs == null && !attrListenRequested) {
+                    getAttributeSet().addAttributeListener(this);
+                }
+            }
+            int version = attrVersion;
+            ret = factory.createAttributeSnapshot(attrs);
+            SNAPSHOT.compareAndSet(this, null, ret);
+            if (attrVersion != version) {
+                // an attribute changed while it was built, and the change
+                // may have discarded the snapshot before it was published
+                SNAPSHOT.compareAndSet(this, ret, null);
+            }
+        }
+        return ret;
+    }
+
+    private void discardAttributeSnapshot() {
+        attrVersion++;
+        attrSnapshot = null;
+    }
+
     void setTextField(Attribute<String> labelAttr, Attribute<Font> fontAttr,
             int x, int y, int halign, int valign) {
         InstanceTextField field = textField;
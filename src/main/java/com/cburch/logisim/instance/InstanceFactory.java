@@ -19,6 +19,7 @@ import com.cburch.logisim.comp.AbstractComponentFactory;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.ComponentDrawContext;
 import com.cburch.logisim.data.Attribute;
+import com.cburch.logisim.data.AttributeIndex;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.AttributeSets;
 import com.cburch.logisim.data.Bounds;
@@ -44,6 +45,7 @@ public abstract class InstanceFactory extends AbstractComponentFactory {
     private String iconName;
     private Icon icon;
     private Attribute<?>[] attrs;
+    private AttributeIndex attrIndex;
     private Object[] defaults;
     private AttributeSet defaultSet;
     private Bounds bounds;
@@ -64,6 +66,7 @@ public abstract class InstanceFactory extends AbstractComponentFactory {
         this.iconName = null;
         this.icon = null;
         this.attrs = null;
+        this.attrIndex = null;
         this.defaults = null;
         this.bounds = Bounds.EMPTY_BOUNDS;
         this.portList = Collections.emptyList();
@@ -176,13 +179,14 @@ public abstract class InstanceFactory extends AbstractComponentFactory {
 
     public void setAttributes(Attribute<?>[] attrs, Object[] defaults) {
         this.attrs = attrs;
+        this.attrIndex = attrs == null ? null : AttributeIndex.of(attrs);
         this.defaults = defaults;
     }
 
     @Override
     public AttributeSet createAttributeSet() {
-        Attribute<?>[] as = attrs;
-        AttributeSet ret = as == null ? AttributeSets.EMPTY : AttributeSets.fixedSet(as, defaults);
+        AttributeIndex index = attrIndex;
+        AttributeSet ret = index == null ? AttributeSets.EMPTY : AttributeSets.fixedSet(index, defaults);
         return ret;
     }
 
@@ -306,6 +310,22 @@ public abstract class InstanceFactory extends AbstractComponentFactory {
     public abstract void paintInstance(InstancePainter painter);
     public abstract void propagate(InstanceState state);
 
+    /**
+     * Decodes an instance's attributes into a single value that
+     * {@link #propagate} can read through
+     * {@link InstanceState#getAttributeSnapshot()} instead of looking up
+     * each attribute on every evaluation. The snapshot is created when
+     * first requested and discarded whenever an attribute of the instance
+     * changes. The default implementation returns null, meaning that the
+     * factory does not use snapshots.
+     *
+     * @param attrs the attribute set of the instance
+     * @return the decoded snapshot, or null
+     */
+    protected Object createAttributeSnapshot(AttributeSet attrs) {
+        return null;
+    }
+
     // event methods
     protected void configureNewInstance(Instance instance) { }
     protected void instanceAttributeChanged(Instance instance, Attribute<?> attr) { }
@@ -182,6 +182,13 @@ public class InstancePainter implements InstanceState {
         return as.getValue(attr);
     }
 
+    @Override
+    public Object getAttributeSnapshot() {
+        InstanceComponent c = comp;
+        return c == null ? factory.createAttributeSnapshot(attrs)
+                : c.getAttributeSnapshot();
+    }
+
     @Override
     public void fireInvalidated() {
         comp.fireInvalidated();
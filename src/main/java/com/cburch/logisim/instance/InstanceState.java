@@ -14,6 +14,7 @@ public interface InstanceState {
     public Project getProject();
     public AttributeSet getAttributeSet();
     public <E> E getAttributeValue(Attribute<E> attr);
+    public Object getAttributeSnapshot();
     public Value getPort(int portIndex);
     public boolean isPortConnected(int portIndex);
     public void setPort(int portIndex, Value value, int delay);
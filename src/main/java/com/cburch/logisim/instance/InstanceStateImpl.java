@@ -5,6 +5,7 @@ package com.cburch.logisim.instance;
 
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.InvalidationBatch;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.EndData;
 import com.cburch.logisim.data.Attribute;
@@ -65,6 +66,15 @@ class InstanceStateImpl implements InstanceState {
         return component.getAttributeSet().getValue(attr);
     }
 
+    @Override
+    public Object getAttributeSnapshot() {
+        if (component instanceof InstanceComponent) {
+            return ((InstanceComponent) component).getAttributeSnapshot();
+        } else {
+            return null;
+        }
+    }
+
     @Override
     public Value getPort(int portIndex) {
         EndData data = component.getEnd(portIndex);
@@ -98,6 +108,11 @@ class InstanceStateImpl implements InstanceState {
     @Override
     public void fireInvalidated() {
         if (component instanceof InstanceComponent) {
+            if (InvalidationBatch.getCurrent() != null) {
+                // simulating: the component must be propagated again in
+                // this state now, while its listeners can wait
+                circuitState.markComponentAsDirty(component);
+            }
             ((InstanceComponent) component).fireInvalidated();
         }
     }
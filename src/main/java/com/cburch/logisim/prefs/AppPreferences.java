@@ -119,6 +119,15 @@ public class AppPreferences {
                 new String[] { ACCEL_DEFAULT, ACCEL_NONE, ACCEL_OPENGL, ACCEL_D3D },
                 ACCEL_DEFAULT));
 
+    // whether instances of small combinational circuits compute their
+    // outputs from a truth table until the user views their state
+    public static final PrefMonitor<Boolean> COMPILE_SUBCIRCUITS
+        = create(new PrefMonitorBoolean("compileSubcircuits", false));
+
+    // memory budget, in kilobytes, for each project's undo history
+    public static final PrefMonitor<Integer> UNDO_BUDGET
+        = create(new PrefMonitorInt("undoBudget", 32 * 1024));
+
     // hidden window preferences - not part of the preferences dialog, changes
     // to preference does not affect current windows, and the values are not
     // saved until the application is closed
@@ -149,7 +158,9 @@ public class AppPreferences {
     public static final PrefMonitor<String> DIALOG_DIRECTORY
         = create(new PrefMonitorString("dialogDirectory", ""));
 
-    public static final PrefMonitor<String> LOOK_AND_FEEL = create(new PrefMonitorString("lookAndFeel", UIManager.getSystemLookAndFeelClassName()));
+    // created on first use, since the default asks the windowing toolkit,
+    // which a run with -tty never otherwise loads
+    private static PrefMonitor<String> lookAndFeel = null;
 
     //
     // methods for accessing preferences
@@ -199,6 +210,14 @@ public class AppPreferences {
         return monitor;
     }
 
+    public static synchronized PrefMonitor<String> getLookAndFeel() {
+        if (lookAndFeel == null) {
+            lookAndFeel = create(new PrefMonitorString("lookAndFeel",
+                    UIManager.getSystemLookAndFeelClassName()));
+        }
+        return lookAndFeel;
+    }
+
     public static void clear() {
         Preferences p = getPrefs(true);
         try { p.clear(); } catch (BackingStoreException e) { }
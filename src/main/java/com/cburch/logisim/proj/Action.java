@@ -4,8 +4,19 @@
 package com.cburch.logisim.proj;
 
 public abstract class Action {
+    /** A nominal size for actions that retain only a few references. */
+    protected static final int SMALL_ACTION_SIZE = 64;
+
     public boolean isModification() { return true; }
 
+    /**
+     * Returns a rough estimate, in bytes, of the memory this action keeps
+     * reachable while it sits in the undo log. Actions that hold large
+     * structures (component lists, memory contents) should override this
+     * so that the undo log can be bounded by memory rather than by count.
+     */
+    public int getEstimatedSize() { return SMALL_ACTION_SIZE; }
+
     public abstract String getName();
 
     public abstract void doIt(Project proj);
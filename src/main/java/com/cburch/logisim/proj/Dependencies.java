@@ -3,7 +3,10 @@
 
 package com.cburch.logisim.proj;
 
+import java.util.HashSet;
+
 import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitBatch;
 import com.cburch.logisim.circuit.CircuitEvent;
 import com.cburch.logisim.circuit.CircuitListener;
 import com.cburch.logisim.circuit.SubcircuitFactory;
@@ -72,11 +75,39 @@ public class Dependencies {
 
                 }
                 break;
+            case CircuitEvent.ACTION_BATCH:
+                batchChanged(e.getCircuit(), e.getBatch());
+                break;
             case CircuitEvent.ACTION_CLEAR:
                 depends.removeNode(e.getCircuit());
                 break;
             }
         }
+
+        private void batchChanged(Circuit circ, CircuitBatch batch) {
+            // scan the circuit once for all the subcircuits removed
+            HashSet<SubcircuitFactory> removed = new HashSet<>();
+            for (Component comp : batch.getRemoved()) {
+                if (comp.getFactory() instanceof SubcircuitFactory) {
+                    removed.add((SubcircuitFactory) comp.getFactory());
+                }
+            }
+            if (!removed.isEmpty()) {
+                for (Component o : circ.getNonWires()) {
+                    removed.remove(o.getFactory());
+                }
+                for (SubcircuitFactory factory : removed) {
+                    depends.removeEdge(circ, factory.getSubcircuit());
+                }
+            }
+
+            for (Component comp : batch.getAdded()) {
+                if (comp.getFactory() instanceof SubcircuitFactory) {
+                    SubcircuitFactory factory = (SubcircuitFactory) comp.getFactory();
+                    depends.addEdge(circ, factory.getSubcircuit());
+                }
+            }
+        }
     }
 
     private MyListener myListener = new MyListener();
@@ -36,6 +36,15 @@ public class JoinedAction extends Action {
         return false;
     }
 
+    @Override
+    public int getEstimatedSize() {
+        int ret = 16 + 4 * todo.length;
+        for (Action act : todo) {
+            ret += act.getEstimatedSize();
+        }
+        return ret;
+    }
+
     @Override
     public String getName() { return todo[0].getName(); }
 
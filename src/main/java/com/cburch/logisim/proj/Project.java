@@ -4,7 +4,6 @@
 package com.cburch.logisim.proj;
 
 import java.util.HashMap;
-import java.util.LinkedList;
 
 import javax.swing.JFileChooser;
 
@@ -21,9 +20,11 @@ import com.cburch.logisim.file.Options;
 import com.cburch.logisim.gui.log.LogFrame;
 import com.cburch.logisim.gui.main.Canvas;
 import com.cburch.logisim.gui.main.Frame;
+import com.cburch.logisim.gui.main.ProfileDialog;
 import com.cburch.logisim.gui.main.Selection;
 import com.cburch.logisim.gui.main.SelectionActions;
 import com.cburch.logisim.gui.opts.OptionsFrame;
+import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.tools.AddTool;
 import com.cburch.logisim.tools.Library;
 import com.cburch.logisim.tools.Tool;
@@ -31,11 +32,10 @@ import com.cburch.logisim.util.EventSourceWeakSupport;
 import com.cburch.logisim.util.JFileChoosers;
 
 public class Project {
-    private static final int MAX_UNDO_SIZE = 64;
-
-    private static class ActionData {
+    static class ActionData {
         CircuitState circuitState;
         Action action;
+        int size; // as charged by the UndoLog holding this entry
 
         public ActionData(CircuitState circuitState, Action action) {
             this.circuitState = circuitState;
@@ -80,10 +80,11 @@ public class Project {
     private Frame frame = null;
     private OptionsFrame optionsFrame = null;
     private LogFrame logFrame = null;
+    private ProfileDialog profileDialog = null;
     private Tool tool = null;
-    private LinkedList<ActionData> undoLog = new LinkedList<ActionData>();
+    private UndoLog undoLog = new UndoLog();
     private int undoMods = 0;
-	private LinkedList<ActionData> redoLog = new LinkedList<ActionData>();
+	private UndoLog redoLog = new UndoLog();
 	private int redoMods = 0;
     private EventSourceWeakSupport<ProjectListener> projectListeners
         = new EventSourceWeakSupport<ProjectListener>();
@@ -158,6 +159,16 @@ public class Project {
         return logFrame;
     }
 
+    public ProfileDialog getProfileDialog(boolean create) {
+        if (profileDialog == null) {
+            if (create) {
+                profileDialog = new ProfileDialog(this);
+            }
+
+        }
+        return profileDialog;
+    }
+
     public Circuit getCurrentCircuit() {
         return circuitState == null ? null : circuitState.getCircuit();
     }
@@ -451,7 +462,7 @@ public class Project {
 			
             toAdd = first.append(act);
             if (toAdd != null) {
-                undoLog.add(new ActionData(circuitState, toAdd));
+                undoLog.addLast(new ActionData(circuitState, toAdd));
                 if (toAdd.isModification()) {
                     ++undoMods;
                 }
@@ -459,17 +470,16 @@ public class Project {
             }
             fireEvent(new ProjectEvent(ProjectEvent.ACTION_START, this, act));
             act.doIt(this);
+            trimLog(undoLog);
             file.setDirty(isFileDirty());
             fireEvent(new ProjectEvent(ProjectEvent.ACTION_COMPLETE, this, act));
             fireEvent(new ProjectEvent(ProjectEvent.ACTION_MERGE, this, first, toAdd));
             return;
         }
-        undoLog.add(new ActionData(circuitState, toAdd));
+        undoLog.addLast(new ActionData(circuitState, toAdd));
         fireEvent(new ProjectEvent(ProjectEvent.ACTION_START, this, act));
         act.doIt(this);
-        while (undoLog.size() > MAX_UNDO_SIZE) {
-            undoLog.removeFirst();
-        }
+        trimLog(undoLog);
         if (toAdd.isModification()) {
             ++undoMods;
         }
@@ -478,13 +488,22 @@ public class Project {
         fireEvent(new ProjectEvent(ProjectEvent.ACTION_COMPLETE, this, act));
     }
 
+    // the size of an action is only known once it has been performed or
+    // undone, so a log is trimmed to its memory budget after each action
+    // added to it
+    private void trimLog(UndoLog log) {
+        long budget = AppPreferences.UNDO_BUDGET.get().longValue() * 1024L;
+        log.trim(budget);
+    }
+
 	public void undoAction()
 	{
 		if( undoLog != null && undoLog.size() > 0 )
 		{
-			redoLog.addLast( undoLog.getLast() );
-			++redoMods;
+            // move the entry to the redo log, which charges it afresh
             ActionData data = undoLog.removeLast();
+            redoLog.addLast(data);
+			++redoMods;
             setCircuitState(data.circuitState);
             Action action = data.action;
             if (action.isModification()) {
@@ -493,6 +512,7 @@ public class Project {
 
             fireEvent(new ProjectEvent(ProjectEvent.UNDO_START, this, action));
             action.undo(this);
+            trimLog(redoLog);
             file.setDirty(isFileDirty());
             fireEvent(new ProjectEvent(ProjectEvent.UNDO_COMPLETE, this, action));
 		}
@@ -505,11 +525,9 @@ public class Project {
 		// If there ARE things to undo...
 		if( redoLog != null && redoLog.size() > 0 )
 		{
-			// Add the last element of the undo log to the redo log
-			undoLog.addLast( redoLog.getLast() );
-			
-			// Remove the last item in the redo log, but keep the data
+			// Move the last item in the redo log back to the undo log
 			ActionData data = redoLog.removeLast();
+			undoLog.addLast( data );
 
 			// Restore the circuit state to the redo's state
 			setCircuitState( data.circuitState );
@@ -527,6 +545,7 @@ public class Project {
 
 			// Redo the action
 			action.doIt( this );
+			trimLog( undoLog );
 
 			// Complete the redo
 			fireEvent( new ProjectEvent( ProjectEvent.REDO_COMPLETE, this, action ) );
@@ -59,6 +59,24 @@ public class ProjectActions {
     }
 
     public static Project doNew(SplashScreen monitor, boolean isStartupScreen) {
+        LogisimFile file = openTemplate(monitor);
+        return completeProject(monitor, file.getLoader(), file, isStartupScreen);
+    }
+
+    /**
+     * Creates a project around a file already read by {@link #openTemplate}.
+     */
+    public static Project doNew(SplashScreen monitor, LogisimFile file,
+            boolean isStartupScreen) {
+        return completeProject(monitor, file.getLoader(), file, isStartupScreen);
+    }
+
+    /**
+     * Reads the template that new projects start from, or an empty file if
+     * the template cannot be read. This does not touch the interface, so
+     * it may run on any thread.
+     */
+    public static LogisimFile openTemplate(SplashScreen monitor) {
         if (monitor != null) {
             monitor.setProgress(SplashScreen.FILE_CREATE);
         }
@@ -78,8 +96,7 @@ public class ProjectActions {
         if (file == null) {
             file = createEmptyFile(loader);
         }
-
-        return completeProject(monitor, loader, file, isStartupScreen);
+        return file;
     }
 
     private static void displayException(Component parent, Exception ex) {
@@ -162,6 +179,22 @@ public class ProjectActions {
 
     public static Project doOpen(SplashScreen monitor, File source,
             Map<File,File> substitutions) throws LoadFailedException {
+        return doOpen(monitor, openFile(monitor, source, substitutions));
+    }
+
+    /**
+     * Creates a project around a file already read by {@link #openFile}.
+     */
+    public static Project doOpen(SplashScreen monitor, LogisimFile file) {
+        return completeProject(monitor, file.getLoader(), file, false);
+    }
+
+    /**
+     * Reads a file to be opened as a project. This does not touch the
+     * interface, so it may run on any thread.
+     */
+    public static LogisimFile openFile(SplashScreen monitor, File source,
+            Map<File,File> substitutions) throws LoadFailedException {
         if (monitor != null) {
             monitor.setProgress(SplashScreen.FILE_LOAD);
         }
@@ -169,8 +202,7 @@ public class ProjectActions {
         Loader loader = new Loader(monitor);
         LogisimFile file = loader.openLogisimFile(source, substitutions);
         AppPreferences.updateRecentFile(source);
-
-        return completeProject(monitor, loader, file, false);
+        return file;
     }
 
     public static void doOpen(Component parent, Project baseProject) {
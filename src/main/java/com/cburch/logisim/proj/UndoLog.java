@@ -0,0 +1,91 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.proj;
+
+import java.util.ArrayDeque;
+
+/**
+ * A log of undoable actions that is bounded by the memory the actions
+ * retain rather than by their number. Each entry is charged the size
+ * reported by {@link Action#getEstimatedSize()}; when the total exceeds
+ * the budget, the oldest entries are discarded. The most recent entry is
+ * always kept, however large it is, so the last action can be undone.
+ * <p>
+ * The actions are kept as they were performed: the log neither compacts
+ * them into smaller deltas nor shares structure between them, and it
+ * keeps no entries outside memory. Only the number of entries adapts to
+ * their size.
+ */
+class UndoLog {
+    // the ActionData wrapper and its deque slot
+    private static final int ENTRY_OVERHEAD = 32;
+
+    private final ArrayDeque<Project.ActionData> entries
+        = new ArrayDeque<Project.ActionData>();
+    private long totalSize = 0;
+
+    private static int measure(Project.ActionData data) {
+        return ENTRY_OVERHEAD + data.action.getEstimatedSize();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public long getEstimatedSize() {
+        return totalSize;
+    }
+
+    public Project.ActionData getLast() {
+        return entries.getLast();
+    }
+
+    public void addLast(Project.ActionData data) {
+        data.size = measure(data);
+        totalSize += data.size;
+        entries.addLast(data);
+    }
+
+    public Project.ActionData removeLast() {
+        Project.ActionData ret = entries.removeLast();
+        totalSize -= ret.size;
+        return ret;
+    }
+
+    public void clear() {
+        entries.clear();
+        totalSize = 0;
+    }
+
+    /**
+     * Re-measures the most recent entry, whose action may have grown since
+     * it was added (an action records its reverse when it is performed,
+     * and merged actions accumulate), and then discards the oldest entries
+     * until the log fits within the given budget.
+     *
+     * @param budget the budget in bytes
+     * @return the number of entries discarded
+     */
+    public int trim(long budget) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        Project.ActionData last = entries.getLast();
+        int lastSize = measure(last);
+        totalSize += lastSize - last.size;
+        last.size = lastSize;
+
+        int dropped = 0;
+        while (totalSize > budget && entries.size() > 1) {
+            Project.ActionData first = entries.removeFirst();
+            totalSize -= first.size;
+            dropped++;
+        }
+        return dropped;
+    }
+}
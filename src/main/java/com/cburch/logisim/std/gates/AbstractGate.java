@@ -39,6 +39,11 @@ import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.Icons;
 
 abstract class AbstractGate extends InstanceFactory {
+    // the masks propagateWord accumulates, one for each simulating thread
+    // so that evaluating a gate allocates nothing
+    private static final ThreadLocal<GateFunctions.Word> WORDS
+        = ThreadLocal.withInitial(GateFunctions.Word::new);
+
     private String[] iconNames = new String[3];
     private SVGIcon[] icons = new SVGIcon[3];
     private int bonusWidth = 0;
@@ -352,6 +357,16 @@ abstract class AbstractGate extends InstanceFactory {
     protected abstract Value computeOutput(Value[] inputs, int numInputs,
             InstanceState state);
 
+    /**
+     * Returns the function of {@link GateFunctions} that the gate computes,
+     * so that its output can be computed a word at a time, or
+     * {@link GateFunctions#NONE} if it must be computed with
+     * {@link #computeOutput}.
+     */
+    protected int getWordFunction(GateAttributes attrs) {
+        return GateFunctions.NONE;
+    }
+
     protected abstract Expression computeExpression(Expression[] inputs,
             int numInputs);
 
@@ -436,6 +451,12 @@ abstract class AbstractGate extends InstanceFactory {
         boolean errorIfUndefined = opts.getValue(Options.ATTR_GATE_UNDEFINED)
                                     .equals(Options.GATE_UNDEFINED_ERROR);
 
+        int function = getWordFunction(attrs);
+        if (function != GateFunctions.NONE
+                && propagateWord(state, attrs, function, errorIfUndefined)) {
+            return;
+        }
+
         Value[] inputs = new Value[inputCount];
         int numInputs = 0;
         boolean error = false;
@@ -464,28 +485,52 @@ abstract class AbstractGate extends InstanceFactory {
         state.setPort(0, out, GateAttributes.DELAY);
     }
 
-    static Value pullOutput(Value value, Object outType) {
-        if (outType == GateAttributes.OUTPUT_01) {
-            return value;
-        } else {
-            Value[] v = value.getAll();
-            if (outType == GateAttributes.OUTPUT_0Z) {
-                for (int i = 0; i < v.length; i++) {
-                    if (v[i] == Value.TRUE) {
-                        v[i] = Value.UNKNOWN;
-                    }
-
-                }
-            } else if (outType == GateAttributes.OUTPUT_Z1) {
-                for (int i = 0; i < v.length; i++) {
-                    if (v[i] == Value.FALSE) {
-                        v[i] = Value.UNKNOWN;
-                    }
-
+    // Computes the output from the masks of the inputs, without creating
+    // an array of inputs, negating each one or allocating the masks. Returns false, having done
+    // nothing, if an input has a width other than the gate's.
+    private boolean propagateWord(InstanceState state, GateAttributes attrs,
+            int function, boolean errorIfUndefined) {
+        int width = attrs.width.getWidth();
+        int negated = attrs.negated;
+        GateFunctions.Word word = WORDS.get();
+        word.clear();
+        boolean error = false;
+        for (int i = 1; i <= attrs.inputs; i++) {
+            if (state.isPortConnected(i)) {
+                Value in = state.getPort(i);
+                if (in.getWidth() != width) {
+                    return false;
                 }
+                word.add(in, ((negated >> (i - 1)) & 1) == 1);
+            } else if (errorIfUndefined) {
+                error = true;
             }
-            return Value.create(v);
         }
+
+        Value out;
+        if (word.getCount() == 0 || error) {
+            out = Value.createError(attrs.width);
+        } else {
+            out = pullOutput(word.compute(function, width), attrs.out);
+        }
+        state.setPort(0, out, GateAttributes.DELAY);
+        return true;
+    }
+
+    static Value pullOutput(Value value, Object outType) {
+        int pulled;
+        if (outType == GateAttributes.OUTPUT_0Z) {
+            // the 1 bits float
+            pulled = value.getValueMask();
+        } else if (outType == GateAttributes.OUTPUT_Z1) {
+            // the 0 bits float
+            pulled = ~value.getValueMask() & ~value.getErrorMask()
+                & ~value.getUnknownMask();
+        } else {
+            return value;
+        }
+        return Value.create(value.getWidth(), value.getErrorMask(),
+                value.getUnknownMask() | pulled, value.getValueMask() & ~pulled);
     }
 
     @Override
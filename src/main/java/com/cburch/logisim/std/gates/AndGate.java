@@ -48,6 +48,11 @@ class AndGate extends AbstractGate {
         return GateFunctions.computeAnd(inputs, numInputs);
     }
 
+    @Override
+    protected int getWordFunction(GateAttributes attrs) {
+        return GateFunctions.AND;
+    }
+
     @Override
     protected Expression computeExpression(Expression[] inputs, int numInputs) {
         Expression ret = inputs[0];
@@ -178,12 +178,11 @@ class Buffer extends InstanceFactory {
                 return v;
             }
 
-            Value[] vs = new Value[w.getWidth()];
-            for (int i = 0; i < vs.length; i++) {
-                Value ini = i < vw ? v.get(i) : Value.ERROR;
-                vs[i] = ini.isFullyDefined() ? ini : Value.ERROR;
-            }
-            repaired = Value.create(vs);
+            // undefined bits, and those beyond the value's width, are errors
+            int missing = vw >= Value.MAX_WIDTH ? 0 : -1 << vw;
+            repaired = Value.create(ww,
+                    v.getErrorMask() | v.getUnknownMask() | missing,
+                    0, v.getValueMask());
         } else {
             repaired = v;
         }
@@ -4,9 +4,11 @@
 package com.cburch.logisim.std.gates;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Map;
 
 import com.cburch.logisim.analyze.model.AnalyzerModel;
 import com.cburch.logisim.analyze.model.Expression;
@@ -30,26 +32,47 @@ public class CircuitBuilder {
 
     public static CircuitMutation build(Circuit destCirc, AnalyzerModel model,
             boolean twoInputs, boolean useNands) {
+        return build(destCirc, model, twoInputs, useNands, false);
+    }
+
+    /**
+     * Builds the circuit for the model's output expressions.
+     *
+     * @param shareGates whether a subexpression used more than once, by
+     *      one output or several, is built just once; its gates are placed
+     *      above the outputs, and their output is carried to each use by a
+     *      spine of its own, as the inputs are
+     */
+    public static CircuitMutation build(Circuit destCirc, AnalyzerModel model,
+            boolean twoInputs, boolean useNands, boolean shareGates) {
         CircuitMutation result = new CircuitMutation(destCirc);
         result.clear();
 
-        Layout[] layouts = new Layout[model.getOutputs().size()];
+        Expression[] exprs = new Expression[model.getOutputs().size()];
+        for (int i = 0; i < exprs.length; i++) {
+            String output = model.getOutputs().get(i);
+            exprs[i] = model.getOutputExpressions().getExpression(output);
+        }
+        Map<Expression, String> shared = shareGates
+            ? CircuitDetermination.findShared(exprs)
+            : Collections.<Expression, String>emptyMap();
+
+        Layout[] sharedLayouts = new Layout[shared.size()];
+        int sharedWidth = 0;
+        int k = 0;
+        for (Expression expr : shared.keySet()) {
+            sharedLayouts[k] = layoutGates(CircuitDetermination.create(expr),
+                    twoInputs, useNands);
+            sharedWidth = Math.max(sharedWidth, sharedLayouts[k].width);
+            k++;
+        }
+
+        Layout[] layouts = new Layout[exprs.length];
         int maxWidth = 0;
         for (int i = 0; i < layouts.length; i++) {
-            String output = model.getOutputs().get(i);
-            Expression expr = model.getOutputExpressions().getExpression(output);
-            CircuitDetermination det = CircuitDetermination.create(expr);
+            CircuitDetermination det = CircuitDetermination.create(exprs[i], shared);
             if (det != null) {
-                if (twoInputs) {
-                    det.convertToTwoInputs();
-                }
-
-                if (useNands) {
-                    det.convertToNands();
-                }
-
-                det.repair();
-                layouts[i] = layoutGates(det);
+                layouts[i] = layoutGates(det, twoInputs, useNands);
                 maxWidth = Math.max(maxWidth, layouts[i].width);
             } else {
                 layouts[i] = null;
@@ -57,8 +80,33 @@ public class CircuitBuilder {
         }
 
         InputData inputData = computeInputData(model);
-        int x = inputData.getStartX();
+        int sharedX = inputData.getStartX();
+        int x = sharedX;
+        if (sharedLayouts.length > 0) {
+            int spineX = sharedX + sharedWidth + 20;
+            for (String name : shared.values()) {
+                inputData.addSpine(name, spineX);
+                spineX += 20;
+            }
+            x = spineX;
+        }
         int y = 10;
+        k = 0;
+        for (String name : shared.values()) {
+            Layout layout = sharedLayouts[k];
+            int dy = 0;
+            if (layout.outputY < 20) {
+                dy = 20 - layout.outputY;
+            }
+
+            Location output = Location.create(inputData.getSpineX(name),
+                    y + dy + layout.outputY);
+            inputData.registerConnection(name, output);
+            placeComponents(result, layout, sharedX, y + dy, inputData, output);
+            y += Math.max(dy + layout.height, 40) + 10;
+            k++;
+        }
+
         int outputX = x + maxWidth + 20;
         for (int i = 0; i < layouts.length; i++) {
             String outputName = model.getOutputs().get(i);
@@ -82,13 +130,24 @@ public class CircuitBuilder {
             y += height + 10;
         }
         placeInputs(result, inputData);
+        placeSharedSpines(result, inputData, shared.values());
         return result;
     }
 
     //
     // layoutGates
     //
-    private static Layout layoutGates(CircuitDetermination det) {
+    private static Layout layoutGates(CircuitDetermination det,
+            boolean twoInputs, boolean useNands) {
+        if (twoInputs) {
+            det.convertToTwoInputs();
+        }
+
+        if (useNands) {
+            det.convertToNands();
+        }
+
+        det.repair();
         return layoutGatesSub(det);
     }
 
@@ -316,6 +375,10 @@ public class CircuitBuilder {
             return data.spineX;
         }
 
+        void addSpine(String name, int spineX) {
+            inputs.put(name, new SingleInput(spineX));
+        }
+
         void registerConnection(String input, Location loc) {
             SingleInput data = inputs.get(input);
             data.ys.add(loc);
@@ -530,6 +593,26 @@ public class CircuitBuilder {
         }
     }
 
+    //
+    // placeSharedSpines
+    //
+    private static void placeSharedSpines(CircuitMutation result,
+            InputData inputData, Collection<String> names) {
+        Comparator<Location> compareYs = new CompareYs();
+        for (String name : names) {
+            ArrayList<Location> spine = inputData.inputs.get(name).ys;
+            Collections.sort(spine, compareYs);
+            Location prev = spine.get(0);
+            for (int k = 1, n = spine.size(); k < n; k++) {
+                Location cur = spine.get(k);
+                if (!cur.equals(prev)) {
+                    result.add(Wire.create(prev, cur));
+                    prev = cur;
+                }
+            }
+        }
+    }
+
     private static class CompareYs implements Comparator<Location> {
         @Override
         public int compare(Location a, Location b) {
@@ -4,6 +4,11 @@
 package com.cburch.logisim.std.gates;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import com.cburch.logisim.analyze.model.Expression;
 import com.cburch.logisim.analyze.model.ExpressionVisitor;
@@ -215,24 +220,175 @@ abstract class CircuitDetermination {
             return null;
         }
 
-        return expr.visit(new Determine());
+        Map<Expression, String> none = Collections.emptyMap();
+        return expr.visit(new Determine(none));
+    }
+
+    /** Determines the gates for an expression, except that each of the
+     * given shared subexpressions becomes an input of the given name. */
+    static CircuitDetermination create(Expression expr,
+            Map<Expression, String> shared) {
+        if (expr == null) {
+            return null;
+        }
+
+        return new Determine(shared).sub(expr);
+    }
+
+    /** Chooses the subexpressions of the given expressions that should be
+     * built once, their output wired to each place where they are used.
+     * These are the gates reached more than once, other than NOTs of
+     * variables and constants; where such subexpressions nest, only the
+     * outermost is chosen. Each is mapped to a name that cannot be the
+     * name of a variable. */
+    static Map<Expression, String> findShared(Expression[] exprs) {
+        IdentityHashMap<Expression, Integer> uses
+            = new IdentityHashMap<Expression, Integer>();
+        for (Expression expr : exprs) {
+            if (expr != null) {
+                countUses(expr, uses);
+            }
+        }
+
+        LinkedHashMap<Expression, String> ret
+            = new LinkedHashMap<Expression, String>();
+        IdentityHashMap<Expression, Boolean> seen
+            = new IdentityHashMap<Expression, Boolean>();
+        for (Expression expr : exprs) {
+            if (expr != null) {
+                select(expr, uses, seen, ret);
+            }
+        }
+
+        // a subexpression used more than once only within another chosen
+        // one would be built for a single use; build it in place instead
+        IdentityHashMap<Expression, Integer> refs
+            = new IdentityHashMap<Expression, Integer>();
+        for (Expression expr : exprs) {
+            if (expr != null) {
+                countReferences(expr, ret, refs);
+            }
+        }
+        for (Iterator<Expression> it = ret.keySet().iterator(); it.hasNext(); ) {
+            Integer n = refs.get(it.next());
+            if (n == null || n.intValue() < 2) {
+                it.remove();
+            }
+        }
+
+        int index = 0;
+        for (Map.Entry<Expression, String> entry : ret.entrySet()) {
+            entry.setValue("#" + index);
+            index++;
+        }
+        return ret;
+    }
+
+    private static void countUses(Expression expr,
+            final IdentityHashMap<Expression, Integer> uses) {
+        Integer n = uses.get(expr);
+        uses.put(expr, Integer.valueOf(n == null ? 1 : n.intValue() + 1));
+        if (n == null) {
+            for (Expression child : children(expr)) {
+                countUses(child, uses);
+            }
+        }
+    }
+
+    private static void select(Expression expr,
+            IdentityHashMap<Expression, Integer> uses,
+            IdentityHashMap<Expression, Boolean> seen,
+            Map<Expression, String> shared) {
+        if (seen.put(expr, Boolean.TRUE) != null) {
+            return;
+        }
+
+        if (uses.get(expr).intValue() > 1 && !isLiteral(expr)) {
+            shared.put(expr, null);
+        } else {
+            for (Expression child : children(expr)) {
+                select(child, uses, seen, shared);
+            }
+        }
+    }
+
+    // counts the references to the shared subexpressions from outside
+    // them, as often as the gates using them will be built
+    private static void countReferences(Expression expr,
+            Map<Expression, String> shared,
+            IdentityHashMap<Expression, Integer> refs) {
+        if (shared.containsKey(expr)) {
+            Integer n = refs.get(expr);
+            refs.put(expr, Integer.valueOf(n == null ? 1 : n.intValue() + 1));
+        } else if (!isLiteral(expr)) {
+            for (Expression child : children(expr)) {
+                countReferences(child, shared, refs);
+            }
+        }
+    }
+
+    private static Expression[] children(Expression expr) {
+        return expr.visit(new ExpressionVisitor<Expression[]>() {
+            @Override
+            public Expression[] visitAnd(Expression a, Expression b) {
+                return new Expression[] { a, b };
+            }
+            @Override
+            public Expression[] visitOr(Expression a, Expression b) {
+                return new Expression[] { a, b };
+            }
+            @Override
+            public Expression[] visitXor(Expression a, Expression b) {
+                return new Expression[] { a, b };
+            }
+            @Override
+            public Expression[] visitNot(Expression a) {
+                return new Expression[] { a };
+            }
+            @Override
+            public Expression[] visitVariable(String name) {
+                return new Expression[0];
+            }
+            @Override
+            public Expression[] visitConstant(int value) {
+                return new Expression[0];
+            }
+        });
+    }
+
+    // whether the expression is a variable, a constant, or the NOT of one
+    private static boolean isLiteral(Expression expr) {
+        Expression[] children = children(expr);
+        return children.length == 0
+            || children.length == 1 && children(children[0]).length == 0;
     }
 
     private static class Determine
             implements ExpressionVisitor<CircuitDetermination> {
+        private Map<Expression, String> shared;
+
+        Determine(Map<Expression, String> shared) {
+            this.shared = shared;
+        }
+
+        CircuitDetermination sub(Expression expr) {
+            String name = shared.get(expr);
+            return name != null ? new Input(name) : expr.visit(this);
+        }
+
         @Override
         public CircuitDetermination visitAnd(Expression a, Expression b) {
-            return binary(a.visit(this), b.visit(this), AndGate.FACTORY);
+            return binary(sub(a), sub(b), AndGate.FACTORY);
         }
 
         @Override
         public CircuitDetermination visitOr(Expression a, Expression b) {
-            return binary(a.visit(this), b.visit(this), OrGate.FACTORY);
+            return binary(sub(a), sub(b), OrGate.FACTORY);
         }
 
         @Override
         public CircuitDetermination visitXor(Expression a, Expression b) {
-            return binary(a.visit(this), b.visit(this), XorGate.FACTORY);
+            return binary(sub(a), sub(b), XorGate.FACTORY);
         }
 
         private Gate binary(CircuitDetermination aret,
@@ -268,7 +424,7 @@ abstract class CircuitDetermination {
 
         @Override
         public CircuitDetermination visitNot(Expression aBase) {
-            CircuitDetermination aret = aBase.visit(this);
+            CircuitDetermination aret = sub(aBase);
             if (aret instanceof Gate) {
                 Gate a = (Gate) aret;
                 if (a.factory == AndGate.FACTORY) {
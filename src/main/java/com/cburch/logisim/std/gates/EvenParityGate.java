@@ -40,6 +40,11 @@ class EvenParityGate extends AbstractGate {
         return GateFunctions.computeOddParity(inputs, numInputs).not();
     }
 
+    @Override
+    protected int getWordFunction(GateAttributes attrs) {
+        return GateFunctions.ODD_PARITY | GateFunctions.NEGATED;
+    }
+
     @Override
     protected Expression computeExpression(Expression[] inputs, int numInputs) {
         Expression ret = inputs[0];
@@ -6,8 +6,135 @@ package com.cburch.logisim.std.gates;
 import com.cburch.logisim.data.Value;
 
 class GateFunctions {
+    // the functions a gate may compute a word at a time, any of which may
+    // be combined with NEGATED
+    static final int NONE = 0;
+    static final int AND = 1;
+    static final int OR = 2;
+    static final int ODD_PARITY = 3;
+    static final int EXACTLY_ONE = 4;
+    static final int NEGATED = 8;
+
     private GateFunctions() { }
 
+    /**
+     * Masks summarizing the inputs of a gate, all of one width, from which
+     * {@link #compute} gives the gate's output without creating any
+     * intermediate values. Each input contributes to the masks as follows,
+     * where {@code bad} is the mask of its bits that are errors or unknown.
+     *
+     * <pre>
+     * undefined |= bad;
+     * zeros |= ~value &amp; ~bad;
+     * twice |= ones &amp; value;
+     * ones |= value;
+     * parity ^= value;
+     * </pre>
+     */
+    static final class Word {
+        private int count = 0;
+        private int undefined = 0;
+        private int zeros = 0;
+        private int ones = 0;
+        private int twice = 0;
+        private int parity = 0;
+        // the last input added as it is, in case it is the only one
+        private Value lone = null;
+
+        /**
+         * Forgets the inputs added, so that the masks may be used again.
+         */
+        void clear() {
+            count = 0;
+            undefined = 0;
+            zeros = 0;
+            ones = 0;
+            twice = 0;
+            parity = 0;
+            lone = null;
+        }
+
+        /**
+         * Adds an input, negating it first if asked to.
+         */
+        void add(Value in, boolean negate) {
+            int bad = in.getErrorMask() | in.getUnknownMask();
+            int value = in.getValueMask();
+            if (negate) {
+                value = ~value & ~bad;
+                lone = null;
+            } else {
+                lone = in;
+            }
+            undefined |= bad;
+            zeros |= ~value & ~bad;
+            twice |= ones & value;
+            ones |= value;
+            parity ^= value;
+            count++;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the output of a gate computing the function over the
+         * inputs added, which must be at least one: the value that folding
+         * them with {@link Value}'s operations would give.
+         *
+         * @param function the gate's function, as returned by
+         *        {@link AbstractGate#getWordFunction}
+         */
+        Value compute(int function, int width) {
+            if (count == 1 && lone != null && passesLoneInput(function)) {
+                return lone;
+            }
+            return computeWord(function, width, undefined, zeros, ones,
+                    twice, parity);
+        }
+    }
+
+    /**
+     * Returns whether a gate computing the function outputs its only input
+     * as it is, unknown bits included, as folding a single value does.
+     */
+    static boolean passesLoneInput(int function) {
+        return function == AND || function == OR || function == ODD_PARITY;
+    }
+
+    // Computes the output of a gate from the masks of a Word of two or
+    // more inputs, or of one negated input.
+    private static Value computeWord(int function, int width, int undefined,
+            int zeros, int ones, int twice, int parity) {
+        int error;
+        int value;
+        switch (function & ~NEGATED) {
+        case AND:
+            error = undefined & ~zeros;
+            value = ~zeros & ~undefined;
+            break;
+        case OR:
+            error = undefined & ~ones;
+            value = ones;
+            break;
+        case ODD_PARITY:
+            error = undefined;
+            value = parity;
+            break;
+        case EXACTLY_ONE:
+            error = undefined;
+            value = ones & ~twice;
+            break;
+        default:
+            throw new IllegalArgumentException("function " + function);
+        }
+        if ((function & NEGATED) != 0) {
+            value = ~value;
+        }
+        return Value.create(width, error, 0, value & ~error);
+    }
+
     static Value computeOr(Value[] inputs, int numInputs) {
         Value ret = inputs[0];
         for (int i = 1; i < numInputs; i++) {
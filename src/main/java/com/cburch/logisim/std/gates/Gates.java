@@ -6,6 +6,7 @@ package com.cburch.logisim.std.gates;
 import java.util.Arrays;
 import java.util.List;
 
+import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.tools.AddTool;
 import com.cburch.logisim.tools.Library;
 import com.cburch.logisim.tools.Tool;
@@ -41,4 +42,14 @@ public class Gates extends Library {
     public List<Tool> getTools() {
         return tools;
     }
+
+    /**
+     * Returns whether a component with the given attributes lets its
+     * output float rather than drive both 0 and 1, as a gate may be
+     * configured to.
+     */
+    public static boolean isOutputFloating(AttributeSet attrs) {
+        return attrs.containsAttribute(GateAttributes.ATTR_OUTPUT)
+            && attrs.getValue(GateAttributes.ATTR_OUTPUT) != GateAttributes.OUTPUT_01;
+    }
 }
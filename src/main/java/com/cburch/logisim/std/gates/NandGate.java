@@ -50,6 +50,11 @@ class NandGate extends AbstractGate {
         return GateFunctions.computeAnd(inputs, numInputs).not();
     }
 
+    @Override
+    protected int getWordFunction(GateAttributes attrs) {
+        return GateFunctions.AND | GateFunctions.NEGATED;
+    }
+
     @Override
     protected Expression computeExpression(Expression[] inputs, int numInputs) {
         Expression ret = inputs[0];
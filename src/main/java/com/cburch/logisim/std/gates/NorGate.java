@@ -52,6 +52,11 @@ class NorGate extends AbstractGate {
         return GateFunctions.computeOr(inputs, numInputs).not();
     }
 
+    @Override
+    protected int getWordFunction(GateAttributes attrs) {
+        return GateFunctions.OR | GateFunctions.NEGATED;
+    }
+
     @Override
     protected boolean shouldRepairWire(Instance instance, WireRepairData data) {
         return !data.getPoint().equals(instance.getLocation());
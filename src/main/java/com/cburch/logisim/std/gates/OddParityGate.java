@@ -59,6 +59,11 @@ class OddParityGate extends AbstractGate {
         return GateFunctions.computeOddParity(inputs, numInputs);
     }
 
+    @Override
+    protected int getWordFunction(GateAttributes attrs) {
+        return GateFunctions.ODD_PARITY;
+    }
+
     @Override
     protected Expression computeExpression(Expression[] inputs, int numInputs) {
         Expression ret = inputs[0];
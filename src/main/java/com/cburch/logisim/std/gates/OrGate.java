@@ -50,6 +50,11 @@ class OrGate extends AbstractGate {
         return GateFunctions.computeOr(inputs, numInputs);
     }
 
+    @Override
+    protected int getWordFunction(GateAttributes attrs) {
+        return GateFunctions.OR;
+    }
+
     @Override
     protected boolean shouldRepairWire(Instance instance, WireRepairData data) {
         boolean ret = !data.getPoint().equals(instance.getLocation());
@@ -63,6 +63,13 @@ class XnorGate extends AbstractGate {
         }
     }
 
+    @Override
+    protected int getWordFunction(GateAttributes attrs) {
+        int function = attrs.xorBehave == GateAttributes.XOR_ODD
+            ? GateFunctions.ODD_PARITY : GateFunctions.EXACTLY_ONE;
+        return function | GateFunctions.NEGATED;
+    }
+
     @Override
     protected boolean shouldRepairWire(Instance instance, WireRepairData data) {
         return !data.getPoint().equals(instance.getLocation());
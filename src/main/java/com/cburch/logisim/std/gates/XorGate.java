@@ -74,6 +74,12 @@ class XorGate extends AbstractGate {
         }
     }
 
+    @Override
+    protected int getWordFunction(GateAttributes attrs) {
+        return attrs.xorBehave == GateAttributes.XOR_ODD
+            ? GateFunctions.ODD_PARITY : GateFunctions.EXACTLY_ONE;
+    }
+
     @Override
     protected boolean shouldRepairWire(Instance instance, WireRepairData data) {
         return !data.getPoint().equals(instance.getLocation());
@@ -7,6 +7,7 @@ import java.util.Arrays;
 
 import com.cburch.hex.HexModel;
 import com.cburch.hex.HexModelListener;
+import com.cburch.logisim.circuit.InvalidationBatch;
 import com.cburch.logisim.util.EventSourceWeakSupport;
 
 class MemContents implements Cloneable, HexModel {
@@ -23,6 +24,15 @@ class MemContents implements Cloneable, HexModel {
     private int addrBits;
     private int mask;
     private MemContentsSub.ContentsInterface[] pages;
+    // false only while no page has been created since the last clear
+    private boolean hasPages = false;
+    // the range changed by store and reset since listeners were last told,
+    // and whether telling them is already scheduled; used only by the
+    // thread simulating
+    private long changedStart = -1;
+    private long changedEnd = -1;
+    private boolean flushScheduled = false;
+    private Runnable flusher = this::flushChanges;
 
     private MemContents(int addrBits, int width) {
         listeners = null;
@@ -47,7 +57,7 @@ class MemContents implements Cloneable, HexModel {
             return;
         }
 
-        listeners.add(l);
+        listeners.remove(l);
         if (listeners.isEmpty()) {
             listeners = null;
         }
@@ -87,6 +97,43 @@ class MemContents implements Cloneable, HexModel {
 
     }
 
+    // Notes a change made by store or reset, and arranges for the listeners
+    // to hear of all such changes at once when the propagation making them
+    // completes, or at once if there is none.
+    private void noteChanged(long start, long end) {
+        if (listeners == null) {
+            return;
+        }
+
+        if (changedStart < 0 || start < changedStart) {
+            changedStart = start;
+        }
+        if (end > changedEnd) {
+            changedEnd = end;
+        }
+        if (!flushScheduled) {
+            InvalidationBatch batch = InvalidationBatch.getCurrent();
+            if (batch == null) {
+                flushChanges();
+            } else {
+                flushScheduled = true;
+                batch.addFlush(flusher);
+            }
+        }
+    }
+
+    private void flushChanges() {
+        long start = changedStart;
+        long end = changedEnd;
+        changedStart = -1;
+        changedEnd = -1;
+        flushScheduled = false;
+        if (start >= 0) {
+            // the old values were not kept
+            fireBytesChanged(start, end - start + 1, null);
+        }
+    }
+
     //
     // other methods
     //
@@ -95,6 +142,10 @@ class MemContents implements Cloneable, HexModel {
         try {
             MemContents ret = (MemContents) super.clone();
             ret.listeners = null;
+            ret.changedStart = -1;
+            ret.changedEnd = -1;
+            ret.flushScheduled = false;
+            ret.flusher = ret::flushChanges;
             ret.pages = new MemContentsSub.ContentsInterface[this.pages.length];
             for (int i = 0; i < ret.pages.length; i++) {
                 if (this.pages[i] != null) {
@@ -120,6 +171,10 @@ class MemContents implements Cloneable, HexModel {
     }
 
     public boolean isClear() {
+        if (!hasPages) {
+            return true;
+        }
+
         for (int i = 0; i < pages.length; i++) {
             MemContentsSub.ContentsInterface page = pages[i];
             if (page != null) {
@@ -141,14 +196,49 @@ class MemContents implements Cloneable, HexModel {
         int old = pages[page] == null ? 0 : pages[page].get(offs) & mask;
         int val = value & mask;
         if (old != val) {
-            if (pages[page] == null) {
-                pages[page] = MemContentsSub.createContents(PAGE_SIZE, width);
-            }
+            ensurePage(page);
             pages[page].set(offs, val);
-            fireBytesChanged(addr, 1, new int[] { old });
+            if (listeners != null) {
+                fireBytesChanged(addr, 1, new int[] { old });
+            }
         }
     }
 
+    /**
+     * Stores a value as the simulation does, without telling the
+     * listeners of each store; they hear of all the stores and resets
+     * made during a propagation at once, without the old values, when it
+     * completes. With no listeners, a store only changes the contents.
+     *
+     * @return true if the contents changed
+     */
+    boolean store(long addr, int value) {
+        if (!put(addr, value)) {
+            return false;
+        }
+        noteChanged(addr, addr);
+        return true;
+    }
+
+    // stores a value, telling nobody, and returns whether it changed
+    private boolean put(long addr, int value) {
+        int page = (int) (addr >>> PAGE_SIZE_BITS);
+        int offs = (int) (addr & PAGE_MASK);
+        MemContentsSub.ContentsInterface contents = pages[page];
+        int val = value & mask;
+        if (contents == null) {
+            if (val == 0) {
+                return false;
+            }
+            ensurePage(page);
+            contents = pages[page];
+        } else if ((contents.get(offs) & mask) == val) {
+            return false;
+        }
+        contents.set(offs, val);
+        return true;
+    }
+
     @Override
     public void set(long start, int[] values) {
         if (values.length == 0) {
@@ -207,8 +297,8 @@ class MemContents implements Cloneable, HexModel {
  break; }
                     }
                     if (!allZeroes) {
-                        page = MemContentsSub.createContents(PAGE_SIZE, width);
-                        pages[i] = page;
+                        ensurePage(i);
+                        page = pages[i];
                     }
                 }
                 if (page != null) {
@@ -334,14 +424,37 @@ class MemContents implements Cloneable, HexModel {
     }
 
     public void clear() {
-        for (int i = 0; i < pages.length; i++) {
-            if (pages[i] != null) {
+        if (!hasPages) {
+            return;
+        }
+
+        if (listeners != null) {
+            for (int i = 0; i < pages.length; i++) {
                 if (pages[i] != null) {
                     clearPage(i);
                 }
-
             }
         }
+        Arrays.fill(pages, null);
+        hasPages = false;
+    }
+
+    /**
+     * Clears the contents as the simulation does, telling the listeners
+     * as {@link #store} does. Clearing contents already clear takes
+     * constant time.
+     *
+     * @return true if the contents may have changed
+     */
+    boolean reset() {
+        if (!hasPages) {
+            return false;
+        }
+
+        Arrays.fill(pages, null);
+        hasPages = false;
+        noteChanged(0, getLastOffset());
+        return true;
     }
 
     private void clearPage(int index) {
@@ -380,11 +493,13 @@ class MemContents implements Cloneable, HexModel {
  pageLength = 1 << addrBits; }
         else { pageCount = 1 << (addrBits - PAGE_SIZE_BITS); pageLength = PAGE_SIZE; }
         pages = new MemContentsSub.ContentsInterface[pageCount];
+        hasPages = false;
         if (oldPages != null) {
             int n = Math.min(oldPages.length, pages.length);
             for (int i = 0; i < n; i++) {
                 if (oldPages[i] != null) {
                     pages[i] = MemContentsSub.createContents(pageLength, width);
+                    hasPages = true;
                     int m = Math.max(oldPages[i].getLength(), pageLength);
                     for (int j = 0; j < m; j++) {
                         pages[i].set(j, oldPages[i].get(j));
@@ -394,6 +509,7 @@ class MemContents implements Cloneable, HexModel {
         }
         if (pageCount == 0 && pages[0] == null) {
             pages[0] = MemContentsSub.createContents(pageLength, width);
+            hasPages = true;
         }
         fireMetainfoChanged();
     }
@@ -416,6 +532,7 @@ class MemContents implements Cloneable, HexModel {
     private void ensurePage(int index) {
         if (pages[index] == null) {
             pages[index] = MemContentsSub.createContents(PAGE_SIZE, width);
+            hasPages = true;
         }
     }
 }
@@ -0,0 +1,65 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.std.memory;
+
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Value;
+
+/**
+ * A port through which the simulation reads and writes a memory's
+ * contents a word at a time. Writes go through
+ * {@link MemContents#store}, so that their listeners hear of them in
+ * batches. A memory with several ports gives each its own MemPort over the
+ * same state.
+ * <p>
+ * The port tells the state only which address was last accessed; the
+ * display scrolls to it when it is next painted.
+ */
+class MemPort {
+    private final MemState state;
+
+    MemPort(MemState state) {
+        this.state = state;
+    }
+
+    /**
+     * Returns the address a value on an address port selects, or -1 if
+     * any of its bits is not 0 or 1.
+     */
+    static long toAddress(Value addr) {
+        if ((addr.getErrorMask() | addr.getUnknownMask()) != 0) {
+            return -1;
+        }
+        return addr.getValueMask() & 0xffffffffL;
+    }
+
+    /**
+     * Notes the address accessed.
+     */
+    void select(long addr) {
+        state.setCurrent(addr);
+    }
+
+    /**
+     * Releases the port, so that no address is shown as accessed.
+     */
+    void deselect() {
+        state.setCurrent(-1);
+    }
+
+    Value read(long addr, BitWidth width) {
+        return Value.createKnown(width, state.getContents().get(addr));
+    }
+
+    boolean write(long addr, int value) {
+        return state.getContents().store(addr, value);
+    }
+
+    /**
+     * Clears the whole memory.
+     */
+    boolean clear() {
+        return state.getContents().reset();
+    }
+}
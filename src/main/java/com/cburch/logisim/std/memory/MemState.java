@@ -6,14 +6,12 @@ package com.cburch.logisim.std.memory;
 import java.awt.Color;
 import java.awt.Graphics;
 
-import com.cburch.hex.HexModel;
-import com.cburch.hex.HexModelListener;
 import com.cburch.logisim.data.Bounds;
 import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 
-class MemState implements InstanceData, Cloneable, HexModelListener {
+class MemState implements InstanceData, Cloneable {
     // rows in memory display
     private static final int ROWS = 4;
 
@@ -37,15 +35,23 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
     private static final int ADDR_WIDTH_PER_CHAR = 10;
 
     private MemContents contents;
+    // the dimensions of the contents that columns was chosen for; the
+    // state does not listen to the contents, so that the simulation's
+    // stores need tell nobody, and so checks them before it lays out
+    private int shownAddrBits = -1;
+    private int shownDataBits = -1;
     private int columns;
     private long curScroll = 0;
     private long cursorLoc = -1;
-    private long curAddr = -1;
+    // set by the simulation; the scroll catches up with it when displayed
+    private volatile long curAddr = -1;
+    private long shownAddr = -1;
+    private MemPort port;
 
     MemState(MemContents contents) {
         this.contents = contents;
+        this.port = new MemPort(this);
         setBits(contents.getLogLength(), contents.getWidth());
-        contents.addHexModelListener(this);
     }
 
     @Override
@@ -53,7 +59,7 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
         try {
             MemState ret = (MemState) super.clone();
             ret.contents = contents.clone();
-            ret.contents.addHexModelListener(ret);
+            ret.port = new MemPort(ret);
             return ret;
         } catch (CloneNotSupportedException e) { return null; }
     }
@@ -67,6 +73,8 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
         } else {
             contents.setDimensions(addrBits, dataBits);
         }
+        shownAddrBits = addrBits;
+        shownDataBits = dataBits;
         if (addrBits <= 12) {
             if (dataBits <= 8) {
                 columns = dataBits <= 4 ? 8 : 4;
@@ -93,10 +101,23 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
 
     }
 
+    // lays out again if the contents changed their dimensions since
+    private void checkBits() {
+        int addrBits = contents.getLogLength();
+        int dataBits = contents.getWidth();
+        if (addrBits != shownAddrBits || dataBits != shownDataBits) {
+            setBits(addrBits, dataBits);
+        }
+    }
+
     public MemContents getContents() {
         return contents;
     }
 
+    MemPort getPort() {
+        return port;
+    }
+
     //
     // methods for accessing data within memory
     //
@@ -122,6 +143,7 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
     }
 
     int getColumns() {
+        checkBits();
         return columns;
     }
 
@@ -137,6 +159,7 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
     }
 
     long getScroll() {
+        followCurrent();
         return curScroll;
     }
 
@@ -148,7 +171,18 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
         curAddr = isValidAddr(value) ? value : -1L;
     }
 
+    // scrolls to show the current address if it changed since last shown
+    private void followCurrent() {
+        checkBits();
+        long addr = curAddr;
+        if (addr != shownAddr) {
+            shownAddr = addr;
+            scrollToShow(addr);
+        }
+    }
+
     void scrollToShow(long addr) {
+        checkBits();
         if (isValidAddr(addr)) {
             addr = addr / columns * columns;
             long curTop = curScroll / columns * columns;
@@ -165,6 +199,7 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
     }
 
     void setScroll(long addr) {
+        checkBits();
         long maxAddr = getLastAddress() - ROWS * columns;
         // note: maxAddr could be negative
         if (addr > maxAddr) {
@@ -182,6 +217,7 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
     // graphical methods
     //
     public long getAddressAt(int x, int y) {
+        followCurrent();
         int addrBits = getAddrBits();
         int boxX = addrBits <= 12 ? ENTRY_XOFFS12 : ENTRY_XOFFS32;
         int boxW = addrBits <= 12 ? TABLE_WIDTH12 : TABLE_WIDTH32;
@@ -199,6 +235,7 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
     }
 
     public Bounds getBounds(long addr, Bounds bds) {
+        followCurrent();
         int addrBits = getAddrBits();
         int boxX = bds.getX() + (addrBits <= 12 ? ENTRY_XOFFS12 : ENTRY_XOFFS32);
         int boxW = addrBits <= 12 ? TABLE_WIDTH12 : TABLE_WIDTH32;
@@ -215,6 +252,7 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
     }
 
     public void paint(Graphics g, int leftX, int topY) {
+        followCurrent();
         int addrBits = getAddrBits();
         int dataBits = contents.getWidth();
         int boxX = leftX + (addrBits <= 12 ? ENTRY_XOFFS12 : ENTRY_XOFFS32);
@@ -285,12 +323,4 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
 
         return (int) (bds.getY() + ENTRY_YOFFS + ENTRY_HEIGHT * (row - topRow));
     }
-
-    @Override
-    public void metainfoChanged(HexModel source) {
-        setBits(contents.getLogLength(), contents.getWidth());
-    }
-
-    @Override
-    public void bytesChanged(HexModel source, long start, long numBytes, int[] oldValues) { }
 }
@@ -173,29 +173,26 @@ public class Ram extends Mem {
         boolean asynch = busVal.equals(BUS_ASYNCH);
         boolean separate = busVal.equals(BUS_SEPARATE);
 
-        Value addrValue = state.getPort(ADDR);
         boolean chipSelect = state.getPort(CS) != Value.FALSE;
         boolean triggered = asynch || myState.setClock(state.getPort(CLK), StdAttr.TRIG_RISING);
         boolean outputEnabled = state.getPort(OE) != Value.FALSE;
         boolean shouldClear = state.getPort(CLR) == Value.TRUE;
+        MemPort port = myState.getPort();
 
         if (shouldClear) {
-            myState.getContents().clear();
+            port.clear();
         }
 
         if (!chipSelect) {
-            myState.setCurrent(-1);
+            port.deselect();
             state.setPort(DATA, Value.createUnknown(dataBits), DELAY);
             return;
         }
 
-        int addr = addrValue.toIntValue();
-        if (!addrValue.isFullyDefined() || addr < 0)
+        long addr = MemPort.toAddress(state.getPort(ADDR));
+        if (addr < 0)
             return;
-        if (addr != myState.getCurrent()) {
-            myState.setCurrent(addr);
-            myState.scrollToShow(addr);
-        }
+        port.select(addr);
 
         if (!shouldClear && triggered) {
             boolean shouldStore;
@@ -206,13 +203,12 @@ public class Ram extends Mem {
             }
             if (shouldStore) {
                 Value dataValue = state.getPort(separate ? DIN : DATA);
-                myState.getContents().set(addr, dataValue.toIntValue());
+                port.write(addr, dataValue.toIntValue());
             }
         }
 
         if (outputEnabled) {
-            int val = myState.getContents().get(addr);
-            state.setPort(DATA, Value.createKnown(dataBits, val), DELAY);
+            state.setPort(DATA, port.read(addr, dataBits), DELAY);
         } else {
             state.setPort(DATA, Value.createUnknown(dataBits), DELAY);
         }
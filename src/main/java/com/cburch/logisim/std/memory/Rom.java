@@ -91,25 +91,21 @@ public class Rom extends Mem {
         MemState myState = getState(state);
         BitWidth dataBits = state.getAttributeValue(DATA_ATTR);
 
-        Value addrValue = state.getPort(ADDR);
         boolean chipSelect = state.getPort(CS) != Value.FALSE;
+        MemPort port = myState.getPort();
 
         if (!chipSelect) {
-            myState.setCurrent(-1);
+            port.deselect();
             state.setPort(DATA, Value.createUnknown(dataBits), DELAY);
             return;
         }
 
-        int addr = addrValue.toIntValue();
-        if (!addrValue.isFullyDefined() || addr < 0)
+        long addr = MemPort.toAddress(state.getPort(ADDR));
+        if (addr < 0)
             return;
-        if (addr != myState.getCurrent()) {
-            myState.setCurrent(addr);
-            myState.scrollToShow(addr);
-        }
+        port.select(addr);
 
-        int val = myState.getContents().get(addr);
-        state.setPort(DATA, Value.createKnown(dataBits, val), DELAY);
+        state.setPort(DATA, port.read(addr, dataBits), DELAY);
     }
 
     @Override
@@ -32,6 +32,11 @@ class RomContentsListener implements HexModelListener {
             return getFromLocale("romChangeAction");
         }
 
+        @Override
+        public int getEstimatedSize() {
+            return SMALL_ACTION_SIZE + 4 * (oldValues.length + newValues.length);
+        }
+
         @Override
         public void doIt(Project proj) {
             if (!completed) {
@@ -167,18 +167,37 @@ public class Multiplexer extends InstanceFactory {
         instance.setPorts(ps);
     }
 
+    // the attributes read by propagate, decoded once per attribute change
+    private static class Config {
+        final BitWidth data;
+        final int inputs;
+        final boolean enable;
+        final Value disabledBase;
+
+        Config(AttributeSet attrs) {
+            data = attrs.getValue(StdAttr.WIDTH);
+            inputs = 1 << attrs.getValue(Plexers.ATTR_SELECT).getWidth();
+            enable = attrs.getValue(Plexers.ATTR_ENABLE).booleanValue();
+            Object opt = attrs.getValue(Plexers.ATTR_DISABLED);
+            disabledBase = opt == Plexers.DISABLED_ZERO ? Value.FALSE : Value.UNKNOWN;
+        }
+    }
+
+    @Override
+    protected Object createAttributeSnapshot(AttributeSet attrs) {
+        return new Config(attrs);
+    }
+
     @Override
     public void propagate(InstanceState state) {
-        BitWidth data = state.getAttributeValue(StdAttr.WIDTH);
-        BitWidth select = state.getAttributeValue(Plexers.ATTR_SELECT);
-        boolean enable = state.getAttributeValue(Plexers.ATTR_ENABLE).booleanValue();
-        int inputs = 1 << select.getWidth();
+        Config cfg = (Config) state.getAttributeSnapshot();
+        BitWidth data = cfg.data;
+        boolean enable = cfg.enable;
+        int inputs = cfg.inputs;
         Value en = enable ? state.getPort(inputs + 1) : Value.TRUE;
         Value out;
         if (en == Value.FALSE) {
-            Object opt = state.getAttributeValue(Plexers.ATTR_DISABLED);
-            Value base = opt == Plexers.DISABLED_ZERO ? Value.FALSE : Value.UNKNOWN;
-            out = Value.repeat(base, data.getWidth());
+            out = Value.repeat(cfg.disabledBase, data.getWidth());
         } else if (en == Value.ERROR && state.isPortConnected(inputs + 1)) {
             out = Value.createError(data);
         } else {
@@ -214,6 +214,17 @@ public class Clock extends InstanceFactory {
         AttributeSet attrs = comp.getAttributeSet();
         int durationHigh = attrs.getValue(ATTR_HIGH).intValue();
         int durationLow = attrs.getValue(ATTR_LOW).intValue();
+        return tick(circState, ticks, comp, durationHigh, durationLow);
+    }
+
+    /**
+     * Sets the value a clock sends for the given tick, given its durations
+     * rather than reading them from its attributes.
+     *
+     * @return true if the value changed
+     */
+    public static boolean tick(CircuitState circState, int ticks, Component comp,
+            int durationHigh, int durationLow) {
         ClockState state = (ClockState) circState.getData(comp);
         if (state == null) {
             state = new ClockState();
@@ -227,6 +238,7 @@ public class Clock extends InstanceFactory {
         Value desired = (curValue ? Value.FALSE : Value.TRUE);
         if (!state.sending.equals(desired)) {
             state.sending = desired;
+            circState.markComponentAsDirty(comp);
             Instance.getInstanceFor(comp).fireInvalidated();
             return true;
         }
@@ -47,8 +47,6 @@ public class AddTool extends Tool {
     private static int SHOW_ADD     = 2;
     private static int SHOW_ADD_NO  = 3;
 
-    private static Cursor cursor
-        = Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR);
 
     private class MyAttributeListener implements AttributeListener {
         @Override
@@ -523,7 +521,9 @@ public class AddTool extends Tool {
     }
 
     @Override
-    public Cursor getCursor() { return cursor; }
+    public Cursor getCursor() {
+        return Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR);
+    }
 
     private void setState(Canvas canvas, int value) {
         if (value == SHOW_GHOST) {
@@ -18,6 +18,10 @@ import com.cburch.logisim.util.Icons;
  * ComponentFactory class must be in the same package as its Library class,
  * the ComponentFactory class must be public, and it must include a public
  * no-arguments constructor.
+ * <p>
+ * Descriptions are shared by every instance of their library, and startup
+ * loads factories on a background thread, so the lazy loading is
+ * synchronized.
  */
 public class FactoryDescription {
     public static List<Tool> getTools(Class<? extends Library> base,
@@ -76,11 +80,11 @@ public class FactoryDescription {
         return displayName.toString();
     }
 
-    public boolean isFactoryLoaded() {
+    public synchronized boolean isFactoryLoaded() {
         return factoryLoadAttempted;
     }
 
-    public Icon getIcon() {
+    public synchronized Icon getIcon() {
         Icon ret = icon;
         if (ret != null || iconLoadAttempted) {
             return ret;
@@ -92,7 +96,8 @@ public class FactoryDescription {
         }
     }
 
-    public ComponentFactory getFactory(Class<? extends Library> libraryClass) {
+    public synchronized ComponentFactory getFactory(
+            Class<? extends Library> libraryClass) {
         ComponentFactory ret = factory;
         if (factory != null || factoryLoadAttempted) {
             return ret;
@@ -82,6 +82,7 @@ public class PokeTool extends Tool {
             Circuit circ = pokedCircuit;
             if (event.getCircuit() == circ && circ != null
                     && (event.getAction() == CircuitEvent.ACTION_REMOVE
+                            || event.getAction() == CircuitEvent.ACTION_BATCH
                             || event.getAction() == CircuitEvent.ACTION_CLEAR)
                     && !circ.contains(pokedComponent)) {
                 removeCaret(false);
@@ -89,8 +90,6 @@ public class PokeTool extends Tool {
         }
     }
 
-    private static Cursor cursor
-        = Cursor.getPredefinedCursor(Cursor.HAND_CURSOR);
 
     private Listener listener;
     private Circuit pokedCircuit;
@@ -287,7 +286,7 @@ public class PokeTool extends Tool {
 
     @Override
     public Cursor getCursor() {
-    	return cursor;
+    	return Cursor.getPredefinedCursor(Cursor.HAND_CURSOR);
     }
 }
 
@@ -50,12 +50,6 @@ import java.util.Set;
 import static com.cburch.logisim.util.LocaleString.*;
 
 public class SelectTool extends Tool {
-    private static final Cursor selectCursor
-        = Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR);
-    private static final Cursor rectSelectCursor
-        = Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR);
-    private static final Cursor moveCursor
-        = Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR);
 
     private static final int IDLE = 0;
     private static final int MOVING = 1;
@@ -511,8 +505,8 @@ public class SelectTool extends Tool {
 
     @Override
     public Cursor getCursor() {
-        return state == IDLE ? selectCursor :
-            (state == RECT_SELECT ? rectSelectCursor : moveCursor);
+        return Cursor.getPredefinedCursor(state == IDLE ? Cursor.DEFAULT_CURSOR :
+            (state == RECT_SELECT ? Cursor.CROSSHAIR_CURSOR : Cursor.MOVE_CURSOR));
     }
 
     @Override
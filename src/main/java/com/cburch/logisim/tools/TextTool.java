@@ -104,6 +104,11 @@ public class TextTool extends Tool {
                 if (event.getData() == caretComponent) {
                     caret.cancelEditing();
                 }
+            } else if (action == CircuitEvent.ACTION_BATCH) {
+                if (caretComponent != null
+                        && event.getBatch().isRemoved(caretComponent)) {
+                    caret.cancelEditing();
+                }
             } else if (action == CircuitEvent.ACTION_CLEAR) {
                 if (caretComponent != null) {
                     caret.cancelEditing();
@@ -112,8 +117,6 @@ public class TextTool extends Tool {
         }
     }
 
-    private static Cursor cursor
-        = Cursor.getPredefinedCursor(Cursor.TEXT_CURSOR);
 
     private MyListener listener = new MyListener();
     private AttributeSet attrs;
@@ -303,7 +306,7 @@ public class TextTool extends Tool {
 
     @Override
     public Cursor getCursor() {
-        return cursor;
+        return Cursor.getPredefinedCursor(Cursor.TEXT_CURSOR);
     }
 }
 
@@ -21,8 +21,6 @@ import com.cburch.logisim.gui.main.Canvas;
 // DRAWING TOOLS
 //
 public abstract class Tool implements AttributeDefaultProvider {
-    private static Cursor dflt_cursor
-        = Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR);
 
     public abstract String getName();
     public abstract String getDisplayName();
@@ -67,6 +65,8 @@ public abstract class Tool implements AttributeDefaultProvider {
     public void keyTyped(Canvas canvas, KeyEvent e) { }
     public void keyPressed(Canvas canvas, KeyEvent e) { }
     public void keyReleased(Canvas canvas, KeyEvent e) { }
-    public Cursor getCursor() { return dflt_cursor; }
+    public Cursor getCursor() {
+        return Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR);
+    }
 
 }
@@ -28,8 +28,6 @@ import java.util.Set;
 import static com.cburch.logisim.util.LocaleString.*;
 
 public class WiringTool extends Tool {
-    private static Cursor cursor
-        = Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR);
     private static final Icon toolIcon = Icons.getIcon("wiring.svg");
 
     private static final int HORIZONTAL = 1;
@@ -467,6 +465,6 @@ public class WiringTool extends Tool {
 
     @Override
     public Cursor getCursor() {
-    	return cursor;
+    	return Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR);
     }
 }
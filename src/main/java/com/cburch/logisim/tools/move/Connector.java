@@ -12,11 +12,14 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import com.cburch.logisim.circuit.ReplacementMap;
 import com.cburch.logisim.circuit.Wire;
 import com.cburch.logisim.data.Direction;
 import com.cburch.logisim.data.Location;
+import com.cburch.logisim.util.LongHashSet;
 
 class Connector {
     private static final int MAX_SECONDS = 10;
@@ -52,7 +55,6 @@ class Connector {
         }
 
 
-        MoveResult bestResult = null;
         int tries;
         switch (baseConnects.size()) {
         case 0: tries = 0; break;
@@ -61,11 +63,9 @@ class Connector {
         case 3: tries = 8; break;
         default: tries = MAX_ORDERING_TRIES;
         }
-        long stopTime = System.currentTimeMillis() + MAX_SECONDS * 1000;
-        for (int tryNum = 0; tryNum < tries && stopTime - System.currentTimeMillis() > 0; tryNum++) {
-            if (ConnectorThread.isOverrideRequested()) {
-                return null;
-            }
+        ArrayList<ArrayList<ConnectionData>> orderings;
+        orderings = new ArrayList<ArrayList<ConnectionData>>(tries);
+        for (int tryNum = 0; tryNum < tries; tryNum++) {
             ArrayList<ConnectionData> connects;
             connects = new ArrayList<ConnectionData>(baseConnects);
             if (tryNum < 2) {
@@ -76,12 +76,25 @@ class Connector {
             } else {
                 Collections.shuffle(connects);
             }
+            orderings.add(connects);
+        }
 
-            MoveResult candidate = tryList(req, gesture, connects, dx, dy,
-                pathLocs, initNodes, stopTime);
-            if (candidate == null) {
-                return null;
-            } else if (bestResult == null) {
+        long stopTime = System.currentTimeMillis() + MAX_SECONDS * 1000;
+        List<MoveResult> candidates;
+        if (tries <= 1 || ConnectorThread.getWorkerCount() <= 1) {
+            candidates = tryOrderingsSerially(req, gesture, orderings, dx, dy,
+                    pathLocs, initNodes, stopTime);
+        } else {
+            candidates = tryOrderingsInParallel(req, gesture, orderings, dx, dy,
+                    pathLocs, initNodes, stopTime);
+        }
+        if (candidates == null) {
+            return null;
+        }
+
+        MoveResult bestResult = null;
+        for (MoveResult candidate : candidates) {
+            if (bestResult == null) {
                 bestResult = candidate;
             } else {
                 int unsatisfied1 = bestResult.getUnsatisifiedConnections().size();
@@ -106,6 +119,72 @@ class Connector {
         return bestResult;
     }
 
+    // returns null if the request was overridden while routing
+    private static List<MoveResult> tryOrderingsSerially(MoveRequest req,
+            MoveGesture gesture, List<ArrayList<ConnectionData>> orderings,
+            int dx, int dy, HashMap<ConnectionData,Set<Location>> pathLocs,
+            HashMap<ConnectionData,List<SearchNode>> initNodes, long stopTime) {
+        ArrayList<MoveResult> ret = new ArrayList<MoveResult>();
+        for (ArrayList<ConnectionData> connects : orderings) {
+            if (stopTime - System.currentTimeMillis() <= 0) {
+                break;
+            }
+            if (ConnectorThread.isOverrideRequested()) {
+                return null;
+            }
+            MoveResult candidate = tryList(req, gesture, connects, dx, dy,
+                pathLocs, initNodes, stopTime);
+            if (candidate == null) {
+                return null;
+            }
+            ret.add(candidate);
+        }
+        return ret;
+    }
+
+    // Each ordering routes against its own clone of the avoidance map, and
+    // the path and start-node tables are only read, so the orderings can be
+    // routed concurrently. The results are returned in ordering sequence so
+    // that the choice of the best result does not depend on thread timing.
+    private static List<MoveResult> tryOrderingsInParallel(final MoveRequest req,
+            final MoveGesture gesture, List<ArrayList<ConnectionData>> orderings,
+            final int dx, final int dy,
+            final HashMap<ConnectionData,Set<Location>> pathLocs,
+            final HashMap<ConnectionData,List<SearchNode>> initNodes,
+            final long stopTime) {
+        ArrayList<Future<MoveResult>> futures = new ArrayList<Future<MoveResult>>();
+        for (final ArrayList<ConnectionData> connects : orderings) {
+            futures.add(ConnectorThread.getWorkers().submit(
+                    () -> tryList(req, gesture, connects, dx, dy,
+                            pathLocs, initNodes, stopTime)));
+        }
+
+        ArrayList<MoveResult> ret = new ArrayList<MoveResult>();
+        try {
+            for (Future<MoveResult> future : futures) {
+                MoveResult candidate = future.get();
+                if (candidate == null) {
+                    return null;
+                }
+                ret.add(candidate);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            for (Future<MoveResult> future : futures) {
+                future.cancel(false);
+            }
+        }
+        return ret;
+    }
+
     private static ArrayList<ConnectionData> pruneImpossible(
             ArrayList<ConnectionData> connects, AvoidanceMap avoid, int dx, int dy) {
         ArrayList<Wire> pathWires = new ArrayList<Wire>();
@@ -236,10 +315,15 @@ class Connector {
         return new MoveResult(req, replacements, unconnected, totalDistance);
     }
 
+    // The search steps one grid point at a time. Compressing runs of
+    // empty grid into single steps, or pruning them as jump-point search
+    // does, would skip the points where the avoidance map restricts the
+    // directions or charges for a crossing, and so could miss the
+    // cheapest route.
     private static SearchNode findShortestPath(List<SearchNode> nodes,
             Set<Location> pathLocs, AvoidanceMap avoid) {
         PriorityQueue<SearchNode> q = new PriorityQueue<SearchNode>(nodes);
-        HashSet<SearchNode> visited = new HashSet<SearchNode>();
+        LongHashSet visited = new LongHashSet(MAX_SEARCH_ITERATIONS / 4);
         int iters = 0;
         while (!q.isEmpty() && iters < MAX_SEARCH_ITERATIONS) {
             iters++;
@@ -251,7 +335,7 @@ class Connector {
             if (n.isDestination()) {
                 return n;
             }
-            boolean added = visited.add(n);
+            boolean added = visited.add(n.getKey());
             if (!added) {
                 continue;
             }
@@ -307,7 +391,7 @@ class Connector {
                     oDir = dir.reverse();
                 }
                 SearchNode o = n.next(oDir, allowed != null);
-                if (o != null && !visited.contains(o)) {
+                if (o != null && !visited.contains(o.getKey())) {
                     q.add(o);
                 }
             }
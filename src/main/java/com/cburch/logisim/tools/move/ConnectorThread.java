@@ -3,9 +3,25 @@
 
 package com.cburch.logisim.tools.move;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import com.cburch.logisim.circuit.ReplacementMap;
 
 class ConnectorThread extends Thread {
+    // the connector tries several orderings of the connections for each
+    // request; the orderings are independent, so they are routed side by
+    // side on this pool while the connector thread waits for the results
+    private static final int WORKER_COUNT =
+        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final ExecutorService WORKERS =
+        Executors.newFixedThreadPool(WORKER_COUNT, r -> {
+            Thread t = new Thread(r, "ConnectorWorker");
+            t.setDaemon(true);
+            return t;
+        });
+
     private static ConnectorThread INSTANCE = new ConnectorThread();
 
     static {
@@ -26,6 +42,14 @@ class ConnectorThread extends Thread {
         return INSTANCE.overrideRequest;
     }
 
+    static ExecutorService getWorkers() {
+        return WORKERS;
+    }
+
+    static int getWorkerCount() {
+        return WORKER_COUNT;
+    }
+
     private Object lock;
     private transient boolean overrideRequest;
     private MoveRequest nextRequest;
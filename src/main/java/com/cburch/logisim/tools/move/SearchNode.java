@@ -139,6 +139,18 @@ class SearchNode implements Comparable<SearchNode> {
         return conn;
     }
 
+    /**
+     * Returns a primitive key identifying this node's location and
+     * direction. All nodes of a single search share the same destination,
+     * so the key distinguishes nodes exactly as {@link #equals} does
+     * within that search.
+     */
+    public long getKey() {
+        int dirCode = dir == null ? 4 : dir.hashCode();
+        return ((long) loc.getX() << 34)
+            | ((long) (loc.getY() & 0x7fffffff) << 3) | dirCode;
+    }
+
     @Override
     public boolean equals(Object other) {
         if (other instanceof SearchNode) {
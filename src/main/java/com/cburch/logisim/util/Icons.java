@@ -10,6 +10,8 @@ import com.cburch.logisim.data.Direction;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility class for manipulating SVG icons.
@@ -18,20 +20,23 @@ public final class Icons {
 
     private static final double TWO = 2.0;
 
+    // icons already loaded, by name; an icon is parsed once, whichever
+    // thread asks for it first
+    private static final Map<String, SVGIcon> cache = new ConcurrentHashMap<>();
+
     // non-instantiable
     private Icons() {
     }
 
     /**
-     * Returns the SVG icon for the given name;
+     * Returns the SVG icon for the given name, loading it the first time
+     * it is asked for. The instance returned is shared.
      *
      * @param name the icon name
      * @return the SVG icon instance
      */
     public static SVGIcon getIcon(String name) {
-        // TODO: implement lazy loading
-        // TODO: or, cache them all up front
-        return new SVGIcon(name);
+        return cache.computeIfAbsent(name, SVGIcon::new);
     }
 
     /**
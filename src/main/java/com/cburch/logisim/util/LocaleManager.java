@@ -210,7 +210,7 @@ public class LocaleManager {
 
             locales = new Locale[]{cur};
         }
-        return new JScrollPane(new LocaleSelector(locales));
+        return LocaleSelector.createScrollPane(locales);
     }
 
 
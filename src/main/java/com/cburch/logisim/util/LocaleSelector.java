@@ -54,6 +54,14 @@ class LocaleSelector extends JList<LocaleOption>
 
     private LocaleOption[] items;
 
+    /**
+     * Returns a scrolling selector of the given locales. Keeping the Swing
+     * types here lets the locale manager load without them.
+     */
+    static JComponent createScrollPane(Locale[] locales) {
+        return new JScrollPane(new LocaleSelector(locales));
+    }
+
     /**
      * Creates a locale selector for the given locales.
      *
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+
+package com.cburch.logisim.util;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash set of primitive {@code long} keys. Unlike a
+ * {@code HashSet<Long>}, adding a key does not allocate an entry object
+ * or a boxed key, which makes this set suitable for the inner loops of
+ * search algorithms that visit many thousands of states.
+ */
+public class LongHashSet {
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private static final String E_CAPACITY = "Negative capacity: ";
+
+    private long[] keys;
+    private boolean[] used;
+    private int size;
+    private int threshold;
+
+    /**
+     * Constructs an empty set with a default initial capacity.
+     */
+    public LongHashSet() {
+        this((int) (MIN_CAPACITY * LOAD_FACTOR));
+    }
+
+    /**
+     * Constructs an empty set able to hold the specified number of keys
+     * before it needs to grow.
+     *
+     * @param expected expected number of keys
+     */
+    public LongHashSet(int expected) {
+        if (expected < 0) {
+            throw new IllegalArgumentException(E_CAPACITY + expected);
+        }
+        int cap = MIN_CAPACITY;
+        while (cap * LOAD_FACTOR < expected) {
+            cap <<= 1;
+        }
+        allocate(cap);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // spreads the bits of the key so that keys packed from coordinates
+    // do not cluster in neighbouring slots
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (used[i] && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Returns true if the set contains the specified key.
+     *
+     * @param key the key
+     * @return true if present
+     */
+    public boolean contains(long key) {
+        return used[slot(key)];
+    }
+
+    /**
+     * Adds the specified key to the set.
+     *
+     * @param key the key
+     * @return true if the key was not already present
+     */
+    public boolean add(long key) {
+        int i = slot(key);
+        if (used[i]) {
+            return false;
+        }
+        used[i] = true;
+        keys[i] = key;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int j = slot(oldKeys[i]);
+                used[j] = true;
+                keys[j] = oldKeys[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys in the set.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the set contains no keys.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all keys from the set, retaining the allocated capacity.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(used, false);
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns the keys of this set, in no particular order.
+     *
+     * @return a newly allocated array of the keys
+     */
+    public long[] toArray() {
+        long[] ret = new long[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                ret[n++] = keys[i];
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "LongHashSet{size=" + size + ", capacity=" + keys.length + "}";
+    }
+
+    // allow unit tests to assert the capacity of the table
+    int capacity() {
+        return keys.length;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.hex;
+
+import com.meowster.test.AbstractTest;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link RowCache}.
+ */
+public class RowCacheTest extends AbstractTest {
+
+    // a model of 2^24 words whose values are their addresses, counting reads
+    private static class CountingModel implements HexModel {
+        int reads = 0;
+
+        @Override
+        public void addHexModelListener(HexModelListener l) {
+        }
+
+        @Override
+        public void removeHexModelListener(HexModelListener l) {
+        }
+
+        @Override
+        public long getFirstOffset() {
+            return 0;
+        }
+
+        @Override
+        public long getLastOffset() {
+            return (1L << 24) - 1;
+        }
+
+        @Override
+        public int getValueWidth() {
+            return 24;
+        }
+
+        @Override
+        public int get(long address) {
+            reads++;
+            return (int) address;
+        }
+
+        @Override
+        public void set(long address, int value) {
+        }
+
+        @Override
+        public void set(long start, int[] values) {
+        }
+
+        @Override
+        public void fill(long start, long length, int value) {
+        }
+    }
+
+    @Test
+    public void toHex() {
+        title("to hex");
+        assertThat(RowCache.toHex(0x1a, 4), is("001a"));
+        assertThat(RowCache.toHex(-1, 2), is("ff"));
+        assertThat(RowCache.toHex(0x12345, 3), is("345"));
+    }
+
+    @Test
+    public void rowsAreReused() {
+        title("rows are reused");
+        CountingModel model = new CountingModel();
+        RowCache cache = new RowCache();
+        String[] row = cache.get(model, 0xfffff0, 16, 6, 6);
+        assertThat(row[0], is("fffff0"));
+        assertThat(row[16], is("ffffff"));
+        assertThat(model.reads, is(16));
+        assertThat(cache.get(model, 0xfffff0, 16, 6, 6), is(sameInstance(row)));
+        assertThat(model.reads, is(16));
+
+        cache.invalidate(0xfffff5, 0xfffff5);
+        assertThat(cache.get(model, 0xfffff0, 16, 6, 6), is(not(sameInstance(row))));
+        assertThat(cache.get(model, 0xfffff0, 8, 6, 6).length, is(9));
+    }
+
+    @Test
+    public void cellsOutsideModel() {
+        title("cells outside model");
+        RowCache cache = new RowCache();
+        String[] row = cache.get(new CountingModel(), (1L << 24) - 4, 8, 6, 6);
+        assertThat(row[4], is("ffffff"));
+        assertThat(row[5], is(nullValue()));
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        title("size is bounded");
+        CountingModel model = new CountingModel();
+        RowCache cache = new RowCache();
+        for (long row = 0; row < (1L << 24); row += 16 * 97) {
+            cache.get(model, row, 16, 6, 6);
+        }
+        int reads = model.reads;
+        cache.get(model, 0, 16, 6, 6);
+        assertThat(model.reads, is(reads + 16));
+        print("read %d words for %d rows", reads, reads / 16);
+    }
+}
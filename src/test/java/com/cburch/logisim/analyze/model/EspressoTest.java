@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.analyze.model;
+
+import com.meowster.test.AbstractTest;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests and benchmarks for {@link Espresso}.
+ */
+public class EspressoTest extends AbstractTest {
+
+    private static final Entry T = Entry.ONE;
+    private static final Entry F = Entry.ZERO;
+    private static final Entry X = Entry.DONT_CARE;
+
+    // checks that the cover holds every desired row and no undesired one
+    private void assertCover(Entry[] column, List<Implicant> cover) {
+        if (cover == null) {
+            for (Entry entry : column) {
+                assertThat("null cover of known row", entry, is(X));
+            }
+            return;
+        }
+        boolean[] covered = new boolean[column.length];
+        for (Implicant imp : cover) {
+            for (Implicant term : imp.getTerms()) {
+                int row = term.getRow();
+                assertThat("covers 0 at row " + row, column[row] == F, is(false));
+                covered[row] = true;
+            }
+        }
+        for (int row = 0; row < column.length; row++) {
+            if (column[row] == T) {
+                assertThat("misses 1 at row " + row, covered[row], is(true));
+            }
+        }
+    }
+
+    private Entry[] randomColumn(Random random, int inputs, int cubes,
+                                 double dontCares) {
+        Entry[] column = new Entry[1 << inputs];
+        Arrays.fill(column, F);
+        int all = (1 << inputs) - 1;
+        for (int c = 0; c < cubes; c++) {
+            int free = random.nextInt() & all & random.nextInt();
+            int values = random.nextInt() & all & ~free;
+            int sub = 0;
+            do {
+                column[values | sub] = T;
+                sub = (sub - free) & free;
+            } while (sub != 0);
+        }
+        for (int row = 0; row < column.length; row++) {
+            if (random.nextDouble() < dontCares) {
+                column[row] = X;
+            }
+        }
+        return column;
+    }
+
+    @Test
+    public void majority() {
+        title("majority");
+        Entry[] column = { F, F, F, T, F, T, T, T };
+        List<Implicant> cover = Espresso.minimize(3, column, T);
+        assertCover(column, cover);
+        assertThat(cover.size(), is(3));
+        for (Implicant imp : cover) {
+            assertThat(imp.getUnknownCount(), is(1));
+        }
+    }
+
+    @Test
+    public void parity() {
+        title("parity");
+        Entry[] column = new Entry[64];
+        for (int row = 0; row < column.length; row++) {
+            column[row] = Integer.bitCount(row) % 2 == 1 ? T : F;
+        }
+        List<Implicant> cover = Espresso.minimize(6, column, T);
+        assertCover(column, cover);
+        assertThat(cover.size(), is(32));
+    }
+
+    @Test
+    public void productOfSums() {
+        title("product of sums");
+        Entry[] column = { F, T, T, T };
+        List<Implicant> cover = Espresso.minimize(2, column, F);
+        assertCover(new Entry[] { T, F, F, F }, cover);
+        assertThat(cover.size(), is(1));
+        assertThat(cover.get(0).getRow(), is(0));
+    }
+
+    @Test
+    public void dontCaresWidenCubes() {
+        title("don't cares widen cubes");
+        Entry[] column = { F, F, T, X, F, F, T, X };
+        List<Implicant> cover = Espresso.minimize(3, column, T);
+        assertCover(column, cover);
+        assertThat(cover.size(), is(1));
+        assertThat(cover.get(0).getUnknownCount(), is(2));
+    }
+
+    @Test
+    public void singleLiteralOfTwenty() {
+        title("single literal of twenty");
+        Entry[] column = new Entry[1 << 20];
+        for (int row = 0; row < column.length; row++) {
+            column[row] = (row & (1 << 7)) != 0 ? T : F;
+        }
+        List<Implicant> cover = Espresso.minimize(20, column, T);
+        assertThat(cover.size(), is(1));
+        assertThat(cover.get(0).getUnknownCount(), is(19));
+    }
+
+    @Test
+    public void noKnownRows() {
+        title("no known rows");
+        assertThat(Espresso.minimize(2, new Entry[] { X, X, X, X }, T),
+                   is(nullValue()));
+    }
+
+    @Test
+    public void emptyOnSet() {
+        title("empty on-set");
+        List<Implicant> cover = Espresso.minimize(2, new Entry[] { F, X, F, F }, T);
+        assertThat(cover.isEmpty(), is(true));
+    }
+
+    @Test
+    public void randomFunctions() {
+        title("random functions");
+        Random random = new Random(42);
+        for (int trial = 0; trial < 200; trial++) {
+            int inputs = 1 + random.nextInt(10);
+            Entry[] column = randomColumn(random, inputs, 1 + random.nextInt(8),
+                                          random.nextDouble() * 0.3);
+            List<Implicant> cover = Espresso.minimize(inputs, column, T);
+            assertCover(column, cover);
+        }
+    }
+
+    @Test
+    public void benchmark() {
+        title("benchmark");
+        Random random = new Random(1);
+        for (int inputs : new int[] { 8, 12, 16, 20 }) {
+            Entry[] column = randomColumn(random, inputs, 2 * inputs, 0.05);
+            long start = System.nanoTime();
+            List<Implicant> cover = Espresso.minimize(inputs, column, T);
+            long micros = (System.nanoTime() - start) / 1000;
+            print("%2d inputs: %5d cubes in %8d us", inputs, cover.size(), micros);
+            assertCover(column, cover);
+        }
+    }
+}
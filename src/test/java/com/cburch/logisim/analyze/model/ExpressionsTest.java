@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.analyze.model;
+
+import com.meowster.test.AbstractTest;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link Expressions} and the shared nodes they create.
+ */
+public class ExpressionsTest extends AbstractTest {
+
+    private static final List<String> INPUTS = Arrays.asList("a", "b", "c", "d", "e", "f", "g");
+
+    private Expression var(String name) {
+        return Expressions.variable(name);
+    }
+
+    // a chain in which each node uses the previous one twice, so that as
+    // a tree it would have 2^depth leaves
+    private Expression chain(int depth) {
+        Expression ret = var("a");
+        for (int i = 0; i < depth; i++) {
+            Expression v = var(INPUTS.get(1 + i % 6));
+            ret = Expressions.xor(Expressions.and(ret, v),
+                                  Expressions.or(ret, Expressions.not(v)));
+        }
+        return ret;
+    }
+
+    @Test
+    public void equalNodesAreShared() {
+        title("equal nodes are shared");
+        Expression x = Expressions.and(var("a"), Expressions.not(var("b")));
+        Expression y = Expressions.and(var("a"), Expressions.not(var("b")));
+        assertThat(y, is(sameInstance(x)));
+        assertThat(Expressions.constant(1), is(sameInstance(Expressions.constant(1))));
+        assertThat(Expressions.and(var("b"), var("a")).equals(x), is(false));
+        assertThat(Expressions.or(var("a"), var("b"))
+                .equals(Expressions.and(var("a"), var("b"))), is(false));
+    }
+
+    @Test
+    public void sharedAcrossParsing() throws ParserException {
+        title("shared across parsing");
+        Expression x = Expressions.or(Expressions.and(var("a"), var("b")), var("c"));
+        AnalyzerModel model = new AnalyzerModel();
+        model.setVariables(Arrays.asList("a", "b", "c"), Arrays.asList("x"));
+        assertThat(Parser.parse("a b + c", model), is(sameInstance(x)));
+        assertThat(x.toString(), is("a b + c"));
+        assertThat(x.toString(), is(sameInstance(x.toString())));
+    }
+
+    @Test
+    public void rowsMatchEvaluate() {
+        title("rows match evaluate");
+        Expression expr = chain(9);
+        long[] rows = expr.evaluateRows(INPUTS);
+        assertThat(rows.length, is(2));
+        for (int row = 0; row < 128; row++) {
+            Assignments assn = new Assignments();
+            for (int j = 0; j < INPUTS.size(); j++) {
+                assn.put(INPUTS.get(j), TruthTable.isInputSet(row, j, INPUTS.size()));
+            }
+            boolean bit = (rows[row >>> 6] & (1L << row)) != 0;
+            assertThat("row " + row, bit, is(expr.evaluate(assn)));
+        }
+    }
+
+    @Test
+    public void fewRowsAreMasked() {
+        title("few rows are masked");
+        long[] rows = Expressions.not(var("a")).evaluateRows(Arrays.asList("a", "b"));
+        assertThat(rows[0], is(0x3L));
+    }
+
+    @Test
+    public void deepSharingStaysLinear() {
+        title("deep sharing stays linear");
+        Expression expr = chain(60);
+        long start = System.nanoTime();
+        assertThat(expr.isCircular(), is(false));
+        assertThat(expr.containsXor(), is(true));
+        expr.evaluate(new Assignments());
+        Expression renamed = expr.replaceVariable("a", "z");
+        assertThat(renamed.replaceVariable("z", "a"), is(sameInstance(expr)));
+        expr.evaluateRows(INPUTS);
+        print("walked 2^60 paths in %d us", (System.nanoTime() - start) / 1000);
+    }
+}
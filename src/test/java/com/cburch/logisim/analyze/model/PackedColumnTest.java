@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.analyze.model;
+
+import com.meowster.test.AbstractTest;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link PackedColumn}.
+ */
+public class PackedColumnTest extends AbstractTest {
+
+    private static final Entry[] KNOWN = {
+            Entry.ZERO, Entry.ONE, Entry.DONT_CARE, Entry.BUS_ERROR
+    };
+
+    private Entry[] randomEntries(Random random, int rows) {
+        Entry[] ret = new Entry[rows];
+        for (int i = 0; i < rows; i++) {
+            // mostly known values, so that neighbouring rows often agree
+            ret[i] = random.nextInt(4) == 0 ? KNOWN[random.nextInt(4)]
+                    : KNOWN[i / 8 % 2];
+        }
+        return ret;
+    }
+
+    private void assertColumn(PackedColumn column, Entry[] expected) {
+        assertThat(column.getRowCount(), is(expected.length));
+        for (int i = 0; i < expected.length; i++) {
+            assertThat("row " + i, column.get(i), is(expected[i]));
+        }
+    }
+
+    @Test
+    public void roundTrip() {
+        title("round trip");
+        Entry[] values = randomEntries(new Random(1), 100);
+        values[17] = Entry.OSCILLATE_ERROR;
+        PackedColumn column = PackedColumn.of(values);
+        assertColumn(column, values);
+        assertThat(column.toArray().length, is(100));
+        assertThat(column, is(PackedColumn.of(values.clone())));
+    }
+
+    @Test
+    public void setAndFill() {
+        title("set and fill");
+        PackedColumn column = new PackedColumn(256, Entry.DONT_CARE);
+        assertThat(column.set(3, Entry.ONE), is(true));
+        assertThat(column.set(3, Entry.ONE), is(false));
+        column.fill(10, 200, Entry.ZERO);
+        for (int i = 0; i < 256; i++) {
+            Entry expected = i == 3 ? Entry.ONE
+                    : i >= 10 && i < 200 ? Entry.ZERO : Entry.DONT_CARE;
+            assertThat("row " + i, column.get(i), is(expected));
+        }
+        column.fill(0, 256, Entry.OSCILLATE_ERROR);
+        assertThat(column.get(255), is(Entry.OSCILLATE_ERROR));
+        column.set(255, Entry.BUS_ERROR);
+        assertThat(column.get(255), is(Entry.BUS_ERROR));
+    }
+
+    @Test
+    public void addLowInput() {
+        title("add low input");
+        Random random = new Random(2);
+        for (int inputs = 0; inputs <= 8; inputs++) {
+            Entry[] values = randomEntries(random, 1 << inputs);
+            Entry[] expected = new Entry[2 * values.length];
+            for (int i = 0; i < values.length; i++) {
+                expected[2 * i] = values[i];
+                expected[2 * i + 1] = values[i];
+            }
+            assertColumn(PackedColumn.of(values).addLowInput(), expected);
+        }
+    }
+
+    @Test
+    public void removeInput() {
+        title("remove input");
+        Random random = new Random(3);
+        for (int inputs = 1; inputs <= 9; inputs++) {
+            Entry[] values = randomEntries(random, 1 << inputs);
+            for (int bit = 0; bit < inputs; bit++) {
+                int mask = 1 << bit;
+                Entry[] expected = new Entry[values.length / 2];
+                int j = 0;
+                for (int i = 0; i < values.length; i++) {
+                    if ((i & mask) == 0) {
+                        Entry e0 = values[i];
+                        Entry e1 = values[i | mask];
+                        expected[j++] = e0 == e1 ? e0 : Entry.DONT_CARE;
+                    }
+                }
+                assertColumn(PackedColumn.of(values).removeInput(bit), expected);
+            }
+        }
+    }
+
+    @Test
+    public void moveInput() {
+        title("move input");
+        Random random = new Random(4);
+        int inputs = 9;
+        Entry[] values = randomEntries(random, 1 << inputs);
+        for (int oldBit = 0; oldBit < inputs; oldBit++) {
+            for (int newBit = 0; newBit < inputs; newBit++) {
+                PackedColumn moved = PackedColumn.of(values).moveInput(oldBit, newBit);
+                for (int i = 0; i < values.length; i++) {
+                    // move bit oldBit of i to newBit, shifting those between
+                    int bit = (i >> oldBit) & 1;
+                    int rest = (i & ((1 << oldBit) - 1))
+                            | ((i >> (oldBit + 1)) << oldBit);
+                    int j = (rest & ((1 << newBit) - 1)) | (bit << newBit)
+                            | ((rest >> newBit) << (newBit + 1));
+                    assertThat(moved.get(j), is(values[i]));
+                }
+            }
+        }
+    }
+}
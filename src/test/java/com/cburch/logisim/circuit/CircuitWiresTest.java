@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.meowster.test.AbstractTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for how {@link CircuitWires} computes its bundle map in the
+ * background while the circuit may change.
+ */
+public class CircuitWiresTest extends AbstractTest {
+
+    private static final Location A = Location.create(10, 10);
+    private static final Location B = Location.create(50, 10);
+    private static final Location C = Location.create(50, 50);
+
+    // a circuit lock that runs a mutation once when first released, just
+    // after the wiring has been copied under it
+    private static class MutatingLock implements Lock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Runnable mutation;
+
+        @Override
+        public void lock() {
+            lock.lock();
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            lock.lockInterruptibly();
+        }
+
+        @Override
+        public boolean tryLock() {
+            return lock.tryLock();
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit)
+                throws InterruptedException {
+            return lock.tryLock(time, unit);
+        }
+
+        @Override
+        public void unlock() {
+            lock.unlock();
+            Runnable r = mutation;
+            mutation = null;
+            if (r != null) {
+                r.run();
+            }
+        }
+
+        @Override
+        public Condition newCondition() {
+            return lock.newCondition();
+        }
+    }
+
+    private MutatingLock lock;
+    private CircuitWires wires;
+
+    @Before
+    public void setUp() {
+        lock = new MutatingLock();
+        wires = new CircuitWires(lock);
+        wires.add(Wire.create(A, B));
+    }
+
+    private static Component pin(Location loc, int width) {
+        AttributeSet attrs = Pin.FACTORY.createAttributeSet();
+        attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+        return Pin.FACTORY.createComponent(loc, attrs);
+    }
+
+    private static Component tunnel(Location loc, String label) {
+        AttributeSet attrs = Tunnel.FACTORY.createAttributeSet();
+        attrs.setValue(StdAttr.LABEL, label);
+        return Tunnel.FACTORY.createComponent(loc, attrs);
+    }
+
+    @Test
+    public void computed() {
+        title("computed");
+        assertThat(wires.isMapVoided(), is(true));
+        assertThat(wires.computeBundleMapInBackground(), is(true));
+        assertThat(wires.isMapVoided(), is(false));
+        assertThat(wires.getWireBundle(A) == wires.getWireBundle(B), is(true));
+    }
+
+    @Test
+    public void mutationDuringAnalysis() {
+        title("mutation during analysis");
+        final Wire added = Wire.create(B, C);
+        lock.mutation = new Runnable() {
+            @Override
+            public void run() {
+                wires.add(added);
+                wires.add(pin(C, 8));
+            }
+        };
+
+        // the map computed from the wiring before the mutation is not
+        // installed
+        assertThat(wires.computeBundleMapInBackground(), is(false));
+        assertThat(wires.isMapVoided(), is(true));
+
+        assertThat(wires.computeBundleMapInBackground(), is(true));
+        assertThat(wires.isMapVoided(), is(false));
+        assertThat(wires.getWireSet(added).containsLocation(A), is(true));
+        print(wires.getWidth(A));
+        assertThat(wires.getWidth(A), is(BitWidth.create(8)));
+    }
+
+    @Test
+    public void tunnelRenames() {
+        title("tunnel renames");
+        Location d = Location.create(90, 90);
+        Component t1 = tunnel(B, "x");
+        Component t2 = tunnel(d, "y");
+        wires.add(t1);
+        wires.add(t2);
+        wires.ensureComputed();
+        assertThat(wires.getWireBundle(B) == wires.getWireBundle(d), is(false));
+
+        // a rename that connects nothing leaves the map as it is
+        t2.getAttributeSet().setValue(StdAttr.LABEL, "z");
+        assertThat(wires.isMapVoided(), is(false));
+
+        // one that connects the tunnels voids the whole map, which
+        // connects them once computed again
+        t2.getAttributeSet().setValue(StdAttr.LABEL, "x");
+        assertThat(wires.isMapVoided(), is(true));
+        wires.ensureComputed();
+        assertThat(wires.getWireBundle(A) == wires.getWireBundle(d), is(true));
+
+        // as does one that disconnects them
+        t1.getAttributeSet().setValue(StdAttr.LABEL, "w");
+        assertThat(wires.isMapVoided(), is(true));
+        wires.ensureComputed();
+        assertThat(wires.getWireBundle(A) == wires.getWireBundle(d), is(false));
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Clock;
+import com.meowster.test.AbstractTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link ClockScheduler}.
+ */
+public class ClockSchedulerTest extends AbstractTest {
+
+    private Project proj;
+    private Circuit circuit;
+    private List<Component> clocks;
+    private int x;
+
+    @Before
+    public void setUp() {
+        proj = new Project(LogisimFile.createNew(new Loader(null)));
+        circuit = new Circuit("main");
+        clocks = new ArrayList<Component>();
+        x = 0;
+    }
+
+    // adds a clock high and low for the given numbers of ticks
+    static Component addClock(Circuit circuit, Location loc, int high, int low) {
+        AttributeSet attrs = Clock.FACTORY.createAttributeSet();
+        attrs.setValue(Clock.ATTR_HIGH, high);
+        attrs.setValue(Clock.ATTR_LOW, low);
+        Component clock = Clock.FACTORY.createComponent(loc, attrs);
+        CircuitMutation xn = new CircuitMutation(circuit);
+        xn.add(clock);
+        xn.execute();
+        return clock;
+    }
+
+    private Component clock(int high, int low) {
+        x += 40;
+        Component clock = addClock(circuit, Location.create(x, 100), high, low);
+        clocks.add(clock);
+        return clock;
+    }
+
+    // ticks the scheduler through the given ticks, checking each against
+    // ticking every clock of a state of its own, as without a schedule
+    private void checkTicks(ClockScheduler scheduler, CircuitState state,
+            CircuitState reference, int from, int to) {
+        StringBuilder changes = new StringBuilder();
+        for (int t = from; t <= to; t++) {
+            boolean expected = false;
+            for (Component clock : clocks) {
+                expected |= Clock.tick(reference, t, clock);
+            }
+            boolean changed = scheduler.tick(state, t);
+            changes.append(changed ? '^' : '.');
+            assertThat("tick " + t, changed, is(expected));
+            // every clock already sends its value for the tick, so that
+            // no edge fired late, and none fired early in an earlier tick
+            for (Component clock : clocks) {
+                assertThat("tick " + t + " " + clock, Clock.tick(state, t, clock),
+                        is(false));
+            }
+        }
+        print(changes);
+    }
+
+    @Test
+    public void edgesInTimeOrder() {
+        title("edges in time order");
+        clock(2, 3);
+        clock(3, 1);
+        clock(7, 5);
+        ClockScheduler scheduler = new ClockScheduler();
+        checkTicks(scheduler, new CircuitState(proj, circuit),
+                new CircuitState(proj, circuit), 1, 120);
+    }
+
+    @Test
+    public void noClockChanges() {
+        title("no clock changes");
+        // both clocks change only on even ticks
+        clock(2, 2);
+        clock(4, 2);
+        ClockScheduler scheduler = new ClockScheduler();
+        CircuitState state = new CircuitState(proj, circuit);
+        for (int t = 1; t < 24; t++) {
+            boolean changed = scheduler.tick(state, t);
+            if (t % 2 == 1) {
+                assertThat("tick " + t, changed, is(false));
+            }
+        }
+    }
+
+    @Test
+    public void durationChangeReschedules() {
+        title("duration change reschedules");
+        clock(3, 2);
+        Component slow = clock(2, 3);
+        ClockScheduler scheduler = new ClockScheduler();
+        CircuitState state = new CircuitState(proj, circuit);
+        CircuitState reference = new CircuitState(proj, circuit);
+        checkTicks(scheduler, state, reference, 1, 20);
+
+        slow.getAttributeSet().setValue(Clock.ATTR_HIGH, 5);
+        checkTicks(scheduler, state, reference, 21, 60);
+
+        // a clock added needs the schedule invalidated, as a change to
+        // the circuit does
+        clock(3, 4);
+        scheduler.invalidate();
+        checkTicks(scheduler, state, reference, 61, 100);
+    }
+
+    @Test
+    public void notKeptByClocks() {
+        title("not kept by clocks");
+        clock(1, 1);
+        ClockScheduler scheduler = new ClockScheduler();
+        scheduler.tick(new CircuitState(proj, circuit), 1);
+        WeakReference<ClockScheduler> ref
+            = new WeakReference<ClockScheduler>(scheduler);
+        scheduler = null;
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        assertThat(ref.get(), is(nullValue()));
+
+        // the clock's attributes drop the listener of a discarded scheduler
+        clocks.get(0).getAttributeSet().setValue(Clock.ATTR_HIGH, 2);
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.analyze.model.AnalyzerModel;
+import com.cburch.logisim.analyze.model.Parser;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Attribute;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.Direction;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.InstanceData;
+import com.cburch.logisim.instance.InstanceFactory;
+import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.CircuitBuilder;
+import com.cburch.logisim.std.wiring.Pin;
+import com.meowster.test.AbstractTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link CompiledCircuit}, and for how
+ * {@link SubcircuitFactory} keeps its compiled circuit.
+ */
+public class CompiledCircuitTest extends AbstractTest {
+
+    // the ports of an instance, for the compiled circuit to read and set
+    private static class PortState implements InstanceState {
+        private final Value[] ports;
+
+        PortState(int count) {
+            ports = new Value[count];
+        }
+
+        @Override
+        public Instance getInstance() {
+            return null;
+        }
+
+        @Override
+        public InstanceFactory getFactory() {
+            return null;
+        }
+
+        @Override
+        public Project getProject() {
+            return null;
+        }
+
+        @Override
+        public AttributeSet getAttributeSet() {
+            return null;
+        }
+
+        @Override
+        public <E> E getAttributeValue(Attribute<E> attr) {
+            return null;
+        }
+
+        @Override
+        public Object getAttributeSnapshot() {
+            return null;
+        }
+
+        @Override
+        public Value getPort(int portIndex) {
+            return ports[portIndex];
+        }
+
+        @Override
+        public boolean isPortConnected(int portIndex) {
+            return true;
+        }
+
+        @Override
+        public void setPort(int portIndex, Value value, int delay) {
+            ports[portIndex] = value;
+        }
+
+        @Override
+        public InstanceData getData() {
+            return null;
+        }
+
+        @Override
+        public void setData(InstanceData value) {
+        }
+
+        @Override
+        public void fireInvalidated() {
+        }
+
+        @Override
+        public boolean isCircuitRoot() {
+            return false;
+        }
+
+        @Override
+        public long getTickCount() {
+            return 0;
+        }
+    }
+
+    private Project proj;
+
+    @Before
+    public void setUp() {
+        proj = new Project(LogisimFile.createNew(new Loader(null)));
+    }
+
+    // builds a circuit for the given inputs and "name = expression" outputs
+    private static Circuit build(List<String> inputs, String... outputs)
+            throws Exception {
+        AnalyzerModel model = new AnalyzerModel();
+        List<String> names = new ArrayList<String>();
+        for (String output : outputs) {
+            names.add(output.substring(0, output.indexOf('=')).trim());
+        }
+        model.setVariables(inputs, names);
+        for (String output : outputs) {
+            String name = output.substring(0, output.indexOf('=')).trim();
+            String expr = output.substring(output.indexOf('=') + 1);
+            model.getOutputExpressions().setExpression(name,
+                    Parser.parse(expr, model));
+        }
+        Circuit circuit = new Circuit("sub");
+        CircuitBuilder.build(circuit, model, false, false).execute();
+        return circuit;
+    }
+
+    // the pins in the order of an instance's ports
+    private static Instance[] pins(Circuit circuit) {
+        return circuit.getAppearance().getPortOffsets(Direction.EAST)
+            .values().toArray(new Instance[0]);
+    }
+
+    private static Value bit(int row, int input) {
+        return ((row >> input) & 1) != 0 ? Value.TRUE : Value.FALSE;
+    }
+
+    // the outputs the compiled circuit computes for the row, in port order
+    private static List<Value> compiled(CompiledCircuit table, Instance[] pins,
+            int row) {
+        PortState state = new PortState(pins.length);
+        int input = 0;
+        for (int i = 0; i < pins.length; i++) {
+            if (Pin.FACTORY.isInputPin(pins[i])) {
+                state.ports[i] = bit(row, input++);
+            }
+        }
+        assertThat(table.propagate(state, pins), is(true));
+        List<Value> outputs = new ArrayList<Value>();
+        for (int i = 0; i < pins.length; i++) {
+            if (!Pin.FACTORY.isInputPin(pins[i])) {
+                outputs.add(state.ports[i]);
+            }
+        }
+        return outputs;
+    }
+
+    // the outputs the simulation finds for the row, in port order
+    private List<Value> simulated(Circuit circuit, Instance[] pins, int row) {
+        CircuitState state = new CircuitState(proj, circuit);
+        int input = 0;
+        for (Instance pin : pins) {
+            if (Pin.FACTORY.isInputPin(pin)) {
+                InstanceState pinState = state.getInstanceState(pin);
+                Pin.FACTORY.setValue(pinState, bit(row, input++));
+                Pin.FACTORY.propagate(pinState);
+            }
+        }
+        state.getPropagator().propagate();
+        List<Value> outputs = new ArrayList<Value>();
+        for (Instance pin : pins) {
+            if (!Pin.FACTORY.isInputPin(pin)) {
+                outputs.add(state.getValue(pin.getLocation()));
+            }
+        }
+        return outputs;
+    }
+
+    private void assertMatchesSimulation(Circuit circuit, int inputs) {
+        Instance[] pins = pins(circuit);
+        CompiledCircuit table = CompiledCircuit.compile(circuit, pins);
+        assertThat(table, is(notNullValue()));
+        for (int row = 0; row < 1 << inputs; row++) {
+            List<Value> expected = simulated(circuit, pins, row);
+            print("row %d: %s", row, expected);
+            assertThat("row " + row, compiled(table, pins, row), is(expected));
+        }
+    }
+
+    // the attribute of a gate saying whether its output may float, or
+    // null if the component has none
+    @SuppressWarnings("unchecked")
+    private static Attribute<Object> outputAttribute(Component comp) {
+        for (Attribute<?> attr : comp.getAttributeSet().getAttributes()) {
+            if (attr.getName().equals("out")) {
+                return (Attribute<Object>) attr;
+            }
+        }
+        return null;
+    }
+
+    // the first gate of the circuit
+    private static Component gate(Circuit circuit) {
+        for (Component comp : circuit.getNonWires()) {
+            if (outputAttribute(comp) != null) {
+                return comp;
+            }
+        }
+        throw new AssertionError("no gate in " + circuit);
+    }
+
+    private static void setOutput(Circuit circuit, Component gate,
+            String option) {
+        Attribute<Object> attr = outputAttribute(gate);
+        CircuitMutation xn = new CircuitMutation(circuit);
+        xn.set(gate, attr, attr.parse(option));
+        xn.execute();
+    }
+
+    @Test
+    public void oneOutput() throws Exception {
+        title("one output");
+        assertMatchesSimulation(build(Arrays.asList("a", "b", "c"),
+                "x = a b + ~c"), 3);
+    }
+
+    @Test
+    public void severalOutputs() throws Exception {
+        title("several outputs");
+        assertMatchesSimulation(build(Arrays.asList("a", "b", "c", "d"),
+                "x = a ^ b ^ c", "y = ~(a + b) d", "z = a c + b ~d"), 4);
+    }
+
+    @Test
+    public void inputLimit() throws Exception {
+        title("input limit");
+        List<String> inputs = new ArrayList<String>();
+        for (char c = 'a'; c < 'a' + CompiledCircuit.MAX_INPUTS; c++) {
+            inputs.add(String.valueOf(c));
+        }
+        Circuit circuit = build(inputs, "x = a b c d e f g h i j");
+        assertThat(CompiledCircuit.compile(circuit, pins(circuit)),
+                is(notNullValue()));
+
+        inputs.add("k");
+        circuit = build(inputs, "x = a b c d e f g h i j k");
+        assertThat(CompiledCircuit.compile(circuit, pins(circuit)),
+                is(nullValue()));
+    }
+
+    @Test
+    public void floatingOutputNotCompiled() throws Exception {
+        title("floating output not compiled");
+        Circuit circuit = build(Arrays.asList("a", "b"), "x = a b");
+        // the gate drives 1 and floats in place of 0
+        setOutput(circuit, gate(circuit), "Z1");
+        Instance[] pins = pins(circuit);
+        assertThat(CompiledCircuit.compile(circuit, pins), is(nullValue()));
+        assertThat(circuit.getSubcircuitFactory().getCompiled(), is(nullValue()));
+
+        // where the gate floats, which a table of 0 and 1 could not show,
+        // the simulation the instances fall back on leaves it floating
+        print(simulated(circuit, pins, 0));
+        assertThat(simulated(circuit, pins, 0), is(Arrays.asList(Value.UNKNOWN)));
+        assertThat(simulated(circuit, pins, 3), is(Arrays.asList(Value.TRUE)));
+    }
+
+    @Test
+    public void editInvalidates() throws Exception {
+        title("edit invalidates");
+        Circuit circuit = build(Arrays.asList("a", "b"), "x = a b");
+        SubcircuitFactory factory = circuit.getSubcircuitFactory();
+        CompiledCircuit table = factory.getCompiled();
+        assertThat(table, is(notNullValue()));
+        assertThat(factory.getCompiled(), is(sameInstance(table)));
+
+        // a change to a component's attributes
+        Component gate = gate(circuit);
+        setOutput(circuit, gate, "0Z");
+        assertThat(factory.getCompiled(), is(nullValue()));
+        setOutput(circuit, gate, "01");
+        CompiledCircuit again = factory.getCompiled();
+        assertThat(again, is(notNullValue()));
+        assertThat(again, is(not(sameInstance(table))));
+
+        // a change to the components: nothing drives the output now
+        CircuitMutation xn = new CircuitMutation(circuit);
+        xn.remove(gate);
+        xn.execute();
+        CompiledCircuit edited = factory.getCompiled();
+        assertThat(edited, is(notNullValue()));
+        assertThat(edited, is(not(sameInstance(again))));
+        Instance[] pins = pins(circuit);
+        assertThat(compiled(edited, pins, 3), is(Arrays.asList(Value.UNKNOWN)));
+        assertThat(compiled(edited, pins, 3), is(simulated(circuit, pins, 3)));
+    }
+}
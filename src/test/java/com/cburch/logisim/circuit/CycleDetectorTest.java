@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.meowster.test.AbstractTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link CycleDetector}.
+ */
+public class CycleDetectorTest extends AbstractTest {
+
+    private static final BitWidth WIDTH = BitWidth.create(16);
+    private static final Location LOC = Location.create(10, 20);
+    private static final Location OTHER = Location.create(30, 20);
+
+    private CircuitState state;
+    private CycleDetector cycles;
+    private Value current;
+    private int clock;
+    // the values of the events due at the next step
+    private List<Value> due;
+
+    @Before
+    public void setUp() {
+        state = new CircuitState(null, new Circuit("main"));
+        cycles = new CycleDetector();
+        current = value(0);
+        clock = 0;
+        due = new ArrayList<>();
+    }
+
+    private static Value value(int v) {
+        return Value.createKnown(WIDTH, v);
+    }
+
+    // takes the events due at the next time from the queue, as the
+    // propagator does when it begins a step
+    private void beginStep() {
+        clock++;
+        cycles.setClock(clock);
+        for (Value val : due) {
+            cycles.eventRemoved(state, OTHER, val);
+        }
+        due.clear();
+    }
+
+    // queues an event for the next step
+    private void queue(Value val) {
+        cycles.eventAdded(state, OTHER, val, 1);
+        due.add(val);
+    }
+
+    // sets LOC to the value, with one event queued for the next step, and
+    // ends the step; returns what the detector reports
+    private int step(int v) {
+        beginStep();
+        Value next = value(v);
+        if (!next.equals(current)) {
+            cycles.valueChanged(state, LOC, current, next);
+            current = next;
+        }
+        queue(value(v + 1));
+        return cycles.stepDone();
+    }
+
+    // returns the number of steps after which the period was reported,
+    // or -1 if it was not within the given number of steps
+    private int stepsToReport(int[] cycle, int maxSteps, int expectedPeriod) {
+        for (int i = 0; i < maxSteps; i++) {
+            int period = step(cycle[i % cycle.length]);
+            if (period != 0) {
+                assertThat(period, is(expectedPeriod));
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void periodTwo() {
+        title("period two");
+        int steps = stepsToReport(new int[] { 1, 0 }, 1000, 2);
+        print("reported after %d steps", steps);
+        assertThat(steps > CycleDetector.MIN_STEPS, is(true));
+        assertThat(steps <= CycleDetector.MIN_STEPS + 4, is(true));
+    }
+
+    @Test
+    public void periodK() {
+        title("period k");
+        for (int k : new int[] { 3, 5, 16, 40 }) {
+            setUp();
+            int[] cycle = new int[k];
+            for (int i = 0; i < k; i++) {
+                cycle[i] = 100 + i;
+            }
+            int steps = stepsToReport(cycle, 1000, k);
+            print("period %d reported after %d steps", k, steps);
+            int needed = Math.max(CycleDetector.MIN_STEPS,
+                    CycleDetector.REPEATS * k);
+            assertThat(steps > needed, is(true));
+            assertThat(steps <= needed + k + 1, is(true));
+        }
+    }
+
+    @Test
+    public void periodFoundAtAnyTime() {
+        title("period found at any time");
+        // the same oscillation, starting at times far apart
+        for (int start : new int[] { 0, 12345, Integer.MAX_VALUE - 1000 }) {
+            setUp();
+            clock = start;
+            cycles.setClock(clock);
+            int steps = stepsToReport(new int[] { 1, 0 }, 1000, 2);
+            print("from %d reported after %d steps", start, steps);
+            assertThat(steps, is(CycleDetector.MIN_STEPS + 2));
+        }
+    }
+
+    @Test
+    public void longSettlingNotReported() {
+        title("long settling not reported");
+        // a ripple that keeps setting new values before settling
+        for (int i = 0; i < 10 * CycleDetector.HISTORY; i++) {
+            assertThat(step(i), is(0));
+        }
+    }
+
+    @Test
+    public void nonPeriodicNotReported() {
+        title("non-periodic not reported");
+        Random random = new Random(5);
+        for (int i = 0; i < 10 * CycleDetector.HISTORY; i++) {
+            assertThat(step(random.nextInt(1 << 16)), is(0));
+        }
+    }
+
+    @Test
+    public void pendingEventsTellStepsApart() {
+        title("pending events tell steps apart");
+        // the values repeat with period 2, but an event waiting for a
+        // fixed time is ever nearer
+        cycles.eventAdded(state, OTHER, Value.TRUE, 100000);
+        Value a = value(1);
+        Value b = value(2);
+        for (int i = 0; i < 10 * CycleDetector.HISTORY; i++) {
+            beginStep();
+            Value next = (i & 1) == 0 ? a : b;
+            cycles.valueChanged(state, LOC, current, next);
+            current = next;
+            assertThat(cycles.stepDone(), is(0));
+        }
+    }
+
+    @Test
+    public void equalPendingEventsDoNotCancel() {
+        title("equal pending events do not cancel");
+        // the same values, with no event, one event, or two equal events
+        // waiting, are three different steps
+        for (int i = 0; i < 10 * CycleDetector.HISTORY; i++) {
+            beginStep();
+            for (int j = 0; j < i % 3; j++) {
+                queue(Value.TRUE);
+            }
+            int period = cycles.stepDone();
+            if (period != 0) {
+                assertThat(period, is(3));
+                return;
+            }
+        }
+        assertThat("period 3 not reported", false);
+    }
+
+    @Test
+    public void resetForgets() {
+        title("reset forgets");
+        int steps = stepsToReport(new int[] { 1, 0 }, 1000, 2);
+        assertThat(steps > 0, is(true));
+        cycles.reset();
+        for (int i = 0; i < CycleDetector.MIN_STEPS; i++) {
+            assertThat(step(i & 1), is(0));
+        }
+        assertThat(step(0), is(0));
+        assertThat(step(1), is(2));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.std.wiring.Pin;
+import com.meowster.test.AbstractTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link SimulationProfile}.
+ */
+public class SimulationProfileTest extends AbstractTest {
+
+    private static final Location A = Location.create(10, 10);
+    private static final Location B = Location.create(50, 10);
+
+    private SimulationProfile profile;
+    private Circuit circuit;
+    private CircuitState state;
+    private CircuitState otherState;
+    private Component wire;
+    private Component pin;
+
+    @Before
+    public void setUp() {
+        profile = new SimulationProfile();
+        circuit = new Circuit("main");
+        state = new CircuitState(null, circuit);
+        otherState = new CircuitState(null, circuit);
+        wire = Wire.create(A, B);
+        pin = Pin.FACTORY.createComponent(A, Pin.FACTORY.createAttributeSet());
+    }
+
+    private static SimulationProfile.Row row(List<SimulationProfile.Row> rows,
+            String name) {
+        for (SimulationProfile.Row row : rows) {
+            if (row.getName().equals(name)) {
+                return row;
+            }
+        }
+        throw new AssertionError("no row " + name + " in " + rows);
+    }
+
+    @Test
+    public void empty() {
+        title("empty");
+        for (SimulationProfile.Category category
+                : SimulationProfile.Category.values()) {
+            assertThat(profile.getRows(category).isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void evaluationsByCategory() {
+        title("evaluations by category");
+        profile.componentEvaluated(state, wire, 100);
+        profile.componentEvaluated(otherState, wire, 200);
+        profile.componentEvaluated(state, pin, 50);
+
+        List<SimulationProfile.Row> factories
+            = profile.getRows(SimulationProfile.Category.FACTORY);
+        print(factories);
+        assertThat(factories.size(), is(2));
+        // the most time first
+        assertThat(factories.get(0).getCount(), is(2L));
+        assertThat(factories.get(0).getNanos(), is(300L));
+        assertThat(factories.get(1).getName(), is(pin.getFactory().getDisplayName()));
+        assertThat(factories.get(1).getCount(), is(1L));
+        assertThat(factories.get(1).getNanos(), is(50L));
+
+        List<SimulationProfile.Row> comps
+            = profile.getRows(SimulationProfile.Category.COMPONENT);
+        print(comps);
+        assertThat(comps.size(), is(2));
+        assertThat(comps.get(0).getName().startsWith("main: "), is(true));
+        assertThat(comps.get(0).getNanos(), is(300L));
+
+        // both states have the same name, but are counted apart
+        List<SimulationProfile.Row> states
+            = profile.getRows(SimulationProfile.Category.STATE);
+        print(states);
+        assertThat(states.size(), is(2));
+        assertThat(states.get(0).getName(), is("main"));
+        assertThat(states.get(0).getNanos(), is(200L));
+        assertThat(states.get(1).getCount(), is(2L));
+        assertThat(states.get(1).getNanos(), is(150L));
+    }
+
+    @Test
+    public void netsCountedAcrossStates() {
+        title("nets counted across states");
+        profile.valueSet(state, A);
+        profile.valueSet(otherState, A);
+        profile.valueSet(state, B);
+
+        List<SimulationProfile.Row> nets
+            = profile.getRows(SimulationProfile.Category.NET);
+        print(nets);
+        assertThat(nets.size(), is(2));
+        assertThat(nets.get(0).getName(), is("main: " + A));
+        assertThat(nets.get(0).getCount(), is(2L));
+        assertThat(nets.get(0).getNanos(), is(0L));
+        assertThat(row(nets, "main: " + B).getCount(), is(1L));
+    }
+
+    @Test
+    public void rowsAreCopies() {
+        title("rows are copies");
+        profile.valueSet(state, A);
+        List<SimulationProfile.Row> before
+            = profile.getRows(SimulationProfile.Category.NET);
+        profile.valueSet(state, A);
+        assertThat(before.get(0).getCount(), is(1L));
+        assertThat(profile.getRows(SimulationProfile.Category.NET).get(0)
+                .getCount(), is(2L));
+    }
+
+    @Test
+    public void clearForgets() {
+        title("clear forgets");
+        profile.componentEvaluated(state, wire, 100);
+        profile.valueSet(state, A);
+        profile.clear();
+        for (SimulationProfile.Category category
+                : SimulationProfile.Category.values()) {
+            assertThat(profile.getRows(category).isEmpty(), is(true));
+        }
+        assertThat(profile.getElapsedNanos() >= 0, is(true));
+    }
+
+    @Test
+    public void write() {
+        title("write");
+        profile.componentEvaluated(state, pin, 2500000);
+        profile.valueSet(state, B);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        profile.write(new PrintStream(bytes, true));
+        String[] lines = bytes.toString().split("\\r?\\n");
+        print(bytes.toString());
+        assertThat(lines.length, is(4));
+        assertThat(lines[0], is("factory\t1\t2.500\t"
+                + pin.getFactory().getDisplayName()));
+        assertThat(lines[2], is("state\t1\t2.500\tmain"));
+        assertThat(lines[3], is("net\t1\t0.000\tmain: " + B));
+    }
+}
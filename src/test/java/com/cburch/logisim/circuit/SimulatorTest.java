@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.proj.Project;
+import com.meowster.test.AbstractTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link Simulator}.
+ */
+public class SimulatorTest extends AbstractTest {
+
+    private static final String TICK = "tick";
+    private static final String PROPAGATION = "propagation";
+
+    // the events of the simulator's thread, in order
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<String>();
+
+    private final SimulatorListener listener = new SimulatorListener() {
+        @Override
+        public void propagationCompleted(SimulatorEvent e) {
+            events.add(PROPAGATION);
+        }
+
+        @Override
+        public void tickCompleted(SimulatorEvent e) {
+            events.add(TICK);
+        }
+
+        @Override
+        public void simulatorStateChanged(SimulatorEvent e) { }
+    };
+
+    private Simulator sim;
+
+    @Before
+    public void setUp() {
+        sim = new Simulator();
+        sim.addSimulatorListener(listener);
+    }
+
+    @After
+    public void tearDown() {
+        sim.shutDown();
+    }
+
+    private String next() throws InterruptedException {
+        String ret = events.poll(10, TimeUnit.SECONDS);
+        assertThat("an event in time", ret != null, is(true));
+        return ret;
+    }
+
+    // ticks once, returning the events up to the completion of the tick
+    // and of whatever followed it within the same round
+    private List<String> tick() throws InterruptedException {
+        List<String> ret = new ArrayList<String>();
+        sim.tick();
+        String event;
+        do {
+            event = next();
+            ret.add(event);
+        } while (!event.equals(TICK));
+        return ret;
+    }
+
+    @Test
+    public void unchangedTickSkipsPropagation() throws Exception {
+        title("unchanged tick skips propagation");
+        Project proj = new Project(LogisimFile.createNew(new Loader(null)));
+        Circuit circuit = new Circuit("main");
+        // low on ticks 0 and 1 of every 4, high on ticks 2 and 3
+        ClockSchedulerTest.addClock(circuit, Location.create(100, 100), 2, 2);
+        sim.setCircuitState(new CircuitState(proj, circuit));
+        sim.requestPropagate();
+        assertThat(next(), is(PROPAGATION));
+
+        // each tick's propagation is reported after the tick itself, and
+        // so is seen at the start of the next tick's events
+        List<String> rounds = new ArrayList<String>();
+        for (int t = 1; t <= 9; t++) {
+            rounds.add(tick().toString());
+        }
+        print(rounds);
+        // ticks 2, 4, 6 and 8 change the clock and propagate; the rest
+        // change nothing and do not
+        for (int t = 2; t <= 9; t++) {
+            boolean propagated = (t - 1) % 2 == 0;
+            String expected = propagated ? "[propagation, tick]" : "[tick]";
+            assertThat("after tick " + (t - 1), rounds.get(t - 1), is(expected));
+        }
+    }
+}
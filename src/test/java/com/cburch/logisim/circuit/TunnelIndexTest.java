@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.meowster.test.AbstractTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link TunnelIndex}.
+ */
+public class TunnelIndexTest extends AbstractTest {
+
+    private TunnelIndex index;
+    private int x;
+
+    @Before
+    public void setUp() {
+        index = new TunnelIndex();
+        x = 0;
+    }
+
+    // a tunnel with the given label, at a location of its own
+    private Component tunnel(String label) {
+        AttributeSet attrs = Tunnel.FACTORY.createAttributeSet();
+        attrs.setValue(StdAttr.LABEL, label);
+        x += 20;
+        return Tunnel.FACTORY.createComponent(Location.create(x, 10), attrs);
+    }
+
+    private boolean relabel(Component tunnel, String label) {
+        AttributeSet attrs = tunnel.getAttributeSet();
+        attrs.setValue(StdAttr.LABEL, label);
+        return index.relabel(attrs);
+    }
+
+    // the groups, each as the sorted locations of its tunnels, by label
+    private TreeMap<String, List<String>> groups() {
+        TreeMap<String, List<String>> ret = new TreeMap<String, List<String>>();
+        for (ArrayList<Component> group : index.getGroups()) {
+            List<String> locs = new ArrayList<String>();
+            Set<String> labels = new HashSet<String>();
+            for (Component tunnel : group) {
+                locs.add(tunnel.getLocation().toString());
+                labels.add(tunnel.getAttributeSet().getValue(StdAttr.LABEL).trim());
+            }
+            assertThat("one label per group " + labels, labels.size(), is(1));
+            Collections.sort(locs);
+            ret.put(labels.iterator().next(), locs);
+        }
+        print(ret);
+        return ret;
+    }
+
+    private static List<String> at(Component... tunnels) {
+        List<String> locs = new ArrayList<String>();
+        for (Component tunnel : tunnels) {
+            locs.add(tunnel.getLocation().toString());
+        }
+        Collections.sort(locs);
+        return locs;
+    }
+
+    @Test
+    public void addGroupsByTrimmedLabel() {
+        title("add groups by trimmed label");
+        Component a1 = tunnel("a");
+        Component a2 = tunnel(" a ");
+        Component b = tunnel("b");
+        Component blank = tunnel("  ");
+        index.add(a1);
+        index.add(a2);
+        index.add(b);
+        index.add(blank);
+        // adding a tunnel twice does not list it twice
+        index.add(a1);
+
+        TreeMap<String, List<String>> groups = groups();
+        assertThat(groups.size(), is(2));
+        assertThat(groups.get("a"), is(at(a1, a2)));
+        assertThat(groups.get("b"), is(at(b)));
+    }
+
+    @Test
+    public void remove() {
+        title("remove");
+        Component a1 = tunnel("a");
+        Component a2 = tunnel("a");
+        Component b = tunnel("b");
+        Component blank = tunnel("");
+        index.add(a1);
+        index.add(a2);
+        index.add(b);
+        index.add(blank);
+
+        index.remove(a1);
+        index.remove(blank);
+        assertThat(groups().get("a"), is(at(a2)));
+        // the last tunnel under a label takes its group with it
+        index.remove(b);
+        assertThat(groups().containsKey("b"), is(false));
+        // removing a tunnel not in the index changes nothing
+        index.remove(b);
+        index.remove(tunnel("a"));
+        assertThat(groups().get("a"), is(at(a2)));
+    }
+
+    @Test
+    public void relabelRegroups() {
+        title("relabel regroups");
+        Component a1 = tunnel("a");
+        Component a2 = tunnel("a");
+        Component b = tunnel("b");
+        index.add(a1);
+        index.add(a2);
+        index.add(b);
+
+        // leaving a tunnel behind and joining another
+        assertThat(relabel(a1, "b"), is(true));
+        TreeMap<String, List<String>> groups = groups();
+        assertThat(groups.get("a"), is(at(a2)));
+        assertThat(groups.get("b"), is(at(a1, b)));
+
+        // joining another, leaving nothing behind
+        assertThat(relabel(a2, "b"), is(true));
+        groups = groups();
+        assertThat(groups.containsKey("a"), is(false));
+        assertThat(groups.get("b"), is(at(a1, a2, b)));
+
+        // leaving others behind, joining nothing
+        assertThat(relabel(b, "c"), is(true));
+        groups = groups();
+        assertThat(groups.get("b"), is(at(a1, a2)));
+        assertThat(groups.get("c"), is(at(b)));
+    }
+
+    @Test
+    public void relabelAloneConnectsNothing() {
+        title("relabel alone connects nothing");
+        Component a = tunnel("a");
+        Component b = tunnel("b");
+        index.add(a);
+        index.add(b);
+
+        // alone under the old label and the new one
+        assertThat(relabel(a, "c"), is(false));
+        TreeMap<String, List<String>> groups = groups();
+        assertThat(groups.containsKey("a"), is(false));
+        assertThat(groups.get("c"), is(at(a)));
+        assertThat(groups.get("b"), is(at(b)));
+
+        // the same label once trimmed
+        assertThat(relabel(a, " c "), is(false));
+        assertThat(groups().get("c"), is(at(a)));
+    }
+
+    @Test
+    public void relabelBlank() {
+        title("relabel blank");
+        Component a = tunnel("a");
+        index.add(a);
+
+        // a tunnel alone still has a bundle, which a blank one does not
+        assertThat(relabel(a, ""), is(true));
+        assertThat(groups().isEmpty(), is(true));
+        assertThat(relabel(a, " "), is(false));
+        assertThat(relabel(a, "a"), is(true));
+        assertThat(groups().get("a"), is(at(a)));
+    }
+
+    @Test
+    public void relabelUnknown() {
+        title("relabel unknown");
+        Component a = tunnel("a");
+        index.add(a);
+        Component other = tunnel("a");
+        assertThat(relabel(other, "b"), is(false));
+        assertThat(groups().keySet(), is((Set<String>) new HashSet<String>(Arrays.asList("a"))));
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A transaction that adds or removes one component without collecting
+ * the change into a batch, so that the circuit's listeners hear a single
+ * {@link CircuitEvent#ACTION_ADD} or {@link CircuitEvent#ACTION_REMOVE}
+ * event, for tests of how listeners handle those events.
+ */
+public final class UnbatchedMutation extends CircuitTransaction {
+
+    private final Circuit circuit;
+    private final Component comp;
+    private final boolean add;
+
+    private UnbatchedMutation(Circuit circuit, Component comp, boolean add) {
+        this.circuit = circuit;
+        this.comp = comp;
+        this.add = add;
+    }
+
+    /** Adds the component to the circuit, firing ACTION_ADD. */
+    public static void add(Circuit circuit, Component comp) {
+        new UnbatchedMutation(circuit, comp, true).execute();
+    }
+
+    /** Removes the component from the circuit, firing ACTION_REMOVE. */
+    public static void remove(Circuit circuit, Component comp) {
+        new UnbatchedMutation(circuit, comp, false).execute();
+    }
+
+    @Override
+    protected Map<Circuit, Integer> getAccessedCircuits() {
+        return Collections.singletonMap(circuit, READ_WRITE);
+    }
+
+    @Override
+    protected void run(CircuitMutator mutator) {
+        if (add) {
+            circuit.mutatorAdd(comp);
+        } else {
+            circuit.mutatorRemove(comp);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *  Copyright (c) 2017, Simon Hunt et al.
+ *  License information is located in the com.cburch.logisim.Main source code.
+ */
+
+package com.cburch.logisim.data;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link AttributeIndex}.
+ */
+public class AttributeIndexTest extends AbstractAttributeTest {
+
+    private static final Attribute<String> ATTR3 = new TestAttribute("t3", "Attr-03");
+    private static final Attribute<String> ATTR4 = new TestAttribute("t4", "Attr-04");
+    private static final Attribute<String> ABSENT = new TestAttribute("t9", "Attr-09");
+
+    private AttributeIndex index;
+
+    @Test
+    public void basic() {
+        title("basic");
+        index = AttributeIndex.of(THING_ONE, THING_TWO, ATTR3, ATTR4);
+        print(index);
+        assertThat(index.size(), is(4));
+        assertThat(index.indexOf(THING_ONE), is(0));
+        assertThat(index.indexOf(THING_TWO), is(1));
+        assertThat(index.indexOf(ATTR3), is(2));
+        assertThat(index.indexOf(ATTR4), is(3));
+        assertThat(index.indexOf(ABSENT), is(-1));
+        assertThat(index.get(2), is(sameInstance((Object) ATTR3)));
+        assertThat(index.getAttributes().size(), is(4));
+        assertThat(index.getAttributes().get(3), is(sameInstance((Object) ATTR4)));
+    }
+
+    @Test
+    public void empty() {
+        title("empty");
+        index = AttributeIndex.of();
+        assertThat(index.size(), is(0));
+        assertThat(index.indexOf(THING_ONE), is(-1));
+        assertThat(index.getAttributes().isEmpty(), is(true));
+    }
+
+    @Test
+    public void duplicateMapsToFirstSlot() {
+        title("duplicate maps to first slot");
+        index = AttributeIndex.of(THING_ONE, THING_TWO, THING_ONE);
+        assertThat(index.size(), is(3));
+        assertThat(index.indexOf(THING_ONE), is(0));
+        assertThat(index.indexOf(THING_TWO), is(1));
+    }
+
+    @Test
+    public void sharedByFixedSets() {
+        title("shared by fixed sets");
+        index = AttributeIndex.of(THING_ONE, THING_TWO);
+        AttributeSet a = AttributeSets.fixedSet(index, new Object[] {"a", "b"});
+        AttributeSet b = AttributeSets.fixedSet(index, new Object[] {"c", "d"});
+        assertThat(a.getAttributes(), is(sameInstance(b.getAttributes())));
+        assertThat(a.getValue(THING_TWO), is(equalTo("b")));
+        assertThat(b.getValue(THING_TWO), is(equalTo("d")));
+        assertThat(a.getValue(ABSENT), is(equalTo(null)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void listIsUnmodifiable() {
+        index = AttributeIndex.of(THING_ONE);
+        index.getAttributes().clear();
+    }
+}
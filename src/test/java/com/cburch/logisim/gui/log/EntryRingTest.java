@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.gui.log;
+
+import com.meowster.test.AbstractTest;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link EntryRing}.
+ */
+public class EntryRingTest extends AbstractTest {
+
+    @Test
+    public void firstInFirstOut() {
+        title("first in first out");
+        EntryRing ring = new EntryRing(4);
+        Thread me = Thread.currentThread();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertThat(ring.offer(i, me), is(true));
+            }
+            for (int i = 0; i < 4; i++) {
+                assertThat(ring.poll(), is((Object) i));
+            }
+            assertThat(ring.poll(), is(nullValue()));
+            assertThat(ring.isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void closedRingDrops() {
+        title("closed ring drops");
+        EntryRing ring = new EntryRing(4);
+        ring.close();
+        assertThat(ring.offer("a", Thread.currentThread()), is(false));
+        assertThat(ring.isEmpty(), is(true));
+    }
+
+    @Test(timeout = 10000)
+    public void fullRingWithDeadConsumerDrops() throws InterruptedException {
+        title("full ring with dead consumer drops");
+        Thread consumer = new Thread(() -> { });
+        consumer.start();
+        consumer.join();
+
+        EntryRing ring = new EntryRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.offer(i, consumer), is(true));
+        }
+        assertThat(ring.offer(4, consumer), is(false));
+    }
+
+    @Test(timeout = 10000)
+    public void fullRingWaitsUntilClosed() throws InterruptedException {
+        title("full ring waits until closed");
+        EntryRing ring = new EntryRing(4);
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                // close at once
+            }
+            ring.close();
+        });
+        for (int i = 0; i < 4; i++) {
+            ring.offer(i, consumer);
+        }
+        consumer.start();
+        assertThat(ring.offer(4, consumer), is(false));
+        consumer.join();
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.gui.log;
+
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Value;
+import com.meowster.test.AbstractTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link ValueLog}.
+ */
+public class ValueLogTest extends AbstractTest {
+
+    private static final BitWidth BYTE = BitWidth.create(8);
+    private static final BitWidth WORD = BitWidth.create(16);
+
+    // counts the segments spilled
+    private static class CountingSpill extends SpillFile {
+        int spills = 0;
+
+        @Override
+        synchronized IntBuffer spill(int[] ints, int len) {
+            spills++;
+            return super.spill(ints, len);
+        }
+    }
+
+    private CountingSpill spill;
+    private ValueLog log;
+    private List<Value> expected;
+
+    @Before
+    public void setUp() {
+        spill = new CountingSpill();
+        log = new ValueLog(spill);
+        expected = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        log.close();
+        spill.close();
+    }
+
+    private void append(Value val) {
+        log.append(val);
+        expected.add(val);
+    }
+
+    private void verifyInOrder() {
+        assertThat(log.size(), is(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat("at " + i, log.get(i), is(expected.get(i)));
+        }
+    }
+
+    @Test
+    public void empty() {
+        title("empty");
+        assertThat(log.size(), is(0));
+        assertThat(log.getLast(), is(nullValue()));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void pastTheEnd() {
+        title("past the end");
+        append(Value.TRUE);
+        log.get(1);
+    }
+
+    @Test
+    public void mixedValues() {
+        title("mixed values");
+        append(null);
+        append(Value.createKnown(BYTE, 3));
+        append(Value.createKnown(BYTE, 3));
+        append(Value.createUnknown(BYTE));
+        append(Value.createError(BYTE));
+        append(Value.create(8, 0x0f, 0, 0x30));
+        append(Value.create(8, 0, 0xf0, 0x05));
+        append(Value.TRUE);
+        append(Value.FALSE);
+        append(null);
+        append(Value.createKnown(BitWidth.create(32), -1));
+        append(Value.createKnown(BitWidth.create(32), 0x7fffffff));
+        verifyInOrder();
+        assertThat(log.getLast(), is(expected.get(expected.size() - 1)));
+    }
+
+    @Test
+    public void longRuns() {
+        title("long runs");
+        for (int i = 0; i < 10000; i++) {
+            append(Value.createKnown(BYTE, 7));
+        }
+        // counting up, and wrapping round the width
+        for (int i = 0; i < 1000; i++) {
+            append(Value.createKnown(BYTE, i));
+        }
+        // counting down
+        for (int i = 0; i < 1000; i++) {
+            append(Value.createKnown(WORD, 5000 - 3 * i));
+        }
+        for (int i = 0; i < 10000; i++) {
+            append(Value.createUnknown(WORD));
+        }
+        for (int i = 0; i < 10000; i++) {
+            append(null);
+        }
+        verifyInOrder();
+        assertThat(spill.spills, is(0));
+    }
+
+    @Test
+    public void spillAndReadBack() {
+        title("spill and read back");
+        Random random = new Random(42);
+        int count = 3 * ValueLog.SEGMENT_INTS;
+        for (int i = 0; i < count; i++) {
+            switch (random.nextInt(8)) {
+                case 0:
+                    append(Value.createError(WORD));
+                    break;
+                case 1:
+                    append(null);
+                    break;
+                default:
+                    append(Value.createKnown(WORD, random.nextInt(1 << 16)));
+            }
+        }
+        assertThat(spill.spills > 1, is(true));
+        verifyInOrder();
+    }
+
+    @Test
+    public void randomAccess() {
+        title("random access");
+        Random random = new Random(7);
+        for (int i = 0; i < 2 * ValueLog.SEGMENT_INTS; i++) {
+            if (random.nextInt(4) == 0) {
+                // a short run of one value
+                Value val = Value.createKnown(BYTE, random.nextInt(256));
+                for (int j = random.nextInt(5); j >= 0; j--) {
+                    append(val);
+                }
+            } else {
+                append(Value.createKnown(WORD, random.nextInt(1 << 16)));
+            }
+        }
+        assertThat(spill.spills > 0, is(true));
+
+        for (int i = 0; i < 10000; i++) {
+            int index = random.nextInt(expected.size());
+            assertThat("at " + index, log.get(index), is(expected.get(index)));
+        }
+        // backwards, which the cursor cannot follow
+        for (int i = expected.size() - 1; i >= 0; i -= 97) {
+            assertThat("at " + i, log.get(i), is(expected.get(i)));
+        }
+    }
+
+    @Test
+    public void closeForgets() {
+        title("close forgets");
+        for (int i = 0; i < 100; i++) {
+            append(Value.createKnown(BYTE, i * i));
+        }
+        log.close();
+        assertThat(log.size(), is(0));
+        assertThat(log.getLast(), is(nullValue()));
+
+        expected.clear();
+        append(Value.TRUE);
+        verifyInOrder();
+    }
+
+    @Test
+    public void logsShareSpill() {
+        title("logs share spill");
+        ValueLog other = new ValueLog(spill);
+        Random random = new Random(3);
+        List<Value> otherExpected = new ArrayList<>();
+        for (int i = 0; i < 2 * ValueLog.SEGMENT_INTS; i++) {
+            append(Value.createKnown(WORD, random.nextInt(1 << 16)));
+            Value val = Value.createKnown(WORD, random.nextInt(1 << 16));
+            other.append(val);
+            otherExpected.add(val);
+        }
+        assertThat(spill.spills > 1, is(true));
+        verifyInOrder();
+        for (int i = 0; i < otherExpected.size(); i++) {
+            assertThat("at " + i, other.get(i), is(otherExpected.get(i)));
+        }
+        other.close();
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.gui.main;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitMutation;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.UnbatchedMutation;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import com.meowster.test.AbstractTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link SimulationTreeCircuitNode}: the children it lists,
+ * and the insertions and removals it reports as the circuit changes.
+ */
+public class SimulationTreeCircuitNodeTest extends AbstractTest {
+
+    // a child for a pin, named by the pin's label
+    private static class PinNode extends SimulationTreeNode {
+        private final TreeNode parent;
+        private final Component pin;
+
+        PinNode(TreeNode parent, Component pin) {
+            this.parent = parent;
+            this.pin = pin;
+        }
+
+        @Override
+        public ComponentFactory getComponentFactory() {
+            return pin.getFactory();
+        }
+
+        @Override
+        public Enumeration<?> children() {
+            return Collections.emptyEnumeration();
+        }
+
+        @Override
+        public boolean getAllowsChildren() {
+            return false;
+        }
+
+        @Override
+        public TreeNode getChildAt(int childIndex) {
+            return null;
+        }
+
+        @Override
+        public int getChildCount() {
+            return 0;
+        }
+
+        @Override
+        public int getIndex(TreeNode node) {
+            return -1;
+        }
+
+        @Override
+        public TreeNode getParent() {
+            return parent;
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return pin.getAttributeSet().getValue(StdAttr.LABEL);
+        }
+    }
+
+    // records the insertions and removals the model reports
+    private static class Recorder implements TreeModelListener {
+        private final List<String> events = new ArrayList<String>();
+
+        private void record(String kind, TreeModelEvent e) {
+            List<String> names = new ArrayList<String>();
+            for (Object child : e.getChildren()) {
+                names.add(child.toString());
+            }
+            events.add(kind + Arrays.toString(e.getChildIndices()) + names);
+        }
+
+        @Override
+        public void treeNodesChanged(TreeModelEvent e) { }
+
+        @Override
+        public void treeNodesInserted(TreeModelEvent e) {
+            record("inserted", e);
+        }
+
+        @Override
+        public void treeNodesRemoved(TreeModelEvent e) {
+            record("removed", e);
+        }
+
+        @Override
+        public void treeStructureChanged(TreeModelEvent e) { }
+    }
+
+    private Circuit circuit;
+    private Circuit sub;
+    private SimulationTreeModel model;
+    private TreeNode root;
+    private Recorder recorder;
+    private int x;
+
+    @Before
+    public void setUp() {
+        circuit = new Circuit("main");
+        sub = new Circuit("sub");
+        model = new SimulationTreeModel(new CircuitState(null, circuit)) {
+            @Override
+            protected SimulationTreeNode mapComponentToNode(Component comp) {
+                if (comp.getFactory() instanceof Pin) {
+                    return new PinNode(root, comp);
+                }
+                return null;
+            }
+        };
+        root = (TreeNode) model.getRoot();
+        recorder = new Recorder();
+        model.addTreeModelListener(recorder);
+        // subcircuits of a kind sort by the text of their locations, so
+        // every x has three digits
+        x = 100;
+    }
+
+    // a pin labelled name, at a location of its own
+    private Component pin(String name) {
+        AttributeSet attrs = Pin.FACTORY.createAttributeSet();
+        attrs.setValue(StdAttr.LABEL, name);
+        x += 40;
+        return Pin.FACTORY.createComponent(Location.create(x, 100), attrs);
+    }
+
+    // an instance of the subcircuit, at a location of its own
+    private Component subcircuit() {
+        ComponentFactory factory = sub.getSubcircuitFactory();
+        x += 40;
+        return factory.createComponent(Location.create(x, 300),
+                factory.createAttributeSet());
+    }
+
+    private void addAll(Component... comps) {
+        CircuitMutation xn = new CircuitMutation(circuit);
+        xn.addAll(Arrays.asList(comps));
+        xn.execute();
+    }
+
+    private List<String> children() {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < root.getChildCount(); i++) {
+            names.add(root.getChildAt(i).toString());
+        }
+        return names;
+    }
+
+    private void assertEvents(String... expected) {
+        print(recorder.events);
+        assertThat(recorder.events, is(Arrays.asList(expected)));
+        recorder.events.clear();
+    }
+
+    @Test
+    public void listedInOrder() {
+        title("listed in order");
+        Component s = subcircuit();
+        addAll(pin("c"), s, pin("A"), pin("b"));
+        // nothing was listed, so nothing was reported
+        assertEvents();
+
+        print(children());
+        assertThat(children(), is(Arrays.asList("A", "b", "c",
+                "sub" + s.getLocation())));
+    }
+
+    @Test
+    public void addInPlace() {
+        title("add in place");
+        Component s = subcircuit();
+        addAll(pin("a"), pin("c"), s);
+        children();
+
+        UnbatchedMutation.add(circuit, pin("b"));
+        assertEvents("inserted[1][b]");
+        UnbatchedMutation.add(circuit, pin("d"));
+        assertEvents("inserted[3][d]");
+        Component s2 = subcircuit();
+        UnbatchedMutation.add(circuit, s2);
+        assertEvents("inserted[5][sub" + s2.getLocation() + "]");
+        assertThat(children(), is(Arrays.asList("a", "b", "c", "d",
+                "sub" + s.getLocation(), "sub" + s2.getLocation())));
+    }
+
+    @Test
+    public void removeInPlace() {
+        title("remove in place");
+        Component b = pin("b");
+        Component s = subcircuit();
+        addAll(pin("a"), b, pin("c"), s);
+        children();
+
+        UnbatchedMutation.remove(circuit, b);
+        assertEvents("removed[1][b]");
+        UnbatchedMutation.remove(circuit, s);
+        assertEvents("removed[2][sub" + s.getLocation() + "]");
+        assertThat(children(), is(Arrays.asList("a", "c")));
+    }
+
+    @Test
+    public void batch() {
+        title("batch");
+        Component a = pin("a");
+        Component c = pin("c");
+        Component e = pin("e");
+        addAll(a, c, e);
+        children();
+
+        CircuitMutation xn = new CircuitMutation(circuit);
+        xn.removeAll(Arrays.asList(a, e));
+        xn.addAll(Arrays.asList(pin("f"), pin("b"), pin("d")));
+        xn.execute();
+        // the removals at their old indices, then the insertions at their
+        // new ones, each in increasing order
+        assertEvents("removed[0, 2][a, e]", "inserted[0, 2, 3][b, d, f]");
+        assertThat(children(), is(Arrays.asList("b", "c", "d", "f")));
+    }
+
+    @Test
+    public void clear() {
+        title("clear");
+        addAll(pin("b"), subcircuit(), pin("a"));
+        children();
+
+        CircuitMutation xn = new CircuitMutation(circuit);
+        xn.clear();
+        xn.execute();
+        assertThat(recorder.events.size(), is(1));
+        assertThat(recorder.events.get(0).startsWith("removed[0, 1, 2]"), is(true));
+        assertThat(children().isEmpty(), is(true));
+    }
+
+    @Test
+    public void unlistedIgnored() {
+        title("unlisted ignored");
+        Component b = pin("b");
+        addAll(pin("a"), b);
+        UnbatchedMutation.remove(circuit, b);
+        UnbatchedMutation.add(circuit, pin("c"));
+        assertEvents();
+        assertThat(children(), is(Arrays.asList("a", "c")));
+    }
+}
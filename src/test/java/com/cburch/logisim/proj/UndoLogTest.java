@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.proj;
+
+import com.meowster.test.AbstractTest;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link UndoLog}.
+ */
+public class UndoLogTest extends AbstractTest {
+
+    // an action whose size may change after it is logged
+    private static class SizedAction extends Action {
+        int size;
+
+        SizedAction(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int getEstimatedSize() {
+            return size;
+        }
+
+        @Override
+        public String getName() {
+            return "sized";
+        }
+
+        @Override
+        public void doIt(Project proj) {
+        }
+
+        @Override
+        public void undo(Project proj) {
+        }
+    }
+
+    private static Project.ActionData entry(int size) {
+        return new Project.ActionData(null, new SizedAction(size));
+    }
+
+    @Test
+    public void empty() {
+        title("empty");
+        UndoLog log = new UndoLog();
+        assertThat(log.isEmpty(), is(true));
+        assertThat(log.getEstimatedSize(), is(0L));
+        assertThat(log.trim(0), is(0));
+    }
+
+    @Test
+    public void movingBetweenLogs() {
+        title("moving between logs");
+        UndoLog undo = new UndoLog();
+        UndoLog redo = new UndoLog();
+        Project.ActionData a = entry(100);
+        Project.ActionData b = entry(200);
+        undo.addLast(a);
+        undo.addLast(b);
+        long both = undo.getEstimatedSize();
+        long overhead = (both - 300) / 2;
+
+        // b grows while it is undone
+        Project.ActionData moved = undo.removeLast();
+        ((SizedAction) moved.action).size = 1000;
+        redo.addLast(moved);
+        assertThat(moved, is(sameInstance(b)));
+        assertThat(undo.getEstimatedSize(), is(100 + overhead));
+        assertThat(redo.getEstimatedSize(), is(1000 + overhead));
+
+        undo.addLast(redo.removeLast());
+        assertThat(redo.getEstimatedSize(), is(0L));
+        assertThat(undo.getEstimatedSize(), is(both + 800));
+
+        undo.removeLast();
+        undo.removeLast();
+        assertThat(undo.getEstimatedSize(), is(0L));
+    }
+
+    @Test
+    public void trimDropsOldest() {
+        title("trim drops oldest");
+        UndoLog log = new UndoLog();
+        Project.ActionData first = entry(100);
+        Project.ActionData second = entry(100);
+        Project.ActionData third = entry(100);
+        log.addLast(first);
+        log.addLast(second);
+        log.addLast(third);
+        long each = log.getEstimatedSize() / 3;
+
+        assertThat(log.trim(3 * each), is(0));
+        assertThat(log.trim(2 * each), is(1));
+        assertThat(log.size(), is(2));
+        assertThat(log.getEstimatedSize(), is(2 * each));
+
+        // the newest is re-measured, and kept however large
+        ((SizedAction) third.action).size = 10000;
+        assertThat(log.trim(2 * each), is(1));
+        assertThat(log.getLast(), is(sameInstance(third)));
+        assertThat(log.getEstimatedSize(), is(each + 9900));
+    }
+}
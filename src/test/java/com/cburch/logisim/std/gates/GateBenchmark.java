@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.std.gates;
+
+import com.cburch.logisim.data.Attribute;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.InstanceData;
+import com.cburch.logisim.instance.InstanceFactory;
+import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A repeatable benchmark of gate evaluation: each kind of gate, at a few
+ * widths, is evaluated over the same random inputs for a number of timed
+ * passes, after a pass to warm up, and the median time and the bytes
+ * allocated per evaluation are printed. Run it with
+ * {@code gradle gateBenchmark}, or with this class's main, whose optional
+ * argument is the number of timed passes.
+ */
+public class GateBenchmark {
+
+    private static final int INPUT_SETS = 256;
+    private static final int ROUNDS = 2000;
+    private static final int DEFAULT_PASSES = 5;
+
+    private static final String[] NAMES = {
+            "and", "or", "xor", "odd parity", "buffer"
+    };
+    private static final InstanceFactory[] FACTORIES = {
+            AndGate.FACTORY, OrGate.FACTORY, XorGate.FACTORY,
+            OddParityGate.FACTORY, Buffer.FACTORY
+    };
+    private static final int[] WIDTHS = { 1, 8, 32 };
+
+    // keeps the outputs from being optimized away
+    private static volatile int sink;
+
+    // the state of one gate whose inputs are all connected
+    private static class BenchState implements InstanceState {
+        private final Project proj;
+        private final InstanceFactory factory;
+        private final AttributeSet attrs;
+        private Value[] inputs;
+        private Value output;
+
+        BenchState(Project proj, InstanceFactory factory, AttributeSet attrs) {
+            this.proj = proj;
+            this.factory = factory;
+            this.attrs = attrs;
+        }
+
+        @Override
+        public Instance getInstance() {
+            return null;
+        }
+
+        @Override
+        public InstanceFactory getFactory() {
+            return factory;
+        }
+
+        @Override
+        public Project getProject() {
+            return proj;
+        }
+
+        @Override
+        public AttributeSet getAttributeSet() {
+            return attrs;
+        }
+
+        @Override
+        public <E> E getAttributeValue(Attribute<E> attr) {
+            return attrs.getValue(attr);
+        }
+
+        @Override
+        public Object getAttributeSnapshot() {
+            return attrs;
+        }
+
+        @Override
+        public Value getPort(int portIndex) {
+            return portIndex == 0 ? output : inputs[portIndex - 1];
+        }
+
+        @Override
+        public boolean isPortConnected(int portIndex) {
+            return true;
+        }
+
+        @Override
+        public void setPort(int portIndex, Value value, int delay) {
+            output = value;
+        }
+
+        @Override
+        public InstanceData getData() {
+            return null;
+        }
+
+        @Override
+        public void setData(InstanceData value) {
+        }
+
+        @Override
+        public void fireInvalidated() {
+        }
+
+        @Override
+        public boolean isCircuitRoot() {
+            return true;
+        }
+
+        @Override
+        public long getTickCount() {
+            return 0;
+        }
+    }
+
+    // a value with mostly known bits
+    private static Value randomValue(Random random, int width) {
+        int bad = random.nextInt() & random.nextInt() & random.nextInt();
+        return Value.create(width, bad & random.nextInt(), bad, random.nextInt());
+    }
+
+    // returns the nanoseconds and bytes per evaluation of one pass
+    private static double[] pass(BenchState state, Value[][] sets,
+            ThreadMXBean threads) {
+        InstanceFactory factory = state.getFactory();
+        long bytes = allocatedBytes(threads);
+        long start = System.nanoTime();
+        int hashes = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            for (Value[] inputs : sets) {
+                state.inputs = inputs;
+                factory.propagate(state);
+                hashes += state.output.hashCode();
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        bytes = allocatedBytes(threads) - bytes;
+        sink = hashes;
+        double evals = (double) ROUNDS * sets.length;
+        return new double[] { nanos / evals, bytes / evals };
+    }
+
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    public static void main(String[] args) {
+        int passes = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PASSES;
+        Project proj = new Project(LogisimFile.createNew(new Loader(null)));
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Random random = new Random(1);
+
+        System.out.printf("%-11s %5s %10s %10s%n", "gate", "width",
+                "ns/eval", "bytes/eval");
+        for (int g = 0; g < FACTORIES.length; g++) {
+            InstanceFactory factory = FACTORIES[g];
+            for (int width : WIDTHS) {
+                AttributeSet attrs = factory.createAttributeSet();
+                attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+                int numInputs = attrs.containsAttribute(GateAttributes.ATTR_INPUTS)
+                    ? attrs.getValue(GateAttributes.ATTR_INPUTS) : 1;
+                Value[][] sets = new Value[INPUT_SETS][numInputs];
+                for (Value[] inputs : sets) {
+                    for (int i = 0; i < numInputs; i++) {
+                        inputs[i] = randomValue(random, width);
+                    }
+                }
+
+                BenchState state = new BenchState(proj, factory, attrs);
+                pass(state, sets, threads);
+                double[] nanos = new double[passes];
+                double bytes = 0;
+                for (int p = 0; p < passes; p++) {
+                    double[] result = pass(state, sets, threads);
+                    nanos[p] = result[0];
+                    bytes = Math.max(bytes, result[1]);
+                }
+                Arrays.sort(nanos);
+                System.out.printf("%-11s %5d %10.1f %10.1f%n", NAMES[g], width,
+                        nanos[passes / 2], bytes);
+            }
+        }
+        System.exit(0);
+    }
+}
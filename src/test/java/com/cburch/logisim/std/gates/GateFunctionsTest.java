@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.std.gates;
+
+import com.cburch.logisim.data.Value;
+import com.meowster.test.AbstractTest;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for the word-level evaluation in {@link GateFunctions}, which
+ * must agree with folding the inputs a value at a time.
+ */
+public class GateFunctionsTest extends AbstractTest {
+
+    private static final int[] FUNCTIONS = {
+            GateFunctions.AND, GateFunctions.OR,
+            GateFunctions.ODD_PARITY, GateFunctions.EXACTLY_ONE
+    };
+
+    private static final int INPUT_SETS = 256;
+
+    // a value with mostly known bits
+    private Value randomValue(Random random, int width) {
+        int bad = random.nextInt() & random.nextInt() & random.nextInt();
+        return Value.create(width, bad & random.nextInt(), bad, random.nextInt());
+    }
+
+    private Value[][] randomInputs(Random random, int width, int numInputs) {
+        Value[][] ret = new Value[INPUT_SETS][numInputs];
+        for (Value[] inputs : ret) {
+            for (int i = 0; i < numInputs; i++) {
+                inputs[i] = randomValue(random, width);
+            }
+        }
+        return ret;
+    }
+
+    private Value fold(int function, Value[] inputs, int numInputs) {
+        switch (function) {
+        case GateFunctions.AND:
+            return GateFunctions.computeAnd(inputs, numInputs);
+        case GateFunctions.OR:
+            return GateFunctions.computeOr(inputs, numInputs);
+        case GateFunctions.ODD_PARITY:
+            return GateFunctions.computeOddParity(inputs, numInputs);
+        default:
+            return GateFunctions.computeExactlyOne(inputs, numInputs);
+        }
+    }
+
+    // used again for every computation, as AbstractGate does
+    private final GateFunctions.Word word = new GateFunctions.Word();
+
+    private Value word(int function, int width, Value[] inputs, int numInputs,
+            int negated) {
+        word.clear();
+        for (int i = 0; i < numInputs; i++) {
+            word.add(inputs[i], ((negated >> i) & 1) == 1);
+        }
+        assertThat(word.getCount(), is(numInputs));
+        return word.compute(function, width);
+    }
+
+    @Test
+    public void wordMatchesFold() {
+        title("word matches fold");
+        Random random = new Random(1);
+        for (int width : new int[] { 1, 2, 7, 31, 32 }) {
+            for (int numInputs = 1; numInputs <= 5; numInputs++) {
+                for (Value[] inputs : randomInputs(random, width, numInputs)) {
+                    for (int function : FUNCTIONS) {
+                        Value expected = fold(function, inputs, numInputs);
+                        assertThat(word(function, width, inputs, numInputs, 0),
+                                is(sameInstance(expected)));
+                        assertThat(word(function | GateFunctions.NEGATED,
+                                width, inputs, numInputs, 0),
+                                is(sameInstance(expected.not())));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void negatedInputs() {
+        title("negated inputs");
+        Random random = new Random(3);
+        for (int width : new int[] { 1, 3, 32 }) {
+            for (int numInputs = 1; numInputs <= 4; numInputs++) {
+                for (Value[] inputs : randomInputs(random, width, numInputs)) {
+                    int negated = random.nextInt(1 << numInputs);
+                    Value[] folded = new Value[numInputs];
+                    for (int i = 0; i < numInputs; i++) {
+                        folded[i] = ((negated >> i) & 1) == 1
+                                ? inputs[i].not() : inputs[i];
+                    }
+                    for (int function : FUNCTIONS) {
+                        assertThat(word(function, width, inputs, numInputs,
+                                negated),
+                                is(fold(function, folded, numInputs)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void loneInput() {
+        title("lone input");
+        Value[] inputs = { Value.create(8, 0x01, 0x02, 0xf0) };
+        for (int function : FUNCTIONS) {
+            Value out = word(function, 8, inputs, 1, 0);
+            if (GateFunctions.passesLoneInput(function)) {
+                assertThat(out, is(sameInstance(inputs[0])));
+            } else {
+                assertThat(out,
+                        is(GateFunctions.computeExactlyOne(inputs, 1)));
+            }
+            assertThat(word(function, 8, inputs, 1, 1),
+                    is(fold(function, new Value[] { inputs[0].not() }, 1)));
+        }
+    }
+
+    @Test
+    public void pullOutput() {
+        title("pull output");
+        Random random = new Random(2);
+        for (int width : new int[] { 1, 5, 32 }) {
+            for (int k = 0; k < 100; k++) {
+                Value value = randomValue(random, width);
+                Value up = AbstractGate.pullOutput(value, GateAttributes.OUTPUT_0Z);
+                Value down = AbstractGate.pullOutput(value, GateAttributes.OUTPUT_Z1);
+                assertThat(AbstractGate.pullOutput(value, GateAttributes.OUTPUT_01),
+                        is(sameInstance(value)));
+                for (int i = 0; i < width; i++) {
+                    Value bit = value.get(i);
+                    assertThat(up.get(i), is(bit == Value.TRUE ? Value.UNKNOWN : bit));
+                    assertThat(down.get(i), is(bit == Value.FALSE ? Value.UNKNOWN : bit));
+                }
+            }
+        }
+    }
+}
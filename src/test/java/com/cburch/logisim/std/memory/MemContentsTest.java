@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.std.memory;
+
+import com.cburch.hex.HexModel;
+import com.cburch.hex.HexModelListener;
+import com.cburch.logisim.circuit.InvalidationBatch;
+import com.meowster.test.AbstractTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link MemContents}.
+ */
+public class MemContentsTest extends AbstractTest {
+
+    private static class Recorder implements HexModelListener {
+        final List<long[]> changes = new ArrayList<>();
+        final List<int[]> oldValues = new ArrayList<>();
+
+        @Override
+        public void metainfoChanged(HexModel source) {
+        }
+
+        @Override
+        public void bytesChanged(HexModel source, long start, long numBytes,
+                                 int[] oldValues) {
+            changes.add(new long[]{start, numBytes});
+            this.oldValues.add(oldValues);
+        }
+    }
+
+    @Test
+    public void storeAndReset() {
+        title("store and reset");
+        MemContents mem = MemContents.create(16, 8);
+        assertThat(mem.store(5, 0), is(false));
+        assertThat(mem.isClear(), is(true));
+        assertThat(mem.store(5, 0x1ff), is(true));
+        assertThat(mem.get(5), is(0xff));
+        assertThat(mem.store(5, 0xff), is(false));
+        assertThat(mem.store(0x9000, 3), is(true));
+        assertThat(mem.isClear(), is(false));
+
+        assertThat(mem.reset(), is(true));
+        assertThat(mem.isClear(), is(true));
+        assertThat(mem.get(5), is(0));
+        assertThat(mem.get(0x9000), is(0));
+        assertThat(mem.reset(), is(false));
+    }
+
+    @Test
+    public void storesAreBatched() {
+        title("stores are batched");
+        MemContents mem = MemContents.create(12, 16);
+        Recorder recorder = new Recorder();
+        mem.addHexModelListener(recorder);
+
+        InvalidationBatch batch = new InvalidationBatch();
+        batch.runBatched(() -> {
+            for (int i = 0; i < 100; i++) {
+                mem.store(10 + i, i + 1);
+            }
+            assertThat(recorder.changes.size(), is(0));
+        });
+        assertThat(recorder.changes.size(), is(1));
+        assertThat(recorder.changes.get(0)[0], is(10L));
+        assertThat(recorder.changes.get(0)[1], is(100L));
+        assertThat(recorder.oldValues.get(0), is(nullValue()));
+
+        batch.runBatched(() -> {
+            mem.reset();
+            mem.reset();
+        });
+        assertThat(recorder.changes.size(), is(2));
+        assertThat(recorder.changes.get(1)[1], is(4096L));
+    }
+
+    @Test
+    public void storesOutsideBatchAreToldAtOnce() {
+        title("stores outside batch are told at once");
+        MemContents mem = MemContents.create(8, 8);
+        Recorder recorder = new Recorder();
+        mem.addHexModelListener(recorder);
+
+        mem.store(1, 1);
+        assertThat(recorder.changes.size(), is(1));
+        mem.store(2, 1);
+        assertThat(recorder.changes.size(), is(2));
+        assertThat(recorder.changes.get(1)[0], is(2L));
+    }
+
+    @Test
+    public void setReportsOldValues() {
+        title("set reports old values");
+        MemContents mem = MemContents.create(8, 8);
+        Recorder recorder = new Recorder();
+        mem.addHexModelListener(recorder);
+
+        mem.set(3, 7);
+        mem.set(3, 9);
+        assertThat(recorder.changes.size(), is(2));
+        assertThat(recorder.oldValues.get(1)[0], is(7));
+
+        mem.clear();
+        assertThat(recorder.changes.size(), is(3));
+        assertThat(recorder.oldValues.get(2)[3], is(9));
+        assertThat(mem.isClear(), is(true));
+
+        mem.removeHexModelListener(recorder);
+        mem.set(3, 1);
+        mem.store(4, 1);
+        assertThat(recorder.changes.size(), is(3));
+    }
+}
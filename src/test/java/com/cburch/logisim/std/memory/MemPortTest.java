@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.std.memory;
+
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Value;
+import com.meowster.test.AbstractTest;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link MemPort}.
+ */
+public class MemPortTest extends AbstractTest {
+
+    private static final BitWidth BYTE = BitWidth.create(8);
+
+    @Test
+    public void toAddress() {
+        title("to address");
+        assertThat(MemPort.toAddress(Value.createKnown(BYTE, 0x5a)), is(0x5aL));
+        assertThat(MemPort.toAddress(Value.createKnown(BitWidth.create(32), -1)),
+                is(0xffffffffL));
+        assertThat(MemPort.toAddress(Value.createUnknown(BYTE)), is(-1L));
+        assertThat(MemPort.toAddress(Value.create(8, 0x01, 0, 0)), is(-1L));
+        assertThat(MemPort.toAddress(Value.create(8, 0, 0x80, 0)), is(-1L));
+    }
+
+    @Test
+    public void readAndWrite() {
+        title("read and write");
+        MemState state = new MemState(MemContents.create(8, 8));
+        MemPort port = state.getPort();
+        assertThat(port.read(3, BYTE), is(Value.createKnown(BYTE, 0)));
+        assertThat(port.write(3, 0x42), is(true));
+        assertThat(port.write(3, 0x42), is(false));
+        assertThat(port.read(3, BYTE), is(Value.createKnown(BYTE, 0x42)));
+        assertThat(state.getContents().get(3), is(0x42));
+    }
+
+    @Test
+    public void selectAndDeselect() {
+        title("select and deselect");
+        MemState state = new MemState(MemContents.create(8, 8));
+        MemPort port = state.getPort();
+        port.select(17);
+        assertThat(state.getCurrent(), is(17L));
+        port.deselect();
+        assertThat(state.getCurrent(), is(-1L));
+        // past the end of the memory
+        port.select(256);
+        assertThat(state.getCurrent(), is(-1L));
+    }
+
+    @Test
+    public void clear() {
+        title("clear");
+        MemState state = new MemState(MemContents.create(8, 8));
+        MemPort port = state.getPort();
+        assertThat(port.clear(), is(false));
+        port.write(200, 9);
+        assertThat(port.clear(), is(true));
+        assertThat(port.read(200, BYTE), is(Value.createKnown(BYTE, 0)));
+    }
+
+    @Test
+    public void clonesHaveTheirOwnPort() {
+        title("clones have their own port");
+        MemState state = new MemState(MemContents.create(8, 8));
+        state.getPort().write(1, 5);
+        MemState copy = state.clone();
+        copy.getPort().write(1, 6);
+        assertThat(state.getPort().read(1, BYTE), is(Value.createKnown(BYTE, 5)));
+        assertThat(copy.getPort().read(1, BYTE), is(Value.createKnown(BYTE, 6)));
+    }
+}
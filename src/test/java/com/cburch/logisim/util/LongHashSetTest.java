@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017, Simon Hunt et al.
+ * License information is located in the com.cburch.logisim.Main source code.
+ */
+package com.cburch.logisim.util;
+
+import com.meowster.test.AbstractTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link LongHashSet}.
+ */
+public class LongHashSetTest extends AbstractTest {
+
+    private LongHashSet set;
+
+    @Before
+    public void setUp() {
+        set = new LongHashSet();
+    }
+
+    @Test
+    public void basic() {
+        title("basic");
+        print(set);
+        assertThat(set.isEmpty(), is(true));
+        assertThat(set.contains(0L), is(false));
+
+        assertThat(set.add(0L), is(true));
+        assertThat(set.add(0L), is(false));
+        assertThat(set.add(-7L), is(true));
+        assertThat(set.add(Long.MAX_VALUE), is(true));
+        print(set);
+
+        assertThat(set.size(), is(3));
+        assertThat(set.contains(0L), is(true));
+        assertThat(set.contains(-7L), is(true));
+        assertThat(set.contains(Long.MAX_VALUE), is(true));
+        assertThat(set.contains(7L), is(false));
+    }
+
+    @Test
+    public void grows() {
+        title("grows");
+        assertThat(set.capacity(), is(16));
+        for (long k = 0; k < 1000; k++) {
+            set.add(k << 32);
+        }
+        print(set);
+        assertThat(set.size(), is(1000));
+        assertThat(set.capacity(), is(2048));
+        for (long k = 0; k < 1000; k++) {
+            assertThat(set.contains(k << 32), is(true));
+            assertThat(set.contains((k << 32) + 1), is(false));
+        }
+    }
+
+    @Test
+    public void presized() {
+        title("presized");
+        set = new LongHashSet(100);
+        print(set);
+        assertThat(set.capacity(), is(256));
+    }
+
+    @Test
+    public void clearRetainsCapacity() {
+        title("clear retains capacity");
+        for (long k = 0; k < 100; k++) {
+            set.add(k);
+        }
+        int cap = set.capacity();
+        set.clear();
+        assertThat(set.isEmpty(), is(true));
+        assertThat(set.contains(5L), is(false));
+        assertThat(set.capacity(), is(cap));
+    }
+
+    @Test
+    public void toArray() {
+        title("to array");
+        set.add(3L);
+        set.add(1L);
+        set.add(2L);
+        long[] keys = set.toArray();
+        Arrays.sort(keys);
+        assertThat(keys, is(equalTo(new long[] { 1L, 2L, 3L })));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeCapacity() {
+        set = new LongHashSet(-1);
+    }
+}